@@ -0,0 +1,63 @@
+package com.expenseshare.bench;
+
+import com.expenseshare.dto.BalanceDTO;
+import com.expenseshare.model.User;
+import com.expenseshare.service.BalanceCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Net-balance accumulation and debt simplification over synthetic groups.
+ * Mirrors BalanceService.calculateGroupBalances without the database round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BalanceBenchmark {
+
+    @Param({"3", "50", "5000"})
+    public int members;
+
+    @Param({"10", "10000", "1000000"})
+    public int expenses;
+
+    @Param({"42"})
+    public long seed;
+
+    private SyntheticLedger ledger;
+    private Map<Long, BigDecimal> netBalances;
+    private Map<Long, User> userMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledger = SyntheticLedger.generate(members, expenses, seed);
+        userMap = new HashMap<>();
+        netBalances = BalanceCalculator.netBalances(ledger.getExpenses(), ledger.getSettlements(), userMap);
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> accumulate() {
+        return BalanceCalculator.netBalances(ledger.getExpenses(), ledger.getSettlements(), new HashMap<>());
+    }
+
+    @Benchmark
+    public List<BalanceDTO> simplify() {
+        return BalanceCalculator.simplifyDebts(netBalances, userMap);
+    }
+
+    @Benchmark
+    public List<BalanceDTO> calculateGroupBalances() {
+        Map<Long, User> users = new HashMap<>();
+        Map<Long, BigDecimal> balances = BalanceCalculator.netBalances(
+                ledger.getExpenses(), ledger.getSettlements(), users);
+        return BalanceCalculator.simplifyDebts(balances, users);
+    }
+}
@@ -0,0 +1,137 @@
+package com.expenseshare.bench;
+
+import com.expenseshare.ledger.ActivityFeedProjection;
+import com.expenseshare.ledger.BalanceProjection;
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.ledger.LedgerEventLog;
+import com.expenseshare.ledger.LedgerProjections;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full replay of a synthetic event log into the ledger projections, as done on startup
+ * and by LedgerProjections.rebuild. The log is written once per trial to a temporary
+ * directory: mostly EQUAL expenses, plus settlements and some deleted expenses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class EventLogBenchmark {
+
+    @Param({"1000000"})
+    public int events;
+
+    @Param({"1000"})
+    public int groups;
+
+    @Param({"8"})
+    public int members;
+
+    @Param({"42"})
+    public long seed;
+
+    private Path directory;
+    private LedgerEventLog eventLog;
+    private LedgerProjections projections;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("event-log-bench");
+        eventLog = new LedgerEventLog(directory.toString(), 64 << 20, false);
+        eventLog.open();
+
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<LedgerEvent> batch = new ArrayList<>(1000);
+        LedgerEvent lastExpense = null;
+        for (int i = 0; i < events; i++) {
+            long groupId = random.nextInt(groups) + 1;
+            long firstUser = (groupId - 1) * members + 1;
+            int roll = random.nextInt(100);
+            LedgerEvent event;
+            if (roll < 5 && lastExpense != null) {
+                event = lastExpense.toBuilder().type(LedgerEvent.Type.EXPENSE_DELETED).build();
+                lastExpense = null;
+            } else if (roll < 15) {
+                event = LedgerEvent.builder()
+                        .type(LedgerEvent.Type.SETTLEMENT_RECORDED)
+                        .occurredAt(start.plusSeconds(i))
+                        .groupId(groupId)
+                        .entityId(i + 1)
+                        .userId(firstUser + random.nextInt(members))
+                        .counterpartyId(firstUser + random.nextInt(members))
+                        .amount(1 + random.nextInt(100_000))
+                        .build();
+            } else {
+                long share = 100 + random.nextInt(10_000);
+                long[] userIds = new long[members];
+                long[] amounts = new long[members];
+                for (int m = 0; m < members; m++) {
+                    userIds[m] = firstUser + m;
+                    amounts[m] = share;
+                }
+                event = LedgerEvent.builder()
+                        .type(LedgerEvent.Type.EXPENSE_ADDED)
+                        .occurredAt(start.plusSeconds(i))
+                        .groupId(groupId)
+                        .entityId(i + 1)
+                        .userId(firstUser + random.nextInt(members))
+                        .amount(share * members)
+                        .description("Expense " + i)
+                        .shareUserIds(userIds)
+                        .shareAmounts(amounts)
+                        .build();
+                lastExpense = event;
+            }
+            batch.add(event);
+            if (batch.size() == 1000) {
+                eventLog.append(batch);
+                batch.clear();
+            }
+        }
+        eventLog.append(batch);
+
+        projections = new LedgerProjections(eventLog, List.of(new BalanceProjection(), new ActivityFeedProjection(50)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        eventLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Decode every event without applying it.
+     */
+    @Benchmark
+    public long read() {
+        long[] amounts = new long[1];
+        eventLog.read(0, event -> amounts[0] += event.getAmount());
+        return amounts[0];
+    }
+
+    /**
+     * Reset the balance and feed projections and replay the whole log into them.
+     */
+    @Benchmark
+    public long rebuild() {
+        return projections.rebuild();
+    }
+}
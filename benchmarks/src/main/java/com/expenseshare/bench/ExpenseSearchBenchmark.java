@@ -0,0 +1,150 @@
+package com.expenseshare.bench;
+
+import com.expenseshare.ledger.ExpenseSearchProjection;
+import com.expenseshare.ledger.LedgerEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency of the expense index over a large synthetic ledger, in one group and
+ * across one user's groups. Descriptions are two to four words drawn with a skew from a
+ * vocabulary of common expense words followed by rarer synthetic ones, so the common
+ * words have long posting lists. The index is built once per trial by applying the
+ * events directly, without the event log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ExpenseSearchBenchmark {
+
+    private static final String[] COMMON_WORDS = {"dinner", "lunch", "groceries", "taxi", "rent", "coffee",
+        "movie", "tickets", "fuel", "hotel", "breakfast", "drinks", "snacks", "electricity", "internet", "pizza"};
+
+    private static final int QUERY_SETS = 1024;
+
+    @Param({"10000000"})
+    public int expenses;
+
+    @Param({"100000"})
+    public int groups;
+
+    @Param({"20"})
+    public int groupsPerUser;
+
+    @Param({"5000"})
+    public int vocabulary;
+
+    @Param({"8"})
+    public int members;
+
+    @Param({"42"})
+    public long seed;
+
+    private ExpenseSearchProjection projection;
+    private String[] words;
+    private List<Map<Long, LocalDateTime>> userGroups;
+    private List<Map<Long, LocalDateTime>> singleGroups;
+    private LocalDateTime start;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(seed);
+        words = new String[vocabulary];
+        for (int i = 0; i < vocabulary; i++) {
+            words[i] = i < COMMON_WORDS.length ? COMMON_WORDS[i] : syntheticWord(random);
+        }
+
+        projection = new ExpenseSearchProjection();
+        start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < expenses; i++) {
+            long groupId = random.nextInt(groups) + 1;
+            description.setLength(0);
+            int count = 2 + random.nextInt(3);
+            for (int w = 0; w < count; w++) {
+                double skew = random.nextDouble();
+                description.append(w == 0 ? "" : " ").append(words[(int) (vocabulary * skew * skew * skew)]);
+            }
+            projection.apply(LedgerEvent.builder()
+                    .type(LedgerEvent.Type.EXPENSE_ADDED)
+                    .sequence(i + 1)
+                    .occurredAt(start.plusSeconds(i * 10L))
+                    .groupId(groupId)
+                    .entityId(i + 1)
+                    .userId((groupId - 1) * members + 1 + random.nextInt(members))
+                    .amount(100 + random.nextInt(1_000_000))
+                    .description(description.toString())
+                    .build());
+        }
+
+        userGroups = new ArrayList<>(QUERY_SETS);
+        singleGroups = new ArrayList<>(QUERY_SETS);
+        for (int i = 0; i < QUERY_SETS; i++) {
+            Map<Long, LocalDateTime> user = new HashMap<>();
+            while (user.size() < groupsPerUser) {
+                user.put((long) random.nextInt(groups) + 1, null);
+            }
+            userGroups.add(user);
+            Map<Long, LocalDateTime> single = new HashMap<>();
+            single.put((long) random.nextInt(groups) + 1, null);
+            singleGroups.add(single);
+        }
+    }
+
+    private static String syntheticWord(SplittableRandom random) {
+        int length = 4 + random.nextInt(6);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    /**
+     * A common word in one group.
+     */
+    @Benchmark
+    public List<ExpenseSearchProjection.Hit> groupWord() {
+        return projection.search(singleGroups.get(next++ & QUERY_SETS - 1),
+                new ExpenseSearchProjection.Query("dinner", null, null, null, null, null), 20);
+    }
+
+    /**
+     * Two words, the second unfinished, across a user's groups.
+     */
+    @Benchmark
+    public List<ExpenseSearchProjection.Hit> userGroupsPrefix() {
+        return projection.search(userGroups.get(next++ & QUERY_SETS - 1),
+                new ExpenseSearchProjection.Query("taxi d", null, null, null, null, null), 20);
+    }
+
+    /**
+     * A rare word across a user's groups.
+     */
+    @Benchmark
+    public List<ExpenseSearchProjection.Hit> userGroupsRareWord() {
+        return projection.search(userGroups.get(next++ & QUERY_SETS - 1),
+                new ExpenseSearchProjection.Query(words[vocabulary - 1], null, null, null, null, null), 20);
+    }
+
+    /**
+     * No text: amount range and a year of dates across a user's groups.
+     */
+    @Benchmark
+    public List<ExpenseSearchProjection.Hit> userGroupsFilters() {
+        return projection.search(userGroups.get(next++ & QUERY_SETS - 1),
+                new ExpenseSearchProjection.Query(null, null, 50_000L, 200_000L, start.plusYears(1),
+                        start.plusYears(2)), 20);
+    }
+}
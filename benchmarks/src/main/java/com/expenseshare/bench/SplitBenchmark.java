@@ -0,0 +1,65 @@
+package com.expenseshare.bench;
+
+import com.expenseshare.config.RandomSplits;
+import com.expenseshare.service.SplitCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Share computation for EQUAL and PERCENTAGE splits.
+ * Mirrors ExpenseService.addEqualSplits/addPercentageSplits without the entity wiring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitBenchmark {
+
+    /** Number of distinct amounts cycled through, so results are not constant-folded. */
+    private static final int SAMPLES = 1024;
+
+    @Param({"3", "12", "50", "5000"})
+    public int participants;
+
+    @Param({"42"})
+    public long seed;
+
+    private BigDecimal[] amounts;
+    private List<BigDecimal>[] percentages;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(seed);
+        amounts = new BigDecimal[SAMPLES];
+        percentages = new List[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            amounts[i] = RandomSplits.amount(random);
+            percentages[i] = RandomSplits.percentages(participants, random);
+        }
+    }
+
+    @Benchmark
+    public List<BigDecimal> equalShares() {
+        int i = next();
+        return SplitCalculator.equalShares(amounts[i], participants);
+    }
+
+    @Benchmark
+    public List<BigDecimal> percentageShares() {
+        int i = next();
+        return SplitCalculator.percentageShares(amounts[i], percentages[i]);
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (SAMPLES - 1);
+        return cursor;
+    }
+}
@@ -0,0 +1,123 @@
+package com.expenseshare.bench;
+
+import com.expenseshare.config.RandomSplits;
+import com.expenseshare.model.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded synthetic group generator.
+ * The same (members, expenses, seed) always yields the same ledger.
+ */
+public final class SyntheticLedger {
+
+    /** Upper bound on participants in a single expense, as in a real group. */
+    private static final int MAX_PARTICIPANTS = 12;
+
+    private final List<User> members;
+    private final List<Expense> expenses;
+    private final List<Settlement> settlements;
+
+    private SyntheticLedger(List<User> members, List<Expense> expenses, List<Settlement> settlements) {
+        this.members = members;
+        this.expenses = expenses;
+        this.settlements = settlements;
+    }
+
+    /**
+     * Generate a group with the given size. Split types are mixed
+     * 60% EQUAL, 20% EXACT, 20% PERCENTAGE; one settlement per ten expenses.
+     */
+    public static SyntheticLedger generate(int memberCount, int expenseCount, long seed) {
+        if (memberCount < 2) {
+            throw new IllegalArgumentException("A group needs at least two members");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+
+        List<User> members = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            long id = i + 1L;
+            members.add(User.builder()
+                    .id(id)
+                    .name("User " + id)
+                    .email("user" + id + "@bench.local")
+                    .build());
+        }
+
+        List<Expense> expenses = new ArrayList<>(expenseCount);
+        for (int i = 0; i < expenseCount; i++) {
+            expenses.add(randomExpense(i + 1L, members, random));
+        }
+
+        int settlementCount = expenseCount / 10;
+        List<Settlement> settlements = new ArrayList<>(settlementCount);
+        for (int i = 0; i < settlementCount; i++) {
+            User payer = members.get(random.nextInt(memberCount));
+            User payee = members.get(random.nextInt(memberCount));
+            if (payer.equals(payee)) {
+                payee = members.get((random.nextInt(memberCount - 1) + payer.getId().intValue()) % memberCount);
+            }
+            settlements.add(Settlement.builder()
+                    .id(i + 1L)
+                    .payer(payer)
+                    .payee(payee)
+                    .amount(RandomSplits.amount(random))
+                    .build());
+        }
+
+        return new SyntheticLedger(members, expenses, settlements);
+    }
+
+    private static Expense randomExpense(long id, List<User> members, SplittableRandom random) {
+        int participantCount = 2 + random.nextInt(Math.min(members.size(), MAX_PARTICIPANTS) - 1);
+        List<User> participants = pickDistinct(members, participantCount, random);
+        BigDecimal amount = RandomSplits.amount(random);
+
+        int roll = random.nextInt(10);
+        SplitType splitType = roll < 6 ? SplitType.EQUAL : roll < 8 ? SplitType.EXACT : SplitType.PERCENTAGE;
+
+        Expense expense = Expense.builder()
+                .id(id)
+                .description("Expense " + id)
+                .amount(amount)
+                .paidBy(participants.get(0))
+                .splitType(splitType)
+                .build();
+
+        RandomSplits.Split split = RandomSplits.split(splitType, amount, participantCount, random);
+        for (int i = 0; i < participantCount; i++) {
+            expense.addSplit(ExpenseSplit.builder()
+                    .user(participants.get(i))
+                    .amount(split.shares().get(i))
+                    .percentage(split.percentages() != null ? split.percentages().get(i) : null)
+                    .build());
+        }
+        return expense;
+    }
+
+    private static List<User> pickDistinct(List<User> members, int count, SplittableRandom random) {
+        List<User> picked = new ArrayList<>(count);
+        int size = members.size();
+        int start = random.nextInt(size);
+        int stride = RandomSplits.coprimeStride(size, random);
+        for (int i = 0; i < count; i++) {
+            picked.add(members.get((int) ((start + (long) i * stride) % size)));
+        }
+        return picked;
+    }
+
+    public List<User> getMembers() {
+        return members;
+    }
+
+    public List<Expense> getExpenses() {
+        return expenses;
+    }
+
+    public List<Settlement> getSettlements() {
+        return settlements;
+    }
+}
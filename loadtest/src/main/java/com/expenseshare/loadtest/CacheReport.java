@@ -0,0 +1,47 @@
+package com.expenseshare.loadtest;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.ApplicationContext;
+
+import java.io.PrintStream;
+
+/**
+ * Print Hibernate second-level and query cache hit ratios of the in-process app.
+ */
+public class CacheReport {
+
+    private final Statistics statistics;
+    private final boolean enabled;
+
+    public CacheReport(ApplicationContext context) {
+        SessionFactory sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        this.statistics = sessionFactory.getStatistics();
+        this.enabled = sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled();
+    }
+
+    public void print(PrintStream out) {
+        if (!enabled) {
+            out.println("Second-level cache disabled");
+        } else {
+            out.printf("%-52s %10s %10s %10s %7s%n", "cache region", "hits", "misses", "puts", "hit %");
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+                printRow(out, region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount());
+            }
+            printRow(out, "(query cache)", statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                    statistics.getQueryCachePutCount());
+        }
+        out.printf("entity loads %d, collection loads %d, queries %d, statements prepared %d%n",
+                statistics.getEntityLoadCount(), statistics.getCollectionLoadCount(),
+                statistics.getQueryExecutionCount(), statistics.getPrepareStatementCount());
+    }
+
+    private static void printRow(PrintStream out, String name, long hits, long misses, long puts) {
+        long lookups = hits + misses;
+        out.printf("%-52s %10d %10d %10d %7s%n", name, hits, misses, puts,
+                lookups > 0 ? String.format("%.1f", 100.0 * hits / lookups) : "-");
+    }
+}
@@ -0,0 +1,162 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.ledger.ExpenseSearchLoader;
+import com.expenseshare.ledger.ExpenseSearchProjection;
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.ledger.LedgerOutboxTailer;
+import com.expenseshare.ledger.LedgerProjections;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Check the expense search index against a scan of the expenses table, for a handful of
+ * queries per group and across all groups: once as kept up to date by the run's writes,
+ * and once reloaded from the expenses table.
+ */
+public class ExpenseSearchReport {
+
+    private static final int LIMIT = 20;
+
+    private static final String EXPENSES = "SELECT id, group_id, description, amount, paid_by, created_at "
+            + "FROM expenses ORDER BY id";
+
+    private final LedgerOutboxTailer tailer;
+    private final LedgerProjections projections;
+    private final ExpenseSearchProjection searchProjection;
+    private final ExpenseSearchLoader searchLoader;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExpenseSearchReport(ApplicationContext context) {
+        this.tailer = context.getBean(LedgerOutboxTailer.class);
+        this.projections = context.getBean(LedgerProjections.class);
+        this.searchProjection = context.getBean(ExpenseSearchProjection.class);
+        this.searchLoader = context.getBean(ExpenseSearchLoader.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Print a line per mismatching search and return the number of mismatches.
+     */
+    public long print(PrintStream out) {
+        Map<Long, LocalDateTime> archivedThrough = new HashMap<>();
+        jdbcTemplate.query("SELECT id, archived_through FROM expense_groups", rs -> {
+            Timestamp archived = rs.getTimestamp("archived_through");
+            archivedThrough.put(rs.getLong("id"), archived != null ? archived.toLocalDateTime() : null);
+        });
+        // The index keeps creation times to the second
+        List<Row> rows = jdbcTemplate.query(EXPENSES, (rs, i) -> new Row(rs.getLong("id"), rs.getLong("group_id"),
+                rs.getString("description"), LedgerEvent.toMinorUnits(rs.getBigDecimal("amount")),
+                rs.getLong("paid_by"),
+                rs.getTimestamp("created_at").toLocalDateTime().truncatedTo(ChronoUnit.SECONDS)));
+        Map<Long, List<Row>> rowsByGroup = rows.stream().collect(Collectors.groupingBy(Row::groupId));
+
+        tailer.tail();
+        projections.catchUp();
+        long started = System.nanoTime();
+        long incremental = check(out, "incremental", archivedThrough, rows, rowsByGroup);
+        long incrementalMs = (System.nanoTime() - started) / 1_000_000;
+        searchLoader.load();
+        projections.catchUp();
+        long rebuilt = check(out, "reloaded", archivedThrough, rows, rowsByGroup);
+
+        out.printf("expense search: %d expenses, %d documents, %d groups checked in %d ms, %d mismatches%n",
+                rows.size(), searchProjection.documentCount(), archivedThrough.size(), incrementalMs,
+                incremental + rebuilt);
+        return incremental + rebuilt;
+    }
+
+    private long check(PrintStream out, String index, Map<Long, LocalDateTime> archivedThrough, List<Row> rows,
+            Map<Long, List<Row>> rowsByGroup) {
+        long mismatches = 0;
+        for (Map.Entry<Long, LocalDateTime> group : archivedThrough.entrySet()) {
+            List<Row> groupRows = rowsByGroup.getOrDefault(group.getKey(), List.of());
+            Map<Long, LocalDateTime> groups = new HashMap<>();
+            groups.put(group.getKey(), group.getValue());
+            for (ExpenseSearchProjection.Query query : queries(groupRows)) {
+                mismatches += compare(out, index, groups, groupRows, query);
+            }
+        }
+        for (ExpenseSearchProjection.Query query : queries(rows)) {
+            mismatches += compare(out, index, archivedThrough, rows, query);
+        }
+        return mismatches;
+    }
+
+    private long compare(PrintStream out, String index, Map<Long, LocalDateTime> groups, List<Row> rows,
+            ExpenseSearchProjection.Query query) {
+        List<Long> expected = rows.stream()
+                .filter(row -> matches(row, query, groups.get(row.groupId())))
+                .sorted(Comparator.comparing(Row::createdAt).thenComparingLong(Row::id).reversed())
+                .limit(LIMIT)
+                .map(Row::id)
+                .collect(Collectors.toList());
+        List<Long> actual = searchProjection.search(groups, query, LIMIT).stream()
+                .map(ExpenseSearchProjection.Hit::expenseId)
+                .collect(Collectors.toList());
+        if (expected.equals(actual)) {
+            return 0;
+        }
+        out.printf("%s index, groups %s, %s: expected %s, found %s%n", index,
+                groups.size() == 1 ? groups.keySet() : "all", query, expected, actual);
+        return 1;
+    }
+
+    /**
+     * Text, payer, amount and date searches built from the first of the expenses.
+     */
+    private static List<ExpenseSearchProjection.Query> queries(List<Row> rows) {
+        List<ExpenseSearchProjection.Query> queries = new ArrayList<>(List.of(
+                new ExpenseSearchProjection.Query("seed", null, null, null, null, null),
+                new ExpenseSearchProjection.Query("Expense 1", null, null, null, null, null),
+                new ExpenseSearchProjection.Query("load te", null, null, null, null, null),
+                new ExpenseSearchProjection.Query("edit", null, null, null, null, null),
+                new ExpenseSearchProjection.Query(null, null, 10_000L, 30_000L, null, null)));
+        if (!rows.isEmpty()) {
+            Row first = rows.get(0);
+            LocalDateTime day = first.createdAt().truncatedTo(ChronoUnit.DAYS);
+            queries.add(new ExpenseSearchProjection.Query("seed", first.paidBy(), null, null, null, null));
+            queries.add(new ExpenseSearchProjection.Query(null, null, null, null, day, day.plusDays(30)));
+        }
+        return queries;
+    }
+
+    private static boolean matches(Row row, ExpenseSearchProjection.Query query, LocalDateTime archivedThrough) {
+        if (archivedThrough != null && row.createdAt().isBefore(archivedThrough)
+                || query.payerId() != null && row.paidBy() != query.payerId()
+                || query.minAmount() != null && row.amount() < query.minAmount()
+                || query.maxAmount() != null && row.amount() > query.maxAmount()
+                || query.from() != null && row.createdAt().isBefore(query.from())
+                || query.to() != null && !row.createdAt().isBefore(query.to())) {
+            return false;
+        }
+        List<String> words = words(row.description());
+        return words(query.text()).stream()
+                .allMatch(term -> words.stream().anyMatch(word -> word.startsWith(term)));
+    }
+
+    private static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private record Row(long id, long groupId, String description, long amount, long paidBy,
+            LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.expenseshare.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms and error counts, safe for many writer threads.
+ */
+public class LatencyRecorder {
+
+    /** Track up to one minute at 3 significant digits. */
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long elapsedNanos, boolean ok) {
+        recorders.computeIfAbsent(endpoint, k -> new Recorder(HIGHEST_TRACKABLE_NANOS, 3))
+                .recordValue(Math.min(elapsedNanos, HIGHEST_TRACKABLE_NANOS));
+        if (!ok) {
+            errors.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Discard everything recorded so far (end of warmup).
+     */
+    public void reset() {
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Take the histograms recorded since the last reset.
+     */
+    public Map<String, Histogram> snapshot() {
+        Map<String, Histogram> histograms = new TreeMap<>();
+        recorders.forEach((endpoint, recorder) -> histograms.put(endpoint, recorder.getIntervalHistogram()));
+        return histograms;
+    }
+
+    public long errorCount(String endpoint) {
+        LongAdder count = errors.get(endpoint);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Print one line per endpoint: count, throughput, errors and latency percentiles in ms.
+     */
+    public void printReport(Map<String, Histogram> histograms, double seconds, PrintStream out) {
+        out.printf("%-34s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram h = entry.getValue();
+            total += h.getTotalCount();
+            out.printf("%-34s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), h.getTotalCount(), h.getTotalCount() / seconds, errorCount(entry.getKey()),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                    millis(h.getMaxValue()));
+        }
+        out.printf("%-34s %9d %9.1f%n", "TOTAL", total, total / seconds);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
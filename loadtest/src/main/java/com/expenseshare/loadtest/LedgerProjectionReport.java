@@ -0,0 +1,97 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.ledger.BalanceProjection;
+import com.expenseshare.ledger.LedgerEventLog;
+import com.expenseshare.ledger.LedgerOutboxTailer;
+import com.expenseshare.ledger.LedgerProjections;
+import com.expenseshare.service.BalanceSnapshotService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Check the balances folded from the event log against the balances replayed from the
+ * ledger tables, for every group, once the run's writes have been applied.
+ */
+public class LedgerProjectionReport {
+
+    private final LedgerEventLog eventLog;
+    private final LedgerOutboxTailer tailer;
+    private final LedgerProjections projections;
+    private final BalanceProjection balanceProjection;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerProjectionReport(ApplicationContext context) {
+        this.eventLog = context.getBean(LedgerEventLog.class);
+        this.tailer = context.getBean(LedgerOutboxTailer.class);
+        this.projections = context.getBean(LedgerProjections.class);
+        this.balanceProjection = context.getBean(BalanceProjection.class);
+        this.balanceSnapshotService = context.getBean(BalanceSnapshotService.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Print a summary line per mismatching group and return the number of mismatches.
+     */
+    public long print(PrintStream out) {
+        tailer.tail();
+        long started = System.nanoTime();
+        long replayed = projections.rebuild();
+        long rebuildMs = (System.nanoTime() - started) / 1_000_000;
+
+        LocalDateTime end = LocalDateTime.now().plusDays(1);
+        List<Long> groupIds = jdbcTemplate.queryForList("SELECT id FROM expense_groups ORDER BY id", Long.class);
+        long mismatches = 0;
+        for (Long groupId : groupIds) {
+            Map<Long, BigDecimal> expected = nonZero(balanceSnapshotService.netBalancesAsOf(groupId, end));
+            Map<Long, BigDecimal> projected = balanceProjection.netBalances(groupId);
+            if (!sameBalances(expected, projected)) {
+                out.printf("group %d: ledger tables %s, event log %s%n", groupId, expected, projected);
+                mismatches++;
+            }
+        }
+
+        out.printf("event log: %d events, projections rebuilt in %d ms, %d groups checked, %d mismatches%n",
+                eventLog.lastSequence(), rebuildMs, groupIds.size(), mismatches);
+        if (replayed != eventLog.lastSequence()) {
+            out.printf("projections stopped at %d of %d events%n", replayed, eventLog.lastSequence());
+            mismatches++;
+        }
+        Long outboxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM ledger_outbox", Long.class);
+        if (outboxId != null && outboxId != eventLog.lastOutboxId()) {
+            out.printf("event log stopped at outbox id %d of %d%n", eventLog.lastOutboxId(), outboxId);
+            mismatches++;
+        }
+        return mismatches;
+    }
+
+    private static Map<Long, BigDecimal> nonZero(Map<Long, BigDecimal> balances) {
+        Map<Long, BigDecimal> result = new HashMap<>();
+        balances.forEach((userId, balance) -> {
+            if (balance.signum() != 0) {
+                result.put(userId, balance);
+            }
+        });
+        return result;
+    }
+
+    private static boolean sameBalances(Map<Long, BigDecimal> expected, Map<Long, BigDecimal> projected) {
+        if (expected.size() != projected.size()) {
+            return false;
+        }
+        for (Map.Entry<Long, BigDecimal> entry : expected.entrySet()) {
+            BigDecimal other = projected.get(entry.getKey());
+            if (other == null || other.compareTo(entry.getValue()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package com.expenseshare.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * key=value command line options with defaults.
+ */
+public final class LoadTestOptions {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    public LoadTestOptions(String[] args) {
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+    }
+
+    public int virtualUsers() {
+        return intValue("vus", 50);
+    }
+
+    public Duration duration() {
+        return Duration.ofSeconds(intValue("duration", 60));
+    }
+
+    public Duration warmup() {
+        return Duration.ofSeconds(intValue("warmup", 10));
+    }
+
+    /** Percent of requests that are expense/settlement POSTs. */
+    public int writePercent() {
+        return intValue("writes", 10);
+    }
+
+    /** Base URL of an already running app; when absent the app is booted in-process. */
+    public String target() {
+        return values.get("target");
+    }
+
+    public int seedUsers() {
+        return intValue("seed.users", 2000);
+    }
+
+    public int seedGroups() {
+        return intValue("seed.groups", 500);
+    }
+
+    public int seedMembers() {
+        return intValue("seed.members", 6);
+    }
+
+    public int seedExpenses() {
+        return intValue("seed.expenses", 40);
+    }
+
+    /** Hibernate second-level and query cache on the in-process app; turn off to compare round trips. */
+    public boolean secondLevelCache() {
+        return Boolean.parseBoolean(values.getOrDefault("l2cache", "true"));
+    }
+
+    private int intValue(String key, int defaultValue) {
+        String value = values.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,198 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.ExpenseShareApplication;
+import com.expenseshare.metrics.RouteSweep;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Boot the app on the embedded database with synthetic data, drive it with
+ * virtual users and print per-endpoint latency percentiles. Afterwards every
+ * controller route is swept once and checked against its @SqlBudget; the
+ * process exits non-zero on any budget violation or failed route. Finally the
+ * repository queries are EXPLAINed on the seeded data and full table scans fail
+ * the run as well, and so do groups whose balances rebuilt from the event log differ
+ * from the ledger tables, and recurring expenses not posted exactly once after a
+ * simulated scheduler outage, and spending rollups that differ from the expenses.
+ * Run once with l2cache=false to compare SQL round trips per route without the
+ * second-level cache.
+ */
+public final class LoadTestRunner {
+
+    private static final String PASSWORD = "password";
+
+    /** Candidate accounts a virtual user tries before giving up (seed users may have no group). */
+    private static final int MAX_LOGIN_ATTEMPTS = 50;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions(args);
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.target();
+        if (baseUrl == null) {
+            context = bootApplication(options);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+        }
+
+        int exitCode;
+        try {
+            exitCode = run(options, baseUrl);
+            if (context != null) {
+                long recurringProblems = new RecurringExpenseReport(context).print(System.out);
+                System.out.println();
+                long violations = new SqlBudgetReport(context).print(System.out);
+                System.out.println();
+                new CacheReport(context).print(System.out);
+                System.out.println();
+                long scans = new QueryPlanReport(context).print(System.out);
+                System.out.println();
+                long searchMismatches = new ExpenseSearchReport(context).print(System.out);
+                System.out.println();
+                long mismatches = new LedgerProjectionReport(context).print(System.out);
+                System.out.println();
+                long staleViews = new ReadModelReport(context).print(System.out);
+                System.out.println();
+                long wrongTotals = new UserBalanceReport(context).print(System.out);
+                System.out.println();
+                long wrongRollups = new SpendingRollupReport(context).print(System.out);
+                if (recurringProblems > 0) {
+                    System.out.println("FAILED: recurring expenses were not posted exactly once per missed occurrence");
+                    exitCode = Math.max(exitCode, 1);
+                }
+                if (mismatches > 0) {
+                    System.out.println("FAILED: " + mismatches + " group(s) where the event log disagrees with the ledger tables");
+                    exitCode = Math.max(exitCode, 1);
+                }
+                if (searchMismatches > 0) {
+                    System.out.println("FAILED: " + searchMismatches + " expense search(es) disagree with the expenses table");
+                    exitCode = Math.max(exitCode, 1);
+                }
+                if (staleViews > 0) {
+                    System.out.println("FAILED: " + staleViews + " user group view(s) disagree with the write side");
+                    exitCode = Math.max(exitCode, 1);
+                }
+                if (wrongTotals > 0) {
+                    System.out.println("FAILED: " + wrongTotals + " user(s) whose balance totals disagree with a recomputation");
+                    exitCode = Math.max(exitCode, 1);
+                }
+                if (wrongRollups > 0) {
+                    System.out.println("FAILED: " + wrongRollups + " spending rollup(s) disagree with the expenses");
+                    exitCode = Math.max(exitCode, 1);
+                }
+                if (scans > 0) {
+                    System.out.println("FAILED: " + scans + " repository query plan(s) contain a full table scan");
+                    exitCode = Math.max(exitCode, 1);
+                }
+                if (violations > 0) {
+                    System.out.println("FAILED: " + violations + " request(s) exceeded their SQL budget");
+                    exitCode = Math.max(exitCode, 1);
+                }
+            } else {
+                System.out.println("SQL budgets are only checked when the app runs in-process");
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext bootApplication(LoadTestOptions options) {
+        return SpringApplication.run(ExpenseShareApplication.class,
+                "--spring.profiles.active=seed,embedded",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--app.seed.users=" + options.seedUsers(),
+                "--app.seed.groups=" + options.seedGroups(),
+                "--app.seed.members-per-group=" + options.seedMembers(),
+                "--app.seed.expenses-per-group=" + options.seedExpenses(),
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + options.secondLevelCache(),
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + options.secondLevelCache(),
+                "--logging.level.root=WARN",
+                "--logging.level.com.expenseshare.config=INFO");
+    }
+
+    private static int run(LoadTestOptions options, String baseUrl) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        LatencyRecorder recorder = new LatencyRecorder();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        int vus = options.virtualUsers();
+        int users = options.seedUsers();
+        List<VirtualUser> virtualUsers = new ArrayList<>(vus);
+        for (int i = 0; i < vus; i++) {
+            VirtualUser vu = new VirtualUser(client, baseUrl, options.writePercent(), recorder, running, i);
+            // Spread virtual users over the account space; skip accounts without groups
+            int first = (int) ((long) i * users / vus);
+            for (int attempt = 0; attempt < MAX_LOGIN_ATTEMPTS; attempt++) {
+                if (vu.setUp("user" + ((first + attempt) % users + 1) + "@seed.local", PASSWORD)) {
+                    virtualUsers.add(vu);
+                    break;
+                }
+            }
+        }
+        if (virtualUsers.isEmpty()) {
+            System.err.println("No virtual user could log in with a group at " + baseUrl);
+            return 2;
+        }
+
+        System.out.printf("Running %d virtual users against %s: %ds warmup, %ds measured, %d%% writes%n",
+                virtualUsers.size(), baseUrl, options.warmup().toSeconds(), options.duration().toSeconds(),
+                options.writePercent());
+
+        ExecutorService executor = Executors.newFixedThreadPool(virtualUsers.size());
+        virtualUsers.forEach(executor::execute);
+
+        Thread.sleep(options.warmup().toMillis());
+        recorder.reset();
+        long start = System.nanoTime();
+        Thread.sleep(options.duration().toMillis());
+        Map<String, Histogram> histograms = recorder.snapshot();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        running.set(false);
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        recorder.printReport(histograms, seconds, System.out);
+        System.out.println();
+
+        // Three distinct seeded accounts: the owner has groups, the others become members
+        int owner = Integer.parseInt(virtualUsers.get(0).getEmail().replaceAll("\\D", ""));
+        int failures;
+        try {
+            failures = new RouteSweep(client, baseUrl, System.out).run(virtualUsers.get(0).getEmail(),
+                    "user" + (owner % users + 1) + "@seed.local", "user" + ((owner + 1) % users + 1) + "@seed.local",
+                    PASSWORD);
+        } catch (IOException e) {
+            System.out.println("FAILED: route sweep aborted: " + e);
+            return 1;
+        }
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " route(s) answered unexpectedly in the sweep");
+            return 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.metrics.QueryPlanCheck;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.ApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * EXPLAIN every @Query of the ledger repositories against the seeded database and
+ * report the tables each plan reads in full, then the sweeps the check leaves out.
+ * Only available when the app runs in-process.
+ */
+public class QueryPlanReport {
+
+    private final QueryPlanCheck queryPlanCheck;
+
+    public QueryPlanReport(ApplicationContext context) {
+        this.queryPlanCheck = new QueryPlanCheck(context.getBean(EntityManagerFactory.class),
+                context.getBean(DataSource.class));
+    }
+
+    /**
+     * Print one line per query and return the number of queries with a full table scan.
+     */
+    public long print(PrintStream out) throws SQLException {
+        out.printf("%-60s %s%n", "query", "full scans");
+        long total = 0;
+        for (Map.Entry<String, Set<String>> query : queryPlanCheck.fullScans().entrySet()) {
+            Set<String> scans = query.getValue();
+            if (!scans.isEmpty()) {
+                total++;
+            }
+            out.printf("%-60s %s%n", query.getKey(), scans.isEmpty() ? "-" : String.join(", ", scans) + "  FULL SCAN");
+        }
+        QueryPlanCheck.UNCHECKED.forEach((query, reason) -> out.printf("%-60s not checked: %s%n", query, reason));
+        return total;
+    }
+}
@@ -0,0 +1,109 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.service.BalanceSnapshotService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Check the user group views against the write side once the run's writes have been
+ * applied: one row per membership, with the group's name and member count and the
+ * user's net balance replayed from the ledger tables. The views are rebuilt in the
+ * background, so the check is retried for a few seconds before reporting.
+ */
+public class ReadModelReport {
+
+    private static final long SETTLE_MILLIS = 5_000;
+
+    private static final String VIEWS = "SELECT v.user_id, v.group_id, v.group_name, v.member_count, v.net_balance "
+            + "FROM user_group_views v";
+
+    private static final String MEMBERSHIPS = "SELECT m.user_id, m.group_id, g.name, "
+            + "(SELECT COUNT(*) FROM group_members c WHERE c.group_id = m.group_id) AS member_count "
+            + "FROM group_members m JOIN expense_groups g ON g.id = m.group_id";
+
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReadModelReport(ApplicationContext context) {
+        this.balanceSnapshotService = context.getBean(BalanceSnapshotService.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Print a line per mismatching row and return the number of mismatches.
+     */
+    public long print(PrintStream out) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SETTLE_MILLIS;
+        Map<String, Row> expected = expectedRows();
+        Map<String, Row> actual = actualRows();
+        while (!expected.equals(actual) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            expected = expectedRows();
+            actual = actualRows();
+        }
+
+        long mismatches = 0;
+        for (Map.Entry<String, Row> entry : expected.entrySet()) {
+            Row row = actual.get(entry.getKey());
+            if (!entry.getValue().equals(row)) {
+                out.printf("user group view %s: expected %s, found %s%n", entry.getKey(), entry.getValue(), row);
+                mismatches++;
+            }
+        }
+        for (String key : actual.keySet()) {
+            if (!expected.containsKey(key)) {
+                out.printf("user group view %s: no membership, found %s%n", key, actual.get(key));
+                mismatches++;
+            }
+        }
+
+        out.printf("user group views: %d rows checked, %d mismatches%n", expected.size(), mismatches);
+        return mismatches;
+    }
+
+    private Map<String, Row> expectedRows() {
+        LocalDateTime end = LocalDateTime.now().plusDays(1);
+        Map<Long, Map<Long, BigDecimal>> balances = new HashMap<>();
+        Map<String, Row> rows = new HashMap<>();
+        jdbcTemplate.query(MEMBERSHIPS, rs -> {
+            long userId = rs.getLong("user_id");
+            long groupId = rs.getLong("group_id");
+            BigDecimal net = balances
+                    .computeIfAbsent(groupId, id -> balanceSnapshotService.netBalancesAsOf(id, end))
+                    .getOrDefault(userId, BigDecimal.ZERO);
+            rows.put(userId + "/" + groupId, new Row(rs.getString("name"), rs.getInt("member_count"), net));
+        });
+        return rows;
+    }
+
+    private Map<String, Row> actualRows() {
+        Map<String, Row> rows = new HashMap<>();
+        jdbcTemplate.query(VIEWS, rs -> {
+            rows.put(rs.getLong("user_id") + "/" + rs.getLong("group_id"),
+                    new Row(rs.getString("group_name"), rs.getInt("member_count"), rs.getBigDecimal("net_balance")));
+        });
+        return rows;
+    }
+
+    private record Row(String groupName, int memberCount, BigDecimal netBalance) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row other && groupName.equals(other.groupName) && memberCount == other.memberCount
+                    && netBalance.compareTo(other.netBalance) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupName, memberCount, netBalance.stripTrailingZeros());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.service.RecurringExpenseService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.io.PrintStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Post the occurrences of the recurring expenses created during the run as if the
+ * scheduler had been down for a few weeks: every template's next run is moved back and
+ * two threads post the due occurrences at the same time, like two app nodes. Each missed
+ * occurrence must be posted exactly once, dated at its scheduled time, and no template
+ * may be left due. Runs before
+ * the ledger checks, which then cover the posted expenses as well.
+ */
+public class RecurringExpenseReport {
+
+    private static final int WEEKS_DOWN = 3;
+    private static final int NODES = 2;
+
+    private final RecurringExpenseService recurringExpenseService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecurringExpenseReport(ApplicationContext context) {
+        this.recurringExpenseService = context.getBean(RecurringExpenseService.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Print the counts and return the number of problems found.
+     */
+    public long print(PrintStream out) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        long expected = 0;
+        List<LocalDateTime> scheduled = new ArrayList<>();
+        List<Object[]> backdated = new ArrayList<>();
+        for (Template template : jdbcTemplate.query("SELECT id, schedule, next_run_at FROM recurring_expenses",
+                (rs, row) -> new Template(rs.getLong("id"), rs.getString("schedule"),
+                        rs.getTimestamp("next_run_at").toLocalDateTime()))) {
+            LocalDateTime next = template.nextRunAt().minusWeeks(WEEKS_DOWN);
+            backdated.add(new Object[] {Timestamp.valueOf(next), template.id()});
+            CronExpression cron = CronExpression.parse(template.schedule());
+            for (LocalDateTime run = next; !run.isAfter(now); run = cron.next(run)) {
+                expected++;
+                scheduled.add(run);
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE recurring_expenses SET next_run_at = ? WHERE id = ?", backdated);
+
+        long expensesBefore = countExpenses();
+        long lastIdBefore = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM expenses", Long.class);
+        ExecutorService nodes = Executors.newFixedThreadPool(NODES);
+        List<Future<Integer>> runs = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            runs.add(nodes.submit(recurringExpenseService::postDueOccurrences));
+        }
+        long posted = 0;
+        for (Future<Integer> run : runs) {
+            posted += run.get();
+        }
+        nodes.shutdown();
+        long added = countExpenses() - expensesBefore;
+        long stillDue = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recurring_expenses WHERE next_run_at <= ?",
+                Long.class, Timestamp.valueOf(now));
+
+        out.printf("recurring expenses: %d templates, %d occurrences missed, %d posted, %d expenses added, "
+                + "%d still due%n", backdated.size(), expected, posted, added, stillDue);
+        long problems = stillDue;
+        if (posted != expected || added != expected) {
+            problems++;
+        }
+        List<LocalDateTime> dated = jdbcTemplate.query("SELECT created_at FROM expenses WHERE id > ?",
+                (rs, row) -> rs.getTimestamp("created_at").toLocalDateTime(), lastIdBefore);
+        Collections.sort(scheduled);
+        Collections.sort(dated);
+        if (!dated.equals(scheduled)) {
+            out.println("recurring expenses: occurrences are not dated at their scheduled times");
+            problems++;
+        }
+        return problems;
+    }
+
+    private long countExpenses() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses", Long.class);
+    }
+
+    private record Template(long id, String schedule, LocalDateTime nextRunAt) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.service.SpendingRollupService;
+import com.expenseshare.service.SplitCalculator;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Check the spending rollups against a recomputation from the live and archived expenses:
+ * once as kept up to date by the run's writes, and once rebuilt from scratch by the
+ * startup backfill.
+ */
+public class SpendingRollupReport {
+
+    private static final String EXPENSES = "SELECT id, group_id, paid_by, amount, split_type, participant_ids, "
+            + "created_at FROM %s";
+
+    private static final String SPLITS = "SELECT expense_id, user_id, amount FROM %s";
+
+    private static final String ROLLUPS = "SELECT group_id, granularity, bucket_start, user_id, split_type, "
+            + "paid_amount, share_amount, expense_count FROM spending_rollups";
+
+    private final SpendingRollupService rollupService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SpendingRollupReport(ApplicationContext context) {
+        this.rollupService = context.getBean(SpendingRollupService.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Print a line per mismatching rollup row and return the number of mismatches.
+     */
+    public long print(PrintStream out) {
+        Map<String, long[]> expected = new TreeMap<>();
+        recompute(expected, "expenses", "expense_splits");
+        recompute(expected, "expenses_archive", "expense_splits_archive");
+        expected.values().removeIf(totals -> totals[0] == 0 && totals[1] == 0 && totals[2] == 0);
+
+        long incremental = compare(out, "incremental", expected);
+        jdbcTemplate.update("DELETE FROM spending_rollups");
+        jdbcTemplate.update("DELETE FROM spending_rollup_groups");
+        long started = System.nanoTime();
+        rollupService.buildMissing();
+        long backfillMs = (System.nanoTime() - started) / 1_000_000;
+        long rebuilt = compare(out, "rebuilt", expected);
+
+        out.printf("spending rollups: %d rows, backfilled in %d ms, %d mismatches%n", expected.size(), backfillMs,
+                incremental + rebuilt);
+        return incremental + rebuilt;
+    }
+
+    private void recompute(Map<String, long[]> expected, String expenses, String splits) {
+        Map<Long, Map<Long, Long>> splitRows = new HashMap<>();
+        jdbcTemplate.query(String.format(SPLITS, splits), rs -> {
+            splitRows.computeIfAbsent(rs.getLong("expense_id"), id -> new HashMap<>())
+                    .merge(rs.getLong("user_id"), LedgerEvent.toMinorUnits(rs.getBigDecimal("amount")), Long::sum);
+        });
+        jdbcTemplate.query(String.format(EXPENSES, expenses), rs -> {
+            long groupId = rs.getLong("group_id");
+            long payerId = rs.getLong("paid_by");
+            BigDecimal amount = rs.getBigDecimal("amount");
+            String splitType = rs.getString("split_type");
+            String participantIds = rs.getString("participant_ids");
+            LocalDate day = rs.getTimestamp("created_at").toLocalDateTime().toLocalDate();
+
+            Map<Long, Long> shares = new HashMap<>();
+            if (participantIds != null) {
+                List<Long> userIds = Arrays.stream(participantIds.split(",")).map(Long::valueOf).toList();
+                List<BigDecimal> amounts = SplitCalculator.equalShares(amount, userIds.size());
+                for (int i = 0; i < userIds.size(); i++) {
+                    shares.merge(userIds.get(i), LedgerEvent.toMinorUnits(amounts.get(i)), Long::sum);
+                }
+            } else {
+                shares.putAll(splitRows.getOrDefault(rs.getLong("id"), Map.of()));
+            }
+
+            for (String granularity : List.of("DAY", "MONTH")) {
+                LocalDate bucket = granularity.equals("DAY") ? day : day.withDayOfMonth(1);
+                long[] paid = expected.computeIfAbsent(key(groupId, granularity, bucket, payerId, splitType),
+                        k -> new long[3]);
+                paid[0] += LedgerEvent.toMinorUnits(amount);
+                paid[2]++;
+                shares.forEach((userId, share) -> expected.computeIfAbsent(
+                        key(groupId, granularity, bucket, userId, splitType), k -> new long[3])[1] += share);
+            }
+        });
+    }
+
+    private long compare(PrintStream out, String rollups, Map<String, long[]> expected) {
+        Map<String, long[]> stored = new HashMap<>();
+        jdbcTemplate.query(ROLLUPS, rs -> {
+            stored.put(key(rs.getLong("group_id"), rs.getString("granularity"),
+                    rs.getDate("bucket_start").toLocalDate(), rs.getLong("user_id"), rs.getString("split_type")),
+                    new long[] {LedgerEvent.toMinorUnits(rs.getBigDecimal("paid_amount")),
+                        LedgerEvent.toMinorUnits(rs.getBigDecimal("share_amount")), rs.getLong("expense_count")});
+        });
+
+        long mismatches = 0;
+        Map<String, long[]> all = new TreeMap<>(expected);
+        stored.forEach(all::putIfAbsent);
+        for (String key : all.keySet()) {
+            long[] want = expected.get(key);
+            long[] have = stored.get(key);
+            if (!Objects.deepEquals(want, have)) {
+                out.printf("%s rollup %s: expected %s, stored %s%n", rollups, key,
+                        want == null ? "nothing" : Arrays.toString(want),
+                        have == null ? "nothing" : Arrays.toString(have));
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    private static String key(long groupId, String granularity, LocalDate bucketStart, long userId,
+            String splitType) {
+        return "group " + groupId + " " + granularity + " " + bucketStart + " user " + userId + " " + splitType;
+    }
+}
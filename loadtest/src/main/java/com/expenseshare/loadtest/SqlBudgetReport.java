@@ -0,0 +1,53 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.metrics.RouteSweep;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Compare each @SqlBudget route with the statement counts the app recorded.
+ * Only available when the app runs in-process.
+ */
+public class SqlBudgetReport {
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final MeterRegistry meterRegistry;
+
+    public SqlBudgetReport(ApplicationContext context) {
+        this.handlerMapping = context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        this.meterRegistry = context.getBean(MeterRegistry.class);
+    }
+
+    /**
+     * Print one line per budgeted route and return the number of budget violations.
+     */
+    public long print(PrintStream out) {
+        Map<String, Integer> budgets = RouteSweep.budgetedRoutes(handlerMapping);
+
+        out.printf("%-52s %7s %9s %9s %9s %10s%n", "route", "budget", "requests", "mean sql", "max sql",
+                "violations");
+        long total = 0;
+        for (Map.Entry<String, Integer> entry : budgets.entrySet()) {
+            String[] route = entry.getKey().split(" ", 2);
+            DistributionSummary summary = meterRegistry.find("expenseshare.http.sql.statements")
+                    .tag("method", route[0]).tag("uri", route[1]).summary();
+            Counter violations = meterRegistry.find("expenseshare.http.sql.budget.violations")
+                    .tag("method", route[0]).tag("uri", route[1]).counter();
+            long violationCount = violations != null ? (long) violations.count() : 0;
+            total += violationCount;
+
+            out.printf("%-52s %7d %9s %9s %9s %10d%s%n", entry.getKey(), entry.getValue(),
+                    summary != null ? String.valueOf(summary.count()) : "-",
+                    summary != null ? String.format("%.1f", summary.mean()) : "-",
+                    summary != null ? String.valueOf((long) summary.max()) : "-",
+                    violationCount, violationCount > 0 ? "  OVER BUDGET" : "");
+        }
+        return total;
+    }
+}
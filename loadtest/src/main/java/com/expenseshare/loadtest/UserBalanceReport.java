@@ -0,0 +1,80 @@
+package com.expenseshare.loadtest;
+
+import com.expenseshare.dto.UserBalanceSummary;
+import com.expenseshare.service.BalanceService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Check every user's persisted balance totals against a full recomputation over their
+ * groups, per currency. The totals are updated in the writing transactions, so they must
+ * match as soon as the run is over.
+ */
+public class UserBalanceReport {
+
+    private static final BigDecimal[] ZERO_TOTALS = { BigDecimal.ZERO, BigDecimal.ZERO };
+
+    private final BalanceService balanceService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserBalanceReport(ApplicationContext context) {
+        this.balanceService = context.getBean(BalanceService.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Print a line per mismatching user and return the number of mismatches.
+     */
+    public long print(PrintStream out) {
+        long started = System.nanoTime();
+        Map<Long, Map<String, BigDecimal[]>> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, currency, total_owed, total_owing FROM user_balances", rs -> {
+            stored.computeIfAbsent(rs.getLong("user_id"), userId -> new TreeMap<>()).put(rs.getString("currency"),
+                    new BigDecimal[] { rs.getBigDecimal("total_owed"), rs.getBigDecimal("total_owing") });
+        });
+
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        long mismatches = 0;
+        for (Long userId : userIds) {
+            Map<String, BigDecimal[]> totals = stored.get(userId);
+            if (totals == null) {
+                out.printf("user %d: no totals stored%n", userId);
+                mismatches++;
+                continue;
+            }
+            Map<String, BigDecimal[]> expected = new TreeMap<>();
+            for (UserBalanceSummary.CurrencyTotals total : balanceService.getUserOverallBalance(userId).getTotals()) {
+                expected.put(total.getCurrency(), new BigDecimal[] { total.getTotalOwed(), total.getTotalOwing() });
+            }
+            // A currency without a row has zero totals, and so does one with a zero row
+            for (String currency : union(totals.keySet(), expected.keySet())) {
+                BigDecimal[] want = expected.getOrDefault(currency, ZERO_TOTALS);
+                BigDecimal[] have = totals.getOrDefault(currency, ZERO_TOTALS);
+                if (want[0].compareTo(have[0]) != 0 || want[1].compareTo(have[1]) != 0) {
+                    out.printf("user %d in %s: recomputed owed %s owing %s, stored owed %s owing %s%n", userId,
+                            currency, want[0], want[1], have[0], have[1]);
+                    mismatches++;
+                }
+            }
+        }
+
+        out.printf("user balances: %d users recomputed in %d ms, %d mismatches%n", userIds.size(),
+                (System.nanoTime() - started) / 1_000_000, mismatches);
+        return mismatches;
+    }
+
+    private static TreeSet<String> union(Iterable<String> a, Iterable<String> b) {
+        TreeSet<String> union = new TreeSet<>();
+        a.forEach(union::add);
+        b.forEach(union::add);
+        return union;
+    }
+}
@@ -0,0 +1,245 @@
+package com.expenseshare.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One logged-in browser session issuing a mixed read/write workload.
+ */
+public class VirtualUser implements Runnable {
+
+    private static final Pattern GROUP_LINK = Pattern.compile("href=\"/groups/(\\d+)\"");
+    private static final Pattern MEMBER_OPTION = Pattern.compile("<option value=\"(\\d+)\"");
+    private static final Pattern SELF_OPTION = Pattern.compile("<option value=\"(\\d+)\"\\s+selected");
+    private static final Pattern PAID_EXPENSE = Pattern.compile("data-expense-id=\"(\\d+)\" data-paid-by=\"(\\d+)\"");
+    private static final Pattern SESSION_COOKIE = Pattern.compile("JSESSIONID=([^;]+)");
+
+    /** Groups per user the workload rotates through. */
+    private static final int MAX_GROUPS = 5;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int writePercent;
+    private final LatencyRecorder recorder;
+    private final AtomicBoolean running;
+    private final SplittableRandom random;
+
+    private final Map<Long, List<Long>> groupMembers = new LinkedHashMap<>();
+    private List<Long> groupIds = List.of();
+    private String sessionCookie;
+    private String email;
+    private long userId;
+
+    public VirtualUser(HttpClient client, String baseUrl, int writePercent, LatencyRecorder recorder,
+            AtomicBoolean running, long seed) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.writePercent = writePercent;
+        this.recorder = recorder;
+        this.running = running;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Log in and discover the user's groups and their members.
+     * Returns false when the user cannot log in or belongs to no group.
+     */
+    public boolean setUp(String email, String password) throws IOException, InterruptedException {
+        sessionCookie = null;
+        groupMembers.clear();
+        HttpResponse<String> login = client.send(post("/login", form("email", email, "password", password)),
+                HttpResponse.BodyHandlers.ofString());
+        String location = login.headers().firstValue("Location").orElse("");
+        Matcher cookie = SESSION_COOKIE.matcher(String.join(";", login.headers().allValues("Set-Cookie")));
+        if (login.statusCode() != 302 || location.contains("/login") || !cookie.find()) {
+            return false;
+        }
+        sessionCookie = "JSESSIONID=" + cookie.group(1);
+
+        Matcher links = GROUP_LINK.matcher(fetch("/groups"));
+        while (links.find() && groupMembers.size() < MAX_GROUPS) {
+            long groupId = Long.parseLong(links.group(1));
+            List<Long> members = new ArrayList<>();
+            String expenseForm = fetch("/groups/" + groupId + "/expenses/new");
+            Matcher options = MEMBER_OPTION.matcher(expenseForm);
+            while (options.find()) {
+                members.add(Long.parseLong(options.group(1)));
+            }
+            Matcher self = SELF_OPTION.matcher(expenseForm);
+            if (self.find()) {
+                userId = Long.parseLong(self.group(1));
+            }
+            if (members.size() >= 2) {
+                groupMembers.put(groupId, members);
+            }
+        }
+        groupIds = new ArrayList<>(groupMembers.keySet());
+        this.email = email;
+        return !groupIds.isEmpty();
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    @Override
+    public void run() {
+        while (running.get()) {
+            long groupId = groupIds.get(random.nextInt(groupIds.size()));
+            try {
+                if (random.nextInt(100) < writePercent) {
+                    int roll = random.nextInt(6);
+                    if (roll < 3) {
+                        addExpense(groupId);
+                    } else if (roll < 5) {
+                        recordSettlement(groupId);
+                    } else {
+                        editExpense(groupId);
+                    }
+                } else {
+                    int roll = random.nextInt(10);
+                    if (roll < 3) {
+                        timed("GET /dashboard", get("/dashboard"));
+                    } else if (roll < 6) {
+                        timed("GET /groups/{id}", get("/groups/" + groupId));
+                    } else if (roll < 7) {
+                        timed("GET /api/expenses/search", get("/api/expenses/search?q=load%20te"));
+                    } else if (roll < 8) {
+                        timed("GET /api/groups/{groupId}/spending", get("/api/groups/" + groupId + "/spending"));
+                    } else {
+                        timed("GET /api/groups/{groupId}/balances", get("/api/groups/" + groupId + "/balances"));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                recorder.record("IO error", 0, false);
+            }
+        }
+    }
+
+    private void addExpense(long groupId) throws IOException, InterruptedException {
+        List<Long> members = groupMembers.get(groupId);
+        StringJoiner body = new StringJoiner("&");
+        body.add(form("description", "Load test", "amount", randomAmount().toPlainString(),
+                "paidById", String.valueOf(members.get(random.nextInt(members.size()))), "splitType", "EQUAL"));
+        for (Long member : members) {
+            body.add(form("splitAmongUserIds", String.valueOf(member)));
+        }
+        // One in ten repeats, for the recurring expense check after the run
+        if (random.nextInt(10) == 0) {
+            body.add(form("repeat", "WEEKLY"));
+        }
+        timed("POST /groups/{groupId}/expenses", post("/groups/" + groupId + "/expenses", body.toString()));
+    }
+
+    /**
+     * Edit one of the user's own expenses in the group: a new amount, split equally among
+     * a random subset of the members. Adds an expense when the user paid none.
+     */
+    private void editExpense(long groupId) throws IOException, InterruptedException {
+        List<Long> paid = new ArrayList<>();
+        Matcher expenses = PAID_EXPENSE.matcher(fetch("/groups/" + groupId));
+        while (expenses.find()) {
+            if (Long.parseLong(expenses.group(2)) == userId) {
+                paid.add(Long.parseLong(expenses.group(1)));
+            }
+        }
+        if (paid.isEmpty()) {
+            addExpense(groupId);
+            return;
+        }
+
+        List<Long> members = groupMembers.get(groupId);
+        StringJoiner body = new StringJoiner("&");
+        body.add(form("description", "Load test edit", "amount", randomAmount().toPlainString(),
+                "paidById", String.valueOf(userId), "splitType", "EQUAL"));
+        int skipped = random.nextInt(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            if (i != skipped || members.size() == 1) {
+                body.add(form("splitAmongUserIds", String.valueOf(members.get(i))));
+            }
+        }
+        long expenseId = paid.get(random.nextInt(paid.size()));
+        timed("POST /expenses/{id}/edit", post("/expenses/" + expenseId + "/edit", body.toString()));
+    }
+
+    private void recordSettlement(long groupId) throws IOException, InterruptedException {
+        List<Long> members = groupMembers.get(groupId);
+        int payer = random.nextInt(members.size());
+        int payee = (payer + 1 + random.nextInt(members.size() - 1)) % members.size();
+        timed("POST /groups/{groupId}/settle", post("/groups/" + groupId + "/settle",
+                form("payerId", String.valueOf(members.get(payer)), "payeeId", String.valueOf(members.get(payee)),
+                        "amount", randomAmount().toPlainString())));
+    }
+
+    /**
+     * Send a request and record its latency. GETs must return 200; form POSTs
+     * must redirect somewhere other than the login page.
+     */
+    private void timed(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        long elapsed = System.nanoTime() - start;
+
+        boolean ok;
+        if ("GET".equals(request.method())) {
+            ok = response.statusCode() == 200;
+        } else {
+            ok = response.statusCode() == 302
+                    && !response.headers().firstValue("Location").orElse("").contains("/login");
+        }
+        recorder.record(endpoint, elapsed, ok);
+    }
+
+    private String fetch(String path) throws IOException, InterruptedException {
+        return client.send(get(path), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private HttpRequest get(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (sessionCookie != null) {
+            builder.header("Cookie", sessionCookie);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (sessionCookie != null) {
+            builder.header("Cookie", sessionCookie);
+        }
+        return builder.build();
+    }
+
+    private BigDecimal randomAmount() {
+        return BigDecimal.valueOf(random.nextLong(100, 50_001), 2);
+    }
+
+    private static String form(String... pairs) {
+        StringJoiner joiner = new StringJoiner("&");
+        for (int i = 0; i < pairs.length; i += 2) {
+            joiner.add(URLEncoder.encode(pairs[i], StandardCharsets.UTF_8) + "="
+                    + URLEncoder.encode(pairs[i + 1], StandardCharsets.UTF_8));
+        }
+        return joiner.toString();
+    }
+}
@@ -5,15 +5,19 @@ import com.expenseshare.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Initialize sample data for demonstration.
+ * Replaced by SeedDataLoader when the "seed" profile is active.
  */
 @Component
+@Profile("!seed")
 @RequiredArgsConstructor
 @Slf4j
 public class DataInitializer implements CommandLineRunner {
@@ -87,10 +91,8 @@ public class DataInitializer implements CommandLineRunner {
                 .splitType(SplitType.EQUAL)
                 .build();
 
-        // Equal split: $500 each
-        rent.addSplit(ExpenseSplit.builder().user(john).amount(new BigDecimal("500.00")).build());
-        rent.addSplit(ExpenseSplit.builder().user(sarah).amount(new BigDecimal("500.00")).build());
-        rent.addSplit(ExpenseSplit.builder().user(mike).amount(new BigDecimal("500.00")).build());
+        // Equal split: $500 each, stored inline
+        rent.packParticipants(List.of(john.getId(), sarah.getId(), mike.getId()));
         expenseRepository.save(rent);
 
         // Add sample expense with exact split
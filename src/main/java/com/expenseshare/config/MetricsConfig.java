@@ -0,0 +1,45 @@
+package com.expenseshare.config;
+
+import com.expenseshare.metrics.SqlStatementCounter;
+import com.expenseshare.metrics.SqlStatementInterceptor;
+import io.micrometer.core.instrument.Tags;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.HibernateMetrics;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wire per-request Hibernate statement counting and Hibernate statistics.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final SqlStatementInterceptor sqlStatementInterceptor;
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(SqlStatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    /**
+     * Export Hibernate statistics, including second-level and query cache hits per region.
+     * Binds nothing when hibernate.generate_statistics is off.
+     */
+    @Bean
+    public HibernateMetrics hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateMetrics(entityManagerFactory.unwrap(SessionFactory.class), "expenseshare", Tags.empty());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlStatementInterceptor)
+                .excludePathPatterns("/css/**", "/js/**", "/images/**", "/favicon.ico");
+    }
+}
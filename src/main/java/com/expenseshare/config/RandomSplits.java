@@ -0,0 +1,104 @@
+package com.expenseshare.config;
+
+import com.expenseshare.model.SplitType;
+import com.expenseshare.service.SplitCalculator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Random amounts and splits for synthetic data, shared by the seed loader and the
+ * benchmarks so both generate the same kind of ledger. Everything is drawn from the
+ * caller's random, so a seed always gives the same results.
+ */
+public final class RandomSplits {
+
+    private RandomSplits() {
+    }
+
+    /**
+     * The shares of one expense, in participant order, and the percentages they were
+     * computed from for a PERCENTAGE split (null otherwise).
+     */
+    public record Split(List<BigDecimal> shares, List<BigDecimal> percentages) {
+    }
+
+    /**
+     * Random amount between 1.00 and 5000.00.
+     */
+    public static BigDecimal amount(SplittableRandom random) {
+        return BigDecimal.valueOf(random.nextLong(100, 500_001), 2);
+    }
+
+    /**
+     * Split the amount among the participants the way the split type does, with random
+     * exact shares or percentages where the type needs them.
+     */
+    public static Split split(SplitType splitType, BigDecimal amount, int participants, SplittableRandom random) {
+        return switch (splitType) {
+            case EXACT -> new Split(exactShares(amount, participants, random), null);
+            case PERCENTAGE -> {
+                List<BigDecimal> percentages = percentages(participants, random);
+                yield new Split(SplitCalculator.percentageShares(amount, percentages), percentages);
+            }
+            default -> new Split(SplitCalculator.equalShares(amount, participants), null);
+        };
+    }
+
+    /**
+     * Random percentages (two decimals) that add up to exactly 100.
+     */
+    public static List<BigDecimal> percentages(int count, SplittableRandom random) {
+        long[] weights = new long[count];
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            weights[i] = random.nextLong(1, 100);
+            total += weights[i];
+        }
+
+        List<BigDecimal> percentages = new ArrayList<>(count);
+        long remaining = 10_000;
+        for (int i = 0; i < count; i++) {
+            long basisPoints = i == count - 1 ? remaining : weights[i] * 10_000 / total;
+            remaining -= basisPoints;
+            percentages.add(BigDecimal.valueOf(basisPoints, 2));
+        }
+        return percentages;
+    }
+
+    /**
+     * Random exact shares (in cents) that add up to the amount.
+     */
+    public static List<BigDecimal> exactShares(BigDecimal amount, int count, SplittableRandom random) {
+        long cents = amount.movePointRight(2).longValueExact();
+        List<BigDecimal> shares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long share = i == count - 1 ? cents : Math.min(cents, random.nextLong(0, cents / (count - i) * 2 + 1));
+            cents -= share;
+            shares.add(BigDecimal.valueOf(share, 2));
+        }
+        return shares;
+    }
+
+    /**
+     * A random stride co-prime with the size: stepping by it from any start visits
+     * distinct positions, so members can be picked without a set.
+     */
+    public static int coprimeStride(int size, SplittableRandom random) {
+        if (size <= 2) {
+            return 1;
+        }
+        while (true) {
+            int stride = 1 + random.nextInt(size - 1);
+            if (gcd(stride, size) == 1) {
+                return stride;
+            }
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -0,0 +1,93 @@
+package com.expenseshare.config;
+
+import com.expenseshare.datasource.ReadYourWritesFilter;
+import com.expenseshare.datasource.ReplicaLagMonitor;
+import com.expenseshare.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read/write splitting: readOnly transactions go to replicas within the allowed lag,
+ * everything else (and every read shortly after a write) goes to the primary.
+ */
+@Configuration
+@Profile("replicas")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replicas.urls}") String[] urls,
+            @Value("${app.datasource.replicas.username:}") String username,
+            @Value("${app.datasource.replicas.password:}") String password,
+            @Value("${app.datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${app.datasource.replicas.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${app.datasource.replicas.lag-query:}") String lagQuery) {
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.length; i++) {
+            String name = "replica-" + (i + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(urls[i].trim());
+            replica.setUsername(username.isBlank() ? properties.determineUsername() : username);
+            replica.setPassword(password.isBlank() ? properties.determinePassword() : password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // A dead replica must not stall requests; the lag monitor drops it instead
+            replica.setConnectionTimeout(2000);
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(name, replica);
+        }
+        return new ReplicaLagMonitor(replicas, maxLagSeconds, lagQuery, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor,
+            MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>(replicaLagMonitor.getReplicas());
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaLagMonitor, meterRegistry);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+
+        // Defer the physical connection until the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${app.datasource.sticky-primary-seconds:5}") long stickySeconds) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(stickySeconds * 1000));
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 10);
+        return registration;
+    }
+}
@@ -0,0 +1,235 @@
+package com.expenseshare.config;
+
+import com.expenseshare.ledger.LedgerOutboxBackfill;
+import com.expenseshare.model.SplitType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk-load a synthetic dataset for capacity testing (profile "seed").
+ * Rows are written with batched JDBC and explicit ids; the same
+ * parameters and seed always produce the same data. The ledger outbox
+ * is filled from the loaded rows afterwards.
+ */
+@Component
+@Profile("seed")
+@RequiredArgsConstructor
+@Slf4j
+public class SeedDataLoader implements CommandLineRunner {
+
+    private static final String PASSWORD = "password";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.seed.users:1000}")
+    private int userCount;
+
+    @Value("${app.seed.groups:200}")
+    private int groupCount;
+
+    @Value("${app.seed.members-per-group:5}")
+    private int membersPerGroup;
+
+    @Value("${app.seed.expenses-per-group:50}")
+    private int expensesPerGroup;
+
+    @Value("${app.seed.settlements-per-group:5}")
+    private int settlementsPerGroup;
+
+    /** Relative weights of EQUAL, EXACT and PERCENTAGE splits. */
+    @Value("${app.seed.split-mix:60,20,20}")
+    private int[] splitMix;
+
+    @Value("${app.seed.seed:42}")
+    private long seed;
+
+    @Value("${app.seed.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.seed.start-date:2025-01-01}")
+    private LocalDate startDate;
+
+    private final List<Object[]> userRows = new ArrayList<>();
+    private final List<Object[]> groupRows = new ArrayList<>();
+    private final List<Object[]> memberRows = new ArrayList<>();
+    private final List<Object[]> expenseRows = new ArrayList<>();
+    private final List<Object[]> splitRows = new ArrayList<>();
+    private final List<Object[]> settlementRows = new ArrayList<>();
+
+    private long nextExpenseId = 1;
+    private long nextSplitId = 1;
+    private long nextSettlementId = 1;
+    private long rowsWritten;
+
+    @Override
+    public void run(String... args) {
+        validate();
+
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        if (existing != null && existing > 0) {
+            log.warn("Seed skipped: users table already has {} rows. Seed an empty database.", existing);
+            return;
+        }
+
+        log.info("Seeding {} users, {} groups x {} members, {} expenses and {} settlements per group (seed {})",
+                userCount, groupCount, membersPerGroup, expensesPerGroup, settlementsPerGroup, seed);
+        long start = System.currentTimeMillis();
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime epoch = startDate.atStartOfDay();
+
+        for (int i = 1; i <= userCount; i++) {
+            userRows.add(new Object[]{(long) i, "Seed User " + i, "user" + i + "@seed.local", PASSWORD,
+                    Timestamp.valueOf(epoch)});
+            if (userRows.size() >= batchSize) {
+                flush();
+            }
+        }
+        flush();
+
+        for (long groupId = 1; groupId <= groupCount; groupId++) {
+            seedGroup(groupId, epoch, random);
+            if (bufferedRows() >= batchSize) {
+                flush();
+            }
+        }
+        flush();
+
+        restartIdentities();
+        new LedgerOutboxBackfill(jdbcTemplate).run();
+        log.info("Seeded {} rows in {} s. Log in as user1@seed.local / {}",
+                rowsWritten, (System.currentTimeMillis() - start) / 1000, PASSWORD);
+    }
+
+    private void seedGroup(long groupId, LocalDateTime epoch, SplittableRandom random) {
+        long[] members = pickMembers(random);
+        groupRows.add(new Object[]{groupId, "Seed Group " + groupId, "Synthetic group", members[0], 0L, 0L,
+                Timestamp.valueOf(epoch)});
+        for (long userId : members) {
+            memberRows.add(new Object[]{groupId, userId});
+        }
+
+        int totalWeight = splitMix[0] + splitMix[1] + splitMix[2];
+        for (int i = 0; i < expensesPerGroup; i++) {
+            long expenseId = nextExpenseId++;
+            int participants = 2 + random.nextInt(members.length - 1);
+            int offset = random.nextInt(members.length);
+            BigDecimal amount = RandomSplits.amount(random);
+
+            int roll = random.nextInt(totalWeight);
+            SplitType splitType = roll < splitMix[0] ? SplitType.EQUAL
+                    : roll < splitMix[0] + splitMix[1] ? SplitType.EXACT : SplitType.PERCENTAGE;
+            RandomSplits.Split split = RandomSplits.split(splitType, amount, participants, random);
+
+            long payer = members[offset];
+            String participantIds = null;
+            if (splitType == SplitType.EQUAL) {
+                // Inline participants, like ExpenseService writes equal splits
+                participantIds = IntStream.range(0, participants)
+                        .mapToLong(p -> members[(offset + p) % members.length])
+                        .sorted()
+                        .mapToObj(String::valueOf)
+                        .collect(Collectors.joining(","));
+            }
+            expenseRows.add(new Object[]{expenseId, groupId, "Seed expense " + expenseId, amount, payer,
+                    splitType.name(), participantIds, Timestamp.valueOf(randomTime(epoch, random))});
+            for (int p = 0; participantIds == null && p < participants; p++) {
+                splitRows.add(new Object[]{nextSplitId++, expenseId, members[(offset + p) % members.length],
+                        split.shares().get(p), split.percentages() != null ? split.percentages().get(p) : null});
+            }
+        }
+
+        for (int i = 0; i < settlementsPerGroup; i++) {
+            int payer = random.nextInt(members.length);
+            int payee = (payer + 1 + random.nextInt(members.length - 1)) % members.length;
+            settlementRows.add(new Object[]{nextSettlementId++, groupId, members[payer], members[payee],
+                    RandomSplits.amount(random), Timestamp.valueOf(randomTime(epoch, random))});
+        }
+    }
+
+    /**
+     * Distinct members: a random start and a stride co-prime with the user count.
+     */
+    private long[] pickMembers(SplittableRandom random) {
+        long[] members = new long[membersPerGroup];
+        int start = random.nextInt(userCount);
+        int stride = RandomSplits.coprimeStride(userCount, random);
+        for (int i = 0; i < membersPerGroup; i++) {
+            members[i] = (start + (long) i * stride) % userCount + 1;
+        }
+        return members;
+    }
+
+    private void flush() {
+        // FK order: parents before children
+        write("INSERT INTO users (id, name, email, password, created_at) VALUES (?, ?, ?, ?, ?)", userRows);
+        write("INSERT INTO expense_groups (id, name, description, created_by, ledger_version, version, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", groupRows);
+        write("INSERT INTO group_members (group_id, user_id) VALUES (?, ?)", memberRows);
+        write("INSERT INTO expenses (id, group_id, description, amount, paid_by, split_type, participant_ids, "
+                + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", expenseRows);
+        write("INSERT INTO expense_splits (id, expense_id, user_id, amount, percentage) VALUES (?, ?, ?, ?, ?)",
+                splitRows);
+        write("INSERT INTO settlements (id, group_id, payer_id, payee_id, amount, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", settlementRows);
+    }
+
+    private void write(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+        rowsWritten += rows.size();
+        rows.clear();
+    }
+
+    private int bufferedRows() {
+        return groupRows.size() + memberRows.size() + expenseRows.size() + splitRows.size() + settlementRows.size();
+    }
+
+    /**
+     * Explicit ids do not advance H2 identity columns; MySQL AUTO_INCREMENT follows on its own.
+     */
+    private void restartIdentities() {
+        String product = jdbcTemplate.execute((java.sql.Connection c) -> c.getMetaData().getDatabaseProductName());
+        if (!"H2".equals(product)) {
+            return;
+        }
+        restartIdentity("users", userCount + 1L);
+        restartIdentity("expense_groups", groupCount + 1L);
+        restartIdentity("expenses", nextExpenseId);
+        restartIdentity("expense_splits", nextSplitId);
+        restartIdentity("settlements", nextSettlementId);
+    }
+
+    private void restartIdentity(String table, long next) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+
+    private void validate() {
+        if (userCount < 2 || membersPerGroup < 2 || membersPerGroup > userCount) {
+            throw new IllegalArgumentException("app.seed needs at least 2 users and 2..users members per group");
+        }
+        if (splitMix.length != 3 || splitMix[0] + splitMix[1] + splitMix[2] <= 0) {
+            throw new IllegalArgumentException("app.seed.split-mix must be three weights: EQUAL,EXACT,PERCENTAGE");
+        }
+    }
+
+    private static LocalDateTime randomTime(LocalDateTime epoch, SplittableRandom random) {
+        return epoch.plusSeconds(random.nextLong(365L * 24 * 3600));
+    }
+}
@@ -1,17 +1,36 @@
 package com.expenseshare.controller;
 
+import com.expenseshare.dto.ActivityDTO;
 import com.expenseshare.dto.BalanceDTO;
+import com.expenseshare.dto.ExpenseSearchDTO;
+import com.expenseshare.dto.ExpenseSearchResultDTO;
+import com.expenseshare.dto.GroupArchiveDTO;
+import com.expenseshare.dto.SettlementDTO;
+import com.expenseshare.dto.SpendingDTO;
 import com.expenseshare.dto.UserBalanceSummary;
+import com.expenseshare.metrics.SqlBudget;
+import com.expenseshare.model.Settlement;
+import com.expenseshare.model.SpendingRollup;
 import com.expenseshare.model.User;
 import com.expenseshare.service.*;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * REST API controller for AJAX calls.
@@ -21,14 +40,24 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ApiController {
 
+    // Seconds a client waits before retrying a write that found its group busy
+    private static final String BUSY_RETRY_AFTER = "1";
+
     private final UserService userService;
     private final GroupService groupService;
     private final BalanceService balanceService;
+    private final LiveUpdateService liveUpdateService;
+    private final SettlementService settlementService;
+    private final IdempotencyService idempotencyService;
+    private final ArchiveService archiveService;
+    private final ExpenseSearchService expenseSearchService;
+    private final SpendingAnalyticsService spendingAnalyticsService;
 
     /**
      * Search users by email or name.
      */
     @GetMapping("/users/search")
+    @SqlBudget(3)
     public ResponseEntity<List<User>> searchUsers(@RequestParam String query,
             HttpSession session) {
         Long userId = (Long) session.getAttribute("userId");
@@ -41,61 +70,283 @@ public class ApiController {
     }
 
     /**
-     * Get group balances.
+     * Get group balances, or with asOf the balances at that point in time.
+     * Answers If-None-Match with 304 using only the group's ledger version.
      */
     @GetMapping("/groups/{groupId}/balances")
+    @SqlBudget(12)
     public ResponseEntity<List<BalanceDTO>> getGroupBalances(@PathVariable Long groupId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf,
+            HttpSession session,
+            WebRequest webRequest) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        // Version lookup doubles as the membership check
+        Optional<Long> version = groupService.findLedgerVersion(groupId, userId);
+        if (version.isEmpty()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        String etag = "\"g" + groupId + "-" + version.get() + (asOf != null ? "-t" + asOf : "") + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<BalanceDTO> balances = asOf != null
+                ? balanceService.calculateGroupBalancesAsOf(groupId, asOf)
+                : balanceService.calculateGroupBalances(groupId);
+        return ResponseEntity.ok().eTag(etag).body(balances);
+    }
+
+    /**
+     * Record a batch of settlements in one transaction.
+     * If-Match must carry the group balances ETag the plan was computed from.
+     * An empty body settles the current simplified balances. A stale version gets 412; a
+     * group too busy to lock in time gets 503 with Retry-After, and the request can be resent.
+     */
+    @PostMapping("/groups/{groupId}/settlements/batch")
+    @SqlBudget(25)
+    public ResponseEntity<List<SettlementDTO>> settleBatch(@PathVariable Long groupId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody(required = false) List<SettlementDTO> plan,
             HttpSession session) {
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return ResponseEntity.status(401).build();
         }
 
-        if (!groupService.isMember(groupId, userId)) {
+        if (groupService.findLedgerVersion(groupId, userId).isEmpty()) {
             return ResponseEntity.status(403).build();
         }
 
-        List<BalanceDTO> balances = balanceService.calculateGroupBalances(groupId);
-        return ResponseEntity.ok(balances);
+        Long expectedVersion = parseGroupVersion(ifMatch, groupId);
+        if (expectedVersion == null) {
+            return ResponseEntity.status(428).build();
+        }
+
+        try {
+            List<Settlement> saved = idempotencyService.execute("settle-all:" + userId + ":" + groupId,
+                    idempotencyKey, () -> settlementService.settleAll(groupId, expectedVersion, plan));
+            List<SettlementDTO> applied = saved.stream()
+                    .map(s -> SettlementDTO.builder()
+                            .groupId(groupId)
+                            .payerId(s.getPayer().getId())
+                            .payeeId(s.getPayee().getId())
+                            .amount(s.getAmount())
+                            .build())
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok().eTag("\"g" + groupId + "-" + (expectedVersion + 1) + "\"").body(applied);
+        } catch (GroupBusyException e) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, BUSY_RETRY_AFTER).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(412).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Stream live balance and activity updates for a group.
+     */
+    @GetMapping(path = "/groups/{groupId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @SqlBudget(5)
+    public ResponseEntity<SseEmitter> streamGroupEvents(@PathVariable Long groupId,
+            HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        if (groupService.findLedgerVersion(groupId, userId).isEmpty()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(liveUpdateService.subscribe(groupId));
     }
 
     /**
      * Get user balance summary for a group.
      */
     @GetMapping("/groups/{groupId}/balances/user")
+    @SqlBudget(12)
     public ResponseEntity<UserBalanceSummary> getUserBalance(@PathVariable Long groupId,
-            HttpSession session) {
+            HttpSession session,
+            WebRequest webRequest) {
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return ResponseEntity.status(401).build();
         }
 
-        if (!groupService.isMember(groupId, userId)) {
+        Optional<Long> version = groupService.findLedgerVersion(groupId, userId);
+        if (version.isEmpty()) {
             return ResponseEntity.status(403).build();
         }
 
+        String etag = "\"g" + groupId + "-u" + userId + "-" + version.get() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         UserBalanceSummary summary = balanceService.getUserBalanceInGroup(userId, groupId);
-        return ResponseEntity.ok(summary);
+        return ResponseEntity.ok().eTag(etag).body(summary);
+    }
+
+    /**
+     * Export a group's archived history with its opening balances.
+     * Only the group's ledger version can change it, so it is conditional like the balances.
+     */
+    @GetMapping("/groups/{groupId}/archive")
+    @SqlBudget(8)
+    public ResponseEntity<GroupArchiveDTO> exportArchive(@PathVariable Long groupId,
+            HttpSession session,
+            WebRequest webRequest) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        Optional<Long> version = groupService.findLedgerVersion(groupId, userId);
+        if (version.isEmpty()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        String etag = "\"g" + groupId + "-a" + version.get() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().eTag(etag).body(archiveService.exportGroup(groupId));
+    }
+
+    /**
+     * Latest activity of a group from the event log, including deletions and membership changes.
+     * The ETag is the sequence of the group's latest event, so a 304 needs no query beyond the membership check.
+     */
+    @GetMapping("/groups/{groupId}/activity")
+    @SqlBudget(4)
+    public ResponseEntity<List<ActivityDTO>> getActivity(@PathVariable Long groupId,
+            @RequestParam(defaultValue = "20") int limit,
+            HttpSession session,
+            WebRequest webRequest) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        if (groupService.findLedgerVersion(groupId, userId).isEmpty()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        String etag = "\"g" + groupId + "-e" + groupService.getActivitySequence(groupId) + "-n" + limit + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().eTag(etag).body(groupService.getRecentActivity(groupId, limit));
+    }
+
+    /**
+     * Search expenses by description, payer, amount and date in one group or all the user's groups,
+     * newest first.
+     */
+    @GetMapping("/expenses/search")
+    @SqlBudget(5)
+    public ResponseEntity<List<ExpenseSearchResultDTO>> searchExpenses(@ModelAttribute ExpenseSearchDTO criteria,
+            @RequestParam(defaultValue = "20") int limit,
+            HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        if (criteria.getGroupId() != null && groupService.findLedgerVersion(criteria.getGroupId(), userId).isEmpty()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(expenseSearchService.search(userId, criteria, limit));
+    }
+
+    /**
+     * A group's spending per day or month, per payer and per split type, from the rollups.
+     */
+    @GetMapping("/groups/{groupId}/spending")
+    @SqlBudget(3)
+    public ResponseEntity<SpendingDTO> getGroupSpending(@PathVariable Long groupId,
+            @RequestParam(defaultValue = "MONTH") SpendingRollup.Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        if (groupService.findLedgerVersion(groupId, userId).isEmpty()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        try {
+            return ResponseEntity.ok(spendingAnalyticsService.getGroupSpending(groupId, granularity, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * What the user paid and their share per day or month and per split type, across their groups.
+     */
+    @GetMapping("/users/spending")
+    @SqlBudget(1)
+    public ResponseEntity<SpendingDTO> getUserSpending(
+            @RequestParam(defaultValue = "MONTH") SpendingRollup.Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        try {
+            return ResponseEntity.ok(spendingAnalyticsService.getUserSpending(userId, granularity, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
      * Get overall user balance.
+     * The ETag is derived from the ledger versions of all the user's groups.
      */
     @GetMapping("/users/balance")
-    public ResponseEntity<UserBalanceSummary> getOverallBalance(HttpSession session) {
+    @SqlBudget(40)
+    public ResponseEntity<UserBalanceSummary> getOverallBalance(HttpSession session,
+            WebRequest webRequest) {
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return ResponseEntity.status(401).build();
         }
 
+        String etag = "\"u" + userId + "-" + groupService.getUserLedgerTag(userId) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         UserBalanceSummary summary = balanceService.getUserOverallBalance(userId);
-        return ResponseEntity.ok(summary);
+        return ResponseEntity.ok().eTag(etag).body(summary);
     }
 
     /**
      * Check if user exists by email.
      */
     @GetMapping("/users/check")
+    @SqlBudget(3)
     public ResponseEntity<Map<String, Object>> checkUserExists(@RequestParam String email,
             HttpSession session) {
         Long userId = (Long) session.getAttribute("userId");
@@ -114,4 +365,23 @@ public class ApiController {
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Extract the ledger version from a group balances ETag such as "g12-40".
+     */
+    private static Long parseGroupVersion(String etag, Long groupId) {
+        if (etag == null) {
+            return null;
+        }
+        String prefix = "g" + groupId + "-";
+        String value = etag.trim().replace("\"", "");
+        if (!value.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -1,9 +1,10 @@
 package com.expenseshare.controller;
 
 import com.expenseshare.dto.UserBalanceSummary;
-import com.expenseshare.model.ExpenseGroup;
-import com.expenseshare.model.User;
-import com.expenseshare.service.*;
+import com.expenseshare.metrics.SqlBudget;
+import com.expenseshare.model.UserGroupView;
+import com.expenseshare.service.UserBalanceService;
+import com.expenseshare.service.UserGroupViewService;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -16,15 +17,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DashboardController {
 
-    private final UserService userService;
-    private final GroupService groupService;
-    private final BalanceService balanceService;
-    private final ExpenseService expenseService;
+    private final UserGroupViewService userGroupViewService;
+    private final UserBalanceService userBalanceService;
 
     /**
-     * Show main dashboard.
+     * Show main dashboard, from the user's group views and balance totals only.
      */
     @GetMapping("/dashboard")
+    @SqlBudget(2)
     public String dashboard(HttpSession session, Model model) {
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
@@ -34,17 +34,14 @@ public class DashboardController {
         // Add user info to model
         AuthController.addUserToModel(model, session);
 
-        // Get user's groups
-        List<ExpenseGroup> groups = groupService.getUserGroups(userId);
+        // Get user's groups with their counterparties
+        List<UserGroupView> groups = userGroupViewService.getUserGroupsWithCounterparties(userId);
         model.addAttribute("groups", groups);
 
-        // Get overall balance summary
-        UserBalanceSummary balanceSummary = balanceService.getUserOverallBalance(userId);
-        model.addAttribute("balanceSummary", balanceSummary);
-
-        // Get all users for adding to groups
-        List<User> allUsers = userService.findAll();
-        model.addAttribute("allUsers", allUsers);
+        // Who owes whom from the same rows, totals by primary key
+        UserBalanceSummary balanceSummary = userGroupViewService.summarize(userId,
+                (String) session.getAttribute("userName"), groups);
+        model.addAttribute("balanceSummary", userBalanceService.withCurrentTotals(balanceSummary));
 
         return "dashboard";
     }
@@ -1,6 +1,8 @@
 package com.expenseshare.controller;
 
 import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.dto.ExpenseSearchDTO;
+import com.expenseshare.metrics.SqlBudget;
 import com.expenseshare.model.*;
 import com.expenseshare.service.*;
 import jakarta.servlet.http.HttpSession;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.*;
 
 @Controller
@@ -20,11 +23,17 @@ public class ExpenseController {
     private final UserService userService;
     private final GroupService groupService;
     private final ExpenseService expenseService;
+    private final RecurringExpenseService recurringExpenseService;
+    private final IdempotencyService idempotencyService;
+    private final ExpenseSearchService expenseSearchService;
+    private final UserGroupViewService userGroupViewService;
+    private final FxRateTable fxRateTable;
 
     /**
      * Show add expense form.
      */
     @GetMapping("/groups/{groupId}/expenses/new")
+    @SqlBudget(5)
     public String addExpenseForm(@PathVariable Long groupId,
             HttpSession session,
             Model model) {
@@ -41,21 +50,27 @@ public class ExpenseController {
         AuthController.addUserToModel(model, session);
         model.addAttribute("group", group);
         model.addAttribute("splitTypes", SplitType.values());
+        model.addAttribute("currencies", Money.symbols(fxRateTable.supportedCurrencies()));
+        model.addAttribute("idempotencyKey", idempotencyService.newKey());
 
         return "expenses/form";
     }
 
     /**
-     * Add a new expense.
+     * Add a new expense, optionally repeating it on a schedule from now on.
      */
     @PostMapping("/groups/{groupId}/expenses")
+    @SqlBudget(25)
     public String addExpense(@PathVariable Long groupId,
             @RequestParam String description,
             @RequestParam BigDecimal amount,
             @RequestParam Long paidById,
             @RequestParam SplitType splitType,
             @RequestParam(required = false) List<Long> splitAmongUserIds,
+            @RequestParam(required = false) Recurrence repeat,
             @RequestParam Map<String, String> allParams,
+            @RequestParam(required = false) String idempotencyKey,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyHeader,
             HttpSession session,
             RedirectAttributes redirectAttributes) {
         Long userId = (Long) session.getAttribute("userId");
@@ -64,59 +79,125 @@ public class ExpenseController {
         }
 
         try {
-            ExpenseDTO dto = ExpenseDTO.builder()
-                    .groupId(groupId)
-                    .description(description)
-                    .amount(amount)
-                    .paidById(paidById)
-                    .splitType(splitType)
-                    .build();
-
-            switch (splitType) {
-                case EQUAL:
-                    if (splitAmongUserIds == null || splitAmongUserIds.isEmpty()) {
-                        throw new IllegalArgumentException("Select at least one member for equal split");
-                    }
-                    dto.setSplitAmongUserIds(splitAmongUserIds);
-                    break;
-
-                case EXACT:
-                    Map<Long, BigDecimal> exactAmounts = new HashMap<>();
-                    for (Map.Entry<String, String> entry : allParams.entrySet()) {
-                        if (entry.getKey().startsWith("exactAmount_")) {
-                            String userIdStr = entry.getKey().replace("exactAmount_", "");
-                            BigDecimal exactAmount = new BigDecimal(entry.getValue());
-                            if (exactAmount.compareTo(BigDecimal.ZERO) > 0) {
-                                exactAmounts.put(Long.parseLong(userIdStr), exactAmount);
-                            }
-                        }
-                    }
-                    if (exactAmounts.isEmpty()) {
-                        throw new IllegalArgumentException("Enter at least one amount for exact split");
-                    }
-                    dto.setExactAmounts(exactAmounts);
-                    break;
-
-                case PERCENTAGE:
-                    Map<Long, BigDecimal> percentages = new HashMap<>();
-                    for (Map.Entry<String, String> entry : allParams.entrySet()) {
-                        if (entry.getKey().startsWith("percentage_")) {
-                            String userIdStr = entry.getKey().replace("percentage_", "");
-                            BigDecimal percentage = new BigDecimal(entry.getValue());
-                            if (percentage.compareTo(BigDecimal.ZERO) > 0) {
-                                percentages.put(Long.parseLong(userIdStr), percentage);
-                            }
-                        }
-                    }
-                    if (percentages.isEmpty()) {
-                        throw new IllegalArgumentException("Enter at least one percentage");
-                    }
-                    dto.setPercentages(percentages);
-                    break;
+            ExpenseDTO dto = buildExpenseDto(groupId, description, amount, paidById, splitType, splitAmongUserIds,
+                    allParams);
+
+            String key = idempotencyKey != null ? idempotencyKey : idempotencyHeader;
+            idempotencyService.execute("expense:" + userId + ":" + groupId, key,
+                    () -> repeat != null
+                            ? recurringExpenseService.addRecurringExpense(dto, repeat, userId)
+                            : expenseService.addExpense(dto));
+            redirectAttributes.addFlashAttribute("success", repeat != null
+                    ? "Expense added! It will repeat " + repeat.name().toLowerCase() + "."
+                    : "Expense added successfully!");
+
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/groups/" + groupId;
+    }
+
+    /**
+     * Search expenses in one or all of the user's groups.
+     */
+    @GetMapping("/expenses/search")
+    @SqlBudget(4)
+    public String searchExpenses(@ModelAttribute("criteria") ExpenseSearchDTO criteria,
+            HttpSession session,
+            Model model) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return "redirect:/login";
+        }
+
+        AuthController.addUserToModel(model, session);
+        model.addAttribute("groups", userGroupViewService.getUserGroups(userId));
+        model.addAttribute("results", expenseSearchService.search(userId, criteria, ExpenseSearchService.MAX_RESULTS));
+
+        return "expenses/search";
+    }
+
+    /**
+     * Show the edit form of an expense, filled in with its current splits.
+     */
+    @GetMapping("/expenses/{id}/edit")
+    @SqlBudget(6)
+    public String editExpenseForm(@PathVariable Long id,
+            HttpSession session,
+            Model model,
+            RedirectAttributes redirectAttributes) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return "redirect:/login";
+        }
+
+        Expense expense = expenseService.findByIdWithSplits(id);
+        if (expense == null) {
+            return "redirect:/groups";
+        }
+        ExpenseGroup group = groupService.findByIdWithMembers(expense.getGroup().getId());
+        if (!canChange(expense, group, userId)) {
+            redirectAttributes.addFlashAttribute("error", "You cannot edit this expense");
+            return "redirect:/groups/" + group.getId();
+        }
+
+        Map<Long, BigDecimal> baseShares = new HashMap<>();
+        SplitCalculator.shares(expense).forEach(share -> baseShares.put(share.userId(), share.amount()));
+        Map<Long, BigDecimal> shares = expense.getCurrency() != null
+                ? inOriginalCurrency(baseShares, expense)
+                : baseShares;
+        Map<Long, BigDecimal> percentages = new HashMap<>();
+        expense.getSplits().stream()
+                .filter(split -> split.getPercentage() != null)
+                .forEach(split -> percentages.put(split.getUser().getId(), split.getPercentage()));
+
+        AuthController.addUserToModel(model, session);
+        model.addAttribute("group", group);
+        model.addAttribute("expense", expense);
+        model.addAttribute("shares", shares);
+        model.addAttribute("percentages", percentages);
+        model.addAttribute("splitTypes", SplitType.values());
+        model.addAttribute("currencies", Money.symbols(fxRateTable.supportedCurrencies()));
+
+        return "expenses/form";
+    }
+
+    /**
+     * Edit an expense. Submitting the same form twice changes nothing the second time.
+     */
+    @PostMapping("/expenses/{id}/edit")
+    @SqlBudget(25)
+    public String editExpense(@PathVariable Long id,
+            @RequestParam String description,
+            @RequestParam BigDecimal amount,
+            @RequestParam Long paidById,
+            @RequestParam SplitType splitType,
+            @RequestParam(required = false) List<Long> splitAmongUserIds,
+            @RequestParam Map<String, String> allParams,
+            HttpSession session,
+            RedirectAttributes redirectAttributes) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return "redirect:/login";
+        }
+
+        Expense expense = expenseService.findById(id).orElse(null);
+        if (expense == null) {
+            redirectAttributes.addFlashAttribute("error", "Expense not found");
+            return "redirect:/groups";
+        }
+        Long groupId = expense.getGroup().getId();
+
+        try {
+            if (!canChange(expense, expense.getGroup(), userId)) {
+                throw new IllegalArgumentException("You cannot edit this expense");
             }
 
-            expenseService.addExpense(dto);
-            redirectAttributes.addFlashAttribute("success", "Expense added successfully!");
+            ExpenseDTO dto = buildExpenseDto(groupId, description, amount, paidById, splitType, splitAmongUserIds,
+                    allParams);
+            expenseService.updateExpense(id, dto, userId);
+            redirectAttributes.addFlashAttribute("success", "Expense updated successfully!");
 
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -129,6 +210,7 @@ public class ExpenseController {
      * Delete an expense.
      */
     @PostMapping("/expenses/{id}/delete")
+    @SqlBudget(16)
     public String deleteExpense(@PathVariable Long id,
             @RequestParam Long groupId,
             HttpSession session,
@@ -142,14 +224,11 @@ public class ExpenseController {
             Expense expense = expenseService.findById(id)
                     .orElseThrow(() -> new IllegalArgumentException("Expense not found"));
 
-            // Only payer or group creator can delete
-            ExpenseGroup group = expense.getGroup();
-            if (!expense.getPaidBy().getId().equals(userId) &&
-                    !group.getCreatedBy().getId().equals(userId)) {
+            if (!canChange(expense, expense.getGroup(), userId)) {
                 throw new IllegalArgumentException("You cannot delete this expense");
             }
 
-            expenseService.deleteExpense(id);
+            expenseService.deleteExpense(id, expense.getGroup().getId());
             redirectAttributes.addFlashAttribute("success", "Expense deleted successfully!");
 
         } catch (Exception e) {
@@ -158,4 +237,133 @@ public class ExpenseController {
 
         return "redirect:/groups/" + groupId;
     }
+
+    /**
+     * Stop repeating an expense.
+     */
+    @PostMapping("/recurring-expenses/{id}/delete")
+    @SqlBudget(8)
+    public String deleteRecurringExpense(@PathVariable Long id,
+            @RequestParam Long groupId,
+            HttpSession session,
+            RedirectAttributes redirectAttributes) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return "redirect:/login";
+        }
+
+        try {
+            RecurringExpense recurring = recurringExpenseService.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Recurring expense not found"));
+
+            if (!recurring.getPaidBy().getId().equals(userId) && !recurring.getCreatedBy().getId().equals(userId)
+                    && !recurring.getGroup().getCreatedBy().getId().equals(userId)) {
+                throw new IllegalArgumentException("You cannot stop this recurring expense");
+            }
+
+            recurringExpenseService.deleteRecurringExpense(id);
+            redirectAttributes.addFlashAttribute("success", "Recurring expense stopped");
+
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/groups/" + groupId;
+    }
+
+    /**
+     * Only the payer or the group creator can edit or delete an expense.
+     */
+    private static boolean canChange(Expense expense, ExpenseGroup group, Long userId) {
+        return expense.getPaidBy().getId().equals(userId) || group.getCreatedBy().getId().equals(userId);
+    }
+
+    /**
+     * Shares of an expense entered in another currency, for the edit form. Only the base
+     * currency shares are stored, so they are scaled back to the amount as entered, the
+     * largest share absorbing the rounding difference.
+     */
+    private static Map<Long, BigDecimal> inOriginalCurrency(Map<Long, BigDecimal> shares, Expense expense) {
+        BigDecimal original = expense.getOriginalAmountValue();
+        int scale = original.scale();
+        Map<Long, BigDecimal> scaled = new HashMap<>();
+        BigDecimal remainder = original;
+        Long largest = null;
+        for (Map.Entry<Long, BigDecimal> share : shares.entrySet()) {
+            BigDecimal amount = share.getValue().multiply(original)
+                    .divide(expense.getAmount(), scale, RoundingMode.HALF_UP);
+            scaled.put(share.getKey(), amount);
+            remainder = remainder.subtract(amount);
+            if (largest == null || amount.compareTo(scaled.get(largest)) > 0) {
+                largest = share.getKey();
+            }
+        }
+        if (largest != null) {
+            scaled.merge(largest, remainder, BigDecimal::add);
+        }
+        return scaled;
+    }
+
+    /**
+     * Expense form fields as a DTO, reading the exact amounts and percentages from the
+     * per-member parameters.
+     */
+    private static ExpenseDTO buildExpenseDto(Long groupId, String description, BigDecimal amount, Long paidById,
+            SplitType splitType, List<Long> splitAmongUserIds, Map<String, String> allParams) {
+        ExpenseDTO dto = ExpenseDTO.builder()
+                .groupId(groupId)
+                .description(description)
+                .amount(amount)
+                .currency(allParams.get("currency") == null || allParams.get("currency").isBlank()
+                        ? null
+                        : allParams.get("currency"))
+                .paidById(paidById)
+                .splitType(splitType)
+                .build();
+
+        switch (splitType) {
+            case EQUAL:
+                if (splitAmongUserIds == null || splitAmongUserIds.isEmpty()) {
+                    throw new IllegalArgumentException("Select at least one member for equal split");
+                }
+                dto.setSplitAmongUserIds(splitAmongUserIds);
+                break;
+
+            case EXACT:
+                Map<Long, BigDecimal> exactAmounts = new HashMap<>();
+                for (Map.Entry<String, String> entry : allParams.entrySet()) {
+                    if (entry.getKey().startsWith("exactAmount_")) {
+                        String userIdStr = entry.getKey().replace("exactAmount_", "");
+                        BigDecimal exactAmount = new BigDecimal(entry.getValue());
+                        if (exactAmount.compareTo(BigDecimal.ZERO) > 0) {
+                            exactAmounts.put(Long.parseLong(userIdStr), exactAmount);
+                        }
+                    }
+                }
+                if (exactAmounts.isEmpty()) {
+                    throw new IllegalArgumentException("Enter at least one amount for exact split");
+                }
+                dto.setExactAmounts(exactAmounts);
+                break;
+
+            case PERCENTAGE:
+                Map<Long, BigDecimal> percentages = new HashMap<>();
+                for (Map.Entry<String, String> entry : allParams.entrySet()) {
+                    if (entry.getKey().startsWith("percentage_")) {
+                        String userIdStr = entry.getKey().replace("percentage_", "");
+                        BigDecimal percentage = new BigDecimal(entry.getValue());
+                        if (percentage.compareTo(BigDecimal.ZERO) > 0) {
+                            percentages.put(Long.parseLong(userIdStr), percentage);
+                        }
+                    }
+                }
+                if (percentages.isEmpty()) {
+                    throw new IllegalArgumentException("Enter at least one percentage");
+                }
+                dto.setPercentages(percentages);
+                break;
+        }
+
+        return dto;
+    }
 }
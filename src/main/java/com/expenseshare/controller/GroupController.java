@@ -3,6 +3,7 @@ package com.expenseshare.controller;
 import com.expenseshare.dto.BalanceDTO;
 import com.expenseshare.dto.GroupDTO;
 import com.expenseshare.dto.UserBalanceSummary;
+import com.expenseshare.metrics.SqlBudget;
 import com.expenseshare.model.*;
 import com.expenseshare.service.*;
 import jakarta.servlet.http.HttpSession;
@@ -24,11 +25,16 @@ public class GroupController {
     private final ExpenseService expenseService;
     private final BalanceService balanceService;
     private final SettlementService settlementService;
+    private final RecurringExpenseService recurringExpenseService;
+    private final IdempotencyService idempotencyService;
+    private final UserGroupViewService userGroupViewService;
+    private final FxRateTable fxRateTable;
 
     /**
      * List all groups for current user.
      */
     @GetMapping
+    @SqlBudget(1)
     public String listGroups(HttpSession session, Model model) {
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
@@ -37,7 +43,7 @@ public class GroupController {
 
         AuthController.addUserToModel(model, session);
 
-        List<ExpenseGroup> groups = groupService.getUserGroups(userId);
+        List<UserGroupView> groups = userGroupViewService.getUserGroups(userId);
         model.addAttribute("groups", groups);
 
         return "groups/list";
@@ -47,6 +53,7 @@ public class GroupController {
      * Show create group form.
      */
     @GetMapping("/new")
+    @SqlBudget(3)
     public String createGroupForm(HttpSession session, Model model) {
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
@@ -55,6 +62,8 @@ public class GroupController {
 
         AuthController.addUserToModel(model, session);
         model.addAttribute("groupDTO", new GroupDTO());
+        model.addAttribute("currencies", Money.symbols(fxRateTable.baseCurrencies()));
+        model.addAttribute("defaultCurrency", fxRateTable.getDefaultCurrency());
 
         // Get all users for member selection
         List<User> allUsers = userService.findAll();
@@ -67,6 +76,7 @@ public class GroupController {
      * Create a new group.
      */
     @PostMapping
+    @SqlBudget(15)
     public String createGroup(@ModelAttribute GroupDTO groupDTO,
             HttpSession session,
             RedirectAttributes redirectAttributes) {
@@ -92,6 +102,7 @@ public class GroupController {
      * Show group detail page.
      */
     @GetMapping("/{id}")
+    @SqlBudget(15)
     public String groupDetail(@PathVariable Long id,
             HttpSession session,
             Model model) {
@@ -119,6 +130,9 @@ public class GroupController {
         List<Expense> expenses = expenseService.getGroupExpenses(id);
         model.addAttribute("expenses", expenses);
 
+        // Get recurring expenses
+        model.addAttribute("recurringExpenses", recurringExpenseService.getGroupRecurringExpenses(id));
+
         // Get settlements
         List<Settlement> settlements = settlementService.getGroupSettlements(id);
         model.addAttribute("settlements", settlements);
@@ -135,6 +149,9 @@ public class GroupController {
         List<User> allUsers = userService.findAll();
         model.addAttribute("allUsers", allUsers);
 
+        // Token shared by the settlement forms so retried submissions are deduplicated
+        model.addAttribute("idempotencyKey", idempotencyService.newKey());
+
         return "groups/detail";
     }
 
@@ -142,6 +159,7 @@ public class GroupController {
      * Add a member to the group.
      */
     @PostMapping("/{id}/members")
+    @SqlBudget(10)
     public String addMember(@PathVariable Long id,
             @RequestParam String email,
             HttpSession session,
@@ -165,6 +183,7 @@ public class GroupController {
      * Remove a member from the group.
      */
     @PostMapping("/{id}/members/{memberId}/remove")
+    @SqlBudget(10)
     public String removeMember(@PathVariable Long id,
             @PathVariable Long memberId,
             HttpSession session,
@@ -188,6 +207,7 @@ public class GroupController {
      * Delete a group.
      */
     @PostMapping("/{id}/delete")
+    @SqlBudget(40)
     public String deleteGroup(@PathVariable Long id,
             HttpSession session,
             RedirectAttributes redirectAttributes) {
@@ -205,8 +225,11 @@ public class GroupController {
                 throw new IllegalArgumentException("Only the group creator can delete the group");
             }
 
-            groupService.deleteGroup(id);
-            redirectAttributes.addFlashAttribute("success", "Group deleted successfully!");
+            if (groupService.deleteGroup(id)) {
+                redirectAttributes.addFlashAttribute("success", "Group deleted successfully!");
+            } else {
+                redirectAttributes.addFlashAttribute("success", "Group deleted. Its history is being cleaned up in the background.");
+            }
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
         }
@@ -1,6 +1,7 @@
 package com.expenseshare.controller;
 
 import com.expenseshare.dto.SettlementDTO;
+import com.expenseshare.metrics.SqlBudget;
 import com.expenseshare.model.*;
 import com.expenseshare.service.*;
 import jakarta.servlet.http.HttpSession;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Controller
 @RequiredArgsConstructor
@@ -20,15 +22,19 @@ public class SettlementController {
     private final BalanceService balanceService;
     private final EmailService emailService;
     private final UserService userService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Record a settlement.
      */
     @PostMapping("/groups/{groupId}/settle")
+    @SqlBudget(10)
     public String recordSettlement(@PathVariable Long groupId,
             @RequestParam Long payerId,
             @RequestParam Long payeeId,
             @RequestParam BigDecimal amount,
+            @RequestParam(required = false) String idempotencyKey,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyHeader,
             HttpSession session,
             RedirectAttributes redirectAttributes) {
         Long userId = (Long) session.getAttribute("userId");
@@ -44,7 +50,9 @@ public class SettlementController {
                     .amount(amount)
                     .build();
 
-            settlementService.recordSettlement(dto);
+            String key = idempotencyKey != null ? idempotencyKey : idempotencyHeader;
+            idempotencyService.execute("settlement:" + userId + ":" + groupId, key,
+                    () -> settlementService.recordSettlement(dto));
             redirectAttributes.addFlashAttribute("success", "Settlement recorded successfully!");
 
         } catch (Exception e) {
@@ -54,10 +62,43 @@ public class SettlementController {
         return "redirect:/groups/" + groupId;
     }
 
+    /**
+     * Settle every simplified balance in the group at once.
+     */
+    @PostMapping("/groups/{groupId}/settle-all")
+    @SqlBudget(25)
+    public String settleAll(@PathVariable Long groupId,
+            @RequestParam Long version,
+            @RequestParam(required = false) String idempotencyKey,
+            HttpSession session,
+            RedirectAttributes redirectAttributes) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return "redirect:/login";
+        }
+
+        try {
+            if (!groupService.isMember(groupId, userId)) {
+                throw new IllegalArgumentException("You are not a member of this group");
+            }
+
+            List<Settlement> settlements = idempotencyService.execute("settle-all:" + userId + ":" + groupId,
+                    idempotencyKey, () -> settlementService.settleAll(groupId, version, null));
+            redirectAttributes.addFlashAttribute("success",
+                    "Recorded " + settlements.size() + " settlements. Everyone is settled up!");
+
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/groups/" + groupId;
+    }
+
     /**
      * Delete a settlement.
      */
     @PostMapping("/settlements/{id}/delete")
+    @SqlBudget(13)
     public String deleteSettlement(@PathVariable Long id,
             @RequestParam Long groupId,
             HttpSession session,
@@ -71,15 +112,19 @@ public class SettlementController {
             Settlement settlement = settlementService.findById(id)
                     .orElseThrow(() -> new IllegalArgumentException("Settlement not found"));
 
-            // Only payer, payee, or group creator can delete
             ExpenseGroup group = settlement.getGroup();
+            if (!group.getId().equals(groupId)) {
+                throw new IllegalArgumentException("Settlement not found");
+            }
+
+            // Only payer, payee, or group creator can delete
             if (!settlement.getPayer().getId().equals(userId) &&
                     !settlement.getPayee().getId().equals(userId) &&
                     !group.getCreatedBy().getId().equals(userId)) {
                 throw new IllegalArgumentException("You cannot delete this settlement");
             }
 
-            settlementService.deleteSettlement(id);
+            settlementService.deleteSettlement(id, groupId);
             redirectAttributes.addFlashAttribute("success", "Settlement deleted successfully!");
 
         } catch (Exception e) {
@@ -93,6 +138,7 @@ public class SettlementController {
      * Send a payment reminder.
      */
     @PostMapping("/groups/{groupId}/remind")
+    @SqlBudget(8)
     public String sendReminder(@PathVariable Long groupId,
             @RequestParam Long toUserId,
             @RequestParam BigDecimal amount,
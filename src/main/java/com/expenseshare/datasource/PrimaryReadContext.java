@@ -0,0 +1,42 @@
+package com.expenseshare.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound flag that sends read-only transactions to the primary.
+ * Used for read-your-writes: right after a write, replicas may not have caught up.
+ */
+public final class PrimaryReadContext {
+
+    private static final ThreadLocal<Boolean> FORCED = new ThreadLocal<>();
+
+    private PrimaryReadContext() {
+    }
+
+    public static boolean isForced() {
+        return Boolean.TRUE.equals(FORCED.get());
+    }
+
+    public static void force() {
+        FORCED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        FORCED.remove();
+    }
+
+    /**
+     * Run the supplier with all reads on the primary, restoring the previous state afterwards.
+     */
+    public static <T> T call(Supplier<T> supplier) {
+        boolean previous = isForced();
+        force();
+        try {
+            return supplier.get();
+        } finally {
+            if (!previous) {
+                clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.expenseshare.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Pins a session's reads to the primary for a short window after any write
+ * request, so users always see their own changes despite replica lag. The window
+ * starts when the write is done, in whatever session it ended with, so a write
+ * that signs in, and creates the session, is covered as well.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String PRIMARY_UNTIL = "readYourWrites.primaryUntil";
+
+    private final long stickyMillis;
+
+    public ReadYourWritesFilter(long stickyMillis) {
+        this.stickyMillis = stickyMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = !isSafeMethod(request.getMethod());
+        HttpSession session = request.getSession(false);
+        Object until = session != null ? session.getAttribute(PRIMARY_UNTIL) : null;
+        boolean sticky = write || (until instanceof Long deadline && System.currentTimeMillis() < deadline);
+
+        if (!sticky) {
+            chain.doFilter(request, response);
+            return;
+        }
+        PrimaryReadContext.force();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PrimaryReadContext.clear();
+            if (write) {
+                // The session may have been created, or replaced, by the write itself
+                HttpSession after = request.getSession(false);
+                if (after != null) {
+                    after.setAttribute(PRIMARY_UNTIL, System.currentTimeMillis() + stickyMillis);
+                }
+            }
+        }
+    }
+
+    private static boolean isSafeMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+}
@@ -0,0 +1,107 @@
+package com.expenseshare.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Polls each replica's replication lag and keeps the list of replicas
+ * that are reachable and within the allowed lag.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String SHOW_REPLICA_STATUS = "SHOW REPLICA STATUS";
+
+    private final Map<String, HikariDataSource> replicas;
+    private final long maxLagSeconds;
+    private final String lagQuery;
+    private final Map<String, Double> lastLag = new ConcurrentHashMap<>();
+
+    private volatile List<String> healthyReplicas = List.of();
+
+    /**
+     * @param lagQuery query returning the lag in seconds as its first column;
+     *                 blank uses MySQL's SHOW REPLICA STATUS (Seconds_Behind_Source)
+     */
+    public ReplicaLagMonitor(Map<String, HikariDataSource> replicas, long maxLagSeconds, String lagQuery,
+            MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? SHOW_REPLICA_STATUS : lagQuery;
+
+        for (String name : replicas.keySet()) {
+            lastLag.put(name, Double.NaN);
+            Gauge.builder("expenseshare.datasource.replica.lag", lastLag, lags -> lags.get(name))
+                    .description("Replication lag in seconds (NaN when unknown)")
+                    .baseUnit("seconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    public Map<String, HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    /**
+     * Re-check every replica. Unreachable replicas or replicas that report no lag are excluded.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.datasource.replicas.check-interval-ms:2000}")
+    public void check() {
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, HikariDataSource> replica : replicas.entrySet()) {
+            Long lag = measureLag(replica.getKey(), replica.getValue());
+            lastLag.put(replica.getKey(), lag != null ? lag.doubleValue() : Double.NaN);
+            if (lag != null && lag <= maxLagSeconds) {
+                healthy.add(replica.getKey());
+            }
+        }
+
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("Healthy read replicas: {} of {}", healthy, replicas.keySet());
+        }
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    private Long measureLag(String name, HikariDataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                return null;
+            }
+            Object value = SHOW_REPLICA_STATUS.equals(lagQuery)
+                    ? rs.getObject("Seconds_Behind_Source")
+                    : rs.getObject(1);
+            if (value == null) {
+                return null;
+            }
+            return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Replica {} lag check failed: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,53 @@
+package com.expenseshare.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to a healthy replica (round robin) and
+ * everything else to the primary. Must sit behind a LazyConnectionDataSourceProxy
+ * so the read-only flag is known when the physical connection is fetched.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> routeCounters = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = route();
+        routeCounters.computeIfAbsent(target, key -> Counter.builder("expenseshare.datasource.route")
+                .description("Physical connections fetched per routing target")
+                .tag("target", key)
+                .register(meterRegistry)).increment();
+        return target;
+    }
+
+    private String route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PrimaryReadContext.isForced()) {
+            return PRIMARY;
+        }
+        // Fall back to the primary when every replica is lagging or down
+        List<String> healthy = lagMonitor.getHealthyReplicas();
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.expenseshare.dto;
+
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO describing a single change in a group's activity feed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityDTO {
+
+    public enum Kind {
+        EXPENSE_ADDED,
+        EXPENSE_DELETED,
+        EXPENSE_UPDATED,
+        SETTLEMENT_RECORDED,
+        SETTLEMENT_DELETED,
+        MEMBER_JOINED,
+        MEMBER_LEFT
+    }
+
+    private Kind kind;
+    private Long id;
+    private String description; // Expense description, null for settlements
+    private BigDecimal amount;
+    private Long fromUserId; // Expense payer, settlement payer, or the member joining or leaving
+    private String fromUserName;
+    private Long toUserId; // Settlement payee
+    private String toUserName;
+    private String splitType;
+    private Integer participantCount;
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.expenseshare.dto;
 
+import com.expenseshare.model.Money;
 import lombok.*;
 import java.math.BigDecimal;
 
@@ -16,6 +17,7 @@ public class BalanceDTO {
     private Long toUserId;
     private String toUserName;
     private BigDecimal amount;
+    private String currency; // Set in balances across groups: base currency of the debt's group
 
     /**
      * Check if this balance represents a debt (positive amount = fromUser owes
@@ -24,4 +26,11 @@ public class BalanceDTO {
     public boolean isDebt() {
         return amount != null && amount.compareTo(BigDecimal.ZERO) > 0;
     }
+
+    /**
+     * Symbol of the currency, for display; null within a group.
+     */
+    public String getCurrencySymbol() {
+        return currency != null ? Money.symbol(currency) : null;
+    }
 }
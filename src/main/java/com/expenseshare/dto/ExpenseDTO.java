@@ -12,11 +12,16 @@ import java.util.Map;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ExpenseDTO {
     private Long groupId;
     private String description;
     private BigDecimal amount;
+
+    /**
+     * ISO 4217 code of the amounts; null for the group's base currency.
+     */
+    private String currency;
     private Long paidById;
     private SplitType splitType;
 
@@ -0,0 +1,26 @@
+package com.expenseshare.dto;
+
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO for searching expenses. Empty fields match everything; dates are inclusive.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpenseSearchDTO {
+    private Long groupId; // Null searches all the user's groups
+    private String q; // Words the description must contain, the last one possibly unfinished
+    private Long paidById;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+}
@@ -0,0 +1,24 @@
+package com.expenseshare.dto;
+
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO describing an expense found by a search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpenseSearchResultDTO {
+    private Long id;
+    private Long groupId;
+    private String groupName;
+    private String description;
+    private BigDecimal amount;
+    private Long paidById;
+    private String paidByName;
+    private String splitType;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,24 @@
+package com.expenseshare.dto;
+
+import com.expenseshare.repository.GroupArchiveRepository;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Export of a group's archived history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupArchiveDTO {
+    private Long groupId;
+    private LocalDateTime archivedThrough; // Null if nothing was archived yet
+    private Map<Long, BigDecimal> openingBalances; // Net balance per user id at archivedThrough
+    private List<GroupArchiveRepository.ArchivedExpense> expenses;
+    private List<GroupArchiveRepository.ArchivedSplit> splits;
+    private List<GroupArchiveRepository.ArchivedSettlement> settlements;
+}
@@ -12,5 +12,6 @@ import lombok.*;
 public class GroupDTO {
     private String name;
     private String description;
+    private String baseCurrency; // ISO 4217 code; the default currency when blank
     private String memberEmails; // Comma-separated emails
 }
@@ -0,0 +1,18 @@
+package com.expenseshare.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * DTO pushed to live subscribers of a group after a ledger change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupUpdateDTO {
+    private Long groupId;
+    private Long version; // Ledger version after the change
+    private List<BalanceDTO> balances; // Simplified balances after the change
+    private List<ActivityDTO> activities; // Activity items in the order they happened
+}
@@ -0,0 +1,58 @@
+package com.expenseshare.dto;
+
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Spending of a group, or of a user across their groups, over a range of day or month
+ * buckets, read from the spending rollups. For a group, paid and share are both what was
+ * spent, in the group's base currency; for a user, what they paid and their share of what
+ * was spent, with a period and split type entry per currency of their groups.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendingDTO {
+    private String granularity;
+    private LocalDate from; // First day of the first bucket
+    private LocalDate to; // First day of the last bucket
+    private List<Period> periods; // Oldest first, buckets without expenses left out; by currency for a user
+    private List<Payer> payers; // Group spending only, most paid first
+    private List<SplitTypeTotal> splitTypes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Period {
+        private LocalDate bucketStart;
+        private String currency; // User spending only
+        private BigDecimal paid;
+        private BigDecimal share;
+        private long expenseCount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Payer {
+        private Long userId;
+        private String userName;
+        private BigDecimal paid;
+        private BigDecimal share;
+        private long expenseCount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SplitTypeTotal {
+        private String splitType;
+        private String currency; // User spending only
+        private BigDecimal paid;
+        private BigDecimal share;
+        private long expenseCount;
+    }
+}
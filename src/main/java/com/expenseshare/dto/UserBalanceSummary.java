@@ -1,11 +1,18 @@
 package com.expenseshare.dto;
 
+import com.expenseshare.model.Money;
 import lombok.*;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
- * DTO for user balance summary.
+ * DTO for user balance summary. Within a group, amounts are in the group's base currency;
+ * across groups they only add up per currency, so the totals are kept per currency and the
+ * scalar totals are set only while all of them are in one.
  */
 @Data
 @NoArgsConstructor
@@ -17,13 +24,86 @@ public class UserBalanceSummary {
     private BigDecimal totalOwed; // Total amount user owes to others
     private BigDecimal totalOwing; // Total amount others owe to user
     private BigDecimal netBalance; // Net balance (positive = others owe you)
+    private List<CurrencyTotals> totals; // Across groups: per currency with a balance, at least one
     private List<BalanceDTO> debts; // Detailed debts
     private List<BalanceDTO> credits; // Detailed credits
 
     /**
-     * Check if user is all settled (net balance is zero).
+     * Summary across groups, from debts and credits that carry their group's currency.
+     */
+    public static UserBalanceSummary acrossGroups(Long userId, String userName, List<BalanceDTO> debts,
+            List<BalanceDTO> credits, String defaultCurrency) {
+        Map<String, CurrencyTotals> totals = new TreeMap<>();
+        for (BalanceDTO debt : debts) {
+            CurrencyTotals total = totals.computeIfAbsent(debt.getCurrency(), CurrencyTotals::zero);
+            total.setTotalOwed(total.getTotalOwed().add(debt.getAmount()));
+        }
+        for (BalanceDTO credit : credits) {
+            CurrencyTotals total = totals.computeIfAbsent(credit.getCurrency(), CurrencyTotals::zero);
+            total.setTotalOwing(total.getTotalOwing().add(credit.getAmount()));
+        }
+        totals.values().forEach(total -> total.setNetBalance(total.getTotalOwing().subtract(total.getTotalOwed())));
+
+        UserBalanceSummary summary = UserBalanceSummary.builder()
+                .userId(userId)
+                .userName(userName)
+                .debts(debts)
+                .credits(credits)
+                .build();
+        summary.applyTotals(totals.values(), defaultCurrency);
+        return summary;
+    }
+
+    /**
+     * Set the totals across groups. Currencies without a balance are left out; when none has
+     * one, a single zero line remains, in the default currency if there are no totals at all.
+     */
+    public void applyTotals(Collection<CurrencyTotals> currencyTotals, String defaultCurrency) {
+        List<CurrencyTotals> nonZero = new ArrayList<>(currencyTotals.stream()
+                .filter(total -> total.getTotalOwed().signum() != 0 || total.getTotalOwing().signum() != 0)
+                .toList());
+        if (nonZero.isEmpty()) {
+            nonZero.add(CurrencyTotals.zero(currencyTotals.isEmpty()
+                    ? defaultCurrency
+                    : currencyTotals.iterator().next().getCurrency()));
+        }
+        totals = nonZero;
+        CurrencyTotals only = nonZero.size() == 1 ? nonZero.get(0) : null;
+        totalOwed = only != null ? only.getTotalOwed() : null;
+        totalOwing = only != null ? only.getTotalOwing() : null;
+        netBalance = only != null ? only.getNetBalance() : null;
+    }
+
+    /**
+     * Check if user is all settled (net balance is zero in every currency).
      */
     public boolean isSettled() {
+        if (totals != null) {
+            return totals.stream().allMatch(total -> total.getNetBalance().signum() == 0);
+        }
         return netBalance != null && netBalance.compareTo(BigDecimal.ZERO) == 0;
     }
+
+    /**
+     * A user's totals in one currency.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CurrencyTotals {
+        private String currency;
+        private String currencySymbol;
+        private BigDecimal totalOwed;
+        private BigDecimal totalOwing;
+        private BigDecimal netBalance;
+
+        public static CurrencyTotals of(String currency, BigDecimal totalOwed, BigDecimal totalOwing) {
+            return new CurrencyTotals(currency, Money.symbol(currency), totalOwed, totalOwing,
+                    totalOwing.subtract(totalOwed));
+        }
+
+        static CurrencyTotals zero(String currency) {
+            return of(currency, BigDecimal.ZERO, BigDecimal.ZERO);
+        }
+    }
 }
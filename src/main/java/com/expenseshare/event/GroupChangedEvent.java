@@ -0,0 +1,15 @@
+package com.expenseshare.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by the group services when a group is created, renamed, deleted or its
+ * members change. Ledger writes publish {@link LedgerChangedEvent} instead.
+ * Listeners should act after commit.
+ */
+@Getter
+@AllArgsConstructor
+public class GroupChangedEvent {
+    private final Long groupId;
+}
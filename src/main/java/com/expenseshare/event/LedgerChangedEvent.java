@@ -0,0 +1,25 @@
+package com.expenseshare.event;
+
+import com.expenseshare.dto.ActivityDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published by the write services whenever an expense or settlement changes.
+ * Carries the ledger version the write committed as, so a listener acting later
+ * can tell this write's changes from those of writes that committed after it.
+ * Listeners should act after commit.
+ */
+@Getter
+@AllArgsConstructor
+public class LedgerChangedEvent {
+    private final Long groupId;
+    private final long ledgerVersion;
+    private final List<ActivityDTO> activities;
+
+    public LedgerChangedEvent(Long groupId, long ledgerVersion, ActivityDTO activity) {
+        this(groupId, ledgerVersion, List.of(activity));
+    }
+}
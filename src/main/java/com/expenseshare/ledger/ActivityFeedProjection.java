@@ -0,0 +1,80 @@
+package com.expenseshare.ledger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The most recent events of each group, newest first, including deletions and
+ * membership changes that the ledger tables no longer show.
+ */
+@Component
+public class ActivityFeedProjection implements LedgerProjection {
+
+    private final int feedSize;
+    private final Map<Long, Deque<LedgerEvent>> feeds = new ConcurrentHashMap<>();
+
+    public ActivityFeedProjection(@Value("${app.event-log.feed-size:50}") int feedSize) {
+        this.feedSize = feedSize;
+    }
+
+    @Override
+    public void reset() {
+        feeds.clear();
+    }
+
+    @Override
+    public void apply(LedgerEvent event) {
+        if (event.getType() == LedgerEvent.Type.GROUP_DELETED) {
+            feeds.remove(event.getGroupId());
+            return;
+        }
+
+        Deque<LedgerEvent> feed = feeds.computeIfAbsent(event.getGroupId(), id -> new ArrayDeque<>(feedSize));
+        synchronized (feed) {
+            feed.addFirst(event);
+            if (feed.size() > feedSize) {
+                feed.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} of the group's latest events (at most the feed size), newest first.
+     */
+    public List<LedgerEvent> recent(Long groupId, int limit) {
+        Deque<LedgerEvent> feed = feeds.get(groupId);
+        if (feed == null || limit <= 0) {
+            return List.of();
+        }
+
+        synchronized (feed) {
+            List<LedgerEvent> events = new ArrayList<>(Math.min(limit, feed.size()));
+            Iterator<LedgerEvent> iterator = feed.iterator();
+            while (iterator.hasNext() && events.size() < limit) {
+                events.add(iterator.next());
+            }
+            return events;
+        }
+    }
+
+    /**
+     * Sequence of the group's latest event, 0 if it has none.
+     */
+    public long lastSequence(Long groupId) {
+        Deque<LedgerEvent> feed = feeds.get(groupId);
+        if (feed == null) {
+            return 0;
+        }
+        synchronized (feed) {
+            return feed.isEmpty() ? 0 : feed.getFirst().getSequence();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.expenseshare.ledger;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Net balance per user and group, folded from the event log.
+ * Same signs as the balance calculator: positive means the user is owed money.
+ * Archiving does not change history, so archived groups need no special handling.
+ */
+@Component
+public class BalanceProjection implements LedgerProjection {
+
+    // Minor units per user, per group
+    private final Map<Long, Map<Long, Long>> balances = new ConcurrentHashMap<>();
+
+    @Override
+    public void reset() {
+        balances.clear();
+    }
+
+    @Override
+    public void apply(LedgerEvent event) {
+        switch (event.getType()) {
+            case EXPENSE_ADDED -> applyShares(event, 1);
+            case EXPENSE_DELETED -> applyShares(event, -1);
+            case EXPENSE_UPDATED -> applyChanges(event);
+            case SETTLEMENT_RECORDED -> transfer(event.getGroupId(), event.getUserId(), event.getCounterpartyId(),
+                    event.getAmount());
+            case SETTLEMENT_DELETED -> transfer(event.getGroupId(), event.getUserId(), event.getCounterpartyId(),
+                    -event.getAmount());
+            case GROUP_DELETED -> balances.remove(event.getGroupId());
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Non-zero net balances of a group.
+     */
+    public Map<Long, BigDecimal> netBalances(Long groupId) {
+        Map<Long, BigDecimal> net = new HashMap<>();
+        balances.getOrDefault(groupId, Map.of()).forEach((userId, amount) -> {
+            if (amount != 0) {
+                net.put(userId, LedgerEvent.fromMinorUnits(amount));
+            }
+        });
+        return net;
+    }
+
+    private void applyShares(LedgerEvent event, int sign) {
+        long payerId = event.getUserId();
+        long[] userIds = event.getShareUserIds();
+        long[] amounts = event.getShareAmounts();
+        for (int i = 0; i < userIds.length; i++) {
+            // The payer's own share is neither owed nor owing
+            if (userIds[i] != payerId) {
+                transfer(event.getGroupId(), payerId, userIds[i], sign * amounts[i]);
+            }
+        }
+    }
+
+    private void applyChanges(LedgerEvent event) {
+        Map<Long, Long> group = balances.computeIfAbsent(event.getGroupId(), id -> new ConcurrentHashMap<>());
+        long[] userIds = event.getShareUserIds();
+        long[] changes = event.getShareAmounts();
+        for (int i = 0; i < userIds.length; i++) {
+            group.merge(userIds[i], changes[i], Long::sum);
+        }
+    }
+
+    private void transfer(long groupId, long creditorId, long debtorId, long amount) {
+        Map<Long, Long> group = balances.computeIfAbsent(groupId, id -> new ConcurrentHashMap<>());
+        group.merge(creditorId, amount, Long::sum);
+        group.merge(debtorId, -amount, Long::sum);
+    }
+}
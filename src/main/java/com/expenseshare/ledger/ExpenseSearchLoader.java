@@ -0,0 +1,61 @@
+package com.expenseshare.ledger;
+
+import com.expenseshare.repository.LedgerFlow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+
+/**
+ * Builds the expense search index from the expenses table once the application is ready,
+ * which is quicker than replaying the whole event log. From then on the index follows the
+ * log, and through the {@link LedgerOutbox} the log receives the writes of every node.
+ * Events appended from the start of the load on are replayed into the index afterwards,
+ * so writes made while loading are not lost.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExpenseSearchLoader {
+
+    private static final String EXPENSES = "SELECT id, group_id, paid_by, amount, description, created_at "
+            + "FROM expenses ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerEventLog eventLog;
+    private final LedgerProjections projections;
+    private final ExpenseSearchProjection searchProjection;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        load();
+    }
+
+    /**
+     * Reload the index from the expenses table. Returns the number of expenses loaded.
+     */
+    public long load() {
+        long started = System.nanoTime();
+        // Every event up to here was committed before the load reads the table; later ones
+        // may be in the table already, and replaying them is harmless
+        long from = eventLog.lastSequence();
+        long[] count = new long[1];
+        searchProjection.load(documents -> jdbcTemplate.query(EXPENSES, rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            documents.add(rs.getLong("id"), rs.getLong("group_id"), rs.getLong("paid_by"),
+                    LedgerEvent.toMinorUnits(rs.getBigDecimal("amount")),
+                    createdAt != null ? createdAt.toLocalDateTime() : LedgerFlow.BEGINNING,
+                    rs.getString("description"));
+            count[0]++;
+        }));
+        projections.resume(searchProjection, from, searchProjection::markLoaded);
+
+        log.info("Loaded {} expenses into the search index in {} ms", count[0],
+                (System.nanoTime() - started) / 1_000_000);
+        return count[0];
+    }
+}
@@ -0,0 +1,628 @@
+package com.expenseshare.ledger;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index of expense descriptions, for searching by description, payer, amount and
+ * date. Loaded from the expenses table on startup (see {@link ExpenseSearchLoader}), then
+ * kept up to date by the event log, which the {@link LedgerOutboxTailer} fills with the
+ * expenses written on any node.
+ * Every expense version is a document, numbered within its group: the group holds the
+ * columns of its documents (expense id, payer, amount, creation time, word ids), so a
+ * search reads each group's data in one place. Edits and deletions mark the old document
+ * removed; an edit adds a new one. Each word maps to a posting list ordered by group,
+ * stored as one run of delta-encoded document numbers per group, so a search only decodes
+ * the runs of the groups it covers. New postings go to a tail that is merged into the runs
+ * once it grows past a fraction of them; merging also drops removed documents, whose
+ * columns are kept until the index is rebuilt.
+ */
+@Component
+public class ExpenseSearchProjection implements LedgerProjection {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int MIN_TAIL = 64;
+    // Tail merged into the runs once it holds more than 1/TAIL_RATIO of the postings
+    private static final int TAIL_RATIO = 16;
+    // Query words starting more description words than this are checked against each
+    // candidate's words instead of reading that many posting lists
+    private static final int MAX_POSTING_LISTS = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Events are ignored and searches find nothing until the expenses table is loaded
+    private volatile boolean loaded;
+
+    // Groups are numbered densely, so postings can pack (group slot, document) into a long
+    private final Map<Long, Integer> slotsByGroup = new HashMap<>();
+    private final List<GroupDocuments> groups = new ArrayList<>();
+    private int documents;
+
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+
+    /**
+     * Search criteria. Every word of the text must start a word of the description; null
+     * fields match everything. Amounts are in minor units, both bounds inclusive; from is
+     * inclusive and to exclusive.
+     */
+    public record Query(String text, Long payerId, Long minAmount, Long maxAmount, LocalDateTime from,
+            LocalDateTime to) {
+    }
+
+    public record Hit(long expenseId, long groupId, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Receives the expenses being loaded, in ascending id order.
+     */
+    public interface Documents {
+        void add(long expenseId, long groupId, long payerId, long amount, LocalDateTime createdAt,
+                String description);
+    }
+
+    /**
+     * Replace the index with the expenses the source passes on. The index stays unloaded
+     * until {@link #markLoaded}; replaying events the loaded expenses already reflect is
+     * harmless, since an added expense replaces its loaded document.
+     */
+    public void load(Consumer<Documents> source) {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            clear();
+            source.accept((expenseId, groupId, payerId, amount, createdAt, description) ->
+                    add(groupId, expenseId, payerId, amount, epochSecond(createdAt), description));
+            for (GroupDocuments group : groups) {
+                group.loaded = group.size;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Start applying events and answering searches.
+     */
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    @Override
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void apply(LedgerEvent event) {
+        switch (event.getType()) {
+            case EXPENSE_ADDED, EXPENSE_UPDATED, EXPENSE_DELETED, GROUP_DELETED -> {
+            }
+            default -> {
+                return;
+            }
+        }
+        if (!loaded) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            switch (event.getType()) {
+                case EXPENSE_ADDED -> {
+                    GroupDocuments group = group(event.getGroupId());
+                    int document = group != null ? group.findLoaded(event.getEntityId()) : -1;
+                    if (document >= 0) {
+                        group.removed.set(document);
+                    }
+                    add(event, epochSecond(event.getOccurredAt()));
+                }
+                case EXPENSE_UPDATED -> {
+                    // Keeps the creation time: the event's is the time of the edit
+                    GroupDocuments group = group(event.getGroupId());
+                    int document = group != null ? group.find(event.getEntityId()) : -1;
+                    if (document >= 0) {
+                        group.removed.set(document);
+                        add(event, group.createdAt[document]);
+                    }
+                }
+                case EXPENSE_DELETED -> {
+                    GroupDocuments group = group(event.getGroupId());
+                    int document = group != null ? group.find(event.getEntityId()) : -1;
+                    if (document >= 0) {
+                        group.removed.set(document);
+                    }
+                }
+                case GROUP_DELETED -> {
+                    Integer slot = slotsByGroup.remove(event.getGroupId());
+                    if (slot != null) {
+                        documents -= groups.get(slot).size;
+                        groups.set(slot, null);
+                    }
+                }
+                default -> {
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Newest matching expenses of the given groups, at most {@code limit}. Each group maps to
+     * the time before which its expenses are archived, or to null; archived expenses are left out.
+     */
+    public List<Hit> search(Map<Long, LocalDateTime> groupsArchivedThrough, Query query, int limit) {
+        if (!loaded) {
+            return List.of();
+        }
+        List<String> words = tokenize(query.text());
+        long payerId = query.payerId() != null ? query.payerId() : 0;
+        long minAmount = query.minAmount() != null ? query.minAmount() : Long.MIN_VALUE;
+        long maxAmount = query.maxAmount() != null ? query.maxAmount() : Long.MAX_VALUE;
+        long to = query.to() != null ? epochSecond(query.to()) : Long.MAX_VALUE;
+        Comparator<Hit> newestFirst = Comparator.comparing(Hit::createdAt).thenComparingLong(Hit::expenseId);
+        PriorityQueue<Hit> top = new PriorityQueue<>(newestFirst);
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Narrow query words are looked up in the posting lists, broad ones checked per document
+            List<Collection<Postings>> looked = new ArrayList<>();
+            List<BitSet> checked = new ArrayList<>();
+            for (String word : words) {
+                Collection<Postings> lists = postings.subMap(word, true, word + Character.MAX_VALUE, false).values();
+                if (lists.isEmpty()) {
+                    return List.of();
+                } else if (lists.size() <= MAX_POSTING_LISTS) {
+                    looked.add(lists);
+                } else {
+                    BitSet wordIds = new BitSet();
+                    lists.forEach(list -> wordIds.set(list.wordId));
+                    checked.add(wordIds);
+                }
+            }
+
+            for (Map.Entry<Long, LocalDateTime> entry : groupsArchivedThrough.entrySet()) {
+                Integer slot = slotsByGroup.get(entry.getKey());
+                if (slot == null) {
+                    continue;
+                }
+                GroupDocuments group = groups.get(slot);
+                long from = Math.max(query.from() != null ? epochSecond(query.from()) : Long.MIN_VALUE,
+                        entry.getValue() != null ? epochSecond(entry.getValue()) : Long.MIN_VALUE);
+
+                IntList candidates = looked.isEmpty() ? null : matching(slot, looked);
+                int count = candidates != null ? candidates.size : group.size;
+                for (int i = 0; i < count; i++) {
+                    int document = candidates != null ? candidates.values[i] : i;
+                    long created = group.createdAt[document];
+                    if (created < from || created >= to
+                            || group.amounts[document] < minAmount || group.amounts[document] > maxAmount
+                            || payerId != 0 && group.payerIds[document] != payerId
+                            || group.removed.get(document)
+                            || !group.hasWords(document, checked)) {
+                        continue;
+                    }
+                    Hit hit = new Hit(group.expenseIds[document], entry.getKey(),
+                            LocalDateTime.ofEpochSecond(created, 0, ZoneOffset.UTC));
+                    if (top.size() < limit) {
+                        top.add(hit);
+                    } else if (newestFirst.compare(hit, top.peek()) > 0) {
+                        top.poll();
+                        top.add(hit);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(newestFirst.reversed());
+        return hits;
+    }
+
+    /**
+     * Number of documents held, including removed ones.
+     */
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Distinct lower-case words of a text, in order of appearance.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return List.copyOf(words);
+    }
+
+    private void clear() {
+        slotsByGroup.clear();
+        groups.clear();
+        documents = 0;
+        postings.clear();
+    }
+
+    private void add(LedgerEvent event, long created) {
+        add(event.getGroupId(), event.getEntityId(), event.getUserId(), event.getAmount(), created,
+                event.getDescription());
+    }
+
+    private void add(long groupId, long expenseId, long payerId, long amount, long created, String description) {
+        int slot = slotsByGroup.computeIfAbsent(groupId, id -> {
+            groups.add(new GroupDocuments());
+            return groups.size() - 1;
+        });
+        List<String> words = tokenize(description);
+        Postings[] lists = new Postings[words.size()];
+        int[] wordIds = new int[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.computeIfAbsent(words.get(i), word -> new Postings(postings.size()));
+            wordIds[i] = lists[i].wordId;
+        }
+
+        int document = groups.get(slot).add(expenseId, payerId, amount, created, wordIds);
+        for (Postings list : lists) {
+            list.add(slot, document);
+        }
+        documents++;
+    }
+
+    private GroupDocuments group(long groupId) {
+        Integer slot = slotsByGroup.get(groupId);
+        return slot != null ? groups.get(slot) : null;
+    }
+
+    /**
+     * Documents of the group in, for every query word, one of its posting lists; ascending.
+     */
+    private static IntList matching(int slot, List<Collection<Postings>> looked) {
+        IntList result = null;
+        for (Collection<Postings> lists : looked) {
+            IntList union = new IntList();
+            for (Postings list : lists) {
+                list.collect(slot, union);
+            }
+            if (lists.size() > 1) {
+                union.sortDistinct();
+            }
+            result = result == null ? union : result.intersect(union);
+            if (result.size == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Columns of one group's documents, numbered in the order they were added.
+     */
+    private static final class GroupDocuments {
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private long[] expenseIds = new long[INITIAL_CAPACITY];
+        private long[] payerIds = new long[INITIAL_CAPACITY];
+        private long[] amounts = new long[INITIAL_CAPACITY];
+        private long[] createdAt = new long[INITIAL_CAPACITY];
+        // Word ids of document d are words[wordStarts[d]] up to words[wordStarts[d + 1]]
+        private int[] wordStarts = new int[INITIAL_CAPACITY + 1];
+        private int[] words = new int[INITIAL_CAPACITY * 3];
+        private final BitSet removed = new BitSet();
+        private int size;
+        // Documents loaded from the expenses table come first, in ascending expense id order
+        private int loaded;
+
+        int add(long expenseId, long payerId, long amount, long created, int[] wordIds) {
+            if (size == expenseIds.length) {
+                int capacity = size + (size >> 1);
+                expenseIds = Arrays.copyOf(expenseIds, capacity);
+                payerIds = Arrays.copyOf(payerIds, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+                wordStarts = Arrays.copyOf(wordStarts, capacity + 1);
+            }
+            int start = wordStarts[size];
+            if (start + wordIds.length > words.length) {
+                words = Arrays.copyOf(words, Math.max(start + wordIds.length, words.length + (words.length >> 1)));
+            }
+            System.arraycopy(wordIds, 0, words, start, wordIds.length);
+
+            expenseIds[size] = expenseId;
+            payerIds[size] = payerId;
+            amounts[size] = amount;
+            createdAt[size] = created;
+            wordStarts[size + 1] = start + wordIds.length;
+            return size++;
+        }
+
+        /**
+         * Current document of an expense, or -1. Edits and deletions mostly hit recent
+         * expenses, so documents are scanned from the newest.
+         */
+        int find(long expenseId) {
+            for (int document = size - 1; document >= 0; document--) {
+                if (expenseIds[document] == expenseId && !removed.get(document)) {
+                    return document;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Current document of an expense among the loaded ones, or -1.
+         */
+        int findLoaded(long expenseId) {
+            int document = Arrays.binarySearch(expenseIds, 0, loaded, expenseId);
+            return document >= 0 && !removed.get(document) ? document : -1;
+        }
+
+        /**
+         * Whether the document has, for every set of word ids, one of its words.
+         */
+        boolean hasWords(int document, List<BitSet> wordIdSets) {
+            for (BitSet wordIds : wordIdSets) {
+                boolean found = false;
+                for (int i = wordStarts[document]; i < wordStarts[document + 1] && !found; i++) {
+                    found = wordIds.get(words[i]);
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Posting list of one word: runs of delta-encoded document numbers, one per group slot in
+     * slot order, plus a tail of recent (slot, document) pairs not merged yet. Tail pairs of a
+     * slot with a run are chained from the run, newest first, so reading a group never scans
+     * the whole tail; the few others are listed apart.
+     */
+    private final class Postings {
+
+        private final int wordId;
+
+        private int[] runSlots = new int[0];
+        private int[] runOffsets = new int[0];
+        private byte[] data = new byte[0];
+        private int runCount;
+        private int runDocuments;
+
+        private long[] tail = new long[4];
+        private int[] tailPrevious = new int[4];
+        private int tailSize;
+        private int[] runTails = new int[0]; // Newest tail pair of each run, or -1
+        private IntList orphans = new IntList(); // Tail pairs of slots without a run
+
+        Postings(int wordId) {
+            this.wordId = wordId;
+        }
+
+        void add(int slot, int document) {
+            if (tailSize == tail.length) {
+                tail = Arrays.copyOf(tail, tailSize * 2);
+                tailPrevious = Arrays.copyOf(tailPrevious, tailSize * 2);
+            }
+            int run = Arrays.binarySearch(runSlots, 0, runCount, slot);
+            if (run >= 0) {
+                tailPrevious[tailSize] = runTails[run];
+                runTails[run] = tailSize;
+            } else {
+                orphans.add(tailSize);
+            }
+            tail[tailSize++] = (long) slot << 32 | document;
+            if (tailSize > MIN_TAIL && tailSize > runDocuments / TAIL_RATIO) {
+                merge();
+            }
+        }
+
+        /**
+         * Append the group's documents in ascending order: runs first, every tail document is newer.
+         */
+        void collect(int slot, IntList target) {
+            int run = Arrays.binarySearch(runSlots, 0, runCount, slot);
+            if (run >= 0) {
+                decode(run, target);
+                int newest = target.size;
+                for (int i = runTails[run]; i >= 0; i = tailPrevious[i]) {
+                    target.add((int) tail[i]);
+                }
+                target.reverse(newest);
+            } else {
+                for (int i = 0; i < orphans.size; i++) {
+                    long pair = tail[orphans.values[i]];
+                    if ((int) (pair >>> 32) == slot) {
+                        target.add((int) pair);
+                    }
+                }
+            }
+        }
+
+        private void decode(int run, IntList target) {
+            int end = run + 1 < runCount ? runOffsets[run + 1] : data.length;
+            int document = -1;
+            int position = runOffsets[run];
+            while (position < end) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                document += delta;
+                target.add(document);
+            }
+        }
+
+        /**
+         * Rewrite the runs with the tail merged in, dropping removed documents and deleted groups.
+         */
+        private void merge() {
+            long[] pairs = new long[runDocuments + tailSize];
+            int count = 0;
+            IntList documents = new IntList();
+            for (int run = 0; run < runCount; run++) {
+                documents.size = 0;
+                decode(run, documents);
+                for (int i = 0; i < documents.size; i++) {
+                    pairs[count++] = (long) runSlots[run] << 32 | documents.values[i];
+                }
+            }
+            System.arraycopy(tail, 0, pairs, count, tailSize);
+            count += tailSize;
+            Arrays.sort(pairs, 0, count);
+
+            int[] slots = new int[count];
+            int[] offsets = new int[count];
+            byte[] encoded = new byte[count * 5];
+            int runs = 0;
+            int length = 0;
+            int kept = 0;
+            int previousSlot = -1;
+            int previousDocument = -1;
+            for (int i = 0; i < count; i++) {
+                int slot = (int) (pairs[i] >>> 32);
+                int document = (int) pairs[i];
+                GroupDocuments group = groups.get(slot);
+                if (group == null || group.removed.get(document)) {
+                    continue;
+                }
+                if (slot != previousSlot) {
+                    slots[runs] = slot;
+                    offsets[runs++] = length;
+                    previousSlot = slot;
+                    previousDocument = -1;
+                }
+                int delta = document - previousDocument;
+                previousDocument = document;
+                while ((delta & ~0x7F) != 0) {
+                    encoded[length++] = (byte) (delta & 0x7F | 0x80);
+                    delta >>>= 7;
+                }
+                encoded[length++] = (byte) delta;
+                kept++;
+            }
+
+            runSlots = Arrays.copyOf(slots, runs);
+            runOffsets = Arrays.copyOf(offsets, runs);
+            data = Arrays.copyOf(encoded, length);
+            runCount = runs;
+            runDocuments = kept;
+            runTails = new int[runs];
+            Arrays.fill(runTails, -1);
+            orphans = new IntList();
+            tail = new long[4];
+            tailPrevious = new int[4];
+            tailSize = 0;
+        }
+    }
+
+    /**
+     * Growable int array.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Reverse the values from the given index on.
+         */
+        void reverse(int from) {
+            for (int i = from, j = size - 1; i < j; i++, j--) {
+                int value = values[i];
+                values[i] = values[j];
+                values[j] = value;
+            }
+        }
+
+        void sortDistinct() {
+            Arrays.sort(values, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || values[i] != values[distinct - 1]) {
+                    values[distinct++] = values[i];
+                }
+            }
+            size = distinct;
+        }
+
+        /**
+         * Values in both sorted lists.
+         */
+        IntList intersect(IntList other) {
+            IntList result = new IntList();
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (values[i] < other.values[j]) {
+                    i++;
+                } else if (values[i] > other.values[j]) {
+                    j++;
+                } else {
+                    result.add(values[i]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.expenseshare.ledger;
+
+import com.expenseshare.model.ExpenseGroup;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts a group from this node's second-level cache when a ledger event for it arrives.
+ * The cache is local to each node, and the events come through the {@link LedgerOutbox}
+ * from every node, so this is how a node drops a group another node wrote to: its ledger
+ * version within one outbox poll, and its member list when members joined or left.
+ * Events written here evict what this node's own write already evicted, which costs one
+ * extra load of the group.
+ */
+@Component
+@RequiredArgsConstructor
+public class GroupCacheInvalidator implements LedgerProjection {
+
+    static final String MEMBERS = ExpenseGroup.class.getName() + ".members";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void reset() {
+        // Nothing kept; replaying the log evicts again, which is harmless
+    }
+
+    @Override
+    public void apply(LedgerEvent event) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictEntityData(ExpenseGroup.class, event.getGroupId());
+        LedgerEvent.Type type = event.getType();
+        if (type == LedgerEvent.Type.MEMBER_JOINED || type == LedgerEvent.Type.MEMBER_LEFT
+                || type == LedgerEvent.Type.GROUP_DELETED) {
+            cache.evictCollectionData(MEMBERS, event.getGroupId());
+        }
+    }
+}
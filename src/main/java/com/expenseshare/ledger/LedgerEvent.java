@@ -0,0 +1,179 @@
+package com.expenseshare.ledger;
+
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.Settlement;
+import com.expenseshare.service.SplitCalculator;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One change to a group's ledger, as stored in the {@link LedgerEventLog}.
+ * Amounts are in minor units (cents). Deletions carry the full payload of what was
+ * deleted, so projections can reverse it without looking anything up.
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class LedgerEvent {
+
+    private static final long[] NO_SHARES = new long[0];
+
+    public enum Type {
+        EXPENSE_ADDED,
+        EXPENSE_DELETED,
+        SETTLEMENT_RECORDED,
+        SETTLEMENT_DELETED,
+        MEMBER_JOINED,
+        MEMBER_LEFT,
+        GROUP_DELETED,
+        EXPENSE_UPDATED
+    }
+
+    /** Position in the log, starting at 1; 0 until appended. */
+    private final long sequence;
+    /** Id of the event's row in the {@link LedgerOutbox}; 0 until it is read from there. */
+    private final long outboxId;
+    private final Type type;
+    private final LocalDateTime occurredAt;
+    private final long groupId;
+    private final long entityId; // Expense or settlement id
+    private final long userId; // Expense payer, settlement payer, or the member joining or leaving
+    private final long counterpartyId; // Settlement payee
+    private final long amount;
+    private final String description;
+
+    // Expense splits as parallel arrays, including the payer's own share. For EXPENSE_UPDATED,
+    // the change in each member's net balance instead, members left unchanged left out
+    @Builder.Default
+    private final long[] shareUserIds = NO_SHARES;
+    @Builder.Default
+    private final long[] shareAmounts = NO_SHARES;
+
+    public static LedgerEvent expenseAdded(Expense expense) {
+        return expense(Type.EXPENSE_ADDED, expense, expense.getCreatedAt());
+    }
+
+    public static LedgerEvent expenseDeleted(Expense expense) {
+        return expense(Type.EXPENSE_DELETED, expense, LocalDateTime.now());
+    }
+
+    /**
+     * An edit of an expense, given each member's net balance from the expense before the
+     * edit (see {@link #netBalances}). Carries the expense as edited, with the net balance
+     * changes as its shares, so projections apply the edit as a delta.
+     */
+    public static LedgerEvent expenseUpdated(Expense expense, Map<Long, Long> netBefore) {
+        Map<Long, Long> changes = new TreeMap<>(netBalances(expense));
+        netBefore.forEach((userId, net) -> changes.merge(userId, -net, Long::sum));
+        changes.values().removeIf(change -> change == 0);
+
+        return expense(Type.EXPENSE_UPDATED, expense, LocalDateTime.now()).toBuilder()
+                .shareUserIds(changes.keySet().stream().mapToLong(Long::longValue).toArray())
+                .shareAmounts(changes.values().stream().mapToLong(Long::longValue).toArray())
+                .build();
+    }
+
+    /**
+     * What the expense adds to each member's net balance, in minor units: the payer is owed
+     * every other member's share.
+     */
+    public static Map<Long, Long> netBalances(Expense expense) {
+        Long payerId = expense.getPaidBy().getId();
+        Map<Long, Long> net = new HashMap<>();
+        for (SplitCalculator.Share share : SplitCalculator.shares(expense)) {
+            if (!share.userId().equals(payerId)) {
+                long amount = toMinorUnits(share.amount());
+                net.merge(payerId, amount, Long::sum);
+                net.merge(share.userId(), -amount, Long::sum);
+            }
+        }
+        return net;
+    }
+
+    public static LedgerEvent settlementRecorded(Settlement settlement) {
+        return settlement(Type.SETTLEMENT_RECORDED, settlement, settlement.getCreatedAt());
+    }
+
+    public static LedgerEvent settlementDeleted(Settlement settlement) {
+        return settlement(Type.SETTLEMENT_DELETED, settlement, LocalDateTime.now());
+    }
+
+    public static LedgerEvent memberJoined(Long groupId, Long userId) {
+        return member(Type.MEMBER_JOINED, groupId, userId);
+    }
+
+    public static LedgerEvent memberLeft(Long groupId, Long userId) {
+        return member(Type.MEMBER_LEFT, groupId, userId);
+    }
+
+    public static LedgerEvent groupDeleted(Long groupId) {
+        return LedgerEvent.builder()
+                .type(Type.GROUP_DELETED)
+                .occurredAt(LocalDateTime.now())
+                .groupId(groupId)
+                .build();
+    }
+
+    /**
+     * Amount in minor units, rounded like the decimal(10,2) ledger columns.
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long amount) {
+        return BigDecimal.valueOf(amount, 2);
+    }
+
+    private static LedgerEvent expense(Type type, Expense expense, LocalDateTime occurredAt) {
+        List<SplitCalculator.Share> shares = SplitCalculator.shares(expense);
+        long[] userIds = new long[shares.size()];
+        long[] amounts = new long[shares.size()];
+        for (int i = 0; i < shares.size(); i++) {
+            userIds[i] = shares.get(i).userId();
+            amounts[i] = toMinorUnits(shares.get(i).amount());
+        }
+        return LedgerEvent.builder()
+                .type(type)
+                .occurredAt(occurredAt)
+                .groupId(expense.getGroup().getId())
+                .entityId(expense.getId())
+                .userId(expense.getPaidBy().getId())
+                .amount(toMinorUnits(expense.getAmount()))
+                .description(expense.getDescription())
+                .shareUserIds(userIds)
+                .shareAmounts(amounts)
+                .build();
+    }
+
+    private static LedgerEvent settlement(Type type, Settlement settlement, LocalDateTime occurredAt) {
+        return LedgerEvent.builder()
+                .type(type)
+                .occurredAt(occurredAt)
+                .groupId(settlement.getGroup().getId())
+                .entityId(settlement.getId())
+                .userId(settlement.getPayer().getId())
+                .counterpartyId(settlement.getPayee().getId())
+                .amount(toMinorUnits(settlement.getAmount()))
+                .build();
+    }
+
+    private static LedgerEvent member(Type type, Long groupId, Long userId) {
+        return LedgerEvent.builder()
+                .type(type)
+                .occurredAt(LocalDateTime.now())
+                .groupId(groupId)
+                .userId(userId)
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.expenseshare.ledger;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary encoding of a {@link LedgerEvent}.
+ * Layout: type byte, occurredAt as epoch microseconds, group, entity, user and
+ * counterparty ids, amount, description (length + 1, 0 for none), the share count
+ * and one (user id, amount) pair per share, then the outbox id. Every number is a varint,
+ * signed ones zigzag-encoded, so a typical expense takes 30-40 bytes. The sequence is
+ * not stored: it follows from the record's position in its segment.
+ */
+final class LedgerEventCodec {
+
+    static final int MAX_EVENT_BYTES = 1 << 20;
+
+    private static final LedgerEvent.Type[] TYPES = LedgerEvent.Type.values();
+
+    private LedgerEventCodec() {
+    }
+
+    /**
+     * Encode the event into the buffer, or into a larger one if it does not fit.
+     * Returns the buffer used, flipped for reading.
+     */
+    static ByteBuffer encodeResizing(LedgerEvent event, ByteBuffer buffer) {
+        while (true) {
+            buffer.clear();
+            try {
+                encode(event, buffer);
+                return buffer.flip();
+            } catch (BufferOverflowException e) {
+                if (buffer.capacity() >= MAX_EVENT_BYTES) {
+                    throw new IllegalArgumentException("Event larger than " + MAX_EVENT_BYTES + " bytes");
+                }
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Write the event at the buffer's position.
+     * Throws {@link java.nio.BufferOverflowException} if it does not fit.
+     */
+    static void encode(LedgerEvent event, ByteBuffer out) {
+        out.put((byte) event.getType().ordinal());
+        writeSigned(out, toMicros(event.getOccurredAt()));
+        writeUnsigned(out, event.getGroupId());
+        writeUnsigned(out, event.getEntityId());
+        writeUnsigned(out, event.getUserId());
+        writeUnsigned(out, event.getCounterpartyId());
+        writeSigned(out, event.getAmount());
+
+        String description = event.getDescription();
+        if (description == null) {
+            writeUnsigned(out, 0);
+        } else {
+            byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(out, bytes.length + 1L);
+            out.put(bytes);
+        }
+
+        long[] userIds = event.getShareUserIds();
+        long[] amounts = event.getShareAmounts();
+        writeUnsigned(out, userIds.length);
+        for (int i = 0; i < userIds.length; i++) {
+            writeUnsigned(out, userIds[i]);
+            writeSigned(out, amounts[i]);
+        }
+        writeUnsigned(out, event.getOutboxId());
+    }
+
+    /**
+     * Read one event from the buffer's position.
+     */
+    static LedgerEvent decode(long sequence, ByteBuffer in) {
+        LedgerEvent.LedgerEventBuilder event = LedgerEvent.builder()
+                .sequence(sequence)
+                .type(TYPES[in.get()])
+                .occurredAt(fromMicros(readSigned(in)))
+                .groupId(readUnsigned(in))
+                .entityId(readUnsigned(in))
+                .userId(readUnsigned(in))
+                .counterpartyId(readUnsigned(in))
+                .amount(readSigned(in));
+
+        int descriptionLength = (int) readUnsigned(in);
+        if (descriptionLength > 0) {
+            byte[] bytes = new byte[descriptionLength - 1];
+            in.get(bytes);
+            event.description(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        int shares = (int) readUnsigned(in);
+        if (shares > 0) {
+            long[] userIds = new long[shares];
+            long[] amounts = new long[shares];
+            for (int i = 0; i < shares; i++) {
+                userIds[i] = readUnsigned(in);
+                amounts[i] = readSigned(in);
+            }
+            event.shareUserIds(userIds).shareAmounts(amounts);
+        }
+        // Absent from records written before the outbox
+        if (in.hasRemaining()) {
+            event.outboxId(readUnsigned(in));
+        }
+        return event.build();
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeSigned(ByteBuffer out, long value) {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeUnsigned(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readSigned(ByteBuffer in) {
+        long value = readUnsigned(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readUnsigned(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
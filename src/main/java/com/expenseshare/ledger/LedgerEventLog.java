@@ -0,0 +1,171 @@
+package com.expenseshare.ledger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of ledger events, the full history of every group including deletions.
+ * Events get consecutive sequence numbers from 1 and are written to preallocated,
+ * memory-mapped segment files named after their first sequence; a full segment is
+ * closed and a new one started. Appends are serialized; reads take no lock and see
+ * every event appended before they started.
+ * <p>
+ * The log is a node-local copy of the {@link LedgerOutbox}, appended in outbox order by
+ * the {@link LedgerOutboxTailer}, so every node's log holds every node's writes. Losing
+ * the log loses nothing: a node started without one reads the outbox from the start.
+ */
+@Component
+@Slf4j
+public class LedgerEventLog {
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+
+    private final List<LogSegment> segments = new CopyOnWriteArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(4096);
+
+    private volatile long lastOutboxId;
+
+    public LedgerEventLog(@Value("${app.event-log.dir:data/event-log}") String directory,
+            @Value("${app.event-log.segment-bytes:67108864}") int segmentBytes,
+            @Value("${app.event-log.fsync:false}") boolean fsync) {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Open the existing segments in order, or start the first one. A log written before
+     * the outbox, whose events carry no outbox id, is deleted so the tailer starts over.
+     */
+    @PostConstruct
+    public synchronized void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files = segmentFiles();
+            for (Path file : files) {
+                segments.add(LogSegment.open(file));
+            }
+            if (!segments.isEmpty()) {
+                read(Math.max(0, lastSequence() - 1), event -> lastOutboxId = event.getOutboxId());
+                if (lastSequence() > 0 && lastOutboxId == 0) {
+                    log.warn("Event log in {} predates the ledger outbox; deleting it to read the outbox again",
+                            directory.toAbsolutePath());
+                    close();
+                    segments.clear();
+                    for (Path file : files) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            if (segments.isEmpty()) {
+                segments.add(LogSegment.create(directory, 1, segmentBytes));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the event log in " + directory.toAbsolutePath(), e);
+        }
+        log.info("Opened event log in {}: {} segment(s), last sequence {}, last outbox id {}",
+                directory.toAbsolutePath(), segments.size(), lastSequence(), lastOutboxId);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    /**
+     * Append events in order. Returns the sequence of the last one.
+     */
+    public synchronized long append(List<LedgerEvent> events) {
+        for (LedgerEvent event : events) {
+            encodeBuffer = LedgerEventCodec.encodeResizing(event, encodeBuffer);
+            ByteBuffer payload = encodeBuffer;
+            LogSegment active = segments.get(segments.size() - 1);
+            if (!active.append(payload, crc)) {
+                active.force();
+                active = roll(active.lastSequence() + 1);
+                if (!active.append(payload, crc)) {
+                    throw new IllegalArgumentException("Event of " + payload.remaining() + " bytes exceeds the segment size");
+                }
+            }
+            lastOutboxId = event.getOutboxId();
+        }
+
+        LogSegment active = segments.get(segments.size() - 1);
+        if (fsync) {
+            active.force();
+        }
+        return active.lastSequence();
+    }
+
+    /**
+     * Sequence of the last appended event, 0 if the log is empty.
+     */
+    public long lastSequence() {
+        return segments.get(segments.size() - 1).lastSequence();
+    }
+
+    /**
+     * Outbox id of the last appended event, 0 if the log is empty.
+     */
+    public long lastOutboxId() {
+        return lastOutboxId;
+    }
+
+    /**
+     * Pass every event with a sequence above {@code afterSequence} to the consumer, in order.
+     * Returns the number of events read.
+     */
+    public long read(long afterSequence, Consumer<LedgerEvent> consumer) {
+        long read = 0;
+        for (LogSegment segment : segments) {
+            if (segment.lastSequence() > afterSequence) {
+                read += segment.read(afterSequence, consumer);
+            }
+        }
+        return read;
+    }
+
+    private LogSegment roll(long baseSequence) {
+        try {
+            LogSegment segment = LogSegment.create(directory, baseSequence, segmentBytes);
+            segments.add(segment);
+            log.info("Started event log segment {}", segment.path().getFileName());
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create an event log segment in " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (LogSegment segment : segments) {
+            try {
+                segment.force();
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Failed to close event log segment {}", segment.path(), e);
+            }
+        }
+    }
+}
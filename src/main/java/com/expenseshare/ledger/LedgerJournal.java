@@ -0,0 +1,62 @@
+package com.expenseshare.ledger;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Entry point for the write services: writes the ledger events of the current transaction
+ * to the {@link LedgerOutbox} as part of it, so a committed write always has its events and
+ * a rolled-back one leaves no trace. The rows are inserted just before commit, when group
+ * writes still hold their group lock, so a group's events get ids in commit order. After
+ * commit the {@link LedgerOutboxTailer} copies them into the event log.
+ */
+@Component
+public class LedgerJournal {
+
+    private final LedgerOutbox outbox;
+    private final LedgerOutboxTailer tailer;
+    private final TransactionTemplate transactionTemplate;
+
+    public LedgerJournal(LedgerOutbox outbox, LedgerOutboxTailer tailer,
+            PlatformTransactionManager transactionManager) {
+        this.outbox = outbox;
+        this.tailer = tailer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Record an event with the current transaction, or in one of its own outside a transaction.
+     */
+    public void record(LedgerEvent event) {
+        recordAll(List.of(event));
+    }
+
+    /**
+     * Record events to be logged together, in order.
+     */
+    public void recordAll(List<LedgerEvent> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status -> outbox.insert(events));
+            tailer.tailLater();
+            return;
+        }
+
+        // Synchronizations run in registration order, so a transaction's events stay in order
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                outbox.insert(events);
+            }
+
+            @Override
+            public void afterCommit() {
+                tailer.tailLater();
+            }
+        });
+    }
+}
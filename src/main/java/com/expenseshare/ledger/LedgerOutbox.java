@@ -0,0 +1,79 @@
+package com.expenseshare.ledger;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The ledger_outbox table: ledger events written in the transaction of the write that
+ * caused them, and read back in id order by every node's {@link LedgerOutboxTailer}.
+ * Payloads use the event log's encoding.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerOutbox {
+
+    // Rows per INSERT; a settle-up or a run of recurring occurrences rarely needs a second one
+    private static final int ROWS_PER_INSERT = 200;
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * One outbox row. Settled when it was inserted longer ago than the grace period asked
+     * for, so any lower id still missing belongs to an insert that was rolled back.
+     */
+    public record Row(long id, LedgerEvent event, boolean settled) {
+    }
+
+    /**
+     * Insert the events in order, in the current transaction. Native with its own query
+     * space, so the insert neither flushes the session nor invalidates cached queries.
+     */
+    public void insert(List<LedgerEvent> events) {
+        for (int from = 0; from < events.size(); from += ROWS_PER_INSERT) {
+            List<LedgerEvent> chunk = events.subList(from, Math.min(events.size(), from + ROWS_PER_INSERT));
+            StringBuilder sql = new StringBuilder("INSERT INTO ledger_outbox (payload) VALUES ");
+            for (int i = 1; i <= chunk.size(); i++) {
+                sql.append(i > 1 ? ", " : "").append("(?").append(i).append(')');
+            }
+
+            Query insert = entityManager.createNativeQuery(sql.toString())
+                    .setHint(HibernateHints.HINT_NATIVE_SPACES, "ledger_outbox");
+            for (int i = 0; i < chunk.size(); i++) {
+                insert.setParameter(i + 1, payload(chunk.get(i)));
+            }
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * Up to {@code limit} rows with an id above {@code afterId}, in id order. Read outside
+     * any transaction, so on the primary.
+     */
+    public List<Row> readAfter(long afterId, int limit, int graceSeconds) {
+        return jdbcTemplate.query("SELECT id, payload, "
+                        + "CASE WHEN created_at < TIMESTAMPADD(SECOND, -" + graceSeconds + ", LOCALTIMESTAMP) "
+                        + "THEN 1 ELSE 0 END AS settled "
+                        + "FROM ledger_outbox WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> {
+                    long id = rs.getLong("id");
+                    LedgerEvent event = LedgerEventCodec.decode(0, ByteBuffer.wrap(rs.getBytes("payload")));
+                    return new Row(id, event.toBuilder().outboxId(id).build(), rs.getInt("settled") == 1);
+                },
+                afterId, limit);
+    }
+
+    static byte[] payload(LedgerEvent event) {
+        ByteBuffer encoded = LedgerEventCodec.encodeResizing(event, ByteBuffer.allocate(256));
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        return bytes;
+    }
+}
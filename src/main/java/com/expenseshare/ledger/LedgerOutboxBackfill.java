@@ -0,0 +1,168 @@
+package com.expenseshare.ledger;
+
+import com.expenseshare.model.Expense;
+import com.expenseshare.repository.LedgerFlow;
+import com.expenseshare.service.SplitCalculator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the {@link LedgerOutbox} of a database whose ledger was written without it.
+ * The current memberships and the whole ledger, archived part included, are written to the
+ * outbox as MemberJoined, ExpenseAdded and SettlementRecorded events in creation order.
+ * Run by the migration that follows the outbox table, and by the seed loader after its
+ * bulk load, which bypasses the write services.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerOutboxBackfill {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String MEMBERSHIPS = "SELECT m.group_id, m.user_id, g.created_at FROM group_members m "
+            + "JOIN expense_groups g ON g.id = m.group_id ORDER BY m.group_id, m.user_id";
+
+    // One row per split for expenses, or a single row with the participant ids of an inline
+    // equal split; one row per settlement. Kind 0 sorts expenses first on ties
+    private static final String LEDGER = "SELECT 0 AS kind, e.id, e.group_id, e.paid_by AS user_id, "
+            + "NULL AS counterparty_id, e.amount, e.description, e.created_at, e.participant_ids, s.id AS split_id, "
+            + "s.user_id AS split_user_id, s.amount AS split_amount "
+            + "FROM expenses e LEFT JOIN expense_splits s ON s.expense_id = e.id "
+            + "UNION ALL SELECT 0, e.id, e.group_id, e.paid_by, NULL, e.amount, e.description, e.created_at, "
+            + "e.participant_ids, s.id, s.user_id, s.amount "
+            + "FROM expenses_archive e LEFT JOIN expense_splits_archive s ON s.expense_id = e.id "
+            + "UNION ALL SELECT 1, id, group_id, payer_id, payee_id, amount, NULL, created_at, NULL, NULL, NULL, NULL "
+            + "FROM settlements "
+            + "UNION ALL SELECT 1, id, group_id, payer_id, payee_id, amount, NULL, created_at, NULL, NULL, NULL, NULL "
+            + "FROM settlements_archive "
+            + "ORDER BY created_at, kind, id, split_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private long written;
+
+    /**
+     * Write the ledger to the outbox. Returns the number of events written.
+     */
+    public long run() {
+        long started = System.nanoTime();
+        List<LedgerEvent> batch = new ArrayList<>(BATCH_SIZE);
+
+        jdbcTemplate.query(MEMBERSHIPS, rs -> {
+            batch.add(LedgerEvent.builder()
+                    .type(LedgerEvent.Type.MEMBER_JOINED)
+                    .occurredAt(createdAt(rs))
+                    .groupId(rs.getLong("group_id"))
+                    .userId(rs.getLong("user_id"))
+                    .build());
+            flushIfFull(batch);
+        });
+
+        ExpenseRows expense = new ExpenseRows();
+        jdbcTemplate.query(LEDGER, rs -> {
+            long id = rs.getLong("id");
+            if (rs.getInt("kind") == 1) {
+                expense.flush(batch);
+                batch.add(LedgerEvent.builder()
+                        .type(LedgerEvent.Type.SETTLEMENT_RECORDED)
+                        .occurredAt(createdAt(rs))
+                        .groupId(rs.getLong("group_id"))
+                        .entityId(id)
+                        .userId(rs.getLong("user_id"))
+                        .counterpartyId(rs.getLong("counterparty_id"))
+                        .amount(LedgerEvent.toMinorUnits(rs.getBigDecimal("amount")))
+                        .build());
+            } else {
+                if (expense.event == null || expense.event.getEntityId() != id) {
+                    expense.flush(batch);
+                    expense.start(rs);
+                }
+                if (rs.getObject("split_id") != null) {
+                    expense.shareUserIds.add(rs.getLong("split_user_id"));
+                    expense.shareAmounts.add(LedgerEvent.toMinorUnits(rs.getBigDecimal("split_amount")));
+                }
+            }
+            flushIfFull(batch);
+        });
+        expense.flush(batch);
+        write(batch);
+
+        log.info("Wrote {} ledger events from the database to the outbox in {} ms", written,
+                (System.nanoTime() - started) / 1_000_000);
+        return written;
+    }
+
+    private static LocalDateTime createdAt(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return createdAt != null ? createdAt.toLocalDateTime() : LedgerFlow.BEGINNING;
+    }
+
+    private void flushIfFull(List<LedgerEvent> batch) {
+        if (batch.size() >= BATCH_SIZE) {
+            write(batch);
+        }
+    }
+
+    private void write(List<LedgerEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ledger_outbox (payload) VALUES (?)",
+                batch.stream().map(event -> new Object[]{LedgerOutbox.payload(event)}).toList());
+        written += batch.size();
+        batch.clear();
+    }
+
+    /**
+     * The expense whose split rows are being read. Inline equal splits are expanded when
+     * the expense starts.
+     */
+    private static final class ExpenseRows {
+        private LedgerEvent event;
+        private final List<Long> shareUserIds = new ArrayList<>();
+        private final List<Long> shareAmounts = new ArrayList<>();
+
+        void start(ResultSet rs) throws SQLException {
+            event = LedgerEvent.builder()
+                    .type(LedgerEvent.Type.EXPENSE_ADDED)
+                    .occurredAt(createdAt(rs))
+                    .groupId(rs.getLong("group_id"))
+                    .entityId(rs.getLong("id"))
+                    .userId(rs.getLong("user_id"))
+                    .amount(LedgerEvent.toMinorUnits(rs.getBigDecimal("amount")))
+                    .description(rs.getString("description"))
+                    .build();
+
+            String participantIds = rs.getString("participant_ids");
+            if (participantIds != null) {
+                List<Long> userIds = Expense.unpack(participantIds);
+                List<BigDecimal> amounts = SplitCalculator.equalShares(rs.getBigDecimal("amount"), userIds.size());
+                for (int i = 0; i < userIds.size(); i++) {
+                    shareUserIds.add(userIds.get(i));
+                    shareAmounts.add(LedgerEvent.toMinorUnits(amounts.get(i)));
+                }
+            }
+        }
+
+        void flush(List<LedgerEvent> batch) {
+            if (event != null) {
+                batch.add(event.toBuilder()
+                        .shareUserIds(shareUserIds.stream().mapToLong(Long::longValue).toArray())
+                        .shareAmounts(shareAmounts.stream().mapToLong(Long::longValue).toArray())
+                        .build());
+                event = null;
+                shareUserIds.clear();
+                shareAmounts.clear();
+            }
+        }
+    }
+}
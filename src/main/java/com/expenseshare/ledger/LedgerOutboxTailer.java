@@ -0,0 +1,125 @@
+package com.expenseshare.ledger;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Copies the {@link LedgerOutbox} into this node's {@link LedgerEventLog}, in id order,
+ * then lets the projections catch up. Runs after every local commit and on a timer, which
+ * is how writes taken by other nodes arrive.
+ * <p>
+ * Ids are assigned when a row is inserted, just before its transaction commits, so a lower
+ * id can become visible after a higher one. The tail stops at a missing id until either the
+ * row shows up or every row after it was inserted longer ago than the grace period; the id
+ * then belongs to a rolled-back insert and is skipped.
+ */
+@Component
+@Slf4j
+public class LedgerOutboxTailer {
+
+    private final LedgerOutbox outbox;
+    private final LedgerEventLog eventLog;
+    private final LedgerProjections projections;
+    private final int batchSize;
+    private final int gapGraceSeconds;
+
+    private final AtomicBoolean tailQueued = new AtomicBoolean();
+
+    private final ExecutorService tailer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-outbox-tail");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LedgerOutboxTailer(LedgerOutbox outbox, LedgerEventLog eventLog, LedgerProjections projections,
+            @Value("${app.event-log.outbox-batch:1000}") int batchSize,
+            @Value("${app.event-log.outbox-gap-grace-seconds:10}") int gapGraceSeconds) {
+        this.outbox = outbox;
+        this.eventLog = eventLog;
+        this.projections = projections;
+        this.batchSize = batchSize;
+        this.gapGraceSeconds = gapGraceSeconds;
+    }
+
+    /**
+     * Bring the log up to date before serving, then build the projections from it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long started = System.nanoTime();
+        long appended = tail();
+        log.info("Read {} ledger event(s) from the outbox into the event log in {} ms", appended,
+                (System.nanoTime() - started) / 1_000_000);
+        projections.catchUpLater();
+    }
+
+    /**
+     * Tail on the tailer thread. Calls made while a tail is queued are folded into it.
+     */
+    public void tailLater() {
+        if (tailQueued.compareAndSet(false, true)) {
+            tailer.execute(() -> {
+                tailQueued.set(false);
+                poll();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.event-log.outbox-poll-interval-ms:1000}",
+            initialDelayString = "${app.event-log.outbox-poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            tail();
+        } catch (RuntimeException e) {
+            log.error("Failed to read the ledger outbox into the event log", e);
+        }
+    }
+
+    /**
+     * Append every outbox row after the log's last one, on the caller's thread, up to the
+     * first gap that is not settled yet. Returns the number of events appended.
+     */
+    public synchronized long tail() {
+        long appended = 0;
+        while (true) {
+            long expected = eventLog.lastOutboxId() + 1;
+            List<LedgerOutbox.Row> rows = outbox.readAfter(expected - 1, batchSize, gapGraceSeconds);
+            List<LedgerEvent> events = new ArrayList<>(rows.size());
+            for (LedgerOutbox.Row row : rows) {
+                if (row.id() != expected) {
+                    if (!row.settled()) {
+                        break;
+                    }
+                    log.warn("Skipping ledger outbox id(s) {} to {}: never committed", expected, row.id() - 1);
+                }
+                events.add(row.event());
+                expected = row.id() + 1;
+            }
+
+            if (!events.isEmpty()) {
+                eventLog.append(events);
+                appended += events.size();
+                projections.catchUpLater();
+            }
+            if (events.size() < batchSize) {
+                return appended;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        tailer.shutdown();
+    }
+}
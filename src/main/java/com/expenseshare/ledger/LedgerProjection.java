@@ -0,0 +1,16 @@
+package com.expenseshare.ledger;
+
+/**
+ * A read model built by folding the {@link LedgerEventLog}.
+ * Events are applied in sequence order on the projection thread only, so an
+ * implementation needs to be safe for concurrent readers but not concurrent writers.
+ */
+public interface LedgerProjection {
+
+    /**
+     * Forget everything, before the log is replayed from the start.
+     */
+    void reset();
+
+    void apply(LedgerEvent event);
+}
@@ -0,0 +1,110 @@
+package com.expenseshare.ledger;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps every {@link LedgerProjection} bean up to date with the event log.
+ * Each projection remembers the last sequence it applied and only reads what came after,
+ * so catching up after an append costs the new events only; a rebuild resets the
+ * projections and replays the whole log.
+ */
+@Component
+@Slf4j
+public class LedgerProjections {
+
+    private final LedgerEventLog eventLog;
+    private final List<LedgerProjection> projections;
+    private final long[] positions;
+
+    private final AtomicBoolean catchUpQueued = new AtomicBoolean();
+
+    // Single writer for all projections, off the committing threads
+    private final ExecutorService applier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-projections");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LedgerProjections(LedgerEventLog eventLog, List<LedgerProjection> projections) {
+        this.eventLog = eventLog;
+        this.projections = projections;
+        this.positions = new long[projections.size()];
+    }
+
+    /**
+     * Apply everything appended since the last catch-up, on the caller's thread.
+     * Returns the sequence every projection has reached.
+     */
+    public synchronized long catchUp() {
+        eventLog.read(position(), event -> {
+            for (int i = 0; i < positions.length; i++) {
+                if (event.getSequence() > positions[i]) {
+                    projections.get(i).apply(event);
+                    positions[i] = event.getSequence();
+                }
+            }
+        });
+        return position();
+    }
+
+    /**
+     * Catch up on the projection thread. Calls made while a catch-up is queued are
+     * folded into it, so a burst of appends costs one pass.
+     */
+    public void catchUpLater() {
+        if (catchUpQueued.compareAndSet(false, true)) {
+            applier.execute(() -> {
+                catchUpQueued.set(false);
+                try {
+                    catchUp();
+                } catch (RuntimeException e) {
+                    log.error("Failed to apply ledger events to the projections", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reset every projection and replay the whole log. Returns the number of events replayed.
+     */
+    public synchronized long rebuild() {
+        long started = System.nanoTime();
+        projections.forEach(LedgerProjection::reset);
+        Arrays.fill(positions, 0);
+        long replayed = catchUp();
+        log.info("Rebuilt {} ledger projection(s) from {} events in {} ms", projections.size(), replayed,
+                (System.nanoTime() - started) / 1_000_000);
+        return replayed;
+    }
+
+    /**
+     * Have one projection, loaded from elsewhere up to the given sequence, apply the events
+     * after it from the next catch-up on. The start action runs first, while no events are
+     * being applied.
+     */
+    public synchronized void resume(LedgerProjection projection, long sequence, Runnable start) {
+        start.run();
+        positions[projections.indexOf(projection)] = sequence;
+        catchUpLater();
+    }
+
+    /**
+     * Sequence every projection has applied.
+     */
+    public synchronized long position() {
+        return Arrays.stream(positions).min().orElse(eventLog.lastSequence());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        applier.shutdown();
+    }
+}
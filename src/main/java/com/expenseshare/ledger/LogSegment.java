@@ -0,0 +1,169 @@
+package com.expenseshare.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * One preallocated, memory-mapped file of the event log.
+ * Records are framed as [payload length][CRC32 of payload][payload]; a zero length marks
+ * the end of the written part. The payload and checksum are written before the length,
+ * and readers never look past {@link #end}, so a reader sees whole records only.
+ * Checksums are verified once, when the segment is opened.
+ * A single writer (the log, under its lock) appends; any number of threads read.
+ */
+final class LogSegment {
+
+    static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    private final long baseSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    // Published after each append; readers only read below it
+    private volatile int end;
+    private volatile int count;
+
+    private LogSegment(Path path, long baseSequence, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Create an empty segment whose first record gets the given sequence.
+     */
+    static LogSegment create(Path directory, long baseSequence, int capacity) throws IOException {
+        Path path = directory.resolve(fileName(baseSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return new LogSegment(path, baseSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+    }
+
+    /**
+     * Open an existing segment and find its end, cutting off a record torn by a crash.
+     */
+    static LogSegment open(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long baseSequence = Long.parseLong(name.substring(0, name.indexOf('.')));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        LogSegment segment = new LogSegment(path, baseSequence, channel,
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        segment.recover();
+        return segment;
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("%020d.log", baseSequence);
+    }
+
+    long baseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * Sequence of the last record, or baseSequence - 1 if the segment is empty.
+     */
+    long lastSequence() {
+        return baseSequence + count - 1;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Append an encoded payload (position to limit). Returns false if the segment is full.
+     */
+    boolean append(ByteBuffer payload, CRC32 crc) {
+        int length = payload.remaining();
+        int position = end;
+        if (position + HEADER_BYTES + length > buffer.capacity()) {
+            return false;
+        }
+
+        crc.reset();
+        crc.update(payload.duplicate());
+        buffer.put(position + HEADER_BYTES, payload, payload.position(), length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, length);
+
+        end = position + HEADER_BYTES + length;
+        count = count + 1;
+        return true;
+    }
+
+    /**
+     * Decode every record with a sequence above {@code afterSequence}, in order.
+     * Returns the number of records passed to the consumer.
+     */
+    int read(long afterSequence, Consumer<LedgerEvent> consumer) {
+        int limit = end;
+        long sequence = baseSequence;
+        ByteBuffer view = buffer.duplicate();
+        int position = 0;
+        int read = 0;
+
+        while (position < limit) {
+            int length = view.getInt(position);
+            if (sequence > afterSequence) {
+                view.limit(position + HEADER_BYTES + length).position(position + HEADER_BYTES);
+                consumer.accept(LedgerEventCodec.decode(sequence, view));
+                view.limit(view.capacity());
+                read++;
+            }
+            position += HEADER_BYTES + length;
+            sequence++;
+        }
+        return read;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private void recover() {
+        CRC32 crc = new CRC32();
+        int capacity = buffer.capacity();
+        int position = 0;
+        int records = 0;
+
+        while (position + HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || position + HEADER_BYTES + length > capacity
+                    || checksum(crc, position + HEADER_BYTES, length) != buffer.getInt(position + 4)) {
+                // Torn write at the tail: clear it so the next append starts cleanly
+                int tornEnd = length > 0 ? Math.min(capacity, position + HEADER_BYTES + length) : position + HEADER_BYTES;
+                for (int i = position; i < tornEnd; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            position += HEADER_BYTES + length;
+            records++;
+        }
+
+        count = records;
+        end = position;
+    }
+
+    private int checksum(CRC32 crc, int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,87 @@
+package com.expenseshare.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the balance computation hot path.
+ */
+@Component
+@Slf4j
+public class LedgerMetrics {
+
+    private final Timer balanceTimer;
+    private final DistributionSummary expenseRows;
+    private final DistributionSummary splitRows;
+    private final DistributionSummary settlementRows;
+    private final DistributionSummary transfers;
+    private final DistributionSummary groupsPerCall;
+    private final Counter overBudget;
+    private final long budgetNanos;
+
+    public LedgerMetrics(MeterRegistry registry,
+            @Value("${app.metrics.balance-budget-ms:250}") long budgetMs) {
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        this.balanceTimer = Timer.builder("expenseshare.balance.calculate")
+                .description("Time to compute simplified balances for one group")
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(Duration.ofMillis(budgetMs))
+                .register(registry);
+        this.expenseRows = rowsScanned(registry, "expense");
+        this.splitRows = rowsScanned(registry, "expense_split");
+        this.settlementRows = rowsScanned(registry, "settlement");
+        this.transfers = DistributionSummary.builder("expenseshare.balance.transfers")
+                .description("Transfers left after debt simplification")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.groupsPerCall = DistributionSummary.builder("expenseshare.balance.overall.groups")
+                .description("Groups visited by one overall-balance call")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.overBudget = Counter.builder("expenseshare.balance.over.budget")
+                .description("Group balance computations slower than app.metrics.balance-budget-ms")
+                .register(registry);
+    }
+
+    private static DistributionSummary rowsScanned(MeterRegistry registry, String table) {
+        return DistributionSummary.builder("expenseshare.balance.rows.scanned")
+                .description("Rows loaded by one group balance computation")
+                .tag("table", table)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Record one calculateGroupBalances call. Calls over budget are
+     * counted and logged with the group id so the slow group can be found.
+     */
+    public void recordGroupBalances(Long groupId, long elapsedNanos, int expenseCount, int splitCount,
+            int settlementCount, int transferCount) {
+        balanceTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        expenseRows.record(expenseCount);
+        splitRows.record(splitCount);
+        settlementRows.record(settlementCount);
+        transfers.record(transferCount);
+
+        if (elapsedNanos > budgetNanos) {
+            overBudget.increment();
+            log.warn("Balance computation for group {} took {} ms ({} expenses, {} splits, {} settlements)",
+                    groupId, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), expenseCount, splitCount, settlementCount);
+        }
+    }
+
+    /**
+     * Record how many groups one getUserOverallBalance call visited.
+     */
+    public void recordOverallBalance(int groupCount) {
+        groupsPerCall.record(groupCount);
+    }
+}
@@ -0,0 +1,21 @@
+package com.expenseshare.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements a request to this handler may execute,
+ * view rendering included. Exceeding it is logged and counted in
+ * expenseshare.http.sql.budget.violations; SqlBudgetTest sweeps every budgeted route
+ * and fails the build on any violation.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    int value();
+}
@@ -0,0 +1,39 @@
+package com.expenseshare.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * Counting only happens between begin() and end(), i.e. inside a web request.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> current = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = current.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Start counting on the current thread.
+     */
+    public void begin() {
+        current.set(new int[1]);
+    }
+
+    /**
+     * Stop counting on the current thread and return the count, or -1 if begin() was not called.
+     */
+    public int end() {
+        int[] count = current.get();
+        current.remove();
+        return count != null ? count[0] : -1;
+    }
+}
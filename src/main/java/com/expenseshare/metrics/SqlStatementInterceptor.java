@@ -0,0 +1,81 @@
+package com.expenseshare.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records Hibernate statements per request, tagged by the matched URI pattern,
+ * and checks them against the handler's @SqlBudget.
+ * afterCompletion runs after view rendering, so lazy loads in templates are included.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SqlStatementInterceptor implements AsyncHandlerInterceptor {
+
+    private final SqlStatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        statementCounter.begin();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // Long-lived streams (SSE) are not request/response work; only the setup is recorded and budgeted
+        record(request, handler, statementCounter.end());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        record(request, handler, statementCounter.end());
+    }
+
+    private void record(HttpServletRequest request, Object handler, int statements) {
+        if (statements < 0) {
+            return;
+        }
+
+        DistributionSummary.builder("expenseshare.http.sql.statements")
+                .description("Hibernate statements executed per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uriPattern(request))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements);
+        checkBudget(request, handler, statements);
+    }
+
+    private void checkBudget(HttpServletRequest request, Object handler, int statements) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        SqlBudget budget = handlerMethod.getMethodAnnotation(SqlBudget.class);
+        if (budget == null || statements <= budget.value()) {
+            return;
+        }
+
+        String uri = uriPattern(request);
+        meterRegistry.counter("expenseshare.http.sql.budget.violations",
+                "method", request.getMethod(), "uri", uri).increment();
+        log.warn("SQL budget exceeded: {} {} ran {} statements (budget {})",
+                request.getMethod(), uri, statements, budget.value());
+    }
+
+    private static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
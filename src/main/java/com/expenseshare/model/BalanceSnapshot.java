@@ -0,0 +1,58 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Net balances of a group as of a point in time: everything created before takenAt.
+ * Point-in-time balance queries start from the nearest snapshot and replay only the
+ * expenses and settlements after it.
+ */
+@Entity
+@Table(name = "balance_snapshots")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    /**
+     * Net balance per user, same sign as the balance calculator. Zero balances are not stored.
+     */
+    @ElementCollection
+    @CollectionTable(name = "balance_snapshot_entries", joinColumns = @JoinColumn(name = "snapshot_id"))
+    @MapKeyColumn(name = "user_id")
+    @Column(name = "amount", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private Map<Long, BigDecimal> balances = new HashMap<>();
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        BalanceSnapshot that = (BalanceSnapshot) o;
+        return id != null && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -2,10 +2,15 @@ package com.expenseshare.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Expense entity representing a shared expense within a group.
@@ -19,6 +24,8 @@ import java.util.List;
 @Builder
 public class Expense {
 
+    public static final int PARTICIPANT_IDS_LENGTH = 4000;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -30,27 +37,46 @@ public class Expense {
     @Column(nullable = false)
     private String description;
 
+    // In the group's base currency, like the split amounts
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal amount;
 
+    // ISO 4217 code and minor units of the amount as entered, when it was entered in
+    // another currency than the group's; both null otherwise
+    @Column(length = 3)
+    private String currency;
+
+    @Column(name = "original_amount")
+    private Long originalAmount;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "paid_by", nullable = false)
     private User paidBy;
 
+    // Plain varchar rather than MySQL's native enum, so the schema is the same on H2
     @Enumerated(EnumType.STRING)
-    @Column(name = "split_type", nullable = false)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "split_type", nullable = false, length = 20)
     private SplitType splitType;
 
     @OneToMany(mappedBy = "expense", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<ExpenseSplit> splits = new ArrayList<>();
 
+    // EQUAL split without split rows: ascending user ids, comma separated. The shares are
+    // expanded by SplitCalculator.shares; null when the splits are rows.
+    @Column(name = "participant_ids", length = PARTICIPANT_IDS_LENGTH)
+    private String participantIds;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Occurrences of recurring expenses come with their scheduled time
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 
     /**
@@ -69,6 +95,59 @@ public class Expense {
         split.setExpense(null);
     }
 
+    /**
+     * Store the participants of an equal split inline instead of as split rows.
+     * Returns false, leaving the expense unchanged, when they do not fit the column.
+     */
+    public boolean packParticipants(Collection<Long> userIds) {
+        String packed = userIds.stream()
+                .distinct()
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        if (packed.isEmpty() || packed.length() > PARTICIPANT_IDS_LENGTH) {
+            return false;
+        }
+        participantIds = packed;
+        return true;
+    }
+
+    public boolean isPacked() {
+        return participantIds != null;
+    }
+
+    /**
+     * Ids of the inline participants, in share order.
+     */
+    public List<Long> unpackParticipants() {
+        return unpack(participantIds);
+    }
+
+    public static List<Long> unpack(String participantIds) {
+        return Arrays.stream(participantIds.split(",")).map(Long::valueOf).toList();
+    }
+
+    /**
+     * Number of members sharing the expense, whichever way the splits are stored.
+     */
+    public int getParticipantCount() {
+        if (participantIds == null) {
+            return splits.size();
+        }
+        return (int) participantIds.chars().filter(c -> c == ',').count() + 1;
+    }
+
+    /**
+     * The amount as entered, in {@link #getCurrency()}; null for base currency expenses.
+     */
+    public BigDecimal getOriginalAmountValue() {
+        return currency != null ? Money.fromMinorUnits(originalAmount, currency) : null;
+    }
+
+    public String getCurrencySymbol() {
+        return currency != null ? Money.symbol(currency) : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -2,6 +2,8 @@ package com.expenseshare.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -11,9 +13,11 @@ import java.util.Set;
 /**
  * ExpenseGroup entity representing a group of users sharing expenses.
  * Named ExpenseGroup to avoid conflict with SQL reserved word 'GROUP'.
+ * The group row and its member set are cached in the second-level cache.
  */
 @Entity
 @Table(name = "expense_groups")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -30,11 +34,20 @@ public class ExpenseGroup {
 
     private String description;
 
+    /**
+     * ISO 4217 code of the currency the group's ledger is kept in. Expenses entered in
+     * other currencies are converted into it when they are recorded.
+     */
+    @Column(name = "base_currency", nullable = false, length = 3)
+    @Builder.Default
+    private String baseCurrency = "INR";
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by")
     private User createdBy;
 
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "group_members", joinColumns = @JoinColumn(name = "group_id"), inverseJoinColumns = @JoinColumn(name = "user_id"))
     @Builder.Default
     private Set<User> members = new HashSet<>();
@@ -47,6 +60,28 @@ public class ExpenseGroup {
     @Builder.Default
     private List<Settlement> settlements = new ArrayList<>();
 
+    /**
+     * Monotonic counter bumped by every expense or settlement write.
+     * Used as the validator for conditional balance requests.
+     */
+    @Column(name = "ledger_version", nullable = false)
+    @Builder.Default
+    private Long ledgerVersion = 0L;
+
+    /**
+     * Optimistic lock version, bumped by entity updates and ledger writes.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Set by the archive job once older history lives in the archive tables
+     * (see {@link GroupArchive}). Null for groups that were never archived.
+     */
+    @Column(name = "archived_through", insertable = false, updatable = false)
+    private LocalDateTime archivedThrough;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -71,6 +106,13 @@ public class ExpenseGroup {
         user.getGroups().remove(this);
     }
 
+    /**
+     * Symbol of the base currency, for display.
+     */
+    public String getCurrencySymbol() {
+        return Money.symbol(baseCurrency);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
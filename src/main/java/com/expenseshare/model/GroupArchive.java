@@ -0,0 +1,79 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opening-balance snapshot of a group whose settled history was moved to the archive tables.
+ * Balances start from the snapshot and add only the expenses and settlements still in the
+ * hot tables. Cached like the group itself, since every balance computation of an archived
+ * group reads it.
+ */
+@Entity
+@Table(name = "group_archives")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupArchive {
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    /**
+     * Everything created before this instant is archived.
+     */
+    @Column(name = "archived_through", nullable = false)
+    private LocalDateTime archivedThrough;
+
+    /**
+     * Net balance per user at archivedThrough, same sign as the balance calculator.
+     * Only non-zero entries are kept; a settled group has rounding leftovers at most.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @CollectionTable(name = "group_archive_balances", joinColumns = @JoinColumn(name = "group_id"))
+    @MapKeyColumn(name = "user_id")
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    @Builder.Default
+    private Map<Long, BigDecimal> openingBalances = new HashMap<>();
+
+    @Column(name = "expense_count", nullable = false)
+    private long expenseCount;
+
+    @Column(name = "settlement_count", nullable = false)
+    private long settlementCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        GroupArchive that = (GroupArchive) o;
+        return groupId != null && groupId.equals(that.groupId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,102 @@
+package com.expenseshare.model;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ISO 4217 currency helpers: minor units and display symbols.
+ */
+public final class Money {
+
+    private static final Map<String, String> SYMBOLS = symbols();
+
+    private Money() {
+    }
+
+    /**
+     * Digits after the decimal point of the currency's minor unit: 2 for cents, 0 for
+     * yen, 3 for fils.
+     */
+    public static int fractionDigits(String currencyCode) {
+        int digits = currency(currencyCode).getDefaultFractionDigits();
+        if (digits < 0) {
+            throw new IllegalArgumentException("Not a currency of money: " + currencyCode);
+        }
+        return digits;
+    }
+
+    /**
+     * The amount in minor units of the currency, rejecting amounts finer than those.
+     */
+    public static long toMinorUnits(BigDecimal amount, String currencyCode) {
+        int digits = fractionDigits(currencyCode);
+        if (amount.stripTrailingZeros().scale() > digits) {
+            throw new IllegalArgumentException(
+                    "Amount " + amount.toPlainString() + " has more decimals than " + currencyCode + " allows");
+        }
+        return amount.movePointRight(digits).longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long amount, String currencyCode) {
+        return BigDecimal.valueOf(amount, fractionDigits(currencyCode));
+    }
+
+    /**
+     * The symbol the currency is usually written with, in a country that uses it, or the
+     * code where it has none of its own.
+     */
+    public static String symbol(String currencyCode) {
+        return SYMBOLS.getOrDefault(currencyCode, currencyCode);
+    }
+
+    /**
+     * Symbols of the currencies, in the order given.
+     */
+    public static Map<String, String> symbols(Collection<String> currencyCodes) {
+        Map<String, String> symbols = new LinkedHashMap<>();
+        currencyCodes.forEach(code -> symbols.put(code, symbol(code)));
+        return symbols;
+    }
+
+    private static Currency currency(String currencyCode) {
+        try {
+            return Currency.getInstance(currencyCode);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown currency: " + currencyCode);
+        }
+    }
+
+    /**
+     * Symbol per currency as written in the countries that use it: the shortest one of
+     * their English locales, which may be the code itself, else of their other locales.
+     */
+    private static Map<String, String> symbols() {
+        Map<String, String> english = new HashMap<>();
+        Map<String, String> other = new HashMap<>();
+        for (Locale locale : Locale.getAvailableLocales()) {
+            if (locale.getCountry().length() != 2 || !locale.getVariant().isEmpty()) {
+                continue;
+            }
+            Currency currency;
+            try {
+                currency = Currency.getInstance(locale);
+            } catch (IllegalArgumentException e) {
+                // A region the JDK knows no currency for
+                continue;
+            }
+            if (currency == null) {
+                continue;
+            }
+            Map<String, String> symbols = "en".equals(locale.getLanguage()) ? english : other;
+            symbols.merge(currency.getCurrencyCode(), currency.getSymbol(locale),
+                    (known, symbol) -> symbol.length() < known.length() ? symbol : known);
+        }
+        other.putAll(english);
+        return Map.copyOf(other);
+    }
+}
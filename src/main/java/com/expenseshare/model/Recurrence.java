@@ -0,0 +1,30 @@
+package com.expenseshare.model;
+
+import java.time.LocalDateTime;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/**
+ * How often a recurring expense repeats. Each option is turned into a cron rule anchored
+ * on the first occurrence, so the expense repeats at the same time of day, on the same
+ * weekday or day of the month; days past the 28th repeat on the last day of the month.
+ */
+public enum Recurrence {
+    WEEKLY, // Same weekday every week
+    MONTHLY, // Same day every month
+    YEARLY; // Same date every year
+
+    /**
+     * Spring cron rule (second, minute, hour, day of month, month, weekday) repeating from the given time.
+     */
+    public String cron(LocalDateTime first) {
+        String time = "0 " + first.getMinute() + " " + first.getHour();
+        String day = first.getDayOfMonth() > 28 ? "L" : String.valueOf(first.getDayOfMonth());
+        return switch (this) {
+            case WEEKLY -> time + " * * "
+                    + first.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ROOT).toUpperCase(Locale.ROOT);
+            case MONTHLY -> time + " " + day + " * *";
+            case YEARLY -> time + " " + day + " " + first.getMonthValue() + " *";
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.scheduling.support.CronExpression;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Template of an expense that repeats on a cron rule. The splits are calculated once,
+ * when the template is created, and every occurrence copies them.
+ */
+@Entity
+@Table(name = "recurring_expenses")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecurringExpense {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id", nullable = false)
+    private ExpenseGroup group;
+
+    @Column(nullable = false)
+    private String description;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "paid_by", nullable = false)
+    private User paidBy;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "split_type", nullable = false, length = 20)
+    private SplitType splitType;
+
+    // EQUAL split stored inline, as in Expense.participantIds; null when the splits are rows
+    @Column(name = "participant_ids", length = Expense.PARTICIPANT_IDS_LENGTH)
+    private String participantIds;
+
+    @ElementCollection
+    @CollectionTable(name = "recurring_expense_splits", joinColumns = @JoinColumn(name = "recurring_expense_id"))
+    @Builder.Default
+    private List<RecurringSplit> splits = new ArrayList<>();
+
+    /**
+     * Spring cron rule, see {@link Recurrence#cron}.
+     */
+    @Column(nullable = false, length = 100)
+    private String schedule;
+
+    /**
+     * When the next occurrence is due.
+     */
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by", nullable = false)
+    private User createdBy;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * First time the rule fires after the given one; null if it never does again.
+     */
+    public LocalDateTime nextRunAfter(LocalDateTime time) {
+        return CronExpression.parse(schedule).next(time);
+    }
+
+    /**
+     * Ids of the members sharing each occurrence, whichever way the splits are stored.
+     */
+    public List<Long> getParticipantUserIds() {
+        if (participantIds != null) {
+            return Expense.unpack(participantIds);
+        }
+        return splits.stream().map(RecurringSplit::getUserId).toList();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        RecurringExpense that = (RecurringExpense) o;
+        return id != null && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,25 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+import java.math.BigDecimal;
+
+/**
+ * One member's share of a {@link RecurringExpense}, copied onto every occurrence as an {@link ExpenseSplit}.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringSplit {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "percentage", precision = 5, scale = 2)
+    private BigDecimal percentage;
+}
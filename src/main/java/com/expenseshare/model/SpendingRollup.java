@@ -0,0 +1,114 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * What a member paid and their share of the expenses of one group created in one day or
+ * month, per split type. Kept up to date by the expense writes; a row whose amounts and
+ * count are all back to zero is deleted.
+ */
+@Entity
+@Table(name = "spending_rollups")
+@IdClass(SpendingRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendingRollup {
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 5)
+    private Granularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDate bucketStart;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "split_type", length = 20)
+    private SplitType splitType;
+
+    /**
+     * The amounts of the expenses the member paid.
+     */
+    @Column(name = "paid_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal paidAmount;
+
+    /**
+     * The member's shares of the expenses, whoever paid them.
+     */
+    @Column(name = "share_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal shareAmount;
+
+    /**
+     * The number of expenses the member paid.
+     */
+    @Column(name = "expense_count", nullable = false)
+    private int expenseCount;
+
+    public enum Granularity {
+        DAY,
+        MONTH;
+
+        /**
+         * The first day of the bucket the time falls in.
+         */
+        public LocalDate bucketStart(LocalDateTime time) {
+            return bucketStart(time.toLocalDate());
+        }
+
+        public LocalDate bucketStart(LocalDate date) {
+            return this == MONTH ? date.withDayOfMonth(1) : date;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long groupId;
+        private Granularity granularity;
+        private LocalDate bucketStart;
+        private Long userId;
+        private SplitType splitType;
+    }
+
+    public Key getKey() {
+        return new Key(groupId, granularity, bucketStart, userId, splitType);
+    }
+
+    public boolean isEmpty() {
+        return paidAmount.signum() == 0 && shareAmount.signum() == 0 && expenseCount == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        SpendingRollup that = (SpendingRollup) o;
+        return groupId != null && getKey().equals(that.getKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,26 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a group whose spending rollups were built. Expense writes lock it before moving
+ * the rollups, and skip groups without one.
+ */
+@Entity
+@Table(name = "spending_rollup_groups")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendingRollupGroup {
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Column(name = "built_at")
+    private LocalDateTime builtAt;
+}
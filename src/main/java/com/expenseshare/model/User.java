@@ -1,16 +1,21 @@
 package com.expenseshare.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
  * User entity representing a registered user in the expense sharing system.
+ * Cached in the second-level cache: users are read on almost every request and rarely change.
  */
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,12 +33,14 @@ public class User {
     @Column(nullable = false, unique = true)
     private String email;
 
+    @JsonIgnore
     @Column(nullable = false)
     private String password;
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @JsonIgnore
     @ManyToMany(mappedBy = "members", fetch = FetchType.LAZY)
     @Builder.Default
     private Set<ExpenseGroup> groups = new HashSet<>();
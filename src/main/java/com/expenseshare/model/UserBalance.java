@@ -0,0 +1,123 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A user's balance totals in one currency, across the groups they are a member of that
+ * keep their ledger in it: the sum of those {@link UserGroupBalance} rows. Ledger writes
+ * move the totals by the change in the user's net balance in one group, under a row lock,
+ * so the row is never stale. A user with totals has at least one row.
+ */
+@Entity
+@Table(name = "user_balances")
+@IdClass(UserBalance.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * ISO 4217 code of the groups' base currency.
+     */
+    @Id
+    @Column(name = "currency", length = 3)
+    private String currency;
+
+    /**
+     * What the user owes in the groups where their net balance is negative.
+     */
+    @Column(name = "total_owed", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal totalOwed = BigDecimal.ZERO;
+
+    /**
+     * What the user is owed in the groups where their net balance is positive.
+     */
+    @Column(name = "total_owing", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal totalOwing = BigDecimal.ZERO;
+
+    @Column(name = "net_balance", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal netBalance = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Count a group net balance in the totals.
+     */
+    public void addGroupNet(BigDecimal net) {
+        if (net.signum() < 0) {
+            totalOwed = totalOwed.subtract(net);
+        } else {
+            totalOwing = totalOwing.add(net);
+        }
+        netBalance = totalOwing.subtract(totalOwed);
+    }
+
+    /**
+     * Take a group net balance previously added with {@link #addGroupNet} out of the totals.
+     */
+    public void removeGroupNet(BigDecimal net) {
+        if (net.signum() < 0) {
+            totalOwed = totalOwed.add(net);
+        } else {
+            totalOwing = totalOwing.subtract(net);
+        }
+        netBalance = totalOwing.subtract(totalOwed);
+    }
+
+    /**
+     * Same totals, ignoring scale.
+     */
+    public boolean sameTotals(UserBalance other) {
+        return totalOwed.compareTo(other.totalOwed) == 0 && totalOwing.compareTo(other.totalOwing) == 0;
+    }
+
+    /**
+     * No balance in any of the user's groups in this currency.
+     */
+    public boolean isZero() {
+        return totalOwed.signum() == 0 && totalOwing.signum() == 0;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private String currency;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        UserBalance that = (UserBalance) o;
+        return userId != null && userId.equals(that.userId) && currency != null && currency.equals(that.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
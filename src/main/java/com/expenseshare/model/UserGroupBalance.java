@@ -0,0 +1,55 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * A member's net balance in one group, same sign as the balance calculator: positive
+ * means the member is owed money. Exists exactly while the user is a member.
+ */
+@Entity
+@Table(name = "user_group_balances")
+@IdClass(UserGroupBalance.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserGroupBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Column(name = "net_balance", nullable = false, precision = 15, scale = 2)
+    private BigDecimal netBalance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long groupId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        UserGroupBalance that = (UserGroupBalance) o;
+        return userId != null && userId.equals(that.userId) && groupId != null && groupId.equals(that.groupId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,28 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+import java.math.BigDecimal;
+
+/**
+ * One simplified debt or credit between the user of a {@link UserGroupView} and another member.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserGroupCounterparty {
+
+    @Column(name = "counterparty_id", nullable = false)
+    private Long counterpartyId;
+
+    @Column(name = "counterparty_name")
+    private String counterpartyName;
+
+    /**
+     * Positive when the counterparty owes the user, negative when the user owes the counterparty.
+     */
+    @Column(name = "amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+}
@@ -0,0 +1,121 @@
+package com.expenseshare.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read model row for one member of one group: what the dashboard and group list show,
+ * denormalized so a user's pages come from a single query on user_id.
+ * Rebuilt per group from write-side events; never written by request threads.
+ */
+@Entity
+@Table(name = "user_group_views")
+@IdClass(UserGroupView.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserGroupView {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Column(name = "group_name", nullable = false)
+    private String groupName;
+
+    @Column(name = "group_description")
+    private String groupDescription;
+
+    @Column(name = "member_count", nullable = false)
+    private int memberCount;
+
+    /**
+     * Initials of the first few members by id, space-separated, for the avatar row.
+     */
+    @Column(name = "member_initials")
+    private String memberInitials;
+
+    /**
+     * Creation time of the group's latest expense or settlement, or of the group itself.
+     */
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    /**
+     * The user's net position in the group; positive means others owe the user.
+     */
+    @Column(name = "net_balance", nullable = false, precision = 15, scale = 2)
+    private BigDecimal netBalance;
+
+    /**
+     * Base currency of the group, which its balances are in.
+     */
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    /**
+     * Group version the row was built from; rows behind the group are rebuilt on startup.
+     */
+    @Column(name = "group_version", nullable = false)
+    private Long groupVersion;
+
+    /**
+     * The user's side of the group's simplified debts.
+     */
+    @ElementCollection
+    @CollectionTable(name = "user_group_view_counterparties", joinColumns = {
+            @JoinColumn(name = "user_id", referencedColumnName = "user_id"),
+            @JoinColumn(name = "group_id", referencedColumnName = "group_id") })
+    @Builder.Default
+    private List<UserGroupCounterparty> counterparties = new ArrayList<>();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Symbol of the group's currency, for display.
+     */
+    public String getCurrencySymbol() {
+        return Money.symbol(currency);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long groupId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        UserGroupView that = (UserGroupView) o;
+        return userId != null && userId.equals(that.userId) && groupId != null && groupId.equals(that.groupId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,47 @@
+package com.expenseshare.repository;
+
+import com.expenseshare.model.BalanceSnapshot;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    /**
+     * The group's most recent snapshot taken at or before the given instant.
+     */
+    default Optional<BalanceSnapshot> findLatestAtOrBefore(Long groupId, LocalDateTime at) {
+        return findAtOrBefore(groupId, at, PageRequest.ofSize(1)).stream().findFirst();
+    }
+
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.groupId = :groupId AND s.takenAt <= :at ORDER BY s.takenAt DESC")
+    List<BalanceSnapshot> findAtOrBefore(@Param("groupId") Long groupId, @Param("at") LocalDateTime at,
+            Pageable pageable);
+
+    /**
+     * Drop the entries of every snapshot of the group taken after the given instant.
+     * Must run before {@link #deleteTakenAfter}.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM balance_snapshot_entries WHERE snapshot_id IN "
+            + "(SELECT id FROM balance_snapshots WHERE group_id = :groupId AND taken_at > :after)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "balance_snapshot_entries"))
+    int deleteEntriesTakenAfter(@Param("groupId") Long groupId, @Param("after") LocalDateTime after);
+
+    @Modifying
+    @Query(value = "DELETE FROM balance_snapshots WHERE group_id = :groupId AND taken_at > :after", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "balance_snapshots"))
+    int deleteTakenAfter(@Param("groupId") Long groupId, @Param("after") LocalDateTime after);
+}
@@ -1,12 +1,16 @@
 package com.expenseshare.repository;
 
 import com.expenseshare.model.Expense;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
@@ -23,5 +27,30 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     @Query("SELECT e FROM Expense e WHERE e.paidBy.id = :userId ORDER BY e.createdAt DESC")
     List<Expense> findByPaidById(@Param("userId") Long userId);
 
-    void deleteByGroupId(Long groupId);
+    long countByGroupId(Long groupId);
+
+    /**
+     * Expenses found by a search, with their payers.
+     */
+    @Query("SELECT e FROM Expense e JOIN FETCH e.paidBy WHERE e.id IN :ids")
+    List<Expense> findByIdInWithPayer(@Param("ids") List<Long> ids);
+
+    /**
+     * Creation time of the group's latest expense, for the dashboard read model.
+     */
+    @Query("SELECT MAX(e.createdAt) FROM Expense e WHERE e.group.id = :groupId")
+    Optional<LocalDateTime> findLatestCreatedAt(@Param("groupId") Long groupId);
+
+    /**
+     * One page of a group's expense ids, for chunked deletion.
+     */
+    @Query("SELECT e.id FROM Expense e WHERE e.group.id = :groupId")
+    List<Long> findIdsByGroupId(@Param("groupId") Long groupId, Pageable pageable);
+
+    /**
+     * Bulk delete without loading the expenses; their splits must be deleted first.
+     */
+    @Modifying
+    @Query("DELETE FROM Expense e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
 }
@@ -2,10 +2,12 @@ package com.expenseshare.repository;
 
 import com.expenseshare.model.ExpenseSplit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -19,4 +21,30 @@ public interface ExpenseSplitRepository extends JpaRepository<ExpenseSplit, Long
 
     @Query("SELECT es FROM ExpenseSplit es WHERE es.expense.group.id = :groupId AND es.user.id = :userId")
     List<ExpenseSplit> findByGroupIdAndUserId(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM ExpenseSplit es WHERE es.expense.id IN :expenseIds")
+    int deleteByExpenseIdIn(@Param("expenseIds") List<Long> expenseIds);
+
+    /**
+     * Split flows of a group's expenses created in [from, to), oldest first.
+     * Splits of the payer's own share move nothing and are left out.
+     */
+    @Query("SELECT e.createdAt AS createdAt, e.paidBy.id AS creditorId, es.user.id AS debtorId, es.amount AS amount "
+            + "FROM ExpenseSplit es JOIN es.expense e "
+            + "WHERE e.group.id = :groupId AND e.createdAt >= :from AND e.createdAt < :to AND es.user.id <> e.paidBy.id "
+            + "ORDER BY e.createdAt")
+    List<LedgerFlow> findFlowsBetween(@Param("groupId") Long groupId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * Inline equal splits of a group's expenses created in [from, to), oldest first;
+     * SplitCalculator.flows expands them like {@link #findFlowsBetween} reads split rows.
+     */
+    @Query("SELECT e.createdAt AS createdAt, e.paidBy.id AS payerId, e.amount AS amount, "
+            + "e.participantIds AS participantIds FROM Expense e "
+            + "WHERE e.group.id = :groupId AND e.createdAt >= :from AND e.createdAt < :to "
+            + "AND e.participantIds IS NOT NULL ORDER BY e.createdAt")
+    List<PackedSplit> findPackedSplitsBetween(@Param("groupId") Long groupId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 }
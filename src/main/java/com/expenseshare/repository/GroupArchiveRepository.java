@@ -0,0 +1,186 @@
+package com.expenseshare.repository;
+
+import com.expenseshare.model.GroupArchive;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Opening-balance snapshots, plus the set-based moves between the hot ledger tables
+ * and the archive tables. Every native statement names the one table it writes as its
+ * query space, so Hibernate leaves the cached users and groups alone.
+ */
+@Repository
+public interface GroupArchiveRepository extends JpaRepository<GroupArchive, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO expense_splits_archive (id, expense_id, user_id, amount, percentage) "
+            + "SELECT s.id, s.expense_id, s.user_id, s.amount, s.percentage FROM expense_splits s "
+            + "JOIN expenses e ON e.id = s.expense_id WHERE e.group_id = :groupId AND e.created_at < :before",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_splits_archive"))
+    int copySplitsBefore(@Param("groupId") Long groupId, @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query(value = "INSERT INTO expenses_archive "
+            + "(id, group_id, description, amount, currency, original_amount, paid_by, split_type, participant_ids, "
+            + "created_at) "
+            + "SELECT id, group_id, description, amount, currency, original_amount, paid_by, split_type, "
+            + "participant_ids, created_at FROM expenses WHERE group_id = :groupId AND created_at < :before",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expenses_archive"))
+    int copyExpensesBefore(@Param("groupId") Long groupId, @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query(value = "INSERT INTO settlements_archive (id, group_id, payer_id, payee_id, amount, created_at) "
+            + "SELECT id, group_id, payer_id, payee_id, amount, created_at FROM settlements "
+            + "WHERE group_id = :groupId AND created_at < :before", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "settlements_archive"))
+    int copySettlementsBefore(@Param("groupId") Long groupId, @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query(value = "DELETE FROM expense_splits WHERE expense_id IN "
+            + "(SELECT id FROM expenses WHERE group_id = :groupId AND created_at < :before)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_splits"))
+    int deleteSplitsBefore(@Param("groupId") Long groupId, @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query(value = "DELETE FROM expenses WHERE group_id = :groupId AND created_at < :before", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expenses"))
+    int deleteExpensesBefore(@Param("groupId") Long groupId, @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query(value = "DELETE FROM settlements WHERE group_id = :groupId AND created_at < :before", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "settlements"))
+    int deleteSettlementsBefore(@Param("groupId") Long groupId, @Param("before") LocalDateTime before);
+
+    /**
+     * Record the archive on the group row. Own query space like
+     * {@link GroupRepository#bumpLedgerVersion}; the caller evicts the cached group.
+     */
+    @Modifying
+    @Query(value = "UPDATE expense_groups SET archived_through = :archivedThrough WHERE id = :groupId",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_groups_archived_through"))
+    int markArchived(@Param("groupId") Long groupId, @Param("archivedThrough") LocalDateTime archivedThrough);
+
+    /**
+     * Ids of groups with expenses or settlements created before the given instant.
+     * One probe of the (group_id, created_at) indexes per group rather than a scan of the ledger.
+     */
+    @Query("SELECT g.id FROM ExpenseGroup g WHERE "
+            + "EXISTS (SELECT 1 FROM Expense e WHERE e.group = g AND e.createdAt < :before) "
+            + "OR EXISTS (SELECT 1 FROM Settlement s WHERE s.group = g AND s.createdAt < :before) "
+            + "ORDER BY g.id")
+    List<Long> findGroupIdsWithHistoryBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Split flows of archived expenses created in [from, to), like {@link ExpenseSplitRepository#findFlowsBetween}.
+     */
+    @Query(value = "SELECT e.created_at AS createdAt, e.paid_by AS creditorId, s.user_id AS debtorId, s.amount "
+            + "FROM expense_splits_archive s JOIN expenses_archive e ON e.id = s.expense_id "
+            + "WHERE e.group_id = :groupId AND e.created_at >= :from AND e.created_at < :to "
+            + "AND s.user_id <> e.paid_by ORDER BY e.created_at", nativeQuery = true)
+    List<LedgerFlow> findArchivedSplitFlowsBetween(@Param("groupId") Long groupId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * Inline equal splits of archived expenses created in [from, to), like
+     * {@link ExpenseSplitRepository#findPackedSplitsBetween}.
+     */
+    @Query(value = "SELECT created_at AS createdAt, paid_by AS payerId, amount, participant_ids AS participantIds "
+            + "FROM expenses_archive WHERE group_id = :groupId AND created_at >= :from AND created_at < :to "
+            + "AND participant_ids IS NOT NULL ORDER BY created_at", nativeQuery = true)
+    List<PackedSplit> findArchivedPackedSplitsBetween(@Param("groupId") Long groupId,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(value = "SELECT created_at AS createdAt, payer_id AS creditorId, payee_id AS debtorId, amount "
+            + "FROM settlements_archive WHERE group_id = :groupId AND created_at >= :from AND created_at < :to "
+            + "ORDER BY created_at", nativeQuery = true)
+    List<LedgerFlow> findArchivedSettlementFlowsBetween(@Param("groupId") Long groupId,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(value = "SELECT id, description, amount, currency, original_amount AS originalAmount, "
+            + "paid_by AS paidById, split_type AS splitType, participant_ids AS participantIds, "
+            + "created_at AS createdAt "
+            + "FROM expenses_archive WHERE group_id = :groupId ORDER BY created_at", nativeQuery = true)
+    List<ArchivedExpense> findArchivedExpenses(@Param("groupId") Long groupId);
+
+    @Query(value = "SELECT s.expense_id AS expenseId, s.user_id AS userId, s.amount, s.percentage "
+            + "FROM expense_splits_archive s JOIN expenses_archive e ON e.id = s.expense_id "
+            + "WHERE e.group_id = :groupId ORDER BY s.expense_id", nativeQuery = true)
+    List<ArchivedSplit> findArchivedSplits(@Param("groupId") Long groupId);
+
+    @Query(value = "SELECT id, payer_id AS payerId, payee_id AS payeeId, amount, created_at AS createdAt "
+            + "FROM settlements_archive WHERE group_id = :groupId ORDER BY created_at", nativeQuery = true)
+    List<ArchivedSettlement> findArchivedSettlements(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query(value = "DELETE FROM expense_splits_archive WHERE expense_id IN "
+            + "(SELECT id FROM expenses_archive WHERE group_id = :groupId)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_splits_archive"))
+    int deleteArchivedSplits(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query(value = "DELETE FROM expenses_archive WHERE group_id = :groupId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expenses_archive"))
+    int deleteArchivedExpenses(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query(value = "DELETE FROM settlements_archive WHERE group_id = :groupId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "settlements_archive"))
+    int deleteArchivedSettlements(@Param("groupId") Long groupId);
+
+    interface ArchivedExpense {
+        Long getId();
+
+        String getDescription();
+
+        BigDecimal getAmount();
+
+        // Amount as entered in another currency than the group's, in its minor units
+        String getCurrency();
+
+        Long getOriginalAmount();
+
+        Long getPaidById();
+
+        String getSplitType();
+
+        // Inline equal split participants; such expenses have no archived split rows
+        String getParticipantIds();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    interface ArchivedSplit {
+        Long getExpenseId();
+
+        Long getUserId();
+
+        BigDecimal getAmount();
+
+        BigDecimal getPercentage();
+    }
+
+    interface ArchivedSettlement {
+        Long getId();
+
+        Long getPayerId();
+
+        Long getPayeeId();
+
+        BigDecimal getAmount();
+
+        LocalDateTime getCreatedAt();
+    }
+}
@@ -2,12 +2,18 @@ package com.expenseshare.repository;
 
 import com.expenseshare.model.ExpenseGroup;
 import com.expenseshare.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface GroupRepository extends JpaRepository<ExpenseGroup, Long> {
@@ -15,9 +21,110 @@ public interface GroupRepository extends JpaRepository<ExpenseGroup, Long> {
     @Query("SELECT g FROM ExpenseGroup g JOIN g.members m WHERE m.id = :userId ORDER BY g.createdAt DESC")
     List<ExpenseGroup> findByMemberId(@Param("userId") Long userId);
 
+    @Query("SELECT g.id FROM ExpenseGroup g JOIN g.members m WHERE m.id = :userId")
+    List<Long> findIdsByMemberId(@Param("userId") Long userId);
+
     @Query("SELECT g FROM ExpenseGroup g WHERE g.createdBy.id = :userId ORDER BY g.createdAt DESC")
     List<ExpenseGroup> findByCreatedById(@Param("userId") Long userId);
 
     @Query("SELECT DISTINCT g FROM ExpenseGroup g LEFT JOIN FETCH g.members WHERE g.id = :id")
     ExpenseGroup findByIdWithMembers(@Param("id") Long id);
+
+    /**
+     * Bump the ledger version together with the optimistic version,
+     * only if the optimistic version is still the expected one.
+     * Native with its own query space: a JPQL bulk update would evict every cached group,
+     * so the caller evicts just this group instead.
+     */
+    @Modifying
+    @Query(value = "UPDATE expense_groups SET ledger_version = ledger_version + 1, version = version + 1 "
+            + "WHERE id = :groupId AND version = :version", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_groups_ledger_version"))
+    int bumpLedgerVersion(@Param("groupId") Long groupId, @Param("version") Long version);
+
+    /**
+     * The group's optimistic and ledger versions, locking its row until the transaction ends.
+     * Writers and snapshots of the group on every node take it before anything else they read
+     * or date, so a snapshot never misses a write created before it.
+     */
+    @Query(value = "SELECT version AS version, ledger_version AS ledgerVersion FROM expense_groups "
+            + "WHERE id = :groupId FOR UPDATE", nativeQuery = true)
+    Optional<LockedVersions> findVersionsForUpdate(@Param("groupId") Long groupId);
+
+    /**
+     * Lock the group row until the transaction ends, before any other read in it. A ledger
+     * write on any node takes the same row lock when it bumps the ledger version.
+     */
+    @Query(value = "SELECT id FROM expense_groups WHERE id = :groupId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockRow(@Param("groupId") Long groupId);
+
+    @Query("SELECT g.ledgerVersion FROM ExpenseGroup g WHERE g.id = :groupId")
+    Optional<Long> findLedgerVersion(@Param("groupId") Long groupId);
+
+    /**
+     * Ledger version of a group, present only if the user is a member.
+     */
+    @Query("SELECT g.ledgerVersion FROM ExpenseGroup g JOIN g.members m WHERE g.id = :groupId AND m.id = :userId")
+    Optional<Long> findLedgerVersionForMember(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    /**
+     * Id and ledger version of every group the user belongs to.
+     */
+    @Query("SELECT g.id AS groupId, g.ledgerVersion AS ledgerVersion "
+            + "FROM ExpenseGroup g JOIN g.members m WHERE m.id = :userId")
+    List<GroupLedgerVersion> findLedgerVersionsByMemberId(@Param("userId") Long userId);
+
+    /**
+     * Ids of groups with expenses or settlements created at or after the given instant.
+     */
+    @Query("SELECT g.id FROM ExpenseGroup g WHERE "
+            + "EXISTS (SELECT 1 FROM Expense e WHERE e.group = g AND e.createdAt >= :since) "
+            + "OR EXISTS (SELECT 1 FROM Settlement s WHERE s.group = g AND s.createdAt >= :since) "
+            + "ORDER BY g.id")
+    List<Long> findGroupIdsWithHistorySince(@Param("since") LocalDateTime since);
+
+    /**
+     * Drop every membership of a group. Native with its own query space like
+     * {@link #bumpLedgerVersion}; the caller evicts the group's cached member set.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM group_members WHERE group_id = :groupId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "group_members_group_delete"))
+    int deleteMemberships(@Param("groupId") Long groupId);
+
+    /**
+     * Delete the group row only; it must have no expenses, settlements or members left.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM expense_groups WHERE id = :groupId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_groups_group_delete"))
+    int deleteGroupRow(@Param("groupId") Long groupId);
+
+    /**
+     * Record that the group's purge made progress at the given time. Native with its own
+     * query space like {@link #bumpLedgerVersion}; the column is not mapped.
+     */
+    @Modifying
+    @Query(value = "UPDATE expense_groups SET purge_progress_at = :at WHERE id = :groupId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_groups_purge_progress"))
+    int markPurgeProgress(@Param("groupId") Long groupId, @Param("at") LocalDateTime at);
+
+    /**
+     * Ids of groups whose purge made no progress since the given time, longest stalled first.
+     */
+    @Query(value = "SELECT id FROM expense_groups WHERE purge_progress_at < :before ORDER BY purge_progress_at",
+            nativeQuery = true)
+    List<Long> findIdsWithStalledPurge(@Param("before") LocalDateTime before);
+
+    interface LockedVersions {
+        long getVersion();
+
+        long getLedgerVersion();
+    }
+
+    interface GroupLedgerVersion {
+        long getGroupId();
+
+        long getLedgerVersion();
+    }
 }
@@ -0,0 +1,25 @@
+package com.expenseshare.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One movement of money within a group, read without loading entities.
+ * The creditor's net balance goes up by the amount and the debtor's goes down:
+ * for a split the creditor is the payer of the expense, for a settlement the payer.
+ */
+public interface LedgerFlow {
+
+    /**
+     * Lower bound for flow ranges that start at the beginning of a group's history.
+     */
+    LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    LocalDateTime getCreatedAt();
+
+    Long getCreditorId();
+
+    Long getDebtorId();
+
+    BigDecimal getAmount();
+}
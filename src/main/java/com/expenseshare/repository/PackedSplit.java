@@ -0,0 +1,19 @@
+package com.expenseshare.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An equal split stored inline on its expense, read without loading entities.
+ * SplitCalculator.flows expands it into one flow per participant other than the payer.
+ */
+public interface PackedSplit {
+
+    LocalDateTime getCreatedAt();
+
+    Long getPayerId();
+
+    BigDecimal getAmount();
+
+    String getParticipantIds();
+}
@@ -0,0 +1,50 @@
+package com.expenseshare.repository;
+
+import com.expenseshare.model.RecurringExpense;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, Long> {
+
+    /**
+     * Claim the oldest templates due at the given time, locking them until the transaction
+     * ends. Rows another node has already claimed are skipped rather than waited for
+     * (lock timeout -2 is FOR UPDATE SKIP LOCKED), so each occurrence is posted once.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT r FROM RecurringExpense r WHERE r.nextRunAt <= :now ORDER BY r.nextRunAt")
+    List<RecurringExpense> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT r FROM RecurringExpense r JOIN FETCH r.paidBy WHERE r.group.id = :groupId ORDER BY r.nextRunAt")
+    List<RecurringExpense> findByGroupId(@Param("groupId") Long groupId);
+
+    /**
+     * Delete the split rows of every template of a group, before {@link #deleteByGroupId}.
+     * Native with its own query space, as the group deletion's other bulk deletes.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM recurring_expense_splits WHERE recurring_expense_id IN "
+            + "(SELECT id FROM recurring_expenses WHERE group_id = :groupId)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "recurring_expense_splits"))
+    int deleteSplitsByGroupId(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query(value = "DELETE FROM recurring_expenses WHERE group_id = :groupId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "recurring_expenses"))
+    int deleteByGroupId(@Param("groupId") Long groupId);
+}
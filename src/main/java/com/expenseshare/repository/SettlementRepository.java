@@ -1,12 +1,18 @@
 package com.expenseshare.repository;
 
 import com.expenseshare.model.Settlement;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SettlementRepository extends JpaRepository<Settlement, Long> {
@@ -14,9 +20,51 @@ public interface SettlementRepository extends JpaRepository<Settlement, Long> {
     @Query("SELECT s FROM Settlement s WHERE s.group.id = :groupId ORDER BY s.createdAt DESC")
     List<Settlement> findByGroupId(@Param("groupId") Long groupId);
 
-    @Query("SELECT s FROM Settlement s WHERE s.payer.id = :userId OR s.payee.id = :userId ORDER BY s.createdAt DESC")
-    List<Settlement> findByUserId(@Param("userId") Long userId);
+    /**
+     * Settlements a user paid or received, newest first.
+     */
+    default List<Settlement> findByUserId(Long userId) {
+        List<Settlement> settlements = new ArrayList<>(findPaidOrReceivedBy(userId));
+        settlements.sort(Comparator.comparing(Settlement::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return settlements;
+    }
+
+    /**
+     * A union of the payer and payee lookups, so each side can use its own index
+     * (an OR across the two columns forces a full scan). Unordered: Hibernate cannot
+     * order a union of entity selects.
+     */
+    @Query("SELECT s FROM Settlement s WHERE s.payer.id = :userId "
+            + "UNION SELECT s FROM Settlement s WHERE s.payee.id = :userId")
+    List<Settlement> findPaidOrReceivedBy(@Param("userId") Long userId);
 
     @Query("SELECT s FROM Settlement s WHERE s.group.id = :groupId AND (s.payer.id = :userId OR s.payee.id = :userId) ORDER BY s.createdAt DESC")
     List<Settlement> findByGroupIdAndUserId(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    long countByGroupId(Long groupId);
+
+    /**
+     * Creation time of the group's latest settlement, for the dashboard read model.
+     */
+    @Query("SELECT MAX(s.createdAt) FROM Settlement s WHERE s.group.id = :groupId")
+    Optional<LocalDateTime> findLatestCreatedAt(@Param("groupId") Long groupId);
+
+    /**
+     * One page of a group's settlement ids, for chunked deletion.
+     */
+    @Query("SELECT s.id FROM Settlement s WHERE s.group.id = :groupId")
+    List<Long> findIdsByGroupId(@Param("groupId") Long groupId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Settlement s WHERE s.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * Settlement flows of a group created in [from, to), oldest first.
+     */
+    @Query("SELECT s.createdAt AS createdAt, s.payer.id AS creditorId, s.payee.id AS debtorId, s.amount AS amount "
+            + "FROM Settlement s WHERE s.group.id = :groupId AND s.createdAt >= :from AND s.createdAt < :to "
+            + "ORDER BY s.createdAt")
+    List<LedgerFlow> findFlowsBetween(@Param("groupId") Long groupId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 }
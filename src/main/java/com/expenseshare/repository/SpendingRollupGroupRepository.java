@@ -0,0 +1,24 @@
+package com.expenseshare.repository;
+
+import com.expenseshare.model.SpendingRollupGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * The groups whose spending rollups were built. A group has rollup rows only while it has
+ * a marker: both are written and deleted together.
+ */
+@Repository
+public interface SpendingRollupGroupRepository extends JpaRepository<SpendingRollupGroup, Long> {
+
+    /**
+     * Groups whose rollups were never built: existing groups when the tables were added,
+     * and bulk-loaded ones.
+     */
+    @Query(value = "SELECT g.id FROM expense_groups g LEFT JOIN spending_rollup_groups r ON r.group_id = g.id "
+            + "WHERE r.group_id IS NULL ORDER BY g.id", nativeQuery = true)
+    List<Long> findGroupIdsWithoutRollups();
+}
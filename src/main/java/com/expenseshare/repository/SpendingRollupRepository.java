@@ -0,0 +1,114 @@
+package com.expenseshare.repository;
+
+import com.expenseshare.model.SpendingRollup;
+import com.expenseshare.model.SplitType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spending rollups per group, member, bucket and split type, plus the reads of a group's
+ * live and archived expenses they are built from. Writers hold the group row lock the
+ * ledger version bump takes.
+ */
+@Repository
+public interface SpendingRollupRepository extends JpaRepository<SpendingRollup, SpendingRollup.Key> {
+
+    /**
+     * The rows an expense write may touch: the members' rows of the given day and month
+     * buckets, whatever their split type.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM SpendingRollup r WHERE r.groupId = :groupId AND r.bucketStart IN :bucketStarts "
+            + "AND r.userId IN :userIds")
+    List<SpendingRollup> findForUpdate(@Param("groupId") Long groupId,
+            @Param("bucketStarts") Collection<LocalDate> bucketStarts, @Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT r FROM SpendingRollup r WHERE r.groupId = :groupId AND r.granularity = :granularity "
+            + "AND r.bucketStart BETWEEN :from AND :to ORDER BY r.bucketStart")
+    List<SpendingRollup> findByGroupBetween(@Param("groupId") Long groupId,
+            @Param("granularity") SpendingRollup.Granularity granularity,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * A member's rows across all groups, summed per bucket, split type and the groups' base
+     * currency: amounts of groups in different currencies do not add up.
+     */
+    @Query("SELECT r.bucketStart AS bucketStart, g.baseCurrency AS currency, r.splitType AS splitType, "
+            + "SUM(r.paidAmount) AS paidAmount, SUM(r.shareAmount) AS shareAmount, "
+            + "SUM(r.expenseCount) AS expenseCount FROM SpendingRollup r, ExpenseGroup g WHERE g.id = r.groupId "
+            + "AND r.userId = :userId AND r.granularity = :granularity AND r.bucketStart BETWEEN :from AND :to "
+            + "GROUP BY r.bucketStart, g.baseCurrency, r.splitType ORDER BY r.bucketStart, g.baseCurrency")
+    List<UserTotal> findUserTotals(@Param("userId") Long userId,
+            @Param("granularity") SpendingRollup.Granularity granularity,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM SpendingRollup r WHERE r.groupId = :groupId")
+    int deleteByGroupId(@Param("groupId") Long groupId);
+
+    /**
+     * Every expense of the group, live and archived, for building its rollups.
+     */
+    @Query(value = "SELECT id, paid_by AS payerId, amount, split_type AS splitType, "
+            + "participant_ids AS participantIds, created_at AS createdAt FROM expenses WHERE group_id = :groupId "
+            + "UNION ALL SELECT id, paid_by, amount, split_type, participant_ids, created_at "
+            + "FROM expenses_archive WHERE group_id = :groupId", nativeQuery = true)
+    List<ExpenseRow> findExpenseRows(@Param("groupId") Long groupId);
+
+    /**
+     * The split rows of {@link #findExpenseRows}; inline equal splits have none.
+     */
+    @Query(value = "SELECT s.expense_id AS expenseId, s.user_id AS userId, s.amount "
+            + "FROM expense_splits s JOIN expenses e ON e.id = s.expense_id WHERE e.group_id = :groupId "
+            + "UNION ALL SELECT s.expense_id, s.user_id, s.amount "
+            + "FROM expense_splits_archive s JOIN expenses_archive e ON e.id = s.expense_id "
+            + "WHERE e.group_id = :groupId", nativeQuery = true)
+    List<SplitRow> findSplitRows(@Param("groupId") Long groupId);
+
+    interface UserTotal {
+        LocalDate getBucketStart();
+
+        String getCurrency();
+
+        SplitType getSplitType();
+
+        BigDecimal getPaidAmount();
+
+        BigDecimal getShareAmount();
+
+        Long getExpenseCount();
+    }
+
+    interface ExpenseRow {
+        Long getId();
+
+        Long getPayerId();
+
+        BigDecimal getAmount();
+
+        String getSplitType();
+
+        String getParticipantIds();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    interface SplitRow {
+        Long getExpenseId();
+
+        Long getUserId();
+
+        BigDecimal getAmount();
+    }
+}
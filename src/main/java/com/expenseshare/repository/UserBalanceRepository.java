@@ -0,0 +1,51 @@
+package com.expenseshare.repository;
+
+import com.expenseshare.model.UserBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-user balance totals, one row per currency. Writers lock every row of every user
+ * they touch, in user id order, before reading or writing any of those users' group
+ * balances, so a user's first row in a currency is only ever added under that lock.
+ */
+@Repository
+public interface UserBalanceRepository extends JpaRepository<UserBalance, UserBalance.Key> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM UserBalance b WHERE b.userId IN :userIds ORDER BY b.userId, b.currency")
+    List<UserBalance> findForUpdate(@Param("userIds") Collection<Long> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM UserBalance b WHERE b.userId = :userId ORDER BY b.currency")
+    List<UserBalance> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Query("SELECT b FROM UserBalance b WHERE b.userId = :userId ORDER BY b.currency")
+    List<UserBalance> findByUserId(@Param("userId") Long userId);
+
+    /**
+     * Users whose totals were never built: existing users when the table was added, and
+     * bulk-loaded ones.
+     */
+    @Query(value = "SELECT u.id FROM users u LEFT JOIN user_balances b ON b.user_id = u.id "
+            + "WHERE b.user_id IS NULL ORDER BY u.id", nativeQuery = true)
+    List<Long> findUserIdsWithoutBalance();
+
+    @Query("SELECT MAX(u.id) FROM User u")
+    Optional<Long> findMaxUserId();
+
+    /**
+     * A window of user ids, for sampling.
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id >= :fromId ORDER BY u.id")
+    List<Long> findUserIdsFrom(@Param("fromId") Long fromId, Pageable pageable);
+}
@@ -0,0 +1,31 @@
+package com.expenseshare.repository;
+
+import com.expenseshare.model.UserGroupBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Members' net balances per group, behind the per-user totals.
+ * Lock the users' {@link com.expenseshare.model.UserBalance} rows first.
+ */
+@Repository
+public interface UserGroupBalanceRepository extends JpaRepository<UserGroupBalance, UserGroupBalance.Key> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM UserGroupBalance b WHERE b.groupId = :groupId AND b.userId IN :userIds")
+    List<UserGroupBalance> findForUpdate(@Param("groupId") Long groupId, @Param("userIds") Collection<Long> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM UserGroupBalance b WHERE b.userId = :userId")
+    List<UserGroupBalance> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Query("SELECT b.userId FROM UserGroupBalance b WHERE b.groupId = :groupId ORDER BY b.userId")
+    List<Long> findUserIdsByGroupId(@Param("groupId") Long groupId);
+}
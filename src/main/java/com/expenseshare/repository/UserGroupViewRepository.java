@@ -0,0 +1,44 @@
+package com.expenseshare.repository;
+
+import com.expenseshare.model.UserGroupView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * The dashboard and group list read model.
+ */
+@Repository
+public interface UserGroupViewRepository extends JpaRepository<UserGroupView, UserGroupView.Key> {
+
+    /**
+     * A user's groups, most recently active first, without counterparties (group list page).
+     */
+    @Query("SELECT v FROM UserGroupView v WHERE v.userId = :userId ORDER BY v.lastActivityAt DESC")
+    List<UserGroupView> findByUserId(@Param("userId") Long userId);
+
+    /**
+     * A user's groups with their counterparties in one query (dashboard).
+     */
+    @Query("SELECT DISTINCT v FROM UserGroupView v LEFT JOIN FETCH v.counterparties "
+            + "WHERE v.userId = :userId ORDER BY v.lastActivityAt DESC")
+    List<UserGroupView> findByUserIdWithCounterparties(@Param("userId") Long userId);
+
+    @Query("SELECT v FROM UserGroupView v WHERE v.groupId = :groupId")
+    List<UserGroupView> findByGroupId(@Param("groupId") Long groupId);
+
+    /**
+     * Groups whose rows do not match the write side: a member without a row, a row built
+     * from an older group version, or a row of someone who is no longer a member.
+     */
+    @Query(value = "SELECT m.group_id FROM group_members m JOIN expense_groups g ON g.id = m.group_id "
+            + "LEFT JOIN user_group_views v ON v.user_id = m.user_id AND v.group_id = m.group_id "
+            + "WHERE v.group_id IS NULL OR v.group_version <> g.version "
+            + "UNION SELECT v.group_id FROM user_group_views v "
+            + "LEFT JOIN group_members m ON m.user_id = v.user_id AND m.group_id = v.group_id "
+            + "WHERE m.group_id IS NULL", nativeQuery = true)
+    List<Long> findStaleGroupIds();
+}
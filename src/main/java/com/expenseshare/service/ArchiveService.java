@@ -0,0 +1,216 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.GroupArchiveDTO;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.GroupArchive;
+import com.expenseshare.repository.ExpenseSplitRepository;
+import com.expenseshare.repository.GroupArchiveRepository;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.LedgerFlow;
+import com.expenseshare.repository.SettlementRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Moves settled history out of the hot ledger tables.
+ * Expenses and settlements older than the retention period move to the archive tables,
+ * but only up to the last point where the group was fully settled, and the group's
+ * opening-balance snapshot absorbs whatever was left at that point. Balances are then
+ * computed from the snapshot plus the remaining hot rows.
+ */
+@Service
+@Slf4j
+public class ArchiveService {
+
+    private static final BigDecimal MIN_BALANCE = new BigDecimal("0.01");
+
+    private final GroupArchiveRepository groupArchiveRepository;
+    private final GroupRepository groupRepository;
+    private final ExpenseSplitRepository expenseSplitRepository;
+    private final SettlementRepository settlementRepository;
+    private final GroupWriteGuard groupWriteGuard;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+
+    public ArchiveService(GroupArchiveRepository groupArchiveRepository, GroupRepository groupRepository,
+            ExpenseSplitRepository expenseSplitRepository, SettlementRepository settlementRepository,
+            GroupWriteGuard groupWriteGuard, PlatformTransactionManager transactionManager,
+            @Value("${app.archive.retention-days:365}") int retentionDays) {
+        this.groupArchiveRepository = groupArchiveRepository;
+        this.groupRepository = groupRepository;
+        this.expenseSplitRepository = expenseSplitRepository;
+        this.settlementRepository = settlementRepository;
+        this.groupWriteGuard = groupWriteGuard;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Archive every group's settled history older than the retention period.
+     * Each group is archived in its own transaction.
+     */
+    @Scheduled(cron = "${app.archive.cron:-}")
+    public void archiveAll() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        List<Long> groupIds = transactionTemplate.execute(
+                status -> groupArchiveRepository.findGroupIdsWithHistoryBefore(cutoff));
+
+        long started = System.nanoTime();
+        int archived = 0;
+        for (Long groupId : groupIds) {
+            try {
+                if (archiveGroup(groupId, cutoff) > 0) {
+                    archived++;
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to archive group {}", groupId, e);
+            }
+        }
+        log.info("Archived history before {} for {} of {} groups in {} ms", cutoff, archived, groupIds.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Archive a group's history before the cutoff, up to the last point it was fully settled.
+     * Returns the number of expenses and settlements moved.
+     */
+    public int archiveGroup(Long groupId, LocalDateTime cutoff) {
+        return transactionTemplate.execute(status -> {
+            long version = groupWriteGuard.lock(groupId);
+
+            GroupArchive archive = groupArchiveRepository.findById(groupId)
+                    .orElseGet(() -> GroupArchive.builder().groupId(groupId).build());
+            Map<Long, BigDecimal> net = new HashMap<>(archive.getOpeningBalances());
+            LocalDateTime from = archive.getArchivedThrough() != null ? archive.getArchivedThrough() : LedgerFlow.BEGINNING;
+
+            SettledPoint settled = findLastSettledPoint(net,
+                    mergeByTime(expenseSplitRepository.findFlowsBetween(groupId, from, cutoff),
+                            SplitCalculator.flows(
+                                    expenseSplitRepository.findPackedSplitsBetween(groupId, from, cutoff)),
+                            settlementRepository.findFlowsBetween(groupId, from, cutoff)),
+                    cutoff);
+            if (settled == null) {
+                return 0;
+            }
+
+            LocalDateTime before = settled.before();
+            groupArchiveRepository.copySplitsBefore(groupId, before);
+            int expenses = groupArchiveRepository.copyExpensesBefore(groupId, before);
+            int settlements = groupArchiveRepository.copySettlementsBefore(groupId, before);
+            groupArchiveRepository.deleteSplitsBefore(groupId, before);
+            groupArchiveRepository.deleteExpensesBefore(groupId, before);
+            groupArchiveRepository.deleteSettlementsBefore(groupId, before);
+
+            archive.setArchivedThrough(before);
+            archive.getOpeningBalances().clear();
+            archive.getOpeningBalances().putAll(settled.balances());
+            archive.setExpenseCount(archive.getExpenseCount() + expenses);
+            archive.setSettlementCount(archive.getSettlementCount() + settlements);
+            groupArchiveRepository.save(archive);
+
+            // The hot history changed, so cached views keyed on the ledger version must refresh
+            groupArchiveRepository.markArchived(groupId, before);
+            groupWriteGuard.bumpLedgerVersion(groupId, version);
+
+            log.info("Archived {} expenses and {} settlements of group {} before {}", expenses, settlements,
+                    groupId, before);
+            return expenses + settlements;
+        });
+    }
+
+    /**
+     * Opening-balance snapshot and archived rows of a group, for export.
+     */
+    @Transactional(readOnly = true)
+    public GroupArchiveDTO exportGroup(Long groupId) {
+        Optional<GroupArchive> archive = groupArchiveRepository.findById(groupId);
+        return GroupArchiveDTO.builder()
+                .groupId(groupId)
+                .archivedThrough(archive.map(GroupArchive::getArchivedThrough).orElse(null))
+                .openingBalances(archive.map(a -> Map.copyOf(a.getOpeningBalances())).orElse(Map.of()))
+                .expenses(groupArchiveRepository.findArchivedExpenses(groupId))
+                .splits(groupArchiveRepository.findArchivedSplits(groupId))
+                .settlements(groupArchiveRepository.findArchivedSettlements(groupId))
+                .build();
+    }
+
+    /**
+     * Opening balances of a group, empty unless the group has been archived.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getOpeningBalances(Long groupId) {
+        return findArchive(groupId)
+                .map(GroupArchive::getOpeningBalances)
+                .orElse(Map.of());
+    }
+
+    /**
+     * The group's opening-balance snapshot, if it has been archived.
+     * The cached group row decides whether the snapshot is read at all.
+     */
+    @Transactional(readOnly = true)
+    public Optional<GroupArchive> findArchive(Long groupId) {
+        Optional<ExpenseGroup> group = groupRepository.findById(groupId);
+        if (group.isEmpty() || group.get().getArchivedThrough() == null) {
+            return Optional.empty();
+        }
+        return groupArchiveRepository.findById(groupId);
+    }
+
+    /**
+     * Walk the flows in time order from the opening balances and return the last instant
+     * after which every balance is zero, or null if the group was never settled before the cutoff.
+     * Flows with the same timestamp are applied together, since the archive split is by time.
+     */
+    private static SettledPoint findLastSettledPoint(Map<Long, BigDecimal> net, List<LedgerFlow> flows,
+            LocalDateTime cutoff) {
+        SettledPoint settled = null;
+        int i = 0;
+        while (i < flows.size()) {
+            LocalDateTime at = flows.get(i).getCreatedAt();
+            int end = i;
+            while (end < flows.size() && flows.get(end).getCreatedAt().equals(at)) {
+                end++;
+            }
+            BalanceCalculator.applyFlows(net, flows.subList(i, end));
+            i = end;
+
+            if (net.values().stream().allMatch(b -> b.abs().compareTo(MIN_BALANCE) < 0)) {
+                LocalDateTime before = i < flows.size() ? flows.get(i).getCreatedAt() : cutoff;
+                Map<Long, BigDecimal> residue = new HashMap<>();
+                net.forEach((userId, balance) -> {
+                    if (balance.signum() != 0) {
+                        residue.put(userId, balance);
+                    }
+                });
+                settled = new SettledPoint(before, residue);
+            }
+        }
+        return settled;
+    }
+
+    private static List<LedgerFlow> mergeByTime(List<LedgerFlow> splits, List<LedgerFlow> packedSplits,
+            List<LedgerFlow> settlements) {
+        List<LedgerFlow> flows = new ArrayList<>(splits.size() + packedSplits.size() + settlements.size());
+        flows.addAll(splits);
+        flows.addAll(packedSplits);
+        flows.addAll(settlements);
+        flows.sort(Comparator.comparing(LedgerFlow::getCreatedAt));
+        return flows;
+    }
+
+    /**
+     * Archive everything created before {@code before}; {@code balances} are the leftovers at that point.
+     */
+    private record SettledPoint(LocalDateTime before, Map<Long, BigDecimal> balances) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.BalanceDTO;
+import com.expenseshare.model.*;
+import com.expenseshare.repository.LedgerFlow;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Pure balance arithmetic shared by the balance services and the benchmarks.
+ */
+public final class BalanceCalculator {
+
+    private static final BigDecimal MIN_TRANSFER = new BigDecimal("0.01");
+
+    private BalanceCalculator() {
+    }
+
+    /**
+     * Accumulate net balances from expenses and settlements.
+     * Positive = user is owed money, Negative = user owes money.
+     * Every user loaded with the expenses and settlements is recorded in userMap; the
+     * participants of inline equal splits are ids only and are left to the caller.
+     */
+    public static Map<Long, BigDecimal> netBalances(List<Expense> expenses, List<Settlement> settlements,
+            Map<Long, User> userMap) {
+        Map<Long, BigDecimal> netBalances = new HashMap<>();
+
+        // Process expenses
+        for (Expense expense : expenses) {
+            Long payerId = expense.getPaidBy().getId();
+            userMap.put(payerId, expense.getPaidBy());
+
+            for (ExpenseSplit split : expense.getSplits()) {
+                userMap.put(split.getUser().getId(), split.getUser());
+            }
+
+            // Payer paid the full amount, so they are owed the splits from others
+            for (SplitCalculator.Share share : SplitCalculator.shares(expense)) {
+                if (!share.userId().equals(payerId)) {
+                    // Payer is owed this amount
+                    netBalances.merge(payerId, share.amount(), BigDecimal::add);
+                    // Split user owes this amount
+                    netBalances.merge(share.userId(), share.amount().negate(), BigDecimal::add);
+                }
+            }
+        }
+
+        // Process settlements (settlements reduce debt)
+        for (Settlement settlement : settlements) {
+            Long payerId = settlement.getPayer().getId();
+            Long payeeId = settlement.getPayee().getId();
+            userMap.put(payerId, settlement.getPayer());
+            userMap.put(payeeId, settlement.getPayee());
+
+            // Payer settled some debt, so their net balance increases
+            netBalances.merge(payerId, settlement.getAmount(), BigDecimal::add);
+            // Payee received payment, so their net balance decreases
+            netBalances.merge(payeeId, settlement.getAmount().negate(), BigDecimal::add);
+        }
+
+        return netBalances;
+    }
+
+    /**
+     * Apply flows read as projections to net balances, same signs as {@link #netBalances}.
+     */
+    public static void applyFlows(Map<Long, BigDecimal> netBalances, List<LedgerFlow> flows) {
+        for (LedgerFlow flow : flows) {
+            netBalances.merge(flow.getCreditorId(), flow.getAmount(), BigDecimal::add);
+            netBalances.merge(flow.getDebtorId(), flow.getAmount().negate(), BigDecimal::add);
+        }
+    }
+
+    /**
+     * Simplify debts using a greedy algorithm.
+     * Matches the maximum creditor with the maximum debtor iteratively.
+     */
+    public static List<BalanceDTO> simplifyDebts(Map<Long, BigDecimal> netBalances, Map<Long, User> userMap) {
+        List<BalanceDTO> simplifiedDebts = new ArrayList<>();
+
+        // Create lists of creditors (positive balance) and debtors (negative balance)
+        List<Map.Entry<Long, BigDecimal>> creditors = new ArrayList<>();
+        List<Map.Entry<Long, BigDecimal>> debtors = new ArrayList<>();
+
+        for (Map.Entry<Long, BigDecimal> entry : netBalances.entrySet()) {
+            BigDecimal balance = entry.getValue();
+            if (balance.compareTo(BigDecimal.ZERO) > 0) {
+                creditors.add(new AbstractMap.SimpleEntry<>(entry.getKey(), balance));
+            } else if (balance.compareTo(BigDecimal.ZERO) < 0) {
+                debtors.add(new AbstractMap.SimpleEntry<>(entry.getKey(), balance.negate()));
+            }
+        }
+
+        // Sort by amount descending
+        creditors.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+        debtors.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+
+        // Match debtors with creditors
+        int i = 0, j = 0;
+        while (i < debtors.size() && j < creditors.size()) {
+            Map.Entry<Long, BigDecimal> debtor = debtors.get(i);
+            Map.Entry<Long, BigDecimal> creditor = creditors.get(j);
+
+            BigDecimal debtAmount = debtor.getValue();
+            BigDecimal creditAmount = creditor.getValue();
+            BigDecimal settleAmount = debtAmount.min(creditAmount);
+
+            if (settleAmount.compareTo(MIN_TRANSFER) >= 0) {
+                User fromUser = userMap.get(debtor.getKey());
+                User toUser = userMap.get(creditor.getKey());
+
+                simplifiedDebts.add(BalanceDTO.builder()
+                        .fromUserId(debtor.getKey())
+                        .fromUserName(fromUser != null ? fromUser.getName() : "Unknown")
+                        .toUserId(creditor.getKey())
+                        .toUserName(toUser != null ? toUser.getName() : "Unknown")
+                        .amount(settleAmount)
+                        .build());
+            }
+
+            // Update remaining amounts
+            debtor.setValue(debtAmount.subtract(settleAmount));
+            creditor.setValue(creditAmount.subtract(settleAmount));
+
+            if (debtor.getValue().compareTo(MIN_TRANSFER) < 0) {
+                i++;
+            }
+            if (creditor.getValue().compareTo(MIN_TRANSFER) < 0) {
+                j++;
+            }
+        }
+
+        return simplifiedDebts;
+    }
+}
@@ -2,6 +2,7 @@ package com.expenseshare.service;
 
 import com.expenseshare.dto.BalanceDTO;
 import com.expenseshare.dto.UserBalanceSummary;
+import com.expenseshare.metrics.LedgerMetrics;
 import com.expenseshare.model.*;
 import com.expenseshare.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,117 +23,59 @@ public class BalanceService {
     private final SettlementRepository settlementRepository;
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
+    private final LedgerMetrics ledgerMetrics;
+    private final ArchiveService archiveService;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final FxRateTable fxRateTable;
 
     /**
      * Calculate all balances within a group.
      * Returns a list of simplified debts (who owes whom and how much).
+     * Archived history is covered by the group's opening balances.
      */
     public List<BalanceDTO> calculateGroupBalances(Long groupId) {
+        long start = System.nanoTime();
+
         // Get all expenses and settlements for the group
         List<Expense> expenses = expenseRepository.findByGroupIdWithSplits(groupId);
         List<Settlement> settlements = settlementRepository.findByGroupId(groupId);
 
         // Calculate net balance for each user
-        // Positive = user is owed money, Negative = user owes money
-        Map<Long, BigDecimal> netBalances = new HashMap<>();
         Map<Long, User> userMap = new HashMap<>();
+        Map<Long, BigDecimal> netBalances = BalanceCalculator.netBalances(expenses, settlements, userMap);
 
-        // Process expenses
-        for (Expense expense : expenses) {
-            Long payerId = expense.getPaidBy().getId();
-            userMap.put(payerId, expense.getPaidBy());
-
-            // Payer paid the full amount, so they are owed the splits from others
-            for (ExpenseSplit split : expense.getSplits()) {
-                Long splitUserId = split.getUser().getId();
-                userMap.put(splitUserId, split.getUser());
-
-                if (!splitUserId.equals(payerId)) {
-                    // Payer is owed this amount
-                    netBalances.merge(payerId, split.getAmount(), BigDecimal::add);
-                    // Split user owes this amount
-                    netBalances.merge(splitUserId, split.getAmount().negate(), BigDecimal::add);
-                }
-            }
-        }
+        // Start from the opening balances of an archived group
+        archiveService.getOpeningBalances(groupId).forEach((userId, balance) ->
+                netBalances.merge(userId, balance, BigDecimal::add));
 
-        // Process settlements (settlements reduce debt)
-        for (Settlement settlement : settlements) {
-            Long payerId = settlement.getPayer().getId();
-            Long payeeId = settlement.getPayee().getId();
-            userMap.put(payerId, settlement.getPayer());
-            userMap.put(payeeId, settlement.getPayee());
-
-            // Payer settled some debt, so their net balance increases
-            netBalances.merge(payerId, settlement.getAmount(), BigDecimal::add);
-            // Payee received payment, so their net balance decreases
-            netBalances.merge(payeeId, settlement.getAmount().negate(), BigDecimal::add);
-        }
+        // Opening balances and inline equal splits carry user ids only; users are in the second-level cache
+        netBalances.forEach((userId, balance) -> {
+            if (balance.signum() != 0) {
+                userMap.computeIfAbsent(userId, id -> userRepository.findById(id).orElse(null));
+            }
+        });
 
         // Simplify debts using greedy algorithm
-        return simplifyDebts(netBalances, userMap);
+        List<BalanceDTO> transfers = BalanceCalculator.simplifyDebts(netBalances, userMap);
+
+        int splitCount = expenses.stream().mapToInt(Expense::getParticipantCount).sum();
+        ledgerMetrics.recordGroupBalances(groupId, System.nanoTime() - start, expenses.size(), splitCount,
+                settlements.size(), transfers.size());
+        return transfers;
     }
 
     /**
-     * Simplify debts using a greedy algorithm.
-     * Matches the maximum creditor with the maximum debtor iteratively.
+     * Simplified balances of a group as of a point in time, counting only what was created before it.
      */
-    private List<BalanceDTO> simplifyDebts(Map<Long, BigDecimal> netBalances, Map<Long, User> userMap) {
-        List<BalanceDTO> simplifiedDebts = new ArrayList<>();
-
-        // Create lists of creditors (positive balance) and debtors (negative balance)
-        List<Map.Entry<Long, BigDecimal>> creditors = new ArrayList<>();
-        List<Map.Entry<Long, BigDecimal>> debtors = new ArrayList<>();
-
-        for (Map.Entry<Long, BigDecimal> entry : netBalances.entrySet()) {
-            BigDecimal balance = entry.getValue();
-            if (balance.compareTo(BigDecimal.ZERO) > 0) {
-                creditors.add(new AbstractMap.SimpleEntry<>(entry.getKey(), balance));
-            } else if (balance.compareTo(BigDecimal.ZERO) < 0) {
-                debtors.add(new AbstractMap.SimpleEntry<>(entry.getKey(), balance.negate()));
-            }
-        }
-
-        // Sort by amount descending
-        creditors.sort((a, b) -> b.getValue().compareTo(a.getValue()));
-        debtors.sort((a, b) -> b.getValue().compareTo(a.getValue()));
-
-        // Match debtors with creditors
-        int i = 0, j = 0;
-        while (i < debtors.size() && j < creditors.size()) {
-            Map.Entry<Long, BigDecimal> debtor = debtors.get(i);
-            Map.Entry<Long, BigDecimal> creditor = creditors.get(j);
-
-            BigDecimal debtAmount = debtor.getValue();
-            BigDecimal creditAmount = creditor.getValue();
-            BigDecimal settleAmount = debtAmount.min(creditAmount);
-
-            if (settleAmount.compareTo(new BigDecimal("0.01")) >= 0) {
-                User fromUser = userMap.get(debtor.getKey());
-                User toUser = userMap.get(creditor.getKey());
-
-                simplifiedDebts.add(BalanceDTO.builder()
-                        .fromUserId(debtor.getKey())
-                        .fromUserName(fromUser != null ? fromUser.getName() : "Unknown")
-                        .toUserId(creditor.getKey())
-                        .toUserName(toUser != null ? toUser.getName() : "Unknown")
-                        .amount(settleAmount)
-                        .build());
-            }
-
-            // Update remaining amounts
-            debtor.setValue(debtAmount.subtract(settleAmount));
-            creditor.setValue(creditAmount.subtract(settleAmount));
-
-            if (debtor.getValue().compareTo(new BigDecimal("0.01")) < 0) {
-                i++;
-            }
-            if (creditor.getValue().compareTo(new BigDecimal("0.01")) < 0) {
-                j++;
-            }
+    public List<BalanceDTO> calculateGroupBalancesAsOf(Long groupId, LocalDateTime asOf) {
+        Map<Long, BigDecimal> netBalances = balanceSnapshotService.netBalancesAsOf(groupId, asOf);
+        if (netBalances.isEmpty()) {
+            return List.of();
         }
 
-        return simplifiedDebts;
+        Map<Long, User> userMap = userRepository.findByIdIn(new ArrayList<>(netBalances.keySet())).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        return BalanceCalculator.simplifyDebts(netBalances, userMap);
     }
 
     /**
@@ -171,10 +115,11 @@ public class BalanceService {
     }
 
     /**
-     * Get overall balance summary for a user across all groups.
+     * Get overall balance summary for a user across all groups, totalled per currency.
      */
     public UserBalanceSummary getUserOverallBalance(Long userId) {
         List<ExpenseGroup> groups = groupRepository.findByMemberId(userId);
+        ledgerMetrics.recordOverallBalance(groups.size());
         User user = userRepository.findById(userId).orElse(null);
         String userName = user != null ? user.getName() : "Unknown";
 
@@ -183,6 +128,7 @@ public class BalanceService {
 
         for (ExpenseGroup group : groups) {
             List<BalanceDTO> groupBalances = calculateGroupBalances(group.getId());
+            groupBalances.forEach(balance -> balance.setCurrency(group.getBaseCurrency()));
 
             allDebts.addAll(groupBalances.stream()
                     .filter(b -> b.getFromUserId().equals(userId))
@@ -193,23 +139,8 @@ public class BalanceService {
                     .collect(Collectors.toList()));
         }
 
-        BigDecimal totalOwed = allDebts.stream()
-                .map(BalanceDTO::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalOwing = allCredits.stream()
-                .map(BalanceDTO::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return UserBalanceSummary.builder()
-                .userId(userId)
-                .userName(userName)
-                .totalOwed(totalOwed)
-                .totalOwing(totalOwing)
-                .netBalance(totalOwing.subtract(totalOwed))
-                .debts(allDebts)
-                .credits(allCredits)
-                .build();
+        return UserBalanceSummary.acrossGroups(userId, userName, allDebts, allCredits,
+                fxRateTable.getDefaultCurrency());
     }
 
     /**
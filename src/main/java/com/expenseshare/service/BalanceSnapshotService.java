@@ -0,0 +1,200 @@
+package com.expenseshare.service;
+
+import com.expenseshare.event.LedgerChangedEvent;
+import com.expenseshare.model.BalanceSnapshot;
+import com.expenseshare.model.GroupArchive;
+import com.expenseshare.repository.BalanceSnapshotRepository;
+import com.expenseshare.repository.ExpenseSplitRepository;
+import com.expenseshare.repository.GroupArchiveRepository;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.LedgerFlow;
+import com.expenseshare.repository.SettlementRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Point-in-time group balances.
+ * Net balances are snapshotted every N ledger writes of a group and nightly for every
+ * active group. A balance as of some instant starts from the nearest earlier snapshot (or
+ * the archive's opening balances) and replays only the expenses and settlements in between.
+ * Deleting an expense or settlement drops the snapshots taken after it, so the result always
+ * matches a full replay of the current ledger.
+ */
+@Service
+@Slf4j
+public class BalanceSnapshotService {
+
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final ExpenseSplitRepository expenseSplitRepository;
+    private final SettlementRepository settlementRepository;
+    private final GroupArchiveRepository groupArchiveRepository;
+    private final GroupRepository groupRepository;
+    private final ArchiveService archiveService;
+    private final GroupWriteGuard groupWriteGuard;
+    private final TransactionTemplate transactionTemplate;
+    private final int writesPerSnapshot;
+
+    // Ledger writes per group since its last snapshot on this node
+    private final Map<Long, Integer> pendingWrites = new ConcurrentHashMap<>();
+
+    private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "balance-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BalanceSnapshotService(BalanceSnapshotRepository snapshotRepository,
+            ExpenseSplitRepository expenseSplitRepository, SettlementRepository settlementRepository,
+            GroupArchiveRepository groupArchiveRepository, GroupRepository groupRepository,
+            ArchiveService archiveService, GroupWriteGuard groupWriteGuard,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.snapshots.writes-per-snapshot:200}") int writesPerSnapshot) {
+        this.snapshotRepository = snapshotRepository;
+        this.expenseSplitRepository = expenseSplitRepository;
+        this.settlementRepository = settlementRepository;
+        this.groupArchiveRepository = groupArchiveRepository;
+        this.groupRepository = groupRepository;
+        this.archiveService = archiveService;
+        this.groupWriteGuard = groupWriteGuard;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writesPerSnapshot = writesPerSnapshot;
+    }
+
+    /**
+     * Net balance per user of everything created before the given instant.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> netBalancesAsOf(Long groupId, LocalDateTime asOf) {
+        return replay(groupId, asOf);
+    }
+
+    /**
+     * Snapshot the group's balances as of now. The group lock takes the stripe and the
+     * group row, which every writer on every node locks before it dates its expense or
+     * settlement, so nothing created before the snapshot can commit after it.
+     */
+    public void takeSnapshot(Long groupId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            groupWriteGuard.lock(groupId);
+            LocalDateTime now = LocalDateTime.now();
+            Map<Long, BigDecimal> balances = replay(groupId, now);
+            balances.values().removeIf(balance -> balance.signum() == 0);
+            snapshotRepository.save(BalanceSnapshot.builder()
+                    .groupId(groupId)
+                    .takenAt(now)
+                    .balances(balances)
+                    .build());
+        });
+    }
+
+    /**
+     * Drop the group's snapshots taken after a deleted or edited expense or settlement was
+     * created. Runs in the writing transaction, which holds the group lock.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void invalidateFrom(Long groupId, LocalDateTime createdAt) {
+        LocalDateTime after = createdAt != null ? createdAt : LedgerFlow.BEGINNING;
+        snapshotRepository.deleteEntriesTakenAfter(groupId, after);
+        snapshotRepository.deleteTakenAfter(groupId, after);
+    }
+
+    /**
+     * Count ledger writes and snapshot a group once it has had enough of them.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        Long groupId = event.getGroupId();
+        int writes = pendingWrites.merge(groupId, 1, Integer::sum);
+        if (writes >= writesPerSnapshot && pendingWrites.remove(groupId, writes)) {
+            snapshotter.execute(() -> snapshotQuietly(groupId));
+        }
+    }
+
+    /**
+     * Nightly snapshot of every group with ledger activity in the last day.
+     */
+    @Scheduled(cron = "${app.snapshots.cron:-}")
+    public void snapshotActiveGroups() {
+        List<Long> groupIds = transactionTemplate.execute(
+                status -> groupRepository.findGroupIdsWithHistorySince(LocalDateTime.now().minusDays(1)));
+        long started = System.nanoTime();
+        groupIds.forEach(groupId -> {
+            pendingWrites.remove(groupId);
+            snapshotQuietly(groupId);
+        });
+        log.info("Snapshotted balances of {} groups in {} ms", groupIds.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void snapshotQuietly(Long groupId) {
+        try {
+            takeSnapshot(groupId);
+        } catch (RuntimeException e) {
+            log.error("Failed to snapshot balances of group {}", groupId, e);
+        }
+    }
+
+    /**
+     * Start from the latest known balances at or before the target (a snapshot, the archive's
+     * opening balances, or nothing) and add the archived and hot flows up to the target.
+     */
+    private Map<Long, BigDecimal> replay(Long groupId, LocalDateTime to) {
+        Map<Long, BigDecimal> net = new HashMap<>();
+        LocalDateTime from = LedgerFlow.BEGINNING;
+
+        Optional<BalanceSnapshot> snapshot = snapshotRepository.findLatestAtOrBefore(groupId, to);
+        if (snapshot.isPresent()) {
+            from = snapshot.get().getTakenAt();
+            net.putAll(snapshot.get().getBalances());
+        }
+
+        Optional<GroupArchive> archive = archiveService.findArchive(groupId);
+        LocalDateTime archivedThrough = archive.map(GroupArchive::getArchivedThrough).orElse(null);
+        if (archivedThrough != null && archivedThrough.isAfter(from) && !archivedThrough.isAfter(to)) {
+            from = archivedThrough;
+            net.clear();
+            net.putAll(archive.get().getOpeningBalances());
+        }
+
+        if (archivedThrough != null && from.isBefore(archivedThrough)) {
+            LocalDateTime archivedTo = to.isBefore(archivedThrough) ? to : archivedThrough;
+            BalanceCalculator.applyFlows(net,
+                    groupArchiveRepository.findArchivedSplitFlowsBetween(groupId, from, archivedTo));
+            BalanceCalculator.applyFlows(net, SplitCalculator.flows(
+                    groupArchiveRepository.findArchivedPackedSplitsBetween(groupId, from, archivedTo)));
+            BalanceCalculator.applyFlows(net,
+                    groupArchiveRepository.findArchivedSettlementFlowsBetween(groupId, from, archivedTo));
+        }
+        if (archivedThrough == null || to.isAfter(archivedThrough)) {
+            BalanceCalculator.applyFlows(net, expenseSplitRepository.findFlowsBetween(groupId, from, to));
+            BalanceCalculator.applyFlows(net,
+                    SplitCalculator.flows(expenseSplitRepository.findPackedSplitsBetween(groupId, from, to)));
+            BalanceCalculator.applyFlows(net, settlementRepository.findFlowsBetween(groupId, from, to));
+        }
+        return net;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        snapshotter.shutdown();
+    }
+}
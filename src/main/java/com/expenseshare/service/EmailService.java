@@ -1,6 +1,9 @@
 package com.expenseshare.service;
 
 import com.expenseshare.model.*;
+import com.expenseshare.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,7 +16,10 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +27,8 @@ import java.util.Locale;
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.email.enabled:false}")
     private boolean emailEnabled;
@@ -44,21 +52,29 @@ public class EmailService {
         }
 
         try {
-            for (ExpenseSplit split : expense.getSplits()) {
+            List<SplitCalculator.Share> shares = SplitCalculator.shares(expense);
+            List<Long> userIds = shares.stream().map(SplitCalculator.Share::userId).toList();
+            Map<Long, User> users = userRepository.findByIdIn(userIds).stream()
+                    .collect(Collectors.toMap(User::getId, user -> user));
+
+            for (SplitCalculator.Share share : shares) {
+                User user = users.get(share.userId());
                 // Don't notify the person who paid
-                if (!split.getUser().getId().equals(expense.getPaidBy().getId())) {
+                if (user != null && !user.getId().equals(expense.getPaidBy().getId())) {
                     String subject = String.format("New expense in %s - %s",
                             expense.getGroup().getName(), expense.getDescription());
 
                     String htmlBody = buildExpenseEmailHtml(
-                            split.getUser().getName(),
+                            "New Expense Added",
+                            "added a new expense",
+                            user.getName(),
                             expense.getPaidBy().getName(),
                             expense.getGroup().getName(),
                             expense.getDescription(),
                             expense.getAmount(),
-                            split.getAmount());
+                            share.amount());
 
-                    sendHtmlEmail(split.getUser().getEmail(), subject, htmlBody);
+                    sendHtmlEmail(user.getEmail(), subject, htmlBody);
                 }
             }
         } catch (Exception e) {
@@ -66,6 +82,39 @@ public class EmailService {
         }
     }
 
+    /**
+     * Send notification when an expense is edited, to the members whose share changed.
+     */
+    @Async
+    public void sendExpenseUpdatedNotification(Expense expense, User editor, Map<Long, BigDecimal> changedShares) {
+        if (!emailEnabled) {
+            log.info("Email disabled. Would have sent expense update for {} to {} members",
+                    expense.getDescription(), changedShares.size());
+            return;
+        }
+
+        try {
+            String subject = String.format("Expense updated in %s - %s",
+                    expense.getGroup().getName(), expense.getDescription());
+
+            for (User user : userRepository.findByIdIn(List.copyOf(changedShares.keySet()))) {
+                String htmlBody = buildExpenseEmailHtml(
+                        "Expense Updated",
+                        "changed your share of an expense",
+                        user.getName(),
+                        editor.getName(),
+                        expense.getGroup().getName(),
+                        expense.getDescription(),
+                        expense.getAmount(),
+                        changedShares.get(user.getId()));
+
+                sendHtmlEmail(user.getEmail(), subject, htmlBody);
+            }
+        } catch (Exception e) {
+            log.error("Failed to send expense update notification", e);
+        }
+    }
+
     /**
      * Send notification when a settlement is recorded.
      */
@@ -93,6 +142,42 @@ public class EmailService {
         }
     }
 
+    /**
+     * Send one summary of a settle-up to a user covering all of their payments.
+     */
+    @Async
+    public void sendSettleUpSummary(User user, ExpenseGroup group, List<Settlement> settlements) {
+        if (!emailEnabled) {
+            log.info("Email disabled. Would have sent settle-up summary of {} payments to {}",
+                    settlements.size(), user.getName());
+            return;
+        }
+
+        try {
+            String subject = String.format("%s is settled up", group.getName());
+
+            StringBuilder rows = new StringBuilder();
+            for (Settlement settlement : settlements) {
+                boolean paying = settlement.getPayer().getId().equals(user.getId());
+                rows.append(String.format(
+                        "<div style=\"display: flex; justify-content: space-between; padding: 12px 0; border-bottom: 1px solid #e8eaed;\">"
+                                + "<span style=\"color: #202124;\">%s</span>"
+                                + "<strong style=\"color: %s;\">%s</strong></div>",
+                        paying ? "You pay " + settlement.getPayee().getName()
+                                : settlement.getPayer().getName() + " pays you",
+                        paying ? "#ea4335" : "#34a853",
+                        currencyFormat.format(settlement.getAmount())));
+            }
+
+            String htmlBody = buildSettleUpEmailHtml(user.getName(), group.getName(), rows.toString());
+
+            sendHtmlEmail(user.getEmail(), subject, htmlBody);
+
+        } catch (Exception e) {
+            log.error("Failed to send settle-up summary", e);
+        }
+    }
+
     /**
      * Send a payment reminder.
      */
@@ -123,8 +208,8 @@ public class EmailService {
     /**
      * Build HTML email for expense notification
      */
-    private String buildExpenseEmailHtml(String recipientName, String paidByName, String groupName,
-            String description, BigDecimal totalAmount, BigDecimal shareAmount) {
+    private String buildExpenseEmailHtml(String heading, String action, String recipientName, String actorName,
+            String groupName, String description, BigDecimal totalAmount, BigDecimal shareAmount) {
         return String.format(
                 """
                         <!DOCTYPE html>
@@ -140,7 +225,7 @@ public class EmailService {
                                     <div style="width: 60px; height: 60px; background: white; border-radius: 12px; display: inline-flex; align-items: center; justify-content: center; margin-bottom: 16px;">
                                         <span style="font-size: 24px; font-weight: 700; color: #1a73e8;">SE</span>
                                     </div>
-                                    <h1 style="color: white; margin: 0; font-size: 24px; font-weight: 600;">New Expense Added</h1>
+                                    <h1 style="color: white; margin: 0; font-size: 24px; font-weight: 600;">%s</h1>
                                 </div>
 
                                 <!-- Content -->
@@ -150,7 +235,7 @@ public class EmailService {
                                     </p>
 
                                     <p style="color: #5f6368; font-size: 15px; margin: 0 0 24px 0;">
-                                        <strong style="color: #1a73e8;">%s</strong> added a new expense in <strong>%s</strong>:
+                                        <strong style="color: #1a73e8;">%s</strong> %s in <strong>%s</strong>:
                                     </p>
 
                                     <!-- Expense Card -->
@@ -190,8 +275,10 @@ public class EmailService {
                         </body>
                         </html>
                         """,
+                heading,
                 recipientName,
-                paidByName,
+                actorName,
+                action,
                 groupName,
                 description,
                 currencyFormat.format(totalAmount),
@@ -271,6 +358,69 @@ public class EmailService {
                 appName);
     }
 
+    /**
+     * Build HTML email for settle-up summary
+     */
+    private String buildSettleUpEmailHtml(String recipientName, String groupName, String rowsHtml) {
+        return String.format(
+                """
+                        <!DOCTYPE html>
+                        <html>
+                        <head>
+                            <meta charset="UTF-8">
+                            <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                        </head>
+                        <body style="margin: 0; padding: 0; font-family: 'Segoe UI', Roboto, 'Helvetica Neue', Arial, sans-serif; background-color: #f5f5f5;">
+                            <div style="max-width: 600px; margin: 0 auto; padding: 20px;">
+                                <!-- Header -->
+                                <div style="background: linear-gradient(135deg, #34a853 0%%, #0f9d58 100%%); border-radius: 16px 16px 0 0; padding: 32px; text-align: center;">
+                                    <h1 style="color: white; margin: 0; font-size: 24px; font-weight: 600;">Group Settled Up</h1>
+                                </div>
+
+                                <!-- Content -->
+                                <div style="background: white; padding: 32px; border-radius: 0 0 16px 16px; box-shadow: 0 4px 6px rgba(0,0,0,0.1);">
+                                    <p style="color: #202124; font-size: 16px; margin: 0 0 24px 0;">
+                                        Hi <strong>%s</strong>,
+                                    </p>
+
+                                    <p style="color: #5f6368; font-size: 15px; margin: 0 0 24px 0;">
+                                        All balances in <strong>%s</strong> were settled. Your payments:
+                                    </p>
+
+                                    <!-- Payments -->
+                                    <div style="background: #f8f9fa; border-radius: 12px; padding: 12px 24px; margin-bottom: 24px;">
+                                        %s
+                                    </div>
+
+                                    <!-- CTA Button -->
+                                    <div style="text-align: center; margin: 32px 0;">
+                                        <a href="http://localhost:8088/dashboard" style="display: inline-block; background: #34a853; color: white; text-decoration: none; padding: 14px 32px; border-radius: 8px; font-weight: 500; font-size: 15px;">
+                                            View Dashboard
+                                        </a>
+                                    </div>
+
+                                    <hr style="border: none; border-top: 1px solid #e8eaed; margin: 24px 0;">
+
+                                    <p style="color: #5f6368; font-size: 13px; margin: 0; text-align: center;">
+                                        This email was sent by %s.
+                                    </p>
+                                </div>
+
+                                <!-- Footer -->
+                                <div style="text-align: center; padding: 24px; color: #5f6368; font-size: 12px;">
+                                    <p style="margin: 0;">© 2024 %s. Split expenses with ease.</p>
+                                </div>
+                            </div>
+                        </body>
+                        </html>
+                        """,
+                recipientName,
+                groupName,
+                rowsHtml,
+                appName,
+                appName);
+    }
+
     /**
      * Build HTML email for payment reminder
      */
@@ -344,6 +494,8 @@ public class EmailService {
      * Send an HTML email.
      */
     private void sendHtmlEmail(String to, String subject, String htmlBody) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -354,9 +506,21 @@ public class EmailService {
             helper.setText(htmlBody, true);
 
             mailSender.send(message);
+            outcome = "success";
             log.info("HTML email sent to: {}", to);
         } catch (MessagingException e) {
+            countFailure(e);
             log.error("Failed to send HTML email to: {}", to, e);
+        } catch (RuntimeException e) {
+            countFailure(e);
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("expenseshare.email.send", "outcome", outcome));
         }
     }
+
+    private void countFailure(Exception e) {
+        meterRegistry.counter("expenseshare.email.failures", "exception", e.getClass().getSimpleName())
+                .increment();
+    }
 }
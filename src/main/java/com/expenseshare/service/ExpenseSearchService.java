@@ -0,0 +1,90 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseSearchDTO;
+import com.expenseshare.dto.ExpenseSearchResultDTO;
+import com.expenseshare.ledger.ExpenseSearchProjection;
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.repository.ExpenseRepository;
+import com.expenseshare.repository.GroupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Searches expenses with the in-memory index instead of scanning descriptions in the
+ * database: the index picks the newest matching expense ids, one query loads them.
+ * The index is loaded from the expenses table on startup and then follows the event log, so
+ * an expense written a moment ago may not be found yet, and nothing is found while it loads.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ExpenseSearchService {
+
+    public static final int MAX_RESULTS = 100;
+
+    private final ExpenseSearchProjection searchProjection;
+    private final GroupRepository groupRepository;
+    private final ExpenseRepository expenseRepository;
+
+    /**
+     * Newest expenses matching the criteria in the user's groups, or in one of them.
+     */
+    public List<ExpenseSearchResultDTO> search(Long userId, ExpenseSearchDTO criteria, int limit) {
+        Map<Long, ExpenseGroup> groups = groupRepository.findByMemberId(userId).stream()
+                .filter(group -> criteria.getGroupId() == null || group.getId().equals(criteria.getGroupId()))
+                .collect(Collectors.toMap(ExpenseGroup::getId, Function.identity()));
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, LocalDateTime> archivedThrough = new HashMap<>();
+        groups.values().forEach(group -> archivedThrough.put(group.getId(), group.getArchivedThrough()));
+        ExpenseSearchProjection.Query query = new ExpenseSearchProjection.Query(
+                criteria.getQ(),
+                criteria.getPaidById(),
+                criteria.getMinAmount() != null ? LedgerEvent.toMinorUnits(criteria.getMinAmount()) : null,
+                criteria.getMaxAmount() != null ? LedgerEvent.toMinorUnits(criteria.getMaxAmount()) : null,
+                criteria.getFrom() != null ? criteria.getFrom().atStartOfDay() : null,
+                criteria.getTo() != null ? criteria.getTo().plusDays(1).atStartOfDay() : null);
+        List<ExpenseSearchProjection.Hit> hits = searchProjection.search(archivedThrough, query,
+                Math.min(limit, MAX_RESULTS));
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        // Keep the index's order; expenses deleted since it was updated are skipped
+        Map<Long, Expense> expenses = new LinkedHashMap<>();
+        hits.forEach(hit -> expenses.put(hit.expenseId(), null));
+        expenseRepository.findByIdInWithPayer(List.copyOf(expenses.keySet()))
+                .forEach(expense -> expenses.put(expense.getId(), expense));
+
+        return expenses.values().stream()
+                .filter(expense -> expense != null)
+                .map(expense -> {
+                    ExpenseGroup group = groups.get(expense.getGroup().getId());
+                    return ExpenseSearchResultDTO.builder()
+                            .id(expense.getId())
+                            .groupId(group.getId())
+                            .groupName(group.getName())
+                            .description(expense.getDescription())
+                            .amount(expense.getAmount())
+                            .paidById(expense.getPaidBy().getId())
+                            .paidByName(expense.getPaidBy().getName())
+                            .splitType(expense.getSplitType().name())
+                            .createdAt(expense.getCreatedAt())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -1,19 +1,34 @@
 package com.expenseshare.service;
 
+import com.expenseshare.dto.ActivityDTO;
 import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.event.LedgerChangedEvent;
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.ledger.LedgerJournal;
 import com.expenseshare.model.*;
 import com.expenseshare.repository.ExpenseRepository;
 import com.expenseshare.repository.GroupRepository;
 import com.expenseshare.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,26 +39,301 @@ public class ExpenseService {
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GroupWriteGuard groupWriteGuard;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final LedgerJournal ledgerJournal;
+    private final UserBalanceService userBalanceService;
+    private final SpendingRollupService spendingRollupService;
+    private final FxRateTable fxRateTable;
+    private final EntityManager entityManager;
 
     /**
-     * Add a new expense with splits calculated based on split type.
+     * Add a new expense with splits calculated based on split type. Amounts in another
+     * currency than the group's are converted at today's rates.
      */
     public Expense addExpense(ExpenseDTO dto) {
+        long groupVersion = groupWriteGuard.lock(dto.getGroupId());
+
         ExpenseGroup group = groupRepository.findById(dto.getGroupId())
                 .orElseThrow(() -> new IllegalArgumentException("Group not found"));
 
         User paidBy = userRepository.findById(dto.getPaidById())
                 .orElseThrow(() -> new IllegalArgumentException("Payer not found"));
 
+        String currency = foreignCurrency(dto, group);
+        ExpenseDTO recorded = inBaseCurrency(dto, currency, group.getBaseCurrency(), LocalDate.now());
         Expense expense = Expense.builder()
                 .group(group)
                 .description(dto.getDescription())
-                .amount(dto.getAmount())
+                .amount(recorded.getAmount())
+                .currency(currency)
+                .originalAmount(currency != null ? Money.toMinorUnits(dto.getAmount(), currency) : null)
                 .paidBy(paidBy)
                 .splitType(dto.getSplitType())
                 .build();
 
-        // Calculate and add splits based on split type
+        addSplits(expense, recorded);
+
+        Expense saved = expenseRepository.save(expense);
+        long ledgerVersion = groupWriteGuard.bumpLedgerVersion(group.getId(), groupVersion);
+        LedgerEvent added = LedgerEvent.expenseAdded(saved);
+        ledgerJournal.record(added);
+        userBalanceService.apply(added);
+        spendingRollupService.apply(SpendingDelta.adding(saved));
+        eventPublisher.publishEvent(new LedgerChangedEvent(group.getId(), ledgerVersion, ActivityDTO.builder()
+                .kind(ActivityDTO.Kind.EXPENSE_ADDED)
+                .id(saved.getId())
+                .description(saved.getDescription())
+                .amount(saved.getAmount())
+                .fromUserId(paidBy.getId())
+                .fromUserName(paidBy.getName())
+                .splitType(saved.getSplitType().name())
+                .participantCount(saved.getParticipantCount())
+                .createdAt(saved.getCreatedAt())
+                .build()));
+
+        // Send email notifications
+        emailService.sendExpenseNotification(saved);
+
+        return saved;
+    }
+
+    /**
+     * Post due occurrences of recurring expenses, grouped by group. Each occurrence copies
+     * its template's stored splits instead of calculating them again, and is dated at the
+     * time it was scheduled for, so occurrences caught up after an outage land on their
+     * own days. All the groups are locked up front and each group's version is bumped
+     * once; the members' balances of all groups are updated together at the end, and each
+     * group's occurrences are announced in one change at its new ledger version.
+     */
+    public List<Expense> addOccurrences(Map<Long, List<Occurrence>> occurrencesByGroup) {
+        List<Expense> saved = new ArrayList<>();
+        Map<Long, List<LedgerEvent>> eventsByGroup = new TreeMap<>();
+        SpendingDelta spending = new SpendingDelta();
+        Map<Long, Long> groupVersions = groupWriteGuard.lockAll(occurrencesByGroup.keySet());
+        Map<Long, Long> ledgerVersions = new TreeMap<>();
+        for (Map.Entry<Long, List<Occurrence>> entry : new TreeMap<>(occurrencesByGroup).entrySet()) {
+            Long groupId = entry.getKey();
+            List<LedgerEvent> events = new ArrayList<>(entry.getValue().size());
+            LocalDateTime earliest = null;
+            for (Occurrence occurrence : entry.getValue()) {
+                Expense expense = expenseRepository.save(occurrence(occurrence));
+                saved.add(expense);
+                events.add(LedgerEvent.expenseAdded(expense));
+                spending.plus(expense);
+                if (earliest == null || expense.getCreatedAt().isBefore(earliest)) {
+                    earliest = expense.getCreatedAt();
+                }
+            }
+            // Backdated occurrences change the balances of snapshots taken since
+            balanceSnapshotService.invalidateFrom(groupId, earliest);
+            ledgerVersions.put(groupId, groupWriteGuard.bumpLedgerVersion(groupId, groupVersions.get(groupId)));
+            eventsByGroup.put(groupId, events);
+        }
+        ledgerJournal.recordAll(eventsByGroup.values().stream().flatMap(List::stream).toList());
+        userBalanceService.applyAll(eventsByGroup);
+        spendingRollupService.apply(spending);
+
+        Map<Long, List<ActivityDTO>> activitiesByGroup = new TreeMap<>();
+        for (Expense expense : saved) {
+            activitiesByGroup.computeIfAbsent(expense.getGroup().getId(), id -> new ArrayList<>())
+                    .add(ActivityDTO.builder()
+                            .kind(ActivityDTO.Kind.EXPENSE_ADDED)
+                            .id(expense.getId())
+                            .description(expense.getDescription())
+                            .amount(expense.getAmount())
+                            .fromUserId(expense.getPaidBy().getId())
+                            .fromUserName(expense.getPaidBy().getName())
+                            .splitType(expense.getSplitType().name())
+                            .participantCount(expense.getParticipantCount())
+                            .createdAt(expense.getCreatedAt())
+                            .build());
+            emailService.sendExpenseNotification(expense);
+        }
+        activitiesByGroup.forEach((groupId, activities) -> eventPublisher.publishEvent(
+                new LedgerChangedEvent(groupId, ledgerVersions.get(groupId), activities)));
+
+        return saved;
+    }
+
+    /**
+     * New expense with the template's fields and splits, created at its scheduled time.
+     * Members are referenced by id only. An occurrence older than the group's archived
+     * history is dated at the archive boundary, where the live ledger starts.
+     */
+    private Expense occurrence(Occurrence occurrence) {
+        RecurringExpense template = occurrence.template();
+        LocalDateTime archivedThrough = template.getGroup().getArchivedThrough();
+        LocalDateTime createdAt = archivedThrough != null && occurrence.scheduledAt().isBefore(archivedThrough)
+                ? archivedThrough
+                : occurrence.scheduledAt();
+        Expense expense = Expense.builder()
+                .group(template.getGroup())
+                .createdAt(createdAt)
+                .description(template.getDescription())
+                .amount(template.getAmount())
+                .paidBy(template.getPaidBy())
+                .splitType(template.getSplitType())
+                .participantIds(template.getParticipantIds())
+                .build();
+        for (RecurringSplit split : template.getSplits()) {
+            expense.addSplit(ExpenseSplit.builder()
+                    .user(userRepository.getReferenceById(split.getUserId()))
+                    .amount(split.getAmount())
+                    .percentage(split.getPercentage())
+                    .build());
+        }
+        return expense;
+    }
+
+    /**
+     * One run of a recurring expense, at the time it was scheduled for.
+     */
+    public record Occurrence(RecurringExpense template, LocalDateTime scheduledAt) {
+    }
+
+    /**
+     * Edit an expense in place, keeping its id and creation time. The new splits are
+     * calculated like a new expense's and compared with the stored ones, so only split rows
+     * that changed are written, and the members' balances move by the difference. Members
+     * whose share changed are notified.
+     */
+    public Expense updateExpense(Long expenseId, ExpenseDTO dto, Long editorId) {
+        long groupVersion = groupWriteGuard.lock(dto.getGroupId());
+
+        // Read under the group lock, so the old shares are the ones the balances include
+        Expense expense = readLocked(expenseId, dto.getGroupId());
+        if (expense == null) {
+            throw new IllegalArgumentException("Expense not found");
+        }
+
+        User paidBy = userRepository.findById(dto.getPaidById())
+                .orElseThrow(() -> new IllegalArgumentException("Payer not found"));
+        User editor = userRepository.findById(editorId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        // Converted at the rates of the day the expense was first recorded
+        String currency = foreignCurrency(dto, expense.getGroup());
+        ExpenseDTO recorded = inBaseCurrency(dto, currency, expense.getGroup().getBaseCurrency(),
+                expense.getCreatedAt().toLocalDate());
+        Expense edited = Expense.builder()
+                .amount(recorded.getAmount())
+                .splitType(dto.getSplitType())
+                .build();
+        addSplits(edited, recorded);
+
+        Map<Long, BigDecimal> sharesBefore = shareAmounts(expense);
+        Map<Long, Long> netBefore = LedgerEvent.netBalances(expense);
+        SpendingDelta spending = SpendingDelta.removing(expense);
+
+        expense.setDescription(dto.getDescription());
+        expense.setAmount(recorded.getAmount());
+        expense.setCurrency(currency);
+        expense.setOriginalAmount(currency != null ? Money.toMinorUnits(dto.getAmount(), currency) : null);
+        expense.setPaidBy(paidBy);
+        expense.setSplitType(dto.getSplitType());
+        mergeSplits(expense, edited);
+
+        LedgerEvent updated = LedgerEvent.expenseUpdated(expense, netBefore);
+        if (updated.getShareUserIds().length > 0) {
+            balanceSnapshotService.invalidateFrom(expense.getGroup().getId(), expense.getCreatedAt());
+        }
+        Expense saved = expenseRepository.save(expense);
+        long ledgerVersion = groupWriteGuard.bumpLedgerVersion(saved.getGroup().getId(), groupVersion);
+        ledgerJournal.record(updated);
+        userBalanceService.apply(updated);
+        spendingRollupService.apply(spending.plus(saved));
+        ActivityDTO activity = ActivityDTO.builder()
+                .kind(ActivityDTO.Kind.EXPENSE_UPDATED)
+                .id(saved.getId())
+                .description(saved.getDescription())
+                .amount(saved.getAmount())
+                .fromUserId(paidBy.getId())
+                .fromUserName(paidBy.getName())
+                .splitType(saved.getSplitType().name())
+                .participantCount(saved.getParticipantCount())
+                .createdAt(saved.getCreatedAt())
+                .build();
+        eventPublisher.publishEvent(new LedgerChangedEvent(saved.getGroup().getId(), ledgerVersion, activity));
+
+        Map<Long, BigDecimal> changedShares = changedShares(sharesBefore, shareAmounts(saved), paidBy.getId());
+        if (!changedShares.isEmpty()) {
+            emailService.sendExpenseUpdatedNotification(saved, editor, changedShares);
+        }
+
+        return saved;
+    }
+
+    /**
+     * The currency of the expense's amounts when it is not the group's base currency.
+     */
+    private String foreignCurrency(ExpenseDTO dto, ExpenseGroup group) {
+        String currency = dto.getCurrency();
+        if (currency == null || currency.equals(group.getBaseCurrency())) {
+            return null;
+        }
+        if (!fxRateTable.isSupported(currency)) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency);
+        }
+        return currency;
+    }
+
+    /**
+     * The expense's amounts in the base currency. The amount and any exact amounts are
+     * converted together, as one vector of minor units at one rate. Exact amounts are
+     * checked against the amount before conversion, and afterwards the largest absorbs
+     * the rounding difference so they still add up. Percentages apply as they are.
+     */
+    private ExpenseDTO inBaseCurrency(ExpenseDTO dto, String currency, String baseCurrency, LocalDate day) {
+        if (currency == null) {
+            return dto;
+        }
+        List<Long> exactUserIds = dto.getSplitType() == SplitType.EXACT && dto.getExactAmounts() != null
+                ? List.copyOf(dto.getExactAmounts().keySet())
+                : List.of();
+        long[] amounts = new long[1 + exactUserIds.size()];
+        amounts[0] = Money.toMinorUnits(dto.getAmount(), currency);
+        long exactTotal = 0;
+        for (int i = 0; i < exactUserIds.size(); i++) {
+            amounts[i + 1] = Money.toMinorUnits(dto.getExactAmounts().get(exactUserIds.get(i)), currency);
+            exactTotal += amounts[i + 1];
+        }
+        if (!exactUserIds.isEmpty() && exactTotal != amounts[0]) {
+            throw new IllegalArgumentException("Exact amounts total (" + Money.fromMinorUnits(exactTotal, currency)
+                    + ") must equal expense amount (" + dto.getAmount() + ")");
+        }
+
+        long[] converted = fxRateTable.convert(amounts, currency, baseCurrency, day);
+        if (converted[0] <= 0) {
+            throw new IllegalArgumentException("Amount is too small to record in " + baseCurrency);
+        }
+        ExpenseDTO.ExpenseDTOBuilder recorded = dto.toBuilder()
+                .amount(Money.fromMinorUnits(converted[0], baseCurrency))
+                .currency(baseCurrency);
+        if (!exactUserIds.isEmpty()) {
+            int largest = 1;
+            long remainder = converted[0];
+            for (int i = 1; i < converted.length; i++) {
+                remainder -= converted[i];
+                if (converted[i] > converted[largest]) {
+                    largest = i;
+                }
+            }
+            converted[largest] += remainder;
+            Map<Long, BigDecimal> exactAmounts = new LinkedHashMap<>();
+            for (int i = 0; i < exactUserIds.size(); i++) {
+                exactAmounts.put(exactUserIds.get(i), Money.fromMinorUnits(converted[i + 1], baseCurrency));
+            }
+            recorded.exactAmounts(exactAmounts);
+        }
+        return recorded.build();
+    }
+
+    /**
+     * Calculate and add the splits of the expense's split type.
+     */
+    private void addSplits(Expense expense, ExpenseDTO dto) {
         switch (dto.getSplitType()) {
             case EQUAL:
                 addEqualSplits(expense, dto.getSplitAmongUserIds());
@@ -55,40 +345,92 @@ public class ExpenseService {
                 addPercentageSplits(expense, dto.getPercentages());
                 break;
         }
+    }
 
-        Expense saved = expenseRepository.save(expense);
+    /**
+     * Make the stored splits match the edited ones: split rows are updated only where the
+     * amount or percentage changed, added for new participants and removed for the rest.
+     */
+    private static void mergeSplits(Expense expense, Expense edited) {
+        expense.setParticipantIds(edited.getParticipantIds());
 
-        // Send email notifications
-        emailService.sendExpenseNotification(saved);
+        Map<Long, ExpenseSplit> stored = new HashMap<>();
+        for (ExpenseSplit split : expense.getSplits()) {
+            stored.put(split.getUser().getId(), split);
+        }
+        for (ExpenseSplit split : edited.getSplits()) {
+            ExpenseSplit existing = stored.remove(split.getUser().getId());
+            if (existing == null) {
+                expense.addSplit(ExpenseSplit.builder()
+                        .user(split.getUser())
+                        .amount(split.getAmount())
+                        .percentage(split.getPercentage())
+                        .build());
+                continue;
+            }
+            if (existing.getAmount().compareTo(split.getAmount()) != 0) {
+                existing.setAmount(split.getAmount());
+            }
+            if (!samePercentage(existing.getPercentage(), split.getPercentage())) {
+                existing.setPercentage(split.getPercentage());
+            }
+        }
+        stored.values().forEach(expense::removeSplit);
+    }
 
-        return saved;
+    private static boolean samePercentage(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static Map<Long, BigDecimal> shareAmounts(Expense expense) {
+        Map<Long, BigDecimal> shares = new HashMap<>();
+        for (SplitCalculator.Share share : SplitCalculator.shares(expense)) {
+            shares.merge(share.userId(), share.amount(), BigDecimal::add);
+        }
+        return shares;
     }
 
     /**
-     * Calculate and add equal splits among users.
+     * New share of every member other than the payer whose share changed; zero for members
+     * no longer sharing the expense.
+     */
+    private static Map<Long, BigDecimal> changedShares(Map<Long, BigDecimal> before, Map<Long, BigDecimal> after,
+            Long payerId) {
+        Map<Long, BigDecimal> changed = new HashMap<>();
+        Set<Long> userIds = new HashSet<>(before.keySet());
+        userIds.addAll(after.keySet());
+        for (Long userId : userIds) {
+            BigDecimal share = after.getOrDefault(userId, BigDecimal.ZERO);
+            if (!userId.equals(payerId) && share.compareTo(before.getOrDefault(userId, BigDecimal.ZERO)) != 0) {
+                changed.put(userId, share);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Calculate and add equal splits among users. The participants are stored inline on
+     * the expense, in ascending id order; split rows are only written when the ids do not
+     * fit the column. Either way the last participant absorbs the rounding remainder.
      */
     private void addEqualSplits(Expense expense, List<Long> userIds) {
         if (userIds == null || userIds.isEmpty()) {
             throw new IllegalArgumentException("At least one user required for split");
         }
 
-        List<User> users = userRepository.findByIdIn(userIds);
-        BigDecimal splitAmount = expense.getAmount()
-                .divide(BigDecimal.valueOf(users.size()), 2, RoundingMode.HALF_UP);
+        List<User> users = userRepository.findByIdIn(userIds).stream()
+                .sorted(Comparator.comparing(User::getId))
+                .toList();
+        if (expense.packParticipants(users.stream().map(User::getId).toList())) {
+            return;
+        }
 
-        // Adjust for rounding - last person gets the remainder
-        BigDecimal total = splitAmount.multiply(BigDecimal.valueOf(users.size()));
-        BigDecimal remainder = expense.getAmount().subtract(total);
+        List<BigDecimal> shares = SplitCalculator.equalShares(expense.getAmount(), users.size());
 
         for (int i = 0; i < users.size(); i++) {
-            User user = users.get(i);
-            BigDecimal amount = (i == users.size() - 1)
-                    ? splitAmount.add(remainder)
-                    : splitAmount;
-
             ExpenseSplit split = ExpenseSplit.builder()
-                    .user(user)
-                    .amount(amount)
+                    .user(users.get(i))
+                    .amount(shares.get(i))
                     .build();
             expense.addSplit(split);
         }
@@ -140,31 +482,20 @@ public class ExpenseService {
                     "Percentages must sum to 100, got: " + totalPercentage);
         }
 
-        BigDecimal runningTotal = BigDecimal.ZERO;
         List<Long> userIds = List.copyOf(percentages.keySet());
+        List<BigDecimal> shares = SplitCalculator.percentageShares(expense.getAmount(),
+                userIds.stream().map(percentages::get).collect(Collectors.toList()));
 
         for (int i = 0; i < userIds.size(); i++) {
             Long userId = userIds.get(i);
-            BigDecimal percentage = percentages.get(userId);
 
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
 
-            BigDecimal amount;
-            if (i == userIds.size() - 1) {
-                // Last user gets remainder to avoid rounding issues
-                amount = expense.getAmount().subtract(runningTotal);
-            } else {
-                amount = expense.getAmount()
-                        .multiply(percentage)
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                runningTotal = runningTotal.add(amount);
-            }
-
             ExpenseSplit split = ExpenseSplit.builder()
                     .user(user)
-                    .amount(amount)
-                    .percentage(percentage)
+                    .amount(shares.get(i))
+                    .percentage(percentages.get(userId))
                     .build();
             expense.addSplit(split);
         }
@@ -195,10 +526,39 @@ public class ExpenseService {
     }
 
     /**
-     * Delete an expense.
+     * Delete an expense of the group. Nothing happens when it was already deleted.
+     */
+    public void deleteExpense(Long expenseId, Long groupId) {
+        long groupVersion = groupWriteGuard.lock(groupId);
+        Expense expense = readLocked(expenseId, groupId);
+        if (expense == null) {
+            return;
+        }
+        balanceSnapshotService.invalidateFrom(groupId, expense.getCreatedAt());
+        LedgerEvent deleted = LedgerEvent.expenseDeleted(expense);
+        SpendingDelta spending = SpendingDelta.removing(expense);
+        expenseRepository.delete(expense);
+        long ledgerVersion = groupWriteGuard.bumpLedgerVersion(groupId, groupVersion);
+        ledgerJournal.record(deleted);
+        userBalanceService.apply(deleted);
+        spendingRollupService.apply(spending);
+        eventPublisher.publishEvent(new LedgerChangedEvent(groupId, ledgerVersion, ActivityDTO.builder()
+                .kind(ActivityDTO.Kind.EXPENSE_DELETED)
+                .id(expenseId)
+                .build()));
+    }
+
+    /**
+     * The expense with its splits as last committed, read after the group lock was taken;
+     * null when it no longer exists or belongs to another group. The session stays open
+     * for the whole request, so the caller may already hold the expense as it was before
+     * the lock: that copy is detached first, or the query would hand it back unchanged and
+     * the balances would reverse state another writer has since replaced.
      */
-    public void deleteExpense(Long expenseId) {
-        expenseRepository.deleteById(expenseId);
+    private Expense readLocked(Long expenseId, Long groupId) {
+        entityManager.detach(entityManager.getReference(Expense.class, expenseId));
+        Expense expense = expenseRepository.findByIdWithSplits(expenseId);
+        return expense != null && expense.getGroup().getId().equals(groupId) ? expense : null;
     }
 
     /**
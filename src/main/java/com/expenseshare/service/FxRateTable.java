@@ -0,0 +1,193 @@
+package com.expenseshare.service;
+
+import com.expenseshare.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Dated exchange rates, loaded once from a CSV of {@code date,currency,rate} lines giving
+ * units of the currency per euro. Each currency's rates are kept as parallel arrays sorted
+ * by day, so a lookup is a binary search for the latest rate on or before the day; days
+ * before a currency's first rate use that first rate.
+ * Conversions work on vectors of minor units: the cross rate is looked up once and turned
+ * into a fixed-point factor, and every amount is converted with long arithmetic.
+ */
+@Component
+@Slf4j
+public class FxRateTable {
+
+    private static final String ANCHOR = "EUR";
+
+    // Fixed-point scale of conversion factors
+    private static final long SCALE = 1_000_000_000_000L;
+    private static final BigDecimal SCALE_DECIMAL = BigDecimal.valueOf(SCALE);
+
+    private final Map<String, Rates> ratesByCurrency;
+    private final String defaultCurrency;
+
+    public FxRateTable(@Value("${app.fx.rates-file:classpath:fx/rates.csv}") Resource ratesFile,
+            @Value("${app.fx.default-currency:INR}") String defaultCurrency) {
+        this.ratesByCurrency = load(ratesFile);
+        if (!isBaseCurrency(defaultCurrency)) {
+            throw new IllegalStateException("Default currency " + defaultCurrency + " cannot be a base currency");
+        }
+        this.defaultCurrency = defaultCurrency;
+        log.info("Loaded exchange rates of {} currencies from {}", ratesByCurrency.size(), ratesFile);
+    }
+
+    /**
+     * Base currency of groups created without one.
+     */
+    public String getDefaultCurrency() {
+        return defaultCurrency;
+    }
+
+    public boolean isSupported(String currency) {
+        return ANCHOR.equals(currency) || ratesByCurrency.containsKey(currency);
+    }
+
+    /**
+     * Whether groups can keep their ledger in the currency: ledger amounts have two
+     * decimals, so its minor unit must be a hundredth.
+     */
+    public boolean isBaseCurrency(String currency) {
+        return isSupported(currency) && Money.fractionDigits(currency) == 2;
+    }
+
+    /**
+     * Codes of the currencies with rates, in alphabetical order.
+     */
+    public SortedSet<String> supportedCurrencies() {
+        SortedSet<String> currencies = new TreeSet<>(ratesByCurrency.keySet());
+        currencies.add(ANCHOR);
+        return Collections.unmodifiableSortedSet(currencies);
+    }
+
+    public List<String> baseCurrencies() {
+        return supportedCurrencies().stream().filter(this::isBaseCurrency).toList();
+    }
+
+    /**
+     * Convert amounts in minor units of one currency into minor units of another at the
+     * rates of the day, rounding each half up. Returns a new array.
+     */
+    public long[] convert(long[] amounts, String from, String to, LocalDate day) {
+        long[] converted = new long[amounts.length];
+        if (from.equals(to)) {
+            System.arraycopy(amounts, 0, converted, 0, amounts.length);
+            return converted;
+        }
+        BigDecimal rate = crossRate(from, to, day);
+        BigDecimal scaled = rate.multiply(SCALE_DECIMAL).setScale(0, RoundingMode.HALF_UP);
+        long factor = scaled.unscaledValue().bitLength() < Long.SIZE - 1 ? scaled.longValueExact() : 0;
+        for (int i = 0; i < amounts.length; i++) {
+            long amount = amounts[i];
+            long magnitude = Math.abs(amount);
+            long product = magnitude * factor;
+            if (factor == 0 || Math.multiplyHigh(magnitude, factor) != 0 || product < 0
+                    || product > Long.MAX_VALUE - SCALE / 2) {
+                // Beyond 63 bits: take the slow path for this amount
+                converted[i] = BigDecimal.valueOf(amount).multiply(rate).setScale(0, RoundingMode.HALF_UP)
+                        .longValueExact();
+                continue;
+            }
+            long rounded = (product + SCALE / 2) / SCALE;
+            converted[i] = amount < 0 ? -rounded : rounded;
+        }
+        return converted;
+    }
+
+    /**
+     * Minor units of {@code to} per minor unit of {@code from} on the day.
+     */
+    private BigDecimal crossRate(String from, String to, LocalDate day) {
+        BigDecimal rate = rate(to, day).divide(rate(from, day), MathContext.DECIMAL64);
+        return rate.scaleByPowerOfTen(Money.fractionDigits(to) - Money.fractionDigits(from));
+    }
+
+    /**
+     * Units of the currency per euro on the day.
+     */
+    private BigDecimal rate(String currency, LocalDate day) {
+        if (ANCHOR.equals(currency)) {
+            return BigDecimal.ONE;
+        }
+        Rates rates = ratesByCurrency.get(currency);
+        if (rates == null) {
+            throw new IllegalArgumentException("No exchange rates for " + currency);
+        }
+        int index = Arrays.binarySearch(rates.days(), day.toEpochDay());
+        if (index < 0) {
+            // The latest day before, or the first day when there is none
+            index = Math.max(-index - 2, 0);
+        }
+        return rates.rates()[index];
+    }
+
+    private static Map<String, Rates> load(Resource ratesFile) {
+        Map<String, TreeMap<Long, BigDecimal>> byCurrency = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(ratesFile.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("date,")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    if (fields.length != 3) {
+                        throw new IllegalArgumentException("Expected date,currency,rate");
+                    }
+                    LocalDate day = LocalDate.parse(fields[0].strip());
+                    String currency = fields[1].strip();
+                    BigDecimal rate = new BigDecimal(fields[2].strip());
+                    // Rejects codes that are not currencies of money
+                    Money.fractionDigits(currency);
+                    if (ANCHOR.equals(currency) || rate.signum() <= 0) {
+                        throw new IllegalArgumentException("Expected a positive rate of another currency than "
+                                + ANCHOR);
+                    }
+                    byCurrency.computeIfAbsent(currency, c -> new TreeMap<>()).put(day.toEpochDay(), rate);
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Bad exchange rate on line " + number + " of " + ratesFile, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read exchange rates from " + ratesFile, e);
+        }
+
+        Map<String, Rates> ratesByCurrency = new HashMap<>();
+        byCurrency.forEach((currency, rates) -> {
+            long[] days = rates.keySet().stream().mapToLong(Long::longValue).toArray();
+            ratesByCurrency.put(currency, new Rates(days, new ArrayList<>(rates.values()).toArray(BigDecimal[]::new)));
+        });
+        return Map.copyOf(ratesByCurrency);
+    }
+
+    private record Rates(long[] days, BigDecimal[] rates) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.expenseshare.service;
+
+/**
+ * Thrown when a group's write lock could not be taken in time. Nothing was written, and
+ * the same request can simply be retried.
+ */
+public class GroupBusyException extends RuntimeException {
+
+    public GroupBusyException(String message) {
+        super(message);
+    }
+}
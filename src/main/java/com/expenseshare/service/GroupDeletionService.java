@@ -0,0 +1,270 @@
+package com.expenseshare.service;
+
+import com.expenseshare.event.GroupChangedEvent;
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.ledger.LedgerJournal;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.repository.BalanceSnapshotRepository;
+import com.expenseshare.repository.ExpenseRepository;
+import com.expenseshare.repository.ExpenseSplitRepository;
+import com.expenseshare.repository.GroupArchiveRepository;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.LedgerFlow;
+import com.expenseshare.repository.RecurringExpenseRepository;
+import com.expenseshare.repository.SettlementRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes a group with set-based deletes instead of cascading entity removal,
+ * so no expense, split or settlement is ever loaded.
+ * The memberships go first, which hides the group from every member and blocks new
+ * writes. The ledger is then deleted in chunks, each in its own short transaction,
+ * and the group row last. Groups above the async threshold are purged in the background.
+ * The group row records when its purge last made progress, so a purge cut short by a
+ * restart or a failure is resumed by a periodic sweep once it has stalled for a while.
+ */
+@Service
+@Slf4j
+public class GroupDeletionService {
+
+    private final GroupRepository groupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseSplitRepository expenseSplitRepository;
+    private final SettlementRepository settlementRepository;
+    private final GroupArchiveRepository groupArchiveRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final GroupWriteGuard groupWriteGuard;
+    private final LedgerJournal ledgerJournal;
+    private final UserBalanceService userBalanceService;
+    private final SpendingRollupService spendingRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long asyncThreshold;
+    private final long stalledAfterMs;
+
+    // Groups being purged on this node, so the sweep does not queue them again
+    private final Set<Long> purging = ConcurrentHashMap.newKeySet();
+
+    // One group at a time: a purge is bound by database locks, not CPU
+    private final ExecutorService purger = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "group-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GroupDeletionService(GroupRepository groupRepository, ExpenseRepository expenseRepository,
+            ExpenseSplitRepository expenseSplitRepository, SettlementRepository settlementRepository,
+            GroupArchiveRepository groupArchiveRepository, BalanceSnapshotRepository balanceSnapshotRepository,
+            RecurringExpenseRepository recurringExpenseRepository, GroupWriteGuard groupWriteGuard,
+            LedgerJournal ledgerJournal, UserBalanceService userBalanceService,
+            SpendingRollupService spendingRollupService,
+            ApplicationEventPublisher eventPublisher, EntityManagerFactory entityManagerFactory,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.group-delete.chunk-size:500}") int chunkSize,
+            @Value("${app.group-delete.async-threshold:5000}") long asyncThreshold,
+            @Value("${app.group-delete.stalled-after-ms:300000}") long stalledAfterMs) {
+        this.groupRepository = groupRepository;
+        this.expenseRepository = expenseRepository;
+        this.expenseSplitRepository = expenseSplitRepository;
+        this.settlementRepository = settlementRepository;
+        this.groupArchiveRepository = groupArchiveRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.recurringExpenseRepository = recurringExpenseRepository;
+        this.groupWriteGuard = groupWriteGuard;
+        this.ledgerJournal = ledgerJournal;
+        this.userBalanceService = userBalanceService;
+        this.spendingRollupService = spendingRollupService;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.asyncThreshold = asyncThreshold;
+        this.stalledAfterMs = stalledAfterMs;
+    }
+
+    /**
+     * Delete a group and its whole ledger. Must be called outside a transaction.
+     * Returns true if the group is gone, false if the rest is being purged in the background.
+     */
+    public boolean deleteGroup(Long groupId) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Group deletion runs its own transactions");
+        }
+
+        long rows = transactionTemplate.execute(status -> {
+            groupWriteGuard.lock(groupId);
+            groupRepository.deleteMemberships(groupId);
+            groupRepository.markPurgeProgress(groupId, LocalDateTime.now());
+            userBalanceService.removeGroup(groupId);
+            evictAfterCompletion(groupId);
+            eventPublisher.publishEvent(new GroupChangedEvent(groupId));
+            return expenseRepository.countByGroupId(groupId) + settlementRepository.countByGroupId(groupId);
+        });
+
+        if (rows > asyncThreshold) {
+            log.info("Purging group {} with {} expenses and settlements in the background", groupId, rows);
+            purgeLater(groupId);
+            return false;
+        }
+
+        purge(groupId);
+        return true;
+    }
+
+    /**
+     * Resume the purges that made no progress for a while: cut short by a restart of the
+     * node running them, or by a failure. The group has no members left, so nobody sees
+     * the partial ledger meanwhile.
+     */
+    @Scheduled(initialDelayString = "${app.group-delete.resume-interval-ms:60000}",
+            fixedDelayString = "${app.group-delete.resume-interval-ms:60000}")
+    public void resumeStalledPurges() {
+        List<Long> stalled = groupRepository.findIdsWithStalledPurge(
+                LocalDateTime.now().minusNanos(stalledAfterMs * 1_000_000));
+        for (Long groupId : stalled) {
+            if (!purging.contains(groupId)) {
+                log.info("Resuming the stalled purge of group {}", groupId);
+                purgeLater(groupId);
+            }
+        }
+    }
+
+    private void purgeLater(Long groupId) {
+        purger.execute(() -> {
+            try {
+                purge(groupId);
+            } catch (RuntimeException e) {
+                log.error("Failed to purge group {}, leaving it to the next sweep", groupId, e);
+            }
+        });
+    }
+
+    private void purge(Long groupId) {
+        if (!purging.add(groupId)) {
+            return;
+        }
+        try {
+            purgeLedger(groupId);
+        } finally {
+            purging.remove(groupId);
+        }
+    }
+
+    private void purgeLedger(Long groupId) {
+        long started = System.nanoTime();
+        int expenses = 0;
+        int settlements = 0;
+        int deleted;
+
+        do {
+            deleted = transactionTemplate.execute(status -> deleteExpenses(groupId, chunkSize));
+            expenses += deleted;
+        } while (deleted == chunkSize);
+
+        do {
+            deleted = transactionTemplate.execute(status -> deleteSettlements(groupId, chunkSize));
+            settlements += deleted;
+        } while (deleted == chunkSize);
+
+        // Archived rows, snapshots and recurring expenses in one go: nobody reads them once the
+        // group is gone. Not under the group lock, which the scheduler takes after claiming a
+        // template; it stops templates of a group without members by itself.
+        transactionTemplate.executeWithoutResult(status -> {
+            recurringExpenseRepository.deleteSplitsByGroupId(groupId);
+            recurringExpenseRepository.deleteByGroupId(groupId);
+            groupArchiveRepository.deleteArchivedSplits(groupId);
+            groupArchiveRepository.deleteArchivedExpenses(groupId);
+            groupArchiveRepository.deleteArchivedSettlements(groupId);
+            balanceSnapshotRepository.deleteEntriesTakenAfter(groupId, LedgerFlow.BEGINNING);
+            balanceSnapshotRepository.deleteTakenAfter(groupId, LedgerFlow.BEGINNING);
+        });
+
+        // Under the group lock, so nothing can be added between the last sweep and the row delete
+        transactionTemplate.executeWithoutResult(status -> {
+            groupWriteGuard.lock(groupId);
+            deleteExpenses(groupId, Integer.MAX_VALUE);
+            deleteSettlements(groupId, Integer.MAX_VALUE);
+            groupRepository.deleteMemberships(groupId);
+            LedgerEvent groupDeleted = LedgerEvent.groupDeleted(groupId);
+            // While the group row still says which currency totals it is counted in
+            userBalanceService.apply(groupDeleted);
+            groupArchiveRepository.findById(groupId).ifPresent(groupArchiveRepository::delete);
+            groupRepository.deleteGroupRow(groupId);
+            ledgerJournal.record(groupDeleted);
+            spendingRollupService.removeGroup(groupId);
+            evictAfterCompletion(groupId);
+            eventPublisher.publishEvent(new GroupChangedEvent(groupId));
+        });
+
+        log.info("Deleted group {} ({} expenses, {} settlements) in {} ms", groupId, expenses, settlements,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Delete up to {@code limit} expenses of the group and their splits, splits first.
+     */
+    private int deleteExpenses(Long groupId, int limit) {
+        List<Long> ids = expenseRepository.findIdsByGroupId(groupId, PageRequest.ofSize(limit));
+        if (!ids.isEmpty()) {
+            expenseSplitRepository.deleteByExpenseIdIn(ids);
+            expenseRepository.deleteByIdIn(ids);
+            groupRepository.markPurgeProgress(groupId, LocalDateTime.now());
+        }
+        return ids.size();
+    }
+
+    private int deleteSettlements(Long groupId, int limit) {
+        List<Long> ids = settlementRepository.findIdsByGroupId(groupId, PageRequest.ofSize(limit));
+        if (!ids.isEmpty()) {
+            settlementRepository.deleteByIdIn(ids);
+            groupRepository.markPurgeProgress(groupId, LocalDateTime.now());
+        }
+        return ids.size();
+    }
+
+    /**
+     * The native deletes do not touch the second-level cache, so the group and its
+     * member set are evicted now and again after completion, as in {@link GroupWriteGuard}.
+     */
+    private void evictAfterCompletion(Long groupId) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        Runnable evict = () -> {
+            cache.evictEntityData(ExpenseGroup.class, groupId);
+            cache.evictCollectionData(ExpenseGroup.class.getName() + ".members", groupId);
+        };
+        evict.run();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        purger.shutdown();
+    }
+}
@@ -1,17 +1,27 @@
 package com.expenseshare.service;
 
+import com.expenseshare.dto.ActivityDTO;
 import com.expenseshare.dto.GroupDTO;
+import com.expenseshare.event.GroupChangedEvent;
+import com.expenseshare.ledger.ActivityFeedProjection;
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.ledger.LedgerJournal;
 import com.expenseshare.model.ExpenseGroup;
 import com.expenseshare.model.User;
 import com.expenseshare.repository.GroupRepository;
 import com.expenseshare.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -20,28 +30,48 @@ public class GroupService {
 
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
+    private final GroupDeletionService groupDeletionService;
+    private final LedgerJournal ledgerJournal;
+    private final ActivityFeedProjection activityFeedProjection;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserBalanceService userBalanceService;
+    private final SpendingRollupService spendingRollupService;
+    private final FxRateTable fxRateTable;
 
     /**
-     * Create a new expense group.
+     * Create a new expense group keeping its ledger in the base currency.
      */
-    public ExpenseGroup createGroup(String name, String description, User createdBy) {
+    public ExpenseGroup createGroup(String name, String description, String baseCurrency, User createdBy) {
+        if (!fxRateTable.isBaseCurrency(baseCurrency)) {
+            throw new IllegalArgumentException("Unsupported group currency: " + baseCurrency);
+        }
         ExpenseGroup group = ExpenseGroup.builder()
                 .name(name)
                 .description(description)
+                .baseCurrency(baseCurrency)
                 .createdBy(createdBy)
                 .build();
 
         // Add creator as a member
         group.addMember(createdBy);
 
-        return groupRepository.save(group);
+        ExpenseGroup saved = groupRepository.save(group);
+        LedgerEvent joined = LedgerEvent.memberJoined(saved.getId(), createdBy.getId());
+        ledgerJournal.record(joined);
+        userBalanceService.apply(joined);
+        spendingRollupService.createEmpty(saved.getId());
+        eventPublisher.publishEvent(new GroupChangedEvent(saved.getId()));
+        return saved;
     }
 
     /**
      * Create group from DTO.
      */
     public ExpenseGroup createGroup(GroupDTO dto, User createdBy) {
-        ExpenseGroup group = createGroup(dto.getName(), dto.getDescription(), createdBy);
+        String baseCurrency = dto.getBaseCurrency() == null || dto.getBaseCurrency().isBlank()
+                ? fxRateTable.getDefaultCurrency()
+                : dto.getBaseCurrency();
+        ExpenseGroup group = createGroup(dto.getName(), dto.getDescription(), baseCurrency, createdBy);
 
         // Add members by email
         if (dto.getMemberEmails() != null && !dto.getMemberEmails().isBlank()) {
@@ -89,6 +119,12 @@ public class GroupService {
         ExpenseGroup group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new IllegalArgumentException("Group not found"));
 
+        if (!group.getMembers().contains(user)) {
+            LedgerEvent joined = LedgerEvent.memberJoined(groupId, user.getId());
+            ledgerJournal.record(joined);
+            userBalanceService.apply(joined);
+            eventPublisher.publishEvent(new GroupChangedEvent(groupId));
+        }
         group.addMember(user);
         return groupRepository.save(group);
     }
@@ -118,6 +154,12 @@ public class GroupService {
             throw new IllegalArgumentException("Cannot remove the group creator");
         }
 
+        if (group.getMembers().contains(user)) {
+            LedgerEvent left = LedgerEvent.memberLeft(groupId, userId);
+            ledgerJournal.record(left);
+            userBalanceService.apply(left);
+            eventPublisher.publishEvent(new GroupChangedEvent(groupId));
+        }
         group.removeMember(user);
         return groupRepository.save(group);
     }
@@ -131,15 +173,93 @@ public class GroupService {
 
         group.setName(name);
         group.setDescription(description);
+        eventPublisher.publishEvent(new GroupChangedEvent(groupId));
 
         return groupRepository.save(group);
     }
 
     /**
-     * Delete a group.
+     * Delete a group with set-based deletes, in chunked transactions of its own.
+     * Returns false if the group was large enough to be purged in the background.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean deleteGroup(Long groupId) {
+        return groupDeletionService.deleteGroup(groupId);
+    }
+
+    /**
+     * Latest activity of a group from the event log, newest first, including deleted
+     * expenses and settlements and membership changes.
+     */
+    @Transactional(readOnly = true)
+    public List<ActivityDTO> getRecentActivity(Long groupId, int limit) {
+        List<LedgerEvent> events = activityFeedProjection.recent(groupId, limit);
+        List<Long> userIds = events.stream()
+                .flatMap(event -> Stream.of(event.getUserId(), event.getCounterpartyId()))
+                .filter(id -> id != 0)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, String> names = userIds.isEmpty() ? Map.of()
+                : userRepository.findByIdIn(userIds).stream().collect(Collectors.toMap(User::getId, User::getName));
+
+        return events.stream()
+                .map(event -> ActivityDTO.builder()
+                        .kind(ActivityDTO.Kind.valueOf(event.getType().name()))
+                        .id(event.getEntityId() != 0 ? event.getEntityId() : null)
+                        .description(event.getDescription())
+                        .amount(event.getAmount() != 0 ? LedgerEvent.fromMinorUnits(event.getAmount()) : null)
+                        .fromUserId(event.getUserId())
+                        .fromUserName(names.get(event.getUserId()))
+                        .toUserId(event.getCounterpartyId() != 0 ? event.getCounterpartyId() : null)
+                        .toUserName(names.get(event.getCounterpartyId()))
+                        .participantCount(event.getShareUserIds().length > 0
+                                && event.getType() != LedgerEvent.Type.EXPENSE_UPDATED
+                                ? event.getShareUserIds().length : null)
+                        .createdAt(event.getOccurredAt())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sequence of the group's latest logged event, for conditional feed requests.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getActivitySequence(Long groupId) {
+        return activityFeedProjection.lastSequence(groupId);
+    }
+
+    /**
+     * Get the ledger version of a group if the user is a member.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findLedgerVersion(Long groupId, Long userId) {
+        return groupRepository.findLedgerVersionForMember(groupId, userId);
+    }
+
+    /**
+     * Get a version tag covering every group the user belongs to.
+     * Changes whenever any of those groups changes or membership changes: each (group, ledger
+     * version) pair is hashed on its own and the hashes are summed, so the tag does not depend
+     * on the order the groups come back in, and different sets of pairs practically never
+     * sum to the same value.
+     */
+    @Transactional(readOnly = true)
+    public String getUserLedgerTag(Long userId) {
+        List<GroupRepository.GroupLedgerVersion> versions = groupRepository.findLedgerVersionsByMemberId(userId);
+        long hash = 0;
+        for (GroupRepository.GroupLedgerVersion version : versions) {
+            hash += mix(mix(version.getGroupId()) + version.getLedgerVersion());
+        }
+        return versions.size() + "-" + Long.toHexString(hash);
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads every input bit over the whole result.
      */
-    public void deleteGroup(Long groupId) {
-        groupRepository.deleteById(groupId);
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
     }
 
     /**
@@ -0,0 +1,169 @@
+package com.expenseshare.service;
+
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.GroupRepository.LockedVersions;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Orders ledger writes per group.
+ * Inside one node, writes to the same group serialize on a lock stripe held until the
+ * transaction completes, while writes to different groups proceed in parallel. Across
+ * nodes, the group's row is locked when its version is read, and the version is compared
+ * again when the ledger version is bumped.
+ */
+@Component
+@Slf4j
+public class GroupWriteGuard {
+
+    private final GroupRepository groupRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ReentrantLock[] stripes;
+    private final long lockTimeoutMs;
+
+    public GroupWriteGuard(GroupRepository groupRepository, EntityManagerFactory entityManagerFactory,
+            @Value("${app.write-locks.stripes:64}") int stripeCount,
+            @Value("${app.write-locks.timeout-ms:10000}") long lockTimeoutMs) {
+        this.groupRepository = groupRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Lock the group for the rest of the current transaction.
+     * Returns the group's optimistic version read after the lock was taken.
+     */
+    public long lock(Long groupId) {
+        requireTransaction();
+        acquire(stripeOf(groupId), "group " + groupId);
+        return version(groupId);
+    }
+
+    /**
+     * Lock several groups for the rest of the current transaction. Their stripes are taken
+     * once each, in stripe order, so two callers locking overlapping sets of groups cannot
+     * each hold a stripe the other is waiting for. Returns each group's optimistic version
+     * read after all the locks were taken.
+     */
+    public Map<Long, Long> lockAll(Collection<Long> groupIds) {
+        requireTransaction();
+        SortedSet<Integer> stripeIndexes = new TreeSet<>();
+        groupIds.forEach(groupId -> stripeIndexes.add(stripeOf(groupId)));
+        for (int index : stripeIndexes) {
+            acquire(index, groupIds.size() + " groups");
+        }
+
+        Map<Long, Long> versions = new TreeMap<>();
+        for (Long groupId : groupIds) {
+            versions.put(groupId, version(groupId));
+        }
+        return versions;
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Group writes must run inside a transaction");
+        }
+    }
+
+    private int stripeOf(Long groupId) {
+        return Math.floorMod(groupId.hashCode(), stripes.length);
+    }
+
+    /**
+     * Take a stripe until the current transaction completes, or throw {@link GroupBusyException}.
+     */
+    private void acquire(int index, String locked) {
+        ReentrantLock stripe = stripes[index];
+        try {
+            if (!stripe.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new GroupBusyException("The group is busy. Please try again.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GroupBusyException("Interrupted while waiting for " + locked);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.unlock();
+            }
+        });
+    }
+
+    private long version(Long groupId) {
+        LockedVersions versions = groupRepository.findVersionsForUpdate(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found"));
+        lockedLedgerVersions().put(groupId, versions.getLedgerVersion());
+        return versions.getVersion();
+    }
+
+    /**
+     * Ledger version of each group the current transaction locked, as of its last bump.
+     * Dropped when the transaction completes.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, Long> lockedLedgerVersions() {
+        Map<Long, Long> ledgerVersions = (Map<Long, Long>) TransactionSynchronizationManager.getResource(this);
+        if (ledgerVersions == null) {
+            ledgerVersions = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, ledgerVersions);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(GroupWriteGuard.this);
+                }
+            });
+        }
+        return ledgerVersions;
+    }
+
+    /**
+     * Bump the group's ledger version, failing if another node changed the group
+     * since {@link #lock(Long)} read its version. Returns the ledger version the write
+     * commits as, without reading the group again.
+     * The cached group is evicted now and again after completion, so a reader
+     * racing the commit cannot leave the old version in the second-level cache.
+     */
+    public long bumpLedgerVersion(Long groupId, long expectedVersion) {
+        Long lockedLedgerVersion = lockedLedgerVersions().get(groupId);
+        if (lockedLedgerVersion == null) {
+            throw new IllegalStateException("Group " + groupId + " was not locked by this transaction");
+        }
+        if (groupRepository.bumpLedgerVersion(groupId, expectedVersion) == 0) {
+            log.warn("Concurrent write detected on group {} at version {}", groupId, expectedVersion);
+            throw new OptimisticLockingFailureException(
+                    "The group was changed by someone else at the same time. Please try again.");
+        }
+        lockedLedgerVersions().put(groupId, lockedLedgerVersion + 1);
+
+        entityManagerFactory.getCache().evict(ExpenseGroup.class, groupId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                entityManagerFactory.getCache().evict(ExpenseGroup.class, groupId);
+            }
+        });
+        return lockedLedgerVersion + 1;
+    }
+}
@@ -0,0 +1,94 @@
+package com.expenseshare.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates retried submissions by idempotency key.
+ * The first request with a key runs the action; duplicates within the TTL wait for
+ * it and get the original result back instead of running the action again.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final long SWEEP_INTERVAL_MS = 60_000L;
+
+    @Value("${app.idempotency.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Generate a fresh key for a form.
+     */
+    public String newKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Run the action once per scope and key. Requests without a key always run.
+     * Failed actions, including those that fail with an Error, are forgotten so that
+     * the client can retry them; duplicates waiting on them get the same failure.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        long now = System.currentTimeMillis();
+        sweepExpired(now);
+
+        String id = scope + ":" + key;
+        Entry fresh = new Entry(new CompletableFuture<>(), now + ttlMinutes * 60_000L);
+        Entry current = entries.compute(id, (k, old) -> old == null || old.expiresAt < now ? fresh : old);
+
+        if (current != fresh) {
+            log.info("Replaying result for duplicate submission {}", id);
+            try {
+                return (T) current.result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T result = action.get();
+            fresh.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Errors too: a key left pending would hang every retry until it expires
+            entries.remove(id, fresh);
+            fresh.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void sweepExpired(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_MS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        entries.values().removeIf(entry -> entry.expiresAt < now && entry.result.isDone());
+    }
+
+    private record Entry(CompletableFuture<Object> result, long expiresAt) {
+    }
+}
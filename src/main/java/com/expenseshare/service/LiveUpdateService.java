@@ -0,0 +1,173 @@
+package com.expenseshare.service;
+
+import com.expenseshare.datasource.PrimaryReadContext;
+import com.expenseshare.dto.ActivityDTO;
+import com.expenseshare.dto.GroupUpdateDTO;
+import com.expenseshare.event.LedgerChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes group balance updates to connected members over Server-Sent Events.
+ * Emitters are parked asynchronously, so open connections do not hold request threads.
+ * A group's pushes go out one at a time, so its subscribers see ledger versions in order.
+ * <p>
+ * Each push carries the ledger versions of the writes it announces, not the group's
+ * version when it is sent, since the page skips any push at or below the version it shows.
+ * Pushes only reach subscribers connected to the node that took the write: a member
+ * whose stream is open on another node sees the change on their next page load.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveUpdateService {
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final BalanceService balanceService;
+
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    // Changes waiting to be pushed, per group. A group is in here while its push is queued or
+    // running, so changes arriving meanwhile join the next push instead of racing this one
+    private final Map<Long, List<LedgerChangedEvent>> pending = new ConcurrentHashMap<>();
+
+    // Fan-out runs off the committing thread so a slow client never delays a write
+    private final ExecutorService fanOut = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "sse-fanout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Register a new subscriber for a group.
+     */
+    public SseEmitter subscribe(Long groupId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Set<SseEmitter> groupEmitters = emitters.computeIfAbsent(groupId, id -> ConcurrentHashMap.newKeySet());
+        groupEmitters.add(emitter);
+
+        Runnable remove = () -> unsubscribe(groupId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * Push the new balances and the activity items once the write has committed.
+     * Nothing is computed when the group has no subscribers. The balances are computed
+     * on the fan-out thread so the committing request does not need a second connection.
+     * Changes made while the group's previous push is in flight go out together in the next.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        Long groupId = event.getGroupId();
+        Set<SseEmitter> groupEmitters = emitters.get(groupId);
+        if (groupEmitters == null || groupEmitters.isEmpty()) {
+            return;
+        }
+
+        boolean[] queued = new boolean[1];
+        pending.compute(groupId, (id, events) -> {
+            queued[0] = events != null;
+            List<LedgerChangedEvent> waiting = events != null ? events : new ArrayList<>();
+            waiting.add(event);
+            return waiting;
+        });
+        if (!queued[0]) {
+            fanOut.execute(() -> pushPending(groupId));
+        }
+    }
+
+    /**
+     * Number of open connections across all groups.
+     */
+    public int getSubscriberCount() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Push the group's waiting changes until none are left, then let the next change queue a push.
+     * A push is versioned by the newest write in it; a write that committed meanwhile is still
+     * waiting and goes out in the next push at its own, higher version.
+     */
+    private void pushPending(Long groupId) {
+        while (true) {
+            List<LedgerChangedEvent> events = new ArrayList<>();
+            pending.computeIfPresent(groupId, (id, waiting) -> {
+                events.addAll(waiting);
+                return waiting.isEmpty() ? null : new ArrayList<>();
+            });
+            if (events.isEmpty()) {
+                return;
+            }
+
+            // Two writers release the group before their listeners run, so these may arrive out of order
+            events.sort(Comparator.comparingLong(LedgerChangedEvent::getLedgerVersion));
+            List<ActivityDTO> activities = new ArrayList<>();
+            events.forEach(event -> activities.addAll(event.getActivities()));
+            long version = events.get(events.size() - 1).getLedgerVersion();
+            try {
+                // Read from the primary: a replica may not have applied the write yet
+                GroupUpdateDTO update = PrimaryReadContext.call(() -> GroupUpdateDTO.builder()
+                        .groupId(groupId)
+                        .version(version)
+                        .balances(balanceService.calculateGroupBalances(groupId))
+                        .activities(activities)
+                        .build());
+                broadcast(groupId, update);
+            } catch (RuntimeException e) {
+                log.error("Failed to push live update for group {}", groupId, e);
+            }
+        }
+    }
+
+    private void broadcast(Long groupId, GroupUpdateDTO update) {
+        Set<SseEmitter> groupEmitters = emitters.get(groupId);
+        if (groupEmitters == null) {
+            return;
+        }
+
+        for (SseEmitter emitter : groupEmitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("ledger")
+                        .data(update, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping live subscriber for group {}: {}", groupId, e.getMessage());
+                emitter.completeWithError(e);
+                unsubscribe(groupId, emitter);
+            }
+        }
+    }
+
+    private void unsubscribe(Long groupId, SseEmitter emitter) {
+        emitters.computeIfPresent(groupId, (id, groupEmitters) -> {
+            groupEmitters.remove(emitter);
+            return groupEmitters.isEmpty() ? null : groupEmitters;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        emitters.values().forEach(groupEmitters -> groupEmitters.forEach(SseEmitter::complete));
+        fanOut.shutdown();
+    }
+}
@@ -0,0 +1,232 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.ExpenseSplit;
+import com.expenseshare.model.Recurrence;
+import com.expenseshare.model.RecurringExpense;
+import com.expenseshare.model.RecurringSplit;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.RecurringExpenseRepository;
+import com.expenseshare.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Expenses that repeat on a schedule. A template is created with the expense's first
+ * occurrence and keeps its splits. The scheduler posts the due occurrences of all groups
+ * in batches: each batch claims the oldest due templates with a locking read that skips
+ * rows other nodes have claimed, posts their occurrences and moves their next run forward
+ * in one transaction, so several nodes can share the work without posting anything twice.
+ */
+@Service
+@Slf4j
+public class RecurringExpenseService {
+
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final ExpenseService expenseService;
+    private final GroupRepository groupRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxCatchUp;
+
+    public RecurringExpenseService(RecurringExpenseRepository recurringExpenseRepository,
+            ExpenseService expenseService, GroupRepository groupRepository, UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.recurring.batch-size:100}") int batchSize,
+            @Value("${app.recurring.max-catch-up:12}") int maxCatchUp) {
+        this.recurringExpenseRepository = recurringExpenseRepository;
+        this.expenseService = expenseService;
+        this.groupRepository = groupRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxCatchUp = maxCatchUp;
+    }
+
+    /**
+     * Add an expense and repeat it from then on. The template copies the splits of this
+     * first occurrence, so they are calculated once for all occurrences. Only expenses in
+     * the group's base currency repeat, since the occurrences are not converted.
+     */
+    @Transactional
+    public RecurringExpense addRecurringExpense(ExpenseDTO dto, Recurrence recurrence, Long creatorId) {
+        ExpenseGroup group = groupRepository.findById(dto.getGroupId())
+                .orElseThrow(() -> new IllegalArgumentException("Group not found"));
+        if (dto.getCurrency() != null && !dto.getCurrency().equals(group.getBaseCurrency())) {
+            throw new IllegalArgumentException("Recurring expenses must be in the group's currency");
+        }
+        Expense first = expenseService.addExpense(dto);
+
+        RecurringExpense template = RecurringExpense.builder()
+                .group(first.getGroup())
+                .description(first.getDescription())
+                .amount(first.getAmount())
+                .paidBy(first.getPaidBy())
+                .splitType(first.getSplitType())
+                .participantIds(first.getParticipantIds())
+                .schedule(recurrence.cron(first.getCreatedAt()))
+                .createdBy(userRepository.getReferenceById(creatorId))
+                .build();
+        for (ExpenseSplit split : first.getSplits()) {
+            template.getSplits().add(new RecurringSplit(split.getUser().getId(), split.getAmount(),
+                    split.getPercentage()));
+        }
+        template.setNextRunAt(template.nextRunAfter(first.getCreatedAt()));
+
+        return recurringExpenseRepository.save(template);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<RecurringExpense> findById(Long id) {
+        return recurringExpenseRepository.findById(id);
+    }
+
+    /**
+     * A group's recurring expenses, next due first.
+     */
+    @Transactional(readOnly = true)
+    public List<RecurringExpense> getGroupRecurringExpenses(Long groupId) {
+        return recurringExpenseRepository.findByGroupId(groupId);
+    }
+
+    /**
+     * Stop repeating an expense. Occurrences already posted are kept.
+     */
+    @Transactional
+    public void deleteRecurringExpense(Long id) {
+        recurringExpenseRepository.findById(id).ifPresent(recurringExpenseRepository::delete);
+    }
+
+    /**
+     * Post every occurrence due by now, batch after batch until no due template is left
+     * unclaimed. A failed batch is rolled back as a whole and retried on the next run.
+     * Returns the number of occurrences posted.
+     */
+    @Scheduled(initialDelayString = "${app.recurring.poll-interval-ms:60000}",
+            fixedDelayString = "${app.recurring.poll-interval-ms:60000}")
+    public int postDueOccurrences() {
+        long started = System.nanoTime();
+        int templates = 0;
+        int posted = 0;
+        try {
+            Batch batch;
+            do {
+                LocalDateTime now = LocalDateTime.now();
+                batch = transactionTemplate.execute(status -> postBatch(now));
+                templates += batch.claimed();
+                posted += batch.posted();
+            } while (batch.claimed() == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Stopped posting recurring expenses after {} occurrences; the rest is retried on the next run",
+                    posted, e);
+        }
+
+        if (templates > 0) {
+            log.info("Posted {} occurrences of {} recurring expenses in {} ms", posted, templates,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+        return posted;
+    }
+
+    /**
+     * Claim up to a batch of due templates and post their occurrences. Templates whose
+     * payer or participants have left the group are stopped instead.
+     */
+    private Batch postBatch(LocalDateTime now) {
+        List<RecurringExpense> due = recurringExpenseRepository.findDueForUpdate(now, PageRequest.ofSize(batchSize));
+
+        Map<Long, List<RecurringExpense>> byGroup = new TreeMap<>();
+        for (RecurringExpense template : due) {
+            byGroup.computeIfAbsent(template.getGroup().getId(), id -> new ArrayList<>()).add(template);
+        }
+
+        Map<Long, List<ExpenseService.Occurrence>> occurrencesByGroup = new TreeMap<>();
+        int posted = 0;
+        for (Map.Entry<Long, List<RecurringExpense>> entry : byGroup.entrySet()) {
+            Set<Long> memberIds = memberIds(entry.getKey());
+            List<ExpenseService.Occurrence> occurrences = new ArrayList<>();
+            for (RecurringExpense template : entry.getValue()) {
+                if (!stillShared(template, memberIds)) {
+                    log.info("Stopped recurring expense {} of group {}: a member sharing it has left",
+                            template.getId(), entry.getKey());
+                    recurringExpenseRepository.delete(template);
+                    continue;
+                }
+                for (LocalDateTime runAt : advance(template, now)) {
+                    occurrences.add(new ExpenseService.Occurrence(template, runAt));
+                }
+            }
+            if (!occurrences.isEmpty()) {
+                occurrencesByGroup.put(entry.getKey(), occurrences);
+                posted += occurrences.size();
+            }
+        }
+
+        if (!occurrencesByGroup.isEmpty()) {
+            expenseService.addOccurrences(occurrencesByGroup);
+        }
+        return new Batch(due.size(), posted);
+    }
+
+    /**
+     * Move the template's next run past now and return the scheduled times of the
+     * occurrences to post, oldest first. After a long outage only the latest
+     * {@code maxCatchUp} missed occurrences are posted.
+     */
+    private List<LocalDateTime> advance(RecurringExpense template, LocalDateTime now) {
+        Deque<LocalDateTime> runs = new ArrayDeque<>();
+        int missed = 0;
+        LocalDateTime next = template.getNextRunAt();
+        while (!next.isAfter(now)) {
+            missed++;
+            runs.addLast(next);
+            if (runs.size() > maxCatchUp) {
+                runs.removeFirst();
+            }
+            next = template.nextRunAfter(next);
+        }
+        if (missed > maxCatchUp) {
+            log.warn("Recurring expense {} missed {} occurrences; posting the latest {}", template.getId(), missed,
+                    maxCatchUp);
+        }
+        template.setNextRunAt(next);
+        return new ArrayList<>(runs);
+    }
+
+    private Set<Long> memberIds(Long groupId) {
+        ExpenseGroup group = groupRepository.findByIdWithMembers(groupId);
+        if (group == null) {
+            return Set.of();
+        }
+        return group.getMembers().stream().map(User::getId).collect(Collectors.toSet());
+    }
+
+    private static boolean stillShared(RecurringExpense template, Set<Long> memberIds) {
+        return memberIds.contains(template.getPaidBy().getId())
+                && memberIds.containsAll(template.getParticipantUserIds());
+    }
+
+    private record Batch(int claimed, int posted) {
+    }
+}
@@ -1,16 +1,24 @@
 package com.expenseshare.service;
 
+import com.expenseshare.dto.ActivityDTO;
 import com.expenseshare.dto.SettlementDTO;
+import com.expenseshare.event.LedgerChangedEvent;
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.ledger.LedgerJournal;
 import com.expenseshare.model.*;
 import com.expenseshare.repository.GroupRepository;
 import com.expenseshare.repository.SettlementRepository;
 import com.expenseshare.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,11 +29,20 @@ public class SettlementService {
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final BalanceService balanceService;
+    private final GroupWriteGuard groupWriteGuard;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LedgerJournal ledgerJournal;
+    private final UserBalanceService userBalanceService;
+    private final EntityManager entityManager;
 
     /**
      * Record a settlement payment.
      */
     public Settlement recordSettlement(SettlementDTO dto) {
+        long groupVersion = groupWriteGuard.lock(dto.getGroupId());
+
         ExpenseGroup group = groupRepository.findById(dto.getGroupId())
                 .orElseThrow(() -> new IllegalArgumentException("Group not found"));
 
@@ -47,6 +64,20 @@ public class SettlementService {
                 .build();
 
         Settlement saved = settlementRepository.save(settlement);
+        long ledgerVersion = groupWriteGuard.bumpLedgerVersion(group.getId(), groupVersion);
+        LedgerEvent recorded = LedgerEvent.settlementRecorded(saved);
+        ledgerJournal.record(recorded);
+        userBalanceService.apply(recorded);
+        eventPublisher.publishEvent(new LedgerChangedEvent(group.getId(), ledgerVersion, ActivityDTO.builder()
+                .kind(ActivityDTO.Kind.SETTLEMENT_RECORDED)
+                .id(saved.getId())
+                .amount(saved.getAmount())
+                .fromUserId(payer.getId())
+                .fromUserName(payer.getName())
+                .toUserId(payee.getId())
+                .toUserName(payee.getName())
+                .createdAt(saved.getCreatedAt())
+                .build()));
 
         // Send email notifications
         emailService.sendSettlementNotification(saved);
@@ -54,6 +85,90 @@ public class SettlementService {
         return saved;
     }
 
+    /**
+     * Record a whole settle-up plan in one transaction.
+     * Uses the current simplified balances when no plan is supplied. The plan is
+     * rejected if the group's ledger version no longer matches the expected one.
+     */
+    public List<Settlement> settleAll(Long groupId, Long expectedVersion, List<SettlementDTO> plan) {
+        long groupVersion = groupWriteGuard.lock(groupId);
+
+        // Holding the group lock, so the ledger version cannot move until commit
+        if (!groupRepository.findLedgerVersion(groupId).orElse(-1L).equals(expectedVersion)) {
+            throw new IllegalStateException("Balances changed since they were loaded. Please review and try again.");
+        }
+
+        ExpenseGroup group = groupRepository.findByIdWithMembers(groupId);
+        if (group == null) {
+            throw new IllegalArgumentException("Group not found");
+        }
+
+        if (plan == null || plan.isEmpty()) {
+            plan = balanceService.calculateGroupBalances(groupId).stream()
+                    .map(balance -> SettlementDTO.builder()
+                            .groupId(groupId)
+                            .payerId(balance.getFromUserId())
+                            .payeeId(balance.getToUserId())
+                            .amount(balance.getAmount())
+                            .build())
+                    .collect(Collectors.toList());
+        }
+        if (plan.isEmpty()) {
+            throw new IllegalArgumentException("Everyone is already settled up");
+        }
+
+        Map<Long, User> members = group.getMembers().stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        for (SettlementDTO item : plan) {
+            if (!members.containsKey(item.getPayerId()) || !members.containsKey(item.getPayeeId())) {
+                throw new IllegalArgumentException("Payer and payee must be members of the group");
+            }
+            if (item.getPayerId().equals(item.getPayeeId())) {
+                throw new IllegalArgumentException("Payer and payee cannot be the same");
+            }
+            if (item.getAmount() == null || item.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Settlement amounts must be positive");
+            }
+        }
+
+        List<Settlement> settlements = plan.stream()
+                .map(item -> Settlement.builder()
+                        .group(group)
+                        .payer(members.get(item.getPayerId()))
+                        .payee(members.get(item.getPayeeId()))
+                        .amount(item.getAmount())
+                        .build())
+                .collect(Collectors.toList());
+        List<Settlement> saved = settlementRepository.saveAll(settlements);
+        long ledgerVersion = groupWriteGuard.bumpLedgerVersion(groupId, groupVersion);
+        List<LedgerEvent> recorded = saved.stream().map(LedgerEvent::settlementRecorded).collect(Collectors.toList());
+        ledgerJournal.recordAll(recorded);
+        userBalanceService.applyAll(groupId, recorded);
+
+        eventPublisher.publishEvent(new LedgerChangedEvent(groupId, ledgerVersion, saved.stream()
+                .map(settlement -> ActivityDTO.builder()
+                        .kind(ActivityDTO.Kind.SETTLEMENT_RECORDED)
+                        .id(settlement.getId())
+                        .amount(settlement.getAmount())
+                        .fromUserId(settlement.getPayer().getId())
+                        .fromUserName(settlement.getPayer().getName())
+                        .toUserId(settlement.getPayee().getId())
+                        .toUserName(settlement.getPayee().getName())
+                        .createdAt(settlement.getCreatedAt())
+                        .build())
+                .collect(Collectors.toList())));
+
+        // One summary email per affected user instead of one per settlement
+        Map<User, List<Settlement>> byUser = new LinkedHashMap<>();
+        for (Settlement settlement : saved) {
+            byUser.computeIfAbsent(settlement.getPayer(), u -> new ArrayList<>()).add(settlement);
+            byUser.computeIfAbsent(settlement.getPayee(), u -> new ArrayList<>()).add(settlement);
+        }
+        byUser.forEach((user, userSettlements) -> emailService.sendSettleUpSummary(user, group, userSettlements));
+
+        return saved;
+    }
+
     /**
      * Get settlement by ID.
      */
@@ -87,9 +202,36 @@ public class SettlementService {
     }
 
     /**
-     * Delete a settlement.
+     * Delete a settlement of the group. Nothing happens when it was already deleted.
+     */
+    public void deleteSettlement(Long settlementId, Long groupId) {
+        long groupVersion = groupWriteGuard.lock(groupId);
+        Settlement settlement = readLocked(settlementId, groupId);
+        if (settlement == null) {
+            return;
+        }
+        balanceSnapshotService.invalidateFrom(groupId, settlement.getCreatedAt());
+        settlementRepository.delete(settlement);
+        long ledgerVersion = groupWriteGuard.bumpLedgerVersion(groupId, groupVersion);
+        LedgerEvent deleted = LedgerEvent.settlementDeleted(settlement);
+        ledgerJournal.record(deleted);
+        userBalanceService.apply(deleted);
+        eventPublisher.publishEvent(new LedgerChangedEvent(groupId, ledgerVersion, ActivityDTO.builder()
+                .kind(ActivityDTO.Kind.SETTLEMENT_DELETED)
+                .id(settlementId)
+                .build()));
+    }
+
+    /**
+     * The settlement as last committed, read after the group lock was taken; null when it
+     * no longer exists or belongs to another group. Any copy the request loaded before the
+     * lock is detached first, so a settlement another writer deleted meanwhile is not
+     * reversed a second time.
      */
-    public void deleteSettlement(Long settlementId) {
-        settlementRepository.deleteById(settlementId);
+    private Settlement readLocked(Long settlementId, Long groupId) {
+        entityManager.detach(entityManager.getReference(Settlement.class, settlementId));
+        return settlementRepository.findById(settlementId)
+                .filter(settlement -> settlement.getGroup().getId().equals(groupId))
+                .orElse(null);
     }
 }
@@ -0,0 +1,155 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.SpendingDTO;
+import com.expenseshare.model.SpendingRollup;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.SpendingRollupRepository;
+import com.expenseshare.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Spending charts by period, payer and split type. Reads the spending rollups only, never
+ * the expenses, so a chart costs the same however many expenses the range holds.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class SpendingAnalyticsService {
+
+    /** Most buckets one chart may span. */
+    static final int MAX_BUCKETS = 366;
+
+    private final SpendingRollupRepository rollupRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * A group's spending per bucket, per payer and per split type. Payers include former
+     * members.
+     */
+    public SpendingDTO getGroupSpending(Long groupId, SpendingRollup.Granularity granularity, LocalDate from,
+            LocalDate to) {
+        Range range = range(granularity, from, to);
+        List<SpendingRollup> rows = rollupRepository.findByGroupBetween(groupId, granularity, range.from(),
+                range.to());
+
+        Map<LocalDate, SpendingDTO.Period> periods = new TreeMap<>();
+        Map<Long, SpendingDTO.Payer> payers = new TreeMap<>();
+        Map<SplitType, SpendingDTO.SplitTypeTotal> splitTypes = new TreeMap<>();
+        for (SpendingRollup row : rows) {
+            if (row.getPaidAmount().signum() == 0 && row.getExpenseCount() == 0) {
+                continue;
+            }
+            SpendingDTO.Period period = periods.computeIfAbsent(row.getBucketStart(),
+                    bucketStart -> new SpendingDTO.Period(bucketStart, null, BigDecimal.ZERO, BigDecimal.ZERO, 0));
+            period.setPaid(period.getPaid().add(row.getPaidAmount()));
+            period.setShare(period.getPaid());
+            period.setExpenseCount(period.getExpenseCount() + row.getExpenseCount());
+
+            SpendingDTO.Payer payer = payers.computeIfAbsent(row.getUserId(),
+                    userId -> new SpendingDTO.Payer(userId, null, BigDecimal.ZERO, BigDecimal.ZERO, 0));
+            payer.setPaid(payer.getPaid().add(row.getPaidAmount()));
+            payer.setExpenseCount(payer.getExpenseCount() + row.getExpenseCount());
+
+            SpendingDTO.SplitTypeTotal splitType = splitTypes.computeIfAbsent(row.getSplitType(),
+                    type -> new SpendingDTO.SplitTypeTotal(type.name(), null, BigDecimal.ZERO, BigDecimal.ZERO, 0));
+            splitType.setPaid(splitType.getPaid().add(row.getPaidAmount()));
+            splitType.setShare(splitType.getPaid());
+            splitType.setExpenseCount(splitType.getExpenseCount() + row.getExpenseCount());
+        }
+        // Each member's share, over the same rows, for the payers' list
+        for (SpendingRollup row : rows) {
+            SpendingDTO.Payer payer = payers.get(row.getUserId());
+            if (payer != null) {
+                payer.setShare(payer.getShare().add(row.getShareAmount()));
+            }
+        }
+
+        if (!payers.isEmpty()) {
+            Map<Long, String> names = userRepository.findByIdIn(List.copyOf(payers.keySet())).stream()
+                    .collect(Collectors.toMap(User::getId, User::getName));
+            payers.values().forEach(payer -> payer.setUserName(names.get(payer.getUserId())));
+        }
+
+        return SpendingDTO.builder()
+                .granularity(granularity.name())
+                .from(range.from())
+                .to(range.to())
+                .periods(List.copyOf(periods.values()))
+                .payers(payers.values().stream()
+                        .sorted(Comparator.comparing(SpendingDTO.Payer::getPaid).reversed())
+                        .toList())
+                .splitTypes(List.copyOf(splitTypes.values()))
+                .build();
+    }
+
+    /**
+     * What a user paid and their share per bucket and per split type, across every group
+     * with rollups for them, including groups they left. Totalled per currency, since the
+     * groups' amounts are in their own base currencies.
+     */
+    public SpendingDTO getUserSpending(Long userId, SpendingRollup.Granularity granularity, LocalDate from,
+            LocalDate to) {
+        Range range = range(granularity, from, to);
+        Map<String, SpendingDTO.Period> periods = new TreeMap<>();
+        Map<String, SpendingDTO.SplitTypeTotal> splitTypes = new TreeMap<>();
+        for (SpendingRollupRepository.UserTotal total : rollupRepository.findUserTotals(userId, granularity,
+                range.from(), range.to())) {
+            SpendingDTO.Period period = periods.computeIfAbsent(total.getBucketStart() + " " + total.getCurrency(),
+                    key -> new SpendingDTO.Period(total.getBucketStart(), total.getCurrency(), BigDecimal.ZERO,
+                            BigDecimal.ZERO, 0));
+            period.setPaid(period.getPaid().add(total.getPaidAmount()));
+            period.setShare(period.getShare().add(total.getShareAmount()));
+            period.setExpenseCount(period.getExpenseCount() + total.getExpenseCount());
+
+            SpendingDTO.SplitTypeTotal splitType = splitTypes.computeIfAbsent(
+                    total.getSplitType().ordinal() + " " + total.getCurrency(),
+                    key -> new SpendingDTO.SplitTypeTotal(total.getSplitType().name(), total.getCurrency(),
+                            BigDecimal.ZERO, BigDecimal.ZERO, 0));
+            splitType.setPaid(splitType.getPaid().add(total.getPaidAmount()));
+            splitType.setShare(splitType.getShare().add(total.getShareAmount()));
+            splitType.setExpenseCount(splitType.getExpenseCount() + total.getExpenseCount());
+        }
+
+        return SpendingDTO.builder()
+                .granularity(granularity.name())
+                .from(range.from())
+                .to(range.to())
+                .periods(List.copyOf(periods.values()))
+                .splitTypes(List.copyOf(splitTypes.values()))
+                .build();
+    }
+
+    /**
+     * Snap the range to bucket starts. Without bounds it ends with the current bucket and
+     * spans a year of months or a month of days.
+     */
+    private static Range range(SpendingRollup.Granularity granularity, LocalDate from, LocalDate to) {
+        LocalDate end = granularity.bucketStart(to != null ? to : LocalDate.now());
+        LocalDate start = from != null
+                ? granularity.bucketStart(from)
+                : granularity == SpendingRollup.Granularity.MONTH ? end.minusMonths(11) : end.minusDays(30);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("The range starts after it ends");
+        }
+        ChronoUnit unit = granularity == SpendingRollup.Granularity.MONTH ? ChronoUnit.MONTHS : ChronoUnit.DAYS;
+        if (unit.between(start, end) >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("The range spans more than " + MAX_BUCKETS + " buckets");
+        }
+        return new Range(start, end);
+    }
+
+    private record Range(LocalDate from, LocalDate to) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.expenseshare.service;
+
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.SpendingRollup;
+import com.expenseshare.model.SplitType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The change expense writes make to spending rollups, in minor units: per group, member,
+ * day and month bucket and split type, the amount paid, the share and the number of
+ * expenses paid. Changes that cancel out, like an edit of the description only, leave
+ * nothing to write.
+ */
+public final class SpendingDelta {
+
+    static final int PAID = 0;
+    static final int SHARE = 1;
+    static final int COUNT = 2;
+
+    private final Map<SpendingRollup.Key, long[]> changes = new HashMap<>();
+
+    public static SpendingDelta adding(Expense expense) {
+        return new SpendingDelta().plus(expense);
+    }
+
+    public static SpendingDelta removing(Expense expense) {
+        return new SpendingDelta().minus(expense);
+    }
+
+    public SpendingDelta plus(Expense expense) {
+        return add(expense, 1);
+    }
+
+    public SpendingDelta minus(Expense expense) {
+        return add(expense, -1);
+    }
+
+    private SpendingDelta add(Expense expense, int sign) {
+        return add(expense.getGroup().getId(), expense.getPaidBy().getId(), expense.getAmount(),
+                expense.getSplitType(), expense.getCreatedAt(), SplitCalculator.shares(expense), sign);
+    }
+
+    /**
+     * Add or remove one expense, paid by payerId and shared as given.
+     */
+    SpendingDelta add(Long groupId, Long payerId, BigDecimal amount, SplitType splitType, LocalDateTime createdAt,
+            List<SplitCalculator.Share> shares, int sign) {
+        for (SpendingRollup.Granularity granularity : SpendingRollup.Granularity.values()) {
+            LocalDate bucketStart = granularity.bucketStart(createdAt);
+            long[] paid = change(groupId, granularity, bucketStart, payerId, splitType);
+            paid[PAID] += sign * LedgerEvent.toMinorUnits(amount);
+            paid[COUNT] += sign;
+            for (SplitCalculator.Share share : shares) {
+                change(groupId, granularity, bucketStart, share.userId(), splitType)[SHARE] +=
+                        sign * LedgerEvent.toMinorUnits(share.amount());
+            }
+        }
+        return this;
+    }
+
+    private long[] change(Long groupId, SpendingRollup.Granularity granularity, LocalDate bucketStart, Long userId,
+            SplitType splitType) {
+        return changes.computeIfAbsent(new SpendingRollup.Key(groupId, granularity, bucketStart, userId, splitType),
+                key -> new long[3]);
+    }
+
+    /**
+     * The changes that move something, by group id in ascending order.
+     */
+    Map<Long, Map<SpendingRollup.Key, long[]>> changesByGroup() {
+        Map<Long, Map<SpendingRollup.Key, long[]>> byGroup = new TreeMap<>();
+        changes.forEach((key, change) -> {
+            if (change[PAID] != 0 || change[SHARE] != 0 || change[COUNT] != 0) {
+                byGroup.computeIfAbsent(key.getGroupId(), groupId -> new HashMap<>()).put(key, change);
+            }
+        });
+        return byGroup;
+    }
+}
@@ -0,0 +1,234 @@
+package com.expenseshare.service;
+
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.SpendingRollup;
+import com.expenseshare.model.SpendingRollupGroup;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.SpendingRollupGroupRepository;
+import com.expenseshare.repository.SpendingRollupRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Spending rollups behind the analytics endpoints.
+ * Every expense write applies its {@link SpendingDelta} here in the same transaction,
+ * after bumping the group's ledger version, so it holds the group row lock the backfill
+ * takes as well. Groups without a {@link SpendingRollupGroup} row were never built and
+ * are skipped. On startup the groups without rollups are built from their live and
+ * archived expenses, in chunks of groups spread over a small pool.
+ */
+@Service
+@Slf4j
+public class SpendingRollupService {
+
+    private final SpendingRollupRepository rollupRepository;
+    private final SpendingRollupGroupRepository rollupGroupRepository;
+    private final GroupRepository groupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int backfillThreads;
+    private final int backfillChunkSize;
+
+    public SpendingRollupService(SpendingRollupRepository rollupRepository,
+            SpendingRollupGroupRepository rollupGroupRepository, GroupRepository groupRepository,
+            PlatformTransactionManager transactionManager, EntityManager entityManager,
+            @Value("${app.rollups.backfill-threads:4}") int backfillThreads,
+            @Value("${app.rollups.backfill-chunk-size:100}") int backfillChunkSize) {
+        this.rollupRepository = rollupRepository;
+        this.rollupGroupRepository = rollupGroupRepository;
+        this.groupRepository = groupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.backfillThreads = backfillThreads;
+        this.backfillChunkSize = backfillChunkSize;
+    }
+
+    /**
+     * Mark a new group's empty rollups as built.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createEmpty(Long groupId) {
+        entityManager.persist(SpendingRollupGroup.builder().groupId(groupId).builtAt(LocalDateTime.now()).build());
+    }
+
+    /**
+     * Apply expense writes of one or more groups. Runs in the writing transaction, after the
+     * groups' ledger versions were bumped. Each group costs one read of the rows touched and
+     * a batch per kind of row change, plus a look at the marker when rows are missing.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(SpendingDelta delta) {
+        delta.changesByGroup().forEach(this::applyChanges);
+    }
+
+    /**
+     * Drop a deleted group's rollups and marker.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeGroup(Long groupId) {
+        rollupRepository.deleteByGroupId(groupId);
+        rollupGroupRepository.findById(groupId).ifPresent(rollupGroupRepository::delete);
+    }
+
+    /**
+     * Build the rollups of groups that have none, after the tables were added or groups were
+     * bulk-loaded. Chunks of groups are built in parallel, one transaction per group.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildMissing() {
+        long started = System.nanoTime();
+        List<Long> groupIds = transactionTemplate.execute(status -> rollupGroupRepository.findGroupIdsWithoutRollups());
+        if (groupIds.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger rows = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, backfillThreads), runnable -> {
+            Thread thread = new Thread(runnable, "spending-rollup-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (int from = 0; from < groupIds.size(); from += backfillChunkSize) {
+                List<Long> chunk = groupIds.subList(from, Math.min(from + backfillChunkSize, groupIds.size()));
+                chunks.add(pool.submit(() -> chunk.forEach(groupId -> {
+                    try {
+                        rows.addAndGet(build(groupId));
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        log.error("Failed to build the spending rollups of group {}", groupId, e);
+                    }
+                })));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Spending rollup backfill failed", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        log.info("Built the spending rollups of {} groups ({} rows, {} failed) in {} ms", groupIds.size(),
+                rows.get(), failed.get(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Build one group's rollups from its expenses and return the number of rows written.
+     * The group row is locked before anything is read: a ledger write on any node either
+     * committed before, and is read here, or bumps the group's version after this commits,
+     * and then finds the marker and applies itself.
+     */
+    private int build(Long groupId) {
+        return transactionTemplate.execute(status -> {
+            if (groupRepository.lockRow(groupId).isEmpty() || rollupGroupRepository.existsById(groupId)) {
+                // Deleted, or built by another node in the meantime
+                return 0;
+            }
+            entityManager.persist(SpendingRollupGroup.builder().groupId(groupId).builtAt(LocalDateTime.now()).build());
+
+            Map<Long, List<SplitCalculator.Share>> splits = rollupRepository.findSplitRows(groupId).stream()
+                    .collect(Collectors.groupingBy(SpendingRollupRepository.SplitRow::getExpenseId,
+                            Collectors.mapping(split -> new SplitCalculator.Share(split.getUserId(), split.getAmount()),
+                                    Collectors.toList())));
+            SpendingDelta delta = new SpendingDelta();
+            for (SpendingRollupRepository.ExpenseRow expense : rollupRepository.findExpenseRows(groupId)) {
+                delta.add(groupId, expense.getPayerId(), expense.getAmount(), SplitType.valueOf(expense.getSplitType()),
+                        expense.getCreatedAt(), shares(expense, splits), 1);
+            }
+
+            Map<SpendingRollup.Key, long[]> changes = delta.changesByGroup().getOrDefault(groupId, Map.of());
+            changes.forEach((key, change) -> entityManager.persist(newRow(key, change)));
+            return changes.size();
+        });
+    }
+
+    private static List<SplitCalculator.Share> shares(SpendingRollupRepository.ExpenseRow expense,
+            Map<Long, List<SplitCalculator.Share>> splits) {
+        if (expense.getParticipantIds() == null) {
+            return splits.getOrDefault(expense.getId(), List.of());
+        }
+        List<Long> userIds = Expense.unpack(expense.getParticipantIds());
+        List<BigDecimal> amounts = SplitCalculator.equalShares(expense.getAmount(), userIds.size());
+        List<SplitCalculator.Share> shares = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            shares.add(new SplitCalculator.Share(userIds.get(i), amounts.get(i)));
+        }
+        return shares;
+    }
+
+    /**
+     * Move the group's rows by the changes: existing rows are updated, or deleted once they
+     * are back to zero, and missing ones inserted. Rows only exist in built groups, so the
+     * marker is only read when some are missing.
+     */
+    private void applyChanges(Long groupId, Map<SpendingRollup.Key, long[]> changes) {
+        Set<LocalDate> bucketStarts = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        changes.keySet().forEach(key -> {
+            bucketStarts.add(key.getBucketStart());
+            userIds.add(key.getUserId());
+        });
+        Map<SpendingRollup.Key, SpendingRollup> rows = rollupRepository.findForUpdate(groupId, bucketStarts, userIds)
+                .stream()
+                .collect(Collectors.toMap(SpendingRollup::getKey, Function.identity()));
+        if (!rows.keySet().containsAll(changes.keySet()) && !rollupGroupRepository.existsById(groupId)) {
+            return;
+        }
+
+        changes.forEach((key, change) -> {
+            SpendingRollup row = rows.get(key);
+            if (row == null) {
+                entityManager.persist(newRow(key, change));
+                return;
+            }
+            row.setPaidAmount(row.getPaidAmount().add(LedgerEvent.fromMinorUnits(change[SpendingDelta.PAID])));
+            row.setShareAmount(row.getShareAmount().add(LedgerEvent.fromMinorUnits(change[SpendingDelta.SHARE])));
+            row.setExpenseCount(row.getExpenseCount() + (int) change[SpendingDelta.COUNT]);
+            if (row.isEmpty()) {
+                rollupRepository.delete(row);
+            }
+        });
+    }
+
+    private static SpendingRollup newRow(SpendingRollup.Key key, long[] change) {
+        return SpendingRollup.builder()
+                .groupId(key.getGroupId())
+                .granularity(key.getGranularity())
+                .bucketStart(key.getBucketStart())
+                .userId(key.getUserId())
+                .splitType(key.getSplitType())
+                .paidAmount(LedgerEvent.fromMinorUnits(change[SpendingDelta.PAID]))
+                .shareAmount(LedgerEvent.fromMinorUnits(change[SpendingDelta.SHARE]))
+                .expenseCount((int) change[SpendingDelta.COUNT])
+                .build();
+    }
+}
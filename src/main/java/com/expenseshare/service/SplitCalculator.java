@@ -0,0 +1,127 @@
+package com.expenseshare.service;
+
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.ExpenseSplit;
+import com.expenseshare.repository.LedgerFlow;
+import com.expenseshare.repository.PackedSplit;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pure split arithmetic shared by the expense services, the ledger readers and the benchmarks.
+ */
+public final class SplitCalculator {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private SplitCalculator() {
+    }
+
+    /**
+     * Split an amount equally. The last share absorbs the rounding remainder.
+     */
+    public static List<BigDecimal> equalShares(BigDecimal amount, int count) {
+        BigDecimal splitAmount = amount.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+
+        // Adjust for rounding - last person gets the remainder
+        BigDecimal total = splitAmount.multiply(BigDecimal.valueOf(count));
+        BigDecimal remainder = amount.subtract(total);
+
+        List<BigDecimal> shares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shares.add(i == count - 1 ? splitAmount.add(remainder) : splitAmount);
+        }
+        return shares;
+    }
+
+    /**
+     * Each participant's share of an expense, whether the splits are rows or an inline
+     * equal split. Inline shares follow the participant order, so the remainder always
+     * lands on the same member.
+     */
+    public static List<Share> shares(Expense expense) {
+        List<Share> shares = new ArrayList<>();
+        if (expense.isPacked()) {
+            List<Long> userIds = expense.unpackParticipants();
+            List<BigDecimal> amounts = equalShares(expense.getAmount(), userIds.size());
+            for (int i = 0; i < userIds.size(); i++) {
+                shares.add(new Share(userIds.get(i), amounts.get(i)));
+            }
+        } else {
+            for (ExpenseSplit split : expense.getSplits()) {
+                shares.add(new Share(split.getUser().getId(), split.getAmount()));
+            }
+        }
+        return shares;
+    }
+
+    /**
+     * Expand inline equal splits into split flows, like ExpenseSplitRepository.findFlowsBetween
+     * reads them from split rows: the payer's own share moves nothing and is left out.
+     * Flows keep the order of the splits.
+     */
+    public static List<LedgerFlow> flows(List<? extends PackedSplit> packedSplits) {
+        List<LedgerFlow> flows = new ArrayList<>();
+        for (PackedSplit packed : packedSplits) {
+            List<Long> userIds = Expense.unpack(packed.getParticipantIds());
+            List<BigDecimal> amounts = equalShares(packed.getAmount(), userIds.size());
+            for (int i = 0; i < userIds.size(); i++) {
+                if (!userIds.get(i).equals(packed.getPayerId())) {
+                    flows.add(new Flow(packed.getCreatedAt(), packed.getPayerId(), userIds.get(i), amounts.get(i)));
+                }
+            }
+        }
+        return flows;
+    }
+
+    /**
+     * Split an amount by percentages. The last share absorbs the rounding remainder.
+     */
+    public static List<BigDecimal> percentageShares(BigDecimal amount, List<BigDecimal> percentages) {
+        BigDecimal runningTotal = BigDecimal.ZERO;
+        List<BigDecimal> shares = new ArrayList<>(percentages.size());
+
+        for (int i = 0; i < percentages.size(); i++) {
+            if (i == percentages.size() - 1) {
+                // Last user gets remainder to avoid rounding issues
+                shares.add(amount.subtract(runningTotal));
+            } else {
+                BigDecimal share = amount.multiply(percentages.get(i)).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+                runningTotal = runningTotal.add(share);
+                shares.add(share);
+            }
+        }
+        return shares;
+    }
+
+    public record Share(Long userId, BigDecimal amount) {
+    }
+
+    private record Flow(LocalDateTime createdAt, Long creditorId, Long debtorId, BigDecimal amount)
+            implements LedgerFlow {
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public Long getCreditorId() {
+            return creditorId;
+        }
+
+        @Override
+        public Long getDebtorId() {
+            return debtorId;
+        }
+
+        @Override
+        public BigDecimal getAmount() {
+            return amount;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.UserBalanceSummary;
+import com.expenseshare.ledger.LedgerEvent;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.UserBalance;
+import com.expenseshare.model.UserGroupBalance;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.UserBalanceRepository;
+import com.expenseshare.repository.UserGroupBalanceRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user balance totals for the dashboard header, one row per currency: a group's
+ * balances are in its base currency and only add up with those of groups in the same one.
+ * Every ledger write applies its {@link LedgerEvent} here in the same transaction: the
+ * net balance of each member it touches moves in {@link UserGroupBalance}, and the
+ * member's {@link UserBalance} totals in the group's currency move by the difference.
+ * Users that were never built are skipped; they are built on startup. A scheduled
+ * reconciler rebuilds a sample of users from the ledger and logs any drift it repairs.
+ */
+@Service
+@Slf4j
+public class UserBalanceService {
+
+    private final UserBalanceRepository userBalanceRepository;
+    private final UserGroupBalanceRepository groupBalanceRepository;
+    private final GroupRepository groupRepository;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final FxRateTable fxRateTable;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int sampleSize;
+
+    public UserBalanceService(UserBalanceRepository userBalanceRepository,
+            UserGroupBalanceRepository groupBalanceRepository, GroupRepository groupRepository,
+            BalanceSnapshotService balanceSnapshotService, FxRateTable fxRateTable,
+            PlatformTransactionManager transactionManager, EntityManager entityManager,
+            @Value("${app.user-balances.reconcile-sample:50}") int sampleSize) {
+        this.userBalanceRepository = userBalanceRepository;
+        this.groupBalanceRepository = groupBalanceRepository;
+        this.groupRepository = groupRepository;
+        this.balanceSnapshotService = balanceSnapshotService;
+        this.fxRateTable = fxRateTable;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Replace the summary's totals with the user's persisted ones, which already include
+     * writes the group views have not caught up with. Left as is for a user not built yet.
+     */
+    @Transactional(readOnly = true)
+    public UserBalanceSummary withCurrentTotals(UserBalanceSummary summary) {
+        List<UserBalance> balances = userBalanceRepository.findByUserId(summary.getUserId());
+        if (!balances.isEmpty()) {
+            summary.applyTotals(balances.stream()
+                    .map(balance -> UserBalanceSummary.CurrencyTotals.of(balance.getCurrency(),
+                            balance.getTotalOwed(), balance.getTotalOwing()))
+                    .toList(), fxRateTable.getDefaultCurrency());
+        }
+        return summary;
+    }
+
+    /**
+     * Create the zero totals of a new user, in the default currency.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createEmpty(Long userId) {
+        userBalanceRepository.save(zero(userId, fxRateTable.getDefaultCurrency()));
+    }
+
+    /**
+     * Apply a ledger or membership change. Runs in the writing transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(LedgerEvent event) {
+        switch (event.getType()) {
+            case EXPENSE_ADDED, SETTLEMENT_RECORDED, EXPENSE_DELETED, SETTLEMENT_DELETED, EXPENSE_UPDATED ->
+                    applyNetChanges(event.getGroupId(), netChanges(List.of(event)));
+            case MEMBER_JOINED -> joinGroup(event.getGroupId(), event.getUserId());
+            case MEMBER_LEFT -> leaveGroup(event.getGroupId(), List.of(event.getUserId()));
+            case GROUP_DELETED -> removeGroup(event.getGroupId());
+        }
+    }
+
+    /**
+     * Apply several ledger changes of one group with a single update per member.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyAll(Long groupId, List<LedgerEvent> events) {
+        applyNetChanges(groupId, netChanges(events));
+    }
+
+    /**
+     * Apply ledger changes of several groups in one transaction. The totals of every user
+     * involved are locked up front, in id order, before any group balance, so a batch
+     * spanning groups keeps the lock order of single-group writes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyAll(Map<Long, List<LedgerEvent>> eventsByGroup) {
+        Map<Long, Map<Long, Long>> changesByGroup = new TreeMap<>();
+        Set<Long> userIds = new TreeSet<>();
+        eventsByGroup.forEach((groupId, events) -> {
+            Map<Long, Long> changes = netChanges(events);
+            changes.values().removeIf(change -> change == 0);
+            if (!changes.isEmpty()) {
+                changesByGroup.put(groupId, changes);
+                userIds.addAll(changes.keySet());
+            }
+        });
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<UserBalance> balances = new ArrayList<>(userBalanceRepository.findForUpdate(userIds));
+        changesByGroup.forEach((groupId, changes) -> applyNetChanges(groupId, changes, balances));
+    }
+
+    /**
+     * Take a group out of its members' totals, when its memberships are deleted in bulk.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeGroup(Long groupId) {
+        leaveGroup(groupId, groupBalanceRepository.findUserIdsByGroupId(groupId));
+    }
+
+    /**
+     * Build the totals of users that have none, after the table was added or users were
+     * bulk-loaded. Each group's balances are replayed once for all of its members.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildMissing() {
+        long started = System.nanoTime();
+        List<Long> userIds = transactionTemplate.execute(status -> userBalanceRepository.findUserIdsWithoutBalance());
+        Map<Long, Map<Long, BigDecimal>> groupNets = new HashMap<>();
+        userIds.forEach(userId -> rebuildQuietly(userId, groupNets));
+        if (!userIds.isEmpty()) {
+            log.info("Built the balance totals of {} users in {} ms", userIds.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Rebuild a random window of users from the ledger and report the ones that had drifted.
+     */
+    @Scheduled(initialDelayString = "${app.user-balances.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.user-balances.reconcile-interval-ms:300000}")
+    public void reconcileSample() {
+        List<Long> userIds = transactionTemplate.execute(status -> {
+            long maxId = userBalanceRepository.findMaxUserId().orElse(0L);
+            if (maxId == 0) {
+                return List.<Long>of();
+            }
+            long fromId = ThreadLocalRandom.current().nextLong(maxId) + 1;
+            List<Long> ids = new ArrayList<>(userBalanceRepository.findUserIdsFrom(fromId,
+                    PageRequest.ofSize(sampleSize)));
+            if (ids.size() < sampleSize && fromId > 1) {
+                userBalanceRepository.findUserIdsFrom(1L, PageRequest.ofSize(sampleSize - ids.size())).stream()
+                        .filter(id -> id < fromId)
+                        .forEach(ids::add);
+            }
+            return ids;
+        });
+
+        int repaired = 0;
+        for (Long userId : userIds) {
+            if (rebuildQuietly(userId, null)) {
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            log.warn("Repaired the balance totals of {} of {} sampled users", repaired, userIds.size());
+        }
+    }
+
+    /**
+     * Recompute a user's group balances and totals from the ledger.
+     * Returns true if the stored totals were missing or differed.
+     */
+    public boolean rebuild(Long userId) {
+        return rebuild(userId, null);
+    }
+
+    private boolean rebuildQuietly(Long userId, Map<Long, Map<Long, BigDecimal>> groupNets) {
+        try {
+            return rebuild(userId, groupNets);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild the balance totals of user {}", userId, e);
+            return false;
+        }
+    }
+
+    /**
+     * The user's rows are locked before the ledger is read, so a write that commits later
+     * waits for them and moves the rebuilt totals; groupNets, when given, caches each
+     * group's replayed balances across users. Currencies the user has no group in any more
+     * lose their row, but a user always keeps one.
+     */
+    private boolean rebuild(Long userId, Map<Long, Map<Long, BigDecimal>> groupNets) {
+        return transactionTemplate.execute(status -> {
+            Map<String, UserBalance> stored = userBalanceRepository.findByUserIdForUpdate(userId).stream()
+                    .collect(Collectors.toMap(UserBalance::getCurrency, Function.identity()));
+            Map<Long, UserGroupBalance> rows = groupBalanceRepository.findByUserIdForUpdate(userId).stream()
+                    .collect(Collectors.toMap(UserGroupBalance::getGroupId, Function.identity()));
+
+            Map<String, UserBalance> rebuilt = new TreeMap<>();
+            for (ExpenseGroup group : groupRepository.findByMemberId(userId)) {
+                Long groupId = group.getId();
+                Map<Long, BigDecimal> nets = groupNets != null
+                        ? groupNets.computeIfAbsent(groupId, this::currentNetBalances)
+                        : currentNetBalances(groupId);
+                BigDecimal net = nets.getOrDefault(userId, BigDecimal.ZERO);
+                UserGroupBalance row = rows.remove(groupId);
+                if (row == null) {
+                    row = UserGroupBalance.builder().userId(userId).groupId(groupId).build();
+                }
+                if (row.getNetBalance() == null || row.getNetBalance().compareTo(net) != 0) {
+                    row.setNetBalance(net);
+                    groupBalanceRepository.save(row);
+                }
+                rebuilt.computeIfAbsent(group.getBaseCurrency(), currency -> zero(userId, currency))
+                        .addGroupNet(net);
+            }
+            groupBalanceRepository.deleteAll(rows.values());
+            if (rebuilt.isEmpty()) {
+                rebuilt.put(fxRateTable.getDefaultCurrency(), zero(userId, fxRateTable.getDefaultCurrency()));
+            }
+
+            boolean missing = stored.isEmpty();
+            boolean drifted = false;
+            for (UserBalance totals : rebuilt.values()) {
+                UserBalance balance = stored.remove(totals.getCurrency());
+                if (balance == null) {
+                    balance = zero(userId, totals.getCurrency());
+                    entityManager.persist(balance);
+                }
+                if (!balance.sameTotals(totals)) {
+                    if (!missing) {
+                        logDrift(balance, totals);
+                    }
+                    balance.setTotalOwed(totals.getTotalOwed());
+                    balance.setTotalOwing(totals.getTotalOwing());
+                    balance.setNetBalance(totals.getNetBalance());
+                    drifted = true;
+                }
+            }
+            for (UserBalance balance : stored.values()) {
+                if (!balance.isZero()) {
+                    logDrift(balance, zero(userId, balance.getCurrency()));
+                    drifted = true;
+                }
+                userBalanceRepository.delete(balance);
+            }
+            return missing || drifted;
+        });
+    }
+
+    private static void logDrift(UserBalance stored, UserBalance rebuilt) {
+        log.warn("Balance totals of user {} in {} drifted: owed {} owing {}, ledger says owed {} owing {}",
+                stored.getUserId(), stored.getCurrency(), stored.getTotalOwed(), stored.getTotalOwing(),
+                rebuilt.getTotalOwed(), rebuilt.getTotalOwing());
+    }
+
+    private Map<Long, BigDecimal> currentNetBalances(Long groupId) {
+        return balanceSnapshotService.netBalancesAsOf(groupId, LocalDateTime.now());
+    }
+
+    /**
+     * Move the members' group balances and totals. Members without a built row are skipped.
+     */
+    private void applyNetChanges(Long groupId, Map<Long, Long> changes) {
+        changes.values().removeIf(change -> change == 0);
+        if (changes.isEmpty()) {
+            return;
+        }
+        applyNetChanges(groupId, changes, new ArrayList<>(userBalanceRepository.findForUpdate(changes.keySet())));
+    }
+
+    /**
+     * Move the group balances and totals of members whose totals are already locked: every
+     * row of theirs is in balances, which also gets the rows added for a first group in the
+     * currency.
+     */
+    private void applyNetChanges(Long groupId, Map<Long, Long> changes, List<UserBalance> balances) {
+        Set<Long> userIds = balances.stream()
+                .map(UserBalance::getUserId)
+                .filter(changes::containsKey)
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<Long, UserGroupBalance> rows = groupBalanceRepository.findForUpdate(groupId, userIds).stream()
+                .collect(Collectors.toMap(UserGroupBalance::getUserId, Function.identity()));
+
+        String currency = currencyOf(groupId);
+        for (Long userId : userIds) {
+            UserGroupBalance row = rows.get(userId);
+            if (row == null) {
+                // Not a member any more, so the group is not in the totals
+                continue;
+            }
+            BigDecimal previous = row.getNetBalance();
+            row.setNetBalance(previous.add(LedgerEvent.fromMinorUnits(changes.get(userId))));
+            UserBalance balance = inCurrency(balances, userId, currency);
+            balance.removeGroupNet(previous);
+            balance.addGroupNet(row.getNetBalance());
+        }
+    }
+
+    /**
+     * Start counting a group in a member's totals, from their current net balance in it:
+     * zero in a group without ledger writes, possibly not for someone rejoining.
+     * Rows exist exactly while the user is a member, so the row is new.
+     */
+    private void joinGroup(Long groupId, Long userId) {
+        List<UserBalance> balances = new ArrayList<>(userBalanceRepository.findByUserIdForUpdate(userId));
+        if (balances.isEmpty()) {
+            return;
+        }
+        ExpenseGroup group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new IllegalStateException("Group " + groupId + " not found"));
+        boolean hasLedger = group.getLedgerVersion() > 0 || group.getArchivedThrough() != null;
+        BigDecimal net = hasLedger
+                ? currentNetBalances(groupId).getOrDefault(userId, BigDecimal.ZERO)
+                : BigDecimal.ZERO;
+        entityManager.persist(UserGroupBalance.builder()
+                .userId(userId)
+                .groupId(groupId)
+                .netBalance(net)
+                .build());
+        inCurrency(balances, userId, group.getBaseCurrency()).addGroupNet(net);
+    }
+
+    private void leaveGroup(Long groupId, List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<UserBalance> balances = new ArrayList<>(userBalanceRepository.findForUpdate(userIds));
+        Map<Long, UserGroupBalance> rows = groupBalanceRepository.findForUpdate(groupId, userIds).stream()
+                .collect(Collectors.toMap(UserGroupBalance::getUserId, Function.identity()));
+        Set<Long> builtUserIds = balances.stream()
+                .map(UserBalance::getUserId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (rows.keySet().stream().anyMatch(builtUserIds::contains)) {
+            String currency = currencyOf(groupId);
+            for (Long userId : builtUserIds) {
+                UserGroupBalance row = rows.remove(userId);
+                if (row != null) {
+                    inCurrency(balances, userId, currency).removeGroupNet(row.getNetBalance());
+                    groupBalanceRepository.delete(row);
+                }
+            }
+        }
+        groupBalanceRepository.deleteAll(rows.values());
+    }
+
+    /**
+     * Base currency of a group being written to, from the persistence context or the
+     * second-level cache.
+     */
+    private String currencyOf(Long groupId) {
+        return groupRepository.findById(groupId)
+                .map(ExpenseGroup::getBaseCurrency)
+                .orElseThrow(() -> new IllegalStateException("Group " + groupId + " not found"));
+    }
+
+    /**
+     * The user's locked row in the currency, added to balances and persisted as zero totals
+     * the first time the user has a group in it.
+     */
+    private UserBalance inCurrency(List<UserBalance> balances, Long userId, String currency) {
+        for (UserBalance balance : balances) {
+            if (balance.getUserId().equals(userId) && balance.getCurrency().equals(currency)) {
+                return balance;
+            }
+        }
+        UserBalance balance = zero(userId, currency);
+        entityManager.persist(balance);
+        balances.add(balance);
+        return balance;
+    }
+
+    private static UserBalance zero(Long userId, String currency) {
+        return UserBalance.builder().userId(userId).currency(currency).build();
+    }
+
+    /**
+     * Net balance change per user in minor units, same signs as the balance calculator:
+     * an expense's payer is owed every other member's share, a settlement moves the payer
+     * up and the payee down. Deletions reverse the change; edits carry it already.
+     */
+    private static Map<Long, Long> netChanges(List<LedgerEvent> events) {
+        Map<Long, Long> changes = new TreeMap<>();
+        for (LedgerEvent event : events) {
+            long sign = switch (event.getType()) {
+                case EXPENSE_ADDED, SETTLEMENT_RECORDED -> 1;
+                case EXPENSE_DELETED, SETTLEMENT_DELETED -> -1;
+                default -> 0;
+            };
+            switch (event.getType()) {
+                case EXPENSE_ADDED, EXPENSE_DELETED -> {
+                    long[] userIds = event.getShareUserIds();
+                    long[] amounts = event.getShareAmounts();
+                    for (int i = 0; i < userIds.length; i++) {
+                        if (userIds[i] != event.getUserId()) {
+                            changes.merge(event.getUserId(), sign * amounts[i], Long::sum);
+                            changes.merge(userIds[i], -sign * amounts[i], Long::sum);
+                        }
+                    }
+                }
+                case EXPENSE_UPDATED -> {
+                    long[] userIds = event.getShareUserIds();
+                    long[] amounts = event.getShareAmounts();
+                    for (int i = 0; i < userIds.length; i++) {
+                        changes.merge(userIds[i], amounts[i], Long::sum);
+                    }
+                }
+                case SETTLEMENT_RECORDED, SETTLEMENT_DELETED -> {
+                    changes.merge(event.getUserId(), sign * event.getAmount(), Long::sum);
+                    changes.merge(event.getCounterpartyId(), -sign * event.getAmount(), Long::sum);
+                }
+                default -> {
+                }
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,254 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.BalanceDTO;
+import com.expenseshare.dto.UserBalanceSummary;
+import com.expenseshare.event.GroupChangedEvent;
+import com.expenseshare.event.LedgerChangedEvent;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.User;
+import com.expenseshare.model.UserGroupCounterparty;
+import com.expenseshare.model.UserGroupView;
+import com.expenseshare.repository.ExpenseRepository;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.SettlementRepository;
+import com.expenseshare.repository.UserGroupViewRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the per-user group rows behind the dashboard and group list.
+ * After every committed ledger or group change, the group's rows are rebuilt on a
+ * background thread; changes that arrive while a rebuild is queued share it. On startup,
+ * groups whose rows are missing or behind the group version are rebuilt before the
+ * application reports ready, so the pages never need to fall back to the write side.
+ */
+@Service
+@Slf4j
+public class UserGroupViewService {
+
+    private static final int AVATARS = 4;
+
+    private final UserGroupViewRepository viewRepository;
+    private final GroupRepository groupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final SettlementRepository settlementRepository;
+    private final BalanceService balanceService;
+    private final FxRateTable fxRateTable;
+    private final TransactionTemplate transactionTemplate;
+
+    // Groups with a rebuild queued and not yet started
+    private final Set<Long> dirtyGroups = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "read-model");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UserGroupViewService(UserGroupViewRepository viewRepository, GroupRepository groupRepository,
+            ExpenseRepository expenseRepository, SettlementRepository settlementRepository,
+            BalanceService balanceService, FxRateTable fxRateTable, PlatformTransactionManager transactionManager) {
+        this.viewRepository = viewRepository;
+        this.groupRepository = groupRepository;
+        this.expenseRepository = expenseRepository;
+        this.settlementRepository = settlementRepository;
+        this.balanceService = balanceService;
+        this.fxRateTable = fxRateTable;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * A user's groups, most recently active first.
+     */
+    @Transactional(readOnly = true)
+    public List<UserGroupView> getUserGroups(Long userId) {
+        return viewRepository.findByUserId(userId);
+    }
+
+    /**
+     * A user's groups with their counterparties, most recently active first.
+     */
+    @Transactional(readOnly = true)
+    public List<UserGroupView> getUserGroupsWithCounterparties(Long userId) {
+        return viewRepository.findByUserIdWithCounterparties(userId);
+    }
+
+    /**
+     * The user's overall balance, added up from their group rows per currency. Matches
+     * {@link BalanceService#getUserOverallBalance}: one debt or credit per counterparty per group.
+     */
+    public UserBalanceSummary summarize(Long userId, String userName, List<UserGroupView> views) {
+        List<BalanceDTO> debts = new ArrayList<>();
+        List<BalanceDTO> credits = new ArrayList<>();
+        for (UserGroupView view : views) {
+            for (UserGroupCounterparty counterparty : view.getCounterparties()) {
+                if (counterparty.getAmount().signum() > 0) {
+                    credits.add(BalanceDTO.builder()
+                            .fromUserId(counterparty.getCounterpartyId())
+                            .fromUserName(counterparty.getCounterpartyName())
+                            .toUserId(userId)
+                            .toUserName(userName)
+                            .amount(counterparty.getAmount())
+                            .currency(view.getCurrency())
+                            .build());
+                } else {
+                    debts.add(BalanceDTO.builder()
+                            .fromUserId(userId)
+                            .fromUserName(userName)
+                            .toUserId(counterparty.getCounterpartyId())
+                            .toUserName(counterparty.getCounterpartyName())
+                            .amount(counterparty.getAmount().negate())
+                            .currency(view.getCurrency())
+                            .build());
+                }
+            }
+        }
+        return UserBalanceSummary.acrossGroups(userId, userName, debts, credits, fxRateTable.getDefaultCurrency());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        refreshLater(event.getGroupId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGroupChanged(GroupChangedEvent event) {
+        refreshLater(event.getGroupId());
+    }
+
+    /**
+     * Rebuild the rows of every group that changed while the application was down, or
+     * since before the read model existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        long started = System.nanoTime();
+        List<Long> groupIds = transactionTemplate.execute(status -> viewRepository.findStaleGroupIds());
+        groupIds.forEach(this::refreshQuietly);
+        if (!groupIds.isEmpty()) {
+            log.info("Rebuilt the group views of {} groups in {} ms", groupIds.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Rebuild the rows of one group from the write side: one per member, and none once
+     * the group or the membership is gone.
+     */
+    public void refresh(Long groupId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, UserGroupView> rows = viewRepository.findByGroupId(groupId).stream()
+                    .collect(Collectors.toMap(UserGroupView::getUserId, Function.identity()));
+
+            ExpenseGroup group = groupRepository.findByIdWithMembers(groupId);
+            if (group != null && !group.getMembers().isEmpty()) {
+                List<User> members = group.getMembers().stream()
+                        .sorted(Comparator.comparing(User::getId))
+                        .toList();
+                String initials = members.stream()
+                        .limit(AVATARS)
+                        .map(User::getInitials)
+                        .collect(Collectors.joining(" "));
+                LocalDateTime lastActivity = lastActivity(group);
+                List<BalanceDTO> balances = balanceService.calculateGroupBalances(groupId);
+
+                for (User member : members) {
+                    UserGroupView row = rows.remove(member.getId());
+                    if (row == null) {
+                        row = UserGroupView.builder().userId(member.getId()).groupId(groupId).build();
+                    }
+                    List<UserGroupCounterparty> counterparties = counterparties(member.getId(), balances);
+                    row.setGroupName(group.getName());
+                    row.setGroupDescription(group.getDescription());
+                    row.setMemberCount(members.size());
+                    row.setMemberInitials(initials);
+                    row.setLastActivityAt(lastActivity);
+                    row.setNetBalance(counterparties.stream()
+                            .map(UserGroupCounterparty::getAmount)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add));
+                    row.setCurrency(group.getBaseCurrency());
+                    row.setGroupVersion(group.getVersion());
+                    if (!row.getCounterparties().equals(counterparties)) {
+                        row.getCounterparties().clear();
+                        row.getCounterparties().addAll(counterparties);
+                    }
+                    viewRepository.save(row);
+                }
+            }
+            viewRepository.deleteAll(rows.values());
+        });
+    }
+
+    private void refreshLater(Long groupId) {
+        if (dirtyGroups.add(groupId)) {
+            refresher.execute(() -> {
+                dirtyGroups.remove(groupId);
+                refreshQuietly(groupId);
+            });
+        }
+    }
+
+    private void refreshQuietly(Long groupId) {
+        try {
+            refresh(groupId);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild the group views of group {}", groupId, e);
+        }
+    }
+
+    private LocalDateTime lastActivity(ExpenseGroup group) {
+        LocalDateTime latest = later(group.getCreatedAt(), group.getArchivedThrough());
+        latest = later(latest, expenseRepository.findLatestCreatedAt(group.getId()).orElse(null));
+        return later(latest, settlementRepository.findLatestCreatedAt(group.getId()).orElse(null));
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    /**
+     * The member's side of the group's simplified debts; positive amounts are owed to the member.
+     */
+    private static List<UserGroupCounterparty> counterparties(Long userId, List<BalanceDTO> balances) {
+        List<UserGroupCounterparty> counterparties = new ArrayList<>();
+        for (BalanceDTO balance : balances) {
+            if (balance.getToUserId().equals(userId)) {
+                counterparties.add(new UserGroupCounterparty(balance.getFromUserId(), balance.getFromUserName(),
+                        balance.getAmount()));
+            } else if (balance.getFromUserId().equals(userId)) {
+                counterparties.add(new UserGroupCounterparty(balance.getToUserId(), balance.getToUserName(),
+                        balance.getAmount().negate()));
+            }
+        }
+        return counterparties;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdown();
+    }
+}
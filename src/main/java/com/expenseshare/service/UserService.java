@@ -15,6 +15,7 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserBalanceService userBalanceService;
 
     /**
      * Register a new user.
@@ -30,7 +31,9 @@ public class UserService {
                 .password(password) // In production, hash this!
                 .build();
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userBalanceService.createEmpty(saved.getId());
+        return saved;
     }
 
     /**
@@ -0,0 +1,20 @@
+package db.migration;
+
+import com.expenseshare.ledger.LedgerOutboxBackfill;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Writes the ledger recorded before the outbox existed to it, so every node's event log
+ * can be read from the outbox alone. Finds nothing to write on a new database.
+ */
+public class V15__Backfill_ledger_outbox extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) {
+        new LedgerOutboxBackfill(new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true)))
+                .run();
+    }
+}
@@ -0,0 +1,15 @@
+-- Multi-currency expenses. Every group keeps its ledger in a base currency, and an expense
+-- may be entered in another one: the expense keeps what was entered as an ISO 4217 code
+-- and an amount in that currency's minor units (cents, or yen, or fils). amount and the
+-- split amounts stay in the group's base currency, converted at the rate of the day the
+-- expense was created, so balances, totals, snapshots and rollups add up base amounts only.
+-- A null currency means the expense was entered in the base currency: before this
+-- migration, or as an occurrence of a recurring expense.
+
+alter table expense_groups add column base_currency varchar(3) not null default 'INR';
+
+alter table expenses add column currency varchar(3);
+alter table expenses add column original_amount bigint;
+
+alter table expenses_archive add column currency varchar(3);
+alter table expenses_archive add column original_amount bigint;
@@ -0,0 +1,6 @@
+-- Ledger and optimistic lock versions of groups, added while the schema was still
+-- managed by ddl-auto=update; databases baselined at V1 do not have them yet.
+-- Both start at 0 like a new group's.
+
+alter table expense_groups add column ledger_version bigint not null default 0;
+alter table expense_groups add column version bigint not null default 0;
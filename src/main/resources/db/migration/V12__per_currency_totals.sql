@@ -0,0 +1,14 @@
+-- Totals across a user's groups are kept per currency: a group's balances are in its base
+-- currency, and amounts in different currencies do not add up. user_balances gets one row
+-- per user and currency. Its rows mixed currencies, so they are dropped here and rebuilt
+-- from the ledger on startup, like those of users that never had totals.
+
+delete from user_balances;
+alter table user_balances add column currency varchar(3) not null;
+alter table user_balances drop primary key;
+alter table user_balances add primary key (user_id, currency);
+
+-- The dashboard labels each group row with its currency and totals its rows per currency
+alter table user_group_views add column currency varchar(3) not null default 'INR';
+update user_group_views
+set currency = (select g.base_currency from expense_groups g where g.id = user_group_views.group_id);
@@ -0,0 +1,6 @@
+-- Groups being purged: when the purge last made progress, null otherwise. A purge that
+-- stops making progress (node restart, failure) is picked up again by a periodic sweep.
+
+alter table expense_groups add column purge_progress_at datetime(6);
+-- GroupRepository.findIdsWithStalledPurge
+create index idx_expense_groups_purge_progress on expense_groups (purge_progress_at);
@@ -0,0 +1,12 @@
+-- Ledger events, written in the same transaction as the ledger write that caused them, so
+-- a committed write always has its events and a rolled-back one never does. Ids follow
+-- insertion order; every node tails the table in id order into its local event log.
+-- created_at tells a gap left by a rolled-back insert from one whose commit is still pending.
+-- Rows are kept: they are the history a node without a local event log starts from.
+
+create table ledger_outbox (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null default current_timestamp(6),
+    payload mediumblob not null,
+    primary key (id)
+) engine=InnoDB;
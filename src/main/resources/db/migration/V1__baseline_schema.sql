@@ -0,0 +1,70 @@
+-- Baseline: exactly the schema Hibernate generated with ddl-auto=update before migrations
+-- were introduced. Existing databases are baselined at this version and skip it, so every
+-- later change to these tables belongs in a later migration.
+
+create table users (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table expense_groups (
+    created_at datetime(6),
+    created_by bigint,
+    id bigint not null auto_increment,
+    description varchar(255),
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table group_members (
+    group_id bigint not null,
+    user_id bigint not null,
+    primary key (group_id, user_id)
+) engine=InnoDB;
+
+create table expenses (
+    amount decimal(10,2) not null,
+    created_at datetime(6),
+    group_id bigint not null,
+    id bigint not null auto_increment,
+    paid_by bigint not null,
+    description varchar(255) not null,
+    split_type enum ('EQUAL','EXACT','PERCENTAGE') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table expense_splits (
+    amount decimal(10,2) not null,
+    percentage decimal(5,2),
+    expense_id bigint not null,
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table settlements (
+    amount decimal(10,2) not null,
+    created_at datetime(6),
+    group_id bigint not null,
+    id bigint not null auto_increment,
+    payee_id bigint not null,
+    payer_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table users add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table expense_groups add constraint FKk9sp9nu7nk8lxd94p19mlsycj foreign key (created_by) references users (id);
+alter table group_members add constraint FKnr9qg33qt2ovmv29g4vc3gtdx foreign key (user_id) references users (id);
+alter table group_members add constraint FKisujpa5c5bvgx5a2lqeoh1xwf foreign key (group_id) references expense_groups (id);
+alter table expenses add constraint FKos8mhdbm36u0ym29f8wken5ov foreign key (group_id) references expense_groups (id);
+alter table expenses add constraint FKiwqbj8x69qhvj7a41f5r3xy10 foreign key (paid_by) references users (id);
+alter table expense_splits add constraint FKqigr3qe91wgifpl6mak0xcdso foreign key (expense_id) references expenses (id);
+alter table expense_splits add constraint FKnikv7drxxkj9x862du3r4ruam foreign key (user_id) references users (id);
+alter table settlements add constraint FK9mx4t6x1vk096d2j3jtqpx5mw foreign key (group_id) references expense_groups (id);
+alter table settlements add constraint FKq0h48ikvagucwtb377ima563n foreign key (payee_id) references users (id);
+alter table settlements add constraint FKi6fvdyvpp8slwmjx9e87lujdo foreign key (payer_id) references users (id);
@@ -0,0 +1,28 @@
+-- V1 has MySQL's native enum here, as ddl-auto=update created it
+alter table expenses modify column split_type varchar(20) not null;
+
+-- Indexes for the repository queries. Each list query filters on a foreign key
+-- and orders by created_at, so both are in the index and no filesort is needed.
+-- InnoDB secondary indexes also hold the primary key, so joins that only need the
+-- id (e.g. through group_members) are answered from the index alone.
+
+-- ExpenseRepository.findByGroupId / findByGroupIdWithSplits, ExpenseSplitRepository.findByGroupId*
+create index idx_expenses_group_created on expenses (group_id, created_at);
+-- ExpenseRepository.findByPaidById
+create index idx_expenses_paid_by_created on expenses (paid_by, created_at);
+
+-- SettlementRepository.findByGroupId / findByGroupIdAndUserId
+create index idx_settlements_group_created on settlements (group_id, created_at);
+-- SettlementRepository.findByUserId (payer OR payee: index merge of both)
+create index idx_settlements_payer_created on settlements (payer_id, created_at);
+create index idx_settlements_payee_created on settlements (payee_id, created_at);
+
+-- Splits of an expense (join fetch, group queries)
+create index idx_expense_splits_expense_user on expense_splits (expense_id, user_id);
+-- ExpenseSplitRepository.findByUserId / findByGroupIdAndUserId
+create index idx_expense_splits_user_expense on expense_splits (user_id, expense_id);
+
+-- GroupRepository.findByMemberId and the ledger fingerprint (the primary key leads with group_id)
+create index idx_group_members_user_group on group_members (user_id, group_id);
+-- GroupRepository.findByCreatedById
+create index idx_expense_groups_created_by_created on expense_groups (created_by, created_at);
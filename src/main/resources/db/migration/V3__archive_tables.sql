@@ -0,0 +1,61 @@
+-- Archive tier: settled history moved out of the hot ledger tables.
+-- Same columns as the hot tables. No foreign keys, so archived rows never
+-- block writes to the hot tables or user deletes.
+
+create table expenses_archive (
+    amount decimal(10,2) not null,
+    created_at datetime(6),
+    group_id bigint not null,
+    id bigint not null,
+    paid_by bigint not null,
+    description varchar(255) not null,
+    split_type varchar(20) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table expense_splits_archive (
+    amount decimal(10,2) not null,
+    percentage decimal(5,2),
+    expense_id bigint not null,
+    id bigint not null,
+    user_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table settlements_archive (
+    amount decimal(10,2) not null,
+    created_at datetime(6),
+    group_id bigint not null,
+    id bigint not null,
+    payee_id bigint not null,
+    payer_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- Export reads a group's archive in date order
+create index idx_expenses_archive_group_created on expenses_archive (group_id, created_at);
+create index idx_expense_splits_archive_expense on expense_splits_archive (expense_id);
+create index idx_settlements_archive_group_created on settlements_archive (group_id, created_at);
+
+-- One opening-balance snapshot per archived group: the net balances at archived_through
+create table group_archives (
+    archived_through datetime(6) not null,
+    expense_count bigint not null,
+    group_id bigint not null,
+    settlement_count bigint not null,
+    updated_at datetime(6),
+    primary key (group_id)
+) engine=InnoDB;
+
+create table group_archive_balances (
+    amount decimal(10,2) not null,
+    group_id bigint not null,
+    user_id bigint not null,
+    primary key (group_id, user_id)
+) engine=InnoDB;
+
+alter table group_archives add constraint fk_group_archives_group foreign key (group_id) references expense_groups (id);
+alter table group_archive_balances add constraint fk_group_archive_balances_archive foreign key (group_id) references group_archives (group_id);
+
+-- Set once a group has an archive, so balance reads without one skip the snapshot lookup
+alter table expense_groups add column archived_through datetime(6);
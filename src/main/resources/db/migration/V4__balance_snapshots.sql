@@ -0,0 +1,23 @@
+-- Periodic per-group net-balance snapshots for point-in-time balance queries.
+-- A snapshot holds the net balance per user of everything created before taken_at.
+
+create table balance_snapshots (
+    group_id bigint not null,
+    id bigint not null auto_increment,
+    taken_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table balance_snapshot_entries (
+    amount decimal(15,2) not null,
+    snapshot_id bigint not null,
+    user_id bigint not null,
+    primary key (snapshot_id, user_id)
+) engine=InnoDB;
+
+-- BalanceSnapshotRepository.findLatestAtOrBefore and the invalidation after a delete
+create index idx_balance_snapshots_group_taken on balance_snapshots (group_id, taken_at);
+
+alter table balance_snapshots add constraint fk_balance_snapshots_group foreign key (group_id) references expense_groups (id);
+alter table balance_snapshot_entries add constraint fk_balance_snapshot_entries_snapshot foreign key (snapshot_id) references balance_snapshots (id);
+
@@ -0,0 +1,34 @@
+-- Read model for the dashboard and group list: one row per (user, group), maintained
+-- from write-side events. Counterparties are the user's simplified debts and credits
+-- in the group (positive amount = the counterparty owes the user).
+
+create table user_group_views (
+    group_id bigint not null,
+    user_id bigint not null,
+    group_name varchar(255) not null,
+    group_description varchar(255),
+    member_count integer not null,
+    member_initials varchar(255),
+    last_activity_at datetime(6),
+    net_balance decimal(15,2) not null,
+    group_version bigint not null,
+    updated_at datetime(6),
+    primary key (user_id, group_id)
+) engine=InnoDB;
+
+create table user_group_view_counterparties (
+    user_id bigint not null,
+    group_id bigint not null,
+    counterparty_id bigint not null,
+    counterparty_name varchar(255),
+    amount decimal(15,2) not null,
+    primary key (user_id, group_id, counterparty_id)
+) engine=InnoDB;
+
+-- UserGroupViewRepository.findByUserId: a user's groups, most recently active first
+create index idx_user_group_views_user_activity on user_group_views (user_id, last_activity_at);
+-- UserGroupViewRepository.findByGroupId: every member's row when a group is refreshed
+create index idx_user_group_views_group on user_group_views (group_id);
+
+alter table user_group_view_counterparties add constraint fk_user_group_view_counterparties_view
+    foreign key (user_id, group_id) references user_group_views (user_id, group_id);
@@ -0,0 +1,24 @@
+-- Per-user balance totals across the user's groups, updated in the same transaction as
+-- every ledger write that changes the user's net balance in a group. user_group_balances
+-- holds that net balance per membership, so a write can move the user's totals by the
+-- difference. Totals follow the simplified debts: a negative net balance in a group adds
+-- to total_owed, a positive one to total_owing.
+
+create table user_balances (
+    user_id bigint not null,
+    total_owed decimal(15,2) not null,
+    total_owing decimal(15,2) not null,
+    net_balance decimal(15,2) not null,
+    updated_at datetime(6),
+    primary key (user_id)
+) engine=InnoDB;
+
+create table user_group_balances (
+    user_id bigint not null,
+    group_id bigint not null,
+    net_balance decimal(15,2) not null,
+    primary key (user_id, group_id)
+) engine=InnoDB;
+
+-- UserGroupBalanceRepository.findUserIdsByGroupId: the members with a row when a group is deleted
+create index idx_user_group_balances_group on user_group_balances (group_id);
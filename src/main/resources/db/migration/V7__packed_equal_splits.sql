@@ -0,0 +1,9 @@
+-- EQUAL expenses keep their participants inline instead of one expense_splits row per
+-- member: ascending user ids, comma separated. Shares are the amount divided equally,
+-- with the last participant absorbing the rounding remainder, so they are expanded
+-- arithmetically on read. Null for split rows, which EXACT and PERCENTAGE expenses
+-- and EQUAL expenses written before this migration still use.
+
+alter table expenses add column participant_ids varchar(4000);
+
+alter table expenses_archive add column participant_ids varchar(4000);
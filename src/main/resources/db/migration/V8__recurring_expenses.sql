@@ -0,0 +1,35 @@
+-- Recurring expenses: a template per repeating expense of a group, with a cron rule and
+-- the time its next occurrence is due. The splits are calculated once, when the template
+-- is created, and copied onto every occurrence: EQUAL templates keep their participants
+-- inline like expenses.participant_ids, the others keep one row per member.
+
+create table recurring_expenses (
+    id bigint not null auto_increment,
+    group_id bigint not null,
+    description varchar(255) not null,
+    amount decimal(10,2) not null,
+    paid_by bigint not null,
+    split_type varchar(20) not null,
+    participant_ids varchar(4000),
+    schedule varchar(100) not null,
+    next_run_at datetime(6) not null,
+    created_by bigint not null,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table recurring_expense_splits (
+    recurring_expense_id bigint not null,
+    user_id bigint not null,
+    amount decimal(10,2) not null,
+    percentage decimal(5,2),
+    primary key (recurring_expense_id, user_id)
+) engine=InnoDB;
+
+-- RecurringExpenseRepository.findDueForUpdate: the scheduler claims the oldest due templates
+create index idx_recurring_expenses_next_run on recurring_expenses (next_run_at);
+-- RecurringExpenseRepository.findByGroupId: a group's templates on the group page
+create index idx_recurring_expenses_group on recurring_expenses (group_id, next_run_at);
+
+alter table recurring_expense_splits add constraint fk_recurring_expense_splits_expense
+    foreign key (recurring_expense_id) references recurring_expenses (id);
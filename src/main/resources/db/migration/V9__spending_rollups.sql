@@ -0,0 +1,26 @@
+-- Spending analytics: per group, member, day or month and split type, what the member
+-- paid, their share and how many expenses they paid. Maintained in the same transaction
+-- as every expense write, over live and archived expenses alike, so archiving leaves them
+-- untouched. spending_rollup_groups marks the groups whose rollups were built; writes to
+-- other groups skip the rollups until the startup backfill builds them.
+
+create table spending_rollups (
+    group_id bigint not null,
+    granularity varchar(5) not null,
+    bucket_start date not null,
+    user_id bigint not null,
+    split_type varchar(20) not null,
+    paid_amount decimal(15,2) not null,
+    share_amount decimal(15,2) not null,
+    expense_count integer not null,
+    primary key (group_id, granularity, bucket_start, user_id, split_type)
+) engine=InnoDB;
+
+create table spending_rollup_groups (
+    group_id bigint not null,
+    built_at datetime(6),
+    primary key (group_id)
+) engine=InnoDB;
+
+-- SpendingRollupRepository.findUserTotals: one member's spending across their groups
+create index idx_spending_rollups_user on spending_rollups (user_id, granularity, bucket_start);
@@ -177,6 +177,9 @@ document.addEventListener('DOMContentLoaded', function () {
 
     // Initialize expense form calculations
     initExpenseForm();
+
+    // Subscribe to live group updates
+    initLiveUpdates();
 });
 
 // ==================================
@@ -235,8 +238,9 @@ function initExpenseForm() {
 
     if (!amountInput) return;
 
-    // Update calculations when amount changes
+    // Update calculations when amount or currency changes
     amountInput.addEventListener('input', updateSplitCalculations);
+    document.getElementById('currency')?.addEventListener('change', updateSplitCalculations);
 
     // Update when checkboxes change (equal split)
     document.querySelectorAll('.member-checkbox').forEach(cb => {
@@ -267,16 +271,16 @@ function updateSplitCalculations() {
 
     const equalPreview = document.getElementById('equal-split-preview');
     if (equalPreview) {
-        equalPreview.textContent = '₹' + perPerson.toFixed(2);
+        equalPreview.textContent = formatCurrency(perPerson);
     }
 
     // Update individual split amounts
     document.querySelectorAll('.split-amount').forEach(el => {
         const checkbox = el.closest('.member-row')?.querySelector('.member-checkbox');
         if (checkbox?.checked) {
-            el.textContent = '₹' + perPerson.toFixed(2);
+            el.textContent = formatCurrency(perPerson);
         } else {
-            el.textContent = '₹0.00';
+            el.textContent = formatCurrency(0);
         }
     });
 
@@ -297,7 +301,7 @@ function updateExactTotal() {
 
     const remaining = document.getElementById('exact-remaining');
     if (remaining) {
-        remaining.textContent = '₹' + sum.toFixed(2) + ' / ₹' + totalAmount.toFixed(2);
+        remaining.textContent = formatCurrency(sum) + ' / ' + formatCurrency(totalAmount);
         remaining.className = Math.abs(sum - totalAmount) < 0.01 ? 'text-success' : 'text-danger';
     }
 }
@@ -314,7 +318,7 @@ function updatePercentageTotal() {
         const calcAmount = (totalAmount * percent / 100);
         const amountDisplay = input.closest('.member-row')?.querySelector('.calculated-amount');
         if (amountDisplay) {
-            amountDisplay.textContent = '₹' + calcAmount.toFixed(2);
+            amountDisplay.textContent = formatCurrency(calcAmount);
         }
     });
 
@@ -426,7 +430,7 @@ function animateValue(element, start, end, duration = 1000) {
         const easeOut = 1 - Math.pow(1 - progress, 3);
         const current = start + (range * easeOut);
 
-        element.textContent = '₹' + current.toFixed(2);
+        element.textContent = formatCurrency(current);
 
         if (progress < 1) {
             requestAnimationFrame(update);
@@ -440,7 +444,7 @@ function animateValue(element, start, end, duration = 1000) {
 document.addEventListener('DOMContentLoaded', function () {
     document.querySelectorAll('.balance-amount').forEach(el => {
         const text = el.textContent;
-        const match = text.match(/[₹$]?([\d,.]+)/);
+        const match = text.match(/([\d,.]+)/);
         if (match) {
             const value = parseFloat(match[1].replace(/,/g, ''));
             if (!isNaN(value) && value > 0) {
@@ -485,11 +489,205 @@ document.addEventListener('DOMContentLoaded', function () {
     });
 });
 
+// ==================================
+// Live Group Updates (Server-Sent Events)
+// ==================================
+function initLiveUpdates() {
+    const root = document.getElementById('groupLive');
+    if (!root || !window.EventSource) return;
+
+    const groupId = root.dataset.groupId;
+    const source = new EventSource(`/api/groups/${groupId}/events`);
+
+    source.addEventListener('ledger', function (e) {
+        const update = JSON.parse(e.data);
+        // The page or a later push already shows this version or a newer one
+        if (update.version == null || update.version <= Number(root.dataset.ledgerVersion)) return;
+        root.dataset.ledgerVersion = update.version;
+        renderBalances(update.balances, root.dataset.userId);
+        update.activities.forEach(activity => applyActivity(activity, groupId));
+
+        const settleAllVersion = document.getElementById('settleAllVersion');
+        if (settleAllVersion) settleAllVersion.value = update.version;
+    });
+}
+
+function createElement(tag, className, text) {
+    const el = document.createElement(tag);
+    if (className) el.className = className;
+    if (text !== undefined && text !== null) el.textContent = text;
+    return el;
+}
+
+function avatarFor(name) {
+    const avatar = createElement('div', 'user-avatar', (name || '??').substring(0, 2).toUpperCase());
+    avatar.style.cssText = 'width: 36px; height: 36px; font-size: 0.875rem;';
+    return avatar;
+}
+
+function renderBalances(balances, userId) {
+    const body = document.getElementById('balancesBody');
+    if (!body) return;
+
+    const count = document.getElementById('balancesCount');
+    if (count) count.textContent = balances.length + ' transactions';
+
+    let owed = 0;
+    let owing = 0;
+    balances.forEach(b => {
+        if (String(b.fromUserId) === userId) owed += parseFloat(b.amount);
+        if (String(b.toUserId) === userId) owing += parseFloat(b.amount);
+    });
+    const owedEl = document.getElementById('userOwed');
+    const owingEl = document.getElementById('userOwing');
+    if (owedEl) owedEl.textContent = formatCurrency(owed);
+    if (owingEl) owingEl.textContent = formatCurrency(owing);
+
+    body.replaceChildren();
+    if (balances.length === 0) {
+        const empty = createElement('div', 'empty-state');
+        empty.style.padding = '2rem 1rem';
+        empty.appendChild(createElement('p', null, 'Everyone is settled up!'));
+        body.appendChild(empty);
+        return;
+    }
+
+    const list = createElement('div', 'debt-list');
+    balances.forEach(b => {
+        const item = createElement('div', 'debt-item');
+        const users = createElement('div', 'debt-users');
+
+        const from = createElement('div', 'debt-user');
+        from.append(avatarFor(b.fromUserName), createElement('span', null, b.fromUserName));
+        const to = createElement('div', 'debt-user');
+        to.append(avatarFor(b.toUserName), createElement('span', null, b.toUserName));
+
+        users.append(from, createElement('span', 'debt-arrow', '→'), to);
+        item.append(users, createElement('div', 'debt-amount', formatCurrency(b.amount)));
+        list.appendChild(item);
+    });
+    body.appendChild(list);
+}
+
+function applyActivity(activity, groupId) {
+    if (!activity) return;
+
+    switch (activity.kind) {
+        case 'EXPENSE_ADDED':
+            prependExpense(activity, groupId);
+            ToastManager.info('New Expense', `${activity.fromUserName} added ${activity.description}`);
+            break;
+        case 'EXPENSE_DELETED':
+            document.querySelector(`[data-expense-id="${activity.id}"]`)?.remove();
+            break;
+        case 'EXPENSE_UPDATED':
+            updateExpense(activity);
+            break;
+        case 'SETTLEMENT_RECORDED':
+            prependSettlement(activity);
+            ToastManager.info('Settlement', `${activity.fromUserName} paid ${activity.toUserName}`);
+            break;
+        case 'SETTLEMENT_DELETED':
+            document.querySelector(`[data-settlement-id="${activity.id}"]`)?.remove();
+            break;
+    }
+}
+
+function prependExpense(activity, groupId) {
+    const body = document.getElementById('expensesBody');
+    if (!body || document.querySelector(`[data-expense-id="${activity.id}"]`)) return;
+
+    let list = body.querySelector('.expense-list');
+    if (!list) {
+        body.replaceChildren();
+        list = createElement('div', 'expense-list');
+        body.appendChild(list);
+    }
+
+    const item = createElement('div', 'expense-item');
+    item.dataset.expenseId = activity.id;
+    item.dataset.paidBy = activity.fromUserId;
+
+    const details = createElement('div', 'expense-details');
+    details.appendChild(createElement('div', 'expense-description', activity.description));
+    const meta = createElement('div', 'expense-meta', 'Paid by ');
+    meta.append(createElement('strong', null, activity.fromUserName), ` | ${activity.splitType} split | just now`);
+    details.appendChild(meta);
+
+    const amount = createElement('div', 'expense-amount');
+    amount.append(createElement('div', 'expense-total', formatCurrency(activity.amount)),
+        createElement('div', 'expense-split text-muted', activity.participantCount + ' people'));
+
+    const form = createElement('form');
+    form.method = 'post';
+    form.action = `/expenses/${activity.id}/delete`;
+    form.style.marginLeft = '0.5rem';
+    const hidden = createElement('input');
+    hidden.type = 'hidden';
+    hidden.name = 'groupId';
+    hidden.value = groupId;
+    const button = createElement('button', 'btn btn-ghost btn-icon', '×');
+    button.type = 'submit';
+    button.title = 'Delete';
+    button.onclick = () => confirm('Delete this expense?');
+    form.append(hidden, button);
+
+    const edit = createElement('a', 'btn btn-ghost btn-icon', '✎');
+    edit.href = `/expenses/${activity.id}/edit`;
+    edit.title = 'Edit';
+    edit.style.marginLeft = '0.5rem';
+
+    item.append(createElement('div', 'expense-icon', currencySymbol()), details, amount, edit, form);
+    list.prepend(item);
+}
+
+function updateExpense(activity) {
+    const item = document.querySelector(`[data-expense-id="${activity.id}"]`);
+    if (!item) return;
+
+    item.dataset.paidBy = activity.fromUserId;
+    item.querySelector('.expense-description').textContent = activity.description;
+    const payer = item.querySelector('.expense-meta strong');
+    if (payer) payer.textContent = activity.fromUserName;
+    item.querySelector('.expense-total').textContent = formatCurrency(activity.amount);
+    item.querySelector('.expense-split').textContent = activity.participantCount + ' people';
+}
+
+function prependSettlement(activity) {
+    const card = document.getElementById('settlementsCard');
+    const list = document.getElementById('settlementList');
+    if (!card || !list || document.querySelector(`[data-settlement-id="${activity.id}"]`)) return;
+
+    const item = createElement('div', 'expense-item');
+    item.dataset.settlementId = activity.id;
+
+    const details = createElement('div', 'expense-details');
+    const description = createElement('div', 'expense-description');
+    description.append(createElement('span', null, activity.fromUserName), ' paid ',
+        createElement('span', null, activity.toUserName));
+    details.append(description, createElement('div', 'expense-meta', 'just now'));
+
+    const amount = createElement('div', 'expense-amount');
+    amount.appendChild(createElement('div', 'expense-total text-success', formatCurrency(activity.amount)));
+
+    item.append(createElement('div', 'expense-icon', '✓'), details, amount);
+    list.prepend(item);
+    card.style.display = '';
+}
+
 // ==================================
 // Utility Functions
 // ==================================
+// Symbol of the amounts on the page: the currency picked on the expense form, else the group's
+function currencySymbol() {
+    const selected = document.getElementById('currency')?.selectedOptions[0];
+    return selected?.dataset.symbol
+        || document.querySelector('[data-currency-symbol]')?.dataset.currencySymbol
+        || '₹';
+}
+
 function formatCurrency(amount) {
-    return '₹' + parseFloat(amount).toFixed(2);
+    return currencySymbol() + parseFloat(amount).toFixed(2);
 }
 
 function debounce(func, wait) {
@@ -0,0 +1,137 @@
+package com.expenseshare.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.servlet.http.HttpSession;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * With a primary and a replica database, read-only transactions go to the replica and
+ * everything else to the primary; a replica too far behind is skipped, and a session
+ * reads from the primary for a while after a write, including the write that created it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.datasource.replicas.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replicas.lag-query=SELECT seconds FROM replica_lag",
+        "app.datasource.replicas.max-lag-seconds=5"})
+@ActiveProfiles({"seed", "embedded", "test", "replicas"})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void markDatabases() throws Exception {
+        // Outside a transaction, so on the primary
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node_marker (name VARCHAR(20))");
+        jdbcTemplate.execute("DELETE FROM node_marker");
+        jdbcTemplate.execute("INSERT INTO node_marker VALUES ('primary')");
+
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS node_marker (name VARCHAR(20))");
+            statement.execute("DELETE FROM node_marker");
+            statement.execute("INSERT INTO node_marker VALUES ('replica')");
+            statement.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds INT)");
+            statement.execute("DELETE FROM replica_lag");
+            statement.execute("INSERT INTO replica_lag VALUES (0)");
+        }
+        lagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaAndWritesToThePrimary() {
+        assertThat(lagMonitor.getHealthyReplicas()).containsExactly("replica-1");
+        assertThat(readIn(true)).isEqualTo("replica");
+        assertThat(readIn(false)).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM node_marker", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void aReplicaTooFarBehindIsSkippedUntilItCatchesUp() throws Exception {
+        setReplicaLag(60);
+        assertThat(lagMonitor.getHealthyReplicas()).isEmpty();
+        assertThat(readIn(true)).isEqualTo("primary");
+
+        setReplicaLag(1);
+        assertThat(readIn(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void aSessionReadsFromThePrimaryRightAfterAWrite() throws Exception {
+        // A sign-in: the write request has no session yet and creates one
+        MockHttpServletRequest signIn = new MockHttpServletRequest("POST", "/login");
+        assertThat(filter(signIn, true)).isEqualTo("primary");
+        HttpSession session = signIn.getSession(false);
+        assertThat(session).isNotNull();
+
+        MockHttpServletRequest next = new MockHttpServletRequest("GET", "/groups");
+        next.setSession(session);
+        assertThat(filter(next, false)).isEqualTo("primary");
+
+        MockHttpServletRequest otherSession = new MockHttpServletRequest("GET", "/groups");
+        otherSession.setSession(new MockHttpSession());
+        assertThat(filter(otherSession, false)).isEqualTo("replica");
+
+        session.setAttribute(ReadYourWritesFilter.PRIMARY_UNTIL, System.currentTimeMillis() - 1);
+        MockHttpServletRequest later = new MockHttpServletRequest("GET", "/groups");
+        later.setSession(session);
+        assertThat(filter(later, false)).isEqualTo("replica");
+    }
+
+    /**
+     * Runs the request through the filter and reads, in a read-only transaction, which
+     * database the request's reads went to.
+     */
+    private String filter(MockHttpServletRequest request, boolean createSession) throws Exception {
+        AtomicReference<String> database = new AtomicReference<>();
+        readYourWritesFilter.getFilter().doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            if (createSession) {
+                request.getSession(true);
+            }
+            database.set(readIn(true));
+        });
+        return database.get();
+    }
+
+    private String readIn(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node_marker", String.class));
+    }
+
+    private void setReplicaLag(int seconds) throws Exception {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE replica_lag SET seconds = " + seconds);
+        }
+        lagMonitor.check();
+    }
+}
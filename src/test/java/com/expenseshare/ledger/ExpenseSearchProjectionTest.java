@@ -0,0 +1,177 @@
+package com.expenseshare.ledger;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.UserRepository;
+import com.expenseshare.service.ExpenseService;
+import com.expenseshare.service.GroupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The search index answers from the event log: expenses written here are found by word
+ * prefix, payer and amount once the log has caught up, edits and deletions drop the old
+ * version, and an expense written by another node is found once its outbox row is tailed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class ExpenseSearchProjectionTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpenseSearchProjection searchProjection;
+
+    @Autowired
+    private LedgerOutboxTailer tailer;
+
+    @Autowired
+    private LedgerProjections projections;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long groupId;
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void createGroup() {
+        ExpenseGroup group = new TransactionTemplate(transactionManager).execute(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(0, 3)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            ExpenseGroup created = groupService.createGroup("Search test", null, "INR", users.get(0));
+            users.subList(1, users.size()).forEach(user -> groupService.addMember(created.getId(), user));
+            return created;
+        });
+        groupId = group.getId();
+    }
+
+    @Test
+    void findsExpensesByWordPrefixPayerAndAmount() {
+        Long dinner = addExpense("Dinner at Lakeside", "1200.00", memberIds.get(0)).getId();
+        Long taxi = addExpense("Taxi to the airport", "450.00", memberIds.get(1)).getId();
+        Long boat = addExpense("Lakeside boat rental", "800.00", memberIds.get(0)).getId();
+        catchUp();
+
+        assertThat(search(new ExpenseSearchProjection.Query("lake", null, null, null, null, null)))
+                .containsExactlyInAnyOrder(dinner, boat);
+        assertThat(search(new ExpenseSearchProjection.Query("LAKESIDE din", null, null, null, null, null)))
+                .containsExactly(dinner);
+        assertThat(search(new ExpenseSearchProjection.Query(null, memberIds.get(1), null, null, null, null)))
+                .containsExactly(taxi);
+        assertThat(search(new ExpenseSearchProjection.Query(null, null, 45_000L, 80_000L, null, null)))
+                .containsExactlyInAnyOrder(taxi, boat);
+        assertThat(search(new ExpenseSearchProjection.Query("lakes", null, null, null, null,
+                LocalDateTime.now().minusDays(1)))).isEmpty();
+        assertThat(search(new ExpenseSearchProjection.Query("train", null, null, null, null, null))).isEmpty();
+    }
+
+    @Test
+    void editsAndDeletionsReplaceTheOldDocument() {
+        Expense expense = addExpense("Groceries for the week", "300.00", memberIds.get(0));
+        Long lunch = addExpense("Lunch", "90.00", memberIds.get(1)).getId();
+        catchUp();
+        assertThat(search(new ExpenseSearchProjection.Query("groceries", null, null, null, null, null)))
+                .containsExactly(expense.getId());
+
+        Long editorId = memberIds.get(0);
+        expenseService.updateExpense(expense.getId(), dto("Market run", "310.00", editorId), editorId);
+        expenseService.deleteExpense(lunch, groupId);
+        catchUp();
+
+        assertThat(search(new ExpenseSearchProjection.Query("groceries", null, null, null, null, null))).isEmpty();
+        assertThat(search(new ExpenseSearchProjection.Query("market", null, 31_000L, 31_000L, null, null)))
+                .containsExactly(expense.getId());
+        assertThat(search(new ExpenseSearchProjection.Query("lunch", null, null, null, null, null))).isEmpty();
+    }
+
+    @Test
+    void findsAnExpenseWrittenByAnotherNodeOnceTheOutboxIsTailed() {
+        Long payerId = memberIds.get(0);
+        LocalDateTime createdAt = LocalDateTime.now().withNano(0);
+        // Another node's write: the expense and its outbox row in one transaction, with no local commit to
+        // trigger a tail. The payer owes their whole share, so nobody's balance moves
+        Long expenseId = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update("INSERT INTO expenses (group_id, description, amount, paid_by, split_type, "
+                    + "created_at) VALUES (?, 'Ferry tickets', 64.00, ?, 'EXACT', ?)", groupId, payerId, createdAt);
+            Long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM expenses WHERE group_id = ?", Long.class,
+                    groupId);
+            jdbcTemplate.update("INSERT INTO expense_splits (expense_id, user_id, amount) VALUES (?, ?, 64.00)",
+                    id, payerId);
+            jdbcTemplate.update("INSERT INTO ledger_outbox (payload) VALUES (?)", (Object) LedgerOutbox.payload(
+                    LedgerEvent.builder()
+                            .type(LedgerEvent.Type.EXPENSE_ADDED)
+                            .occurredAt(createdAt)
+                            .groupId(groupId)
+                            .entityId(id)
+                            .userId(payerId)
+                            .amount(6_400)
+                            .description("Ferry tickets")
+                            .shareUserIds(new long[]{payerId})
+                            .shareAmounts(new long[]{6_400})
+                            .build()));
+            return id;
+        });
+
+        catchUp();
+
+        assertThat(search(new ExpenseSearchProjection.Query("ferry", null, null, null, null, null)))
+                .containsExactly(expenseId);
+    }
+
+    private Expense addExpense(String description, String amount, Long payerId) {
+        return expenseService.addExpense(dto(description, amount, payerId));
+    }
+
+    private ExpenseDTO dto(String description, String amount, Long payerId) {
+        return ExpenseDTO.builder()
+                .groupId(groupId)
+                .description(description)
+                .amount(new BigDecimal(amount))
+                .paidById(payerId)
+                .splitType(SplitType.EQUAL)
+                .splitAmongUserIds(memberIds)
+                .build();
+    }
+
+    private void catchUp() {
+        tailer.tail();
+        projections.catchUp();
+    }
+
+    private List<Long> search(ExpenseSearchProjection.Query query) {
+        Map<Long, LocalDateTime> groups = Collections.singletonMap(groupId, null);
+        return searchProjection.search(groups, query, 20).stream()
+                .map(ExpenseSearchProjection.Hit::expenseId)
+                .toList();
+    }
+}
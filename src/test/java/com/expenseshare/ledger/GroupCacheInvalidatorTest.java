@@ -0,0 +1,94 @@
+package com.expenseshare.ledger;
+
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.UserRepository;
+import com.expenseshare.service.GroupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A group cached on this node, then changed by another node, is served from the cache until
+ * the change's ledger event is tailed from the outbox, and loaded afresh after that.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class GroupCacheInvalidatorTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LedgerOutboxTailer tailer;
+
+    @Autowired
+    private LedgerProjections projections;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long groupId;
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void createGroup() {
+        ExpenseGroup group = new TransactionTemplate(transactionManager).execute(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(3, 3)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            ExpenseGroup created = groupService.createGroup("Cached group", null, "INR", users.get(0));
+            users.subList(1, users.size()).forEach(user -> groupService.addMember(created.getId(), user));
+            return created;
+        });
+        groupId = group.getId();
+    }
+
+    @Test
+    void dropsAGroupAnotherNodeChangedOnceItsEventIsTailed() {
+        Long leaving = memberIds.get(2);
+        assertThat(cachedState()).containsExactly(0L, memberIds.size());
+
+        // Another node's member removal; its outbox row is held back to show the cached copy first
+        jdbcTemplate.update("DELETE FROM group_members WHERE group_id = ? AND user_id = ?", groupId, leaving);
+        jdbcTemplate.update("UPDATE expense_groups SET ledger_version = ledger_version + 1 WHERE id = ?", groupId);
+        assertThat(cachedState()).containsExactly(0L, memberIds.size());
+
+        jdbcTemplate.update("INSERT INTO ledger_outbox (payload) VALUES (?)",
+                (Object) LedgerOutbox.payload(LedgerEvent.memberLeft(groupId, leaving)));
+        tailer.tail();
+        projections.catchUp();
+
+        assertThat(cachedState()).containsExactly(1L, memberIds.size() - 1);
+    }
+
+    /**
+     * The group's ledger version and member count, as a new session sees them.
+     */
+    private List<Object> cachedState() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            ExpenseGroup group = groupRepository.findById(groupId).orElseThrow();
+            return List.of(group.getLedgerVersion(), group.getMembers().size());
+        });
+    }
+}
@@ -0,0 +1,157 @@
+package com.expenseshare.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The event log survives a crash: a record torn at the tail of a segment is cut off when
+ * the log is opened again, appends carry on after the last whole record, and a log whose
+ * events carry no outbox ids is dropped so the tailer reads the outbox again.
+ */
+class LedgerEventLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void cutsOffARecordWithABadChecksum() throws IOException {
+        LedgerEventLog log = open(SEGMENT_BYTES);
+        log.append(List.of(event(1), event(2), event(3)));
+        log.close();
+
+        // The third record's length made it to disk but its payload did not
+        try (FileChannel channel = FileChannel.open(onlySegment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int third = recordOffsets(buffer).get(2);
+            buffer.put(third + LogSegment.HEADER_BYTES, (byte) ~buffer.get(third + LogSegment.HEADER_BYTES));
+            buffer.force();
+        }
+
+        log = open(SEGMENT_BYTES);
+        assertThat(log.lastSequence()).isEqualTo(2);
+        assertThat(log.lastOutboxId()).isEqualTo(2);
+
+        assertThat(log.append(List.of(event(4)))).isEqualTo(3);
+        assertThat(outboxIds(log)).containsExactly(1L, 2L, 4L);
+        log.close();
+
+        assertThat(outboxIds(open(SEGMENT_BYTES))).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void cutsOffAHeaderWhosePayloadRunsPastTheSegment() throws IOException {
+        LedgerEventLog log = open(SEGMENT_BYTES);
+        log.append(List.of(event(1), event(2)));
+        log.close();
+
+        try (FileChannel channel = FileChannel.open(onlySegment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            List<Integer> offsets = recordOffsets(buffer);
+            int last = offsets.get(offsets.size() - 1);
+            int end = last + LogSegment.HEADER_BYTES + buffer.getInt(last);
+            buffer.putInt(end, SEGMENT_BYTES);
+            buffer.putInt(end + 4, 12345);
+            buffer.force();
+        }
+
+        log = open(SEGMENT_BYTES);
+        assertThat(log.lastSequence()).isEqualTo(2);
+        log.append(List.of(event(3)));
+        assertThat(outboxIds(log)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void readsEveryEventBackAcrossSegments() {
+        LedgerEventLog log = open(256);
+        for (long id = 1; id <= 40; id++) {
+            log.append(List.of(event(id)));
+        }
+        log.close();
+
+        log = open(256);
+        List<Long> sequences = new ArrayList<>();
+        log.read(0, event -> sequences.add(event.getSequence()));
+        assertThat(sequences).containsExactlyElementsOf(LongStream.rangeClosed(1, 40).boxed().toList());
+        assertThat(outboxIds(log)).containsExactlyElementsOf(sequences);
+        assertThat(log.lastOutboxId()).isEqualTo(40);
+
+        List<Long> tail = new ArrayList<>();
+        log.read(37, event -> tail.add(event.getOutboxId()));
+        assertThat(tail).containsExactly(38L, 39L, 40L);
+    }
+
+    @Test
+    void dropsALogWrittenBeforeTheOutbox() throws IOException {
+        LedgerEventLog log = open(SEGMENT_BYTES);
+        log.append(List.of(event(0), event(0)));
+        log.close();
+
+        log = open(SEGMENT_BYTES);
+        assertThat(log.lastSequence()).isZero();
+        assertThat(log.lastOutboxId()).isZero();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    private LedgerEventLog open(int segmentBytes) {
+        LedgerEventLog log = new LedgerEventLog(directory.toString(), segmentBytes, false);
+        log.open();
+        return log;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.reduce((a, b) -> {
+                throw new IllegalStateException("More than one segment in " + directory);
+            }).orElseThrow();
+        }
+    }
+
+    private static List<Integer> recordOffsets(MappedByteBuffer buffer) {
+        List<Integer> offsets = new ArrayList<>();
+        int position = 0;
+        while (buffer.getInt(position) != 0) {
+            offsets.add(position);
+            position += LogSegment.HEADER_BYTES + buffer.getInt(position);
+        }
+        return offsets;
+    }
+
+    private static List<Long> outboxIds(LedgerEventLog log) {
+        List<Long> ids = new ArrayList<>();
+        log.read(0, event -> ids.add(event.getOutboxId()));
+        return ids;
+    }
+
+    private static LedgerEvent event(long outboxId) {
+        return LedgerEvent.builder()
+                .outboxId(outboxId)
+                .type(LedgerEvent.Type.EXPENSE_ADDED)
+                .occurredAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .groupId(7)
+                .entityId(100 + outboxId)
+                .userId(1)
+                .amount(2_500)
+                .description("Expense " + outboxId)
+                .shareUserIds(new long[]{1, 2})
+                .shareAmounts(new long[]{1_250, 1_250})
+                .build();
+    }
+}
@@ -0,0 +1,235 @@
+package com.expenseshare.metrics;
+
+import com.expenseshare.repository.BalanceSnapshotRepository;
+import com.expenseshare.repository.ExpenseRepository;
+import com.expenseshare.repository.ExpenseSplitRepository;
+import com.expenseshare.repository.GroupArchiveRepository;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.RecurringExpenseRepository;
+import com.expenseshare.repository.SettlementRepository;
+import com.expenseshare.repository.SpendingRollupGroupRepository;
+import com.expenseshare.repository.SpendingRollupRepository;
+import com.expenseshare.repository.UserBalanceRepository;
+import com.expenseshare.repository.UserGroupBalanceRepository;
+import com.expenseshare.repository.UserGroupViewRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.query.Param;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * EXPLAIN every @Query of the ledger repositories, JPQL and native, reads and writes, and
+ * find the tables each plan reads in full, by a table scan or by walking a whole index
+ * without a condition, on MySQL or H2. Plans depend on the
+ * data, so run it against a seeded database. Used by {@link QueryPlanCheckTest} and the
+ * load-test report.
+ */
+public class QueryPlanCheck {
+
+    public static final List<Class<?>> REPOSITORIES = List.of(
+            ExpenseRepository.class, ExpenseSplitRepository.class, SettlementRepository.class, GroupRepository.class,
+            GroupArchiveRepository.class, BalanceSnapshotRepository.class, UserGroupViewRepository.class,
+            UserBalanceRepository.class, UserGroupBalanceRepository.class, RecurringExpenseRepository.class,
+            SpendingRollupRepository.class, SpendingRollupGroupRepository.class);
+
+    /**
+     * Queries that read every row on purpose, with the reason. Each runs once per start-up
+     * or sweep, in batches, never on a request.
+     */
+    public static final Map<String, String> UNCHECKED = Map.of(
+            "GroupRepository.findGroupIdsWithHistorySince",
+            "nightly snapshot job: one probe per group of its expense and settlement indexes",
+            "GroupArchiveRepository.findGroupIdsWithHistoryBefore",
+            "nightly archive job: one probe per group of its expense and settlement indexes",
+            "SpendingRollupGroupRepository.findGroupIdsWithoutRollups",
+            "start-up backfill: anti-join of every group against the rollups",
+            "UserBalanceRepository.findUserIdsWithoutBalance",
+            "start-up backfill: anti-join of every user against their totals",
+            "UserGroupViewRepository.findStaleGroupIds",
+            "reconcile sweep: compares every membership with the group views");
+
+    /** Id bound to every id parameter; seeded ids start at 1. */
+    private static final long SAMPLE_ID = 1L;
+
+    /** Bound to every date parameter: after all seeded data, so range predicates match every row. */
+    private static final LocalDateTime SAMPLE_TIME = LocalDateTime.now();
+
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("(\\w+)\\.tableScan");
+
+    /** A table read through an index with no condition on it, other than a MIN/MAX lookup. */
+    private static final Pattern H2_INDEX_SCAN =
+            Pattern.compile("\\.\"(\\w+)\"(?: \"\\w+\")?\\s+/\\* \\w+\\.\\w+ \\*/(?!\\s*/\\* direct lookup)");
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<!:):(\\w+)");
+
+    private final SessionFactory sessionFactory;
+    private final DataSource dataSource;
+
+    public QueryPlanCheck(EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Tables read with a full scan per query, keyed by repository and method name in
+     * repository order; empty for queries that only use indexes. Leaves out {@link #UNCHECKED}.
+     */
+    public Map<String, Set<String>> fullScans() throws SQLException {
+        Map<String, Set<String>> scans = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean h2 = connection.getMetaData().getDatabaseProductName().startsWith("H2");
+            for (Class<?> repository : REPOSITORIES) {
+                Method[] methods = repository.getDeclaredMethods();
+                Arrays.sort(methods, Comparator.comparing(Method::getName));
+                for (Method method : methods) {
+                    org.springframework.data.jpa.repository.Query query =
+                            method.getAnnotation(org.springframework.data.jpa.repository.Query.class);
+                    String name = repository.getSimpleName() + "." + method.getName();
+                    if (query == null || UNCHECKED.containsKey(name)) {
+                        continue;
+                    }
+                    if (query.nativeQuery()) {
+                        List<Object> values = new ArrayList<>();
+                        String sql = bindNative(query.value(), method, values);
+                        scans.put(name, explain(connection, h2, sql, values));
+                    } else {
+                        String sql = captureSql(query.value(), method.isAnnotationPresent(Modifying.class));
+                        scans.put(name, explain(connection, h2, sql, null));
+                    }
+                }
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Rewrite the named parameters of a native query as JDBC ones and add a sample value
+     * for each, by the type of the method parameter it names.
+     */
+    private static String bindNative(String sql, Method method, List<Object> values) {
+        Map<String, Class<?>> types = new LinkedHashMap<>();
+        for (Parameter parameter : method.getParameters()) {
+            Param param = parameter.getAnnotation(Param.class);
+            if (param != null) {
+                types.put(param.value(), parameter.getType());
+            }
+        }
+        Matcher matcher = NAMED_PARAMETER.matcher(sql);
+        StringBuilder bound = new StringBuilder();
+        while (matcher.find()) {
+            Class<?> type = types.get(matcher.group(1));
+            if (type == null) {
+                throw new IllegalStateException(method + " has no parameter named " + matcher.group(1));
+            }
+            values.add(LocalDateTime.class.equals(type) ? Timestamp.valueOf(SAMPLE_TIME)
+                    : LocalDate.class.equals(type) ? Date.valueOf(SAMPLE_TIME.toLocalDate()) : SAMPLE_ID);
+            matcher.appendReplacement(bound, "?");
+        }
+        matcher.appendTail(bound);
+        return bound.toString();
+    }
+
+    /**
+     * Run the JPQL once with sample ids and return the SQL Hibernate sent for it. Updates
+     * and deletes get an id no row has, and run in a transaction that is rolled back.
+     */
+    private String captureSql(String jpql, boolean modifying) {
+        List<String> statements = new ArrayList<>();
+        try (Session session = sessionFactory.withOptions()
+                .statementInspector(sql -> {
+                    statements.add(sql);
+                    return sql;
+                })
+                .openSession()) {
+            Query<?> query = session.createQuery(jpql);
+            for (jakarta.persistence.Parameter<?> parameter : query.getParameters()) {
+                if (LocalDateTime.class.equals(parameter.getParameterType())) {
+                    query.setParameter(parameter.getName(), SAMPLE_TIME);
+                } else if (LocalDate.class.equals(parameter.getParameterType())) {
+                    query.setParameter(parameter.getName(), SAMPLE_TIME.toLocalDate());
+                } else if (parameter.getParameterType() != null && parameter.getParameterType().isEnum()) {
+                    query.setParameter(parameter.getName(), parameter.getParameterType().getEnumConstants()[0]);
+                } else {
+                    query.setParameter(parameter.getName(), modifying ? 0L : SAMPLE_ID);
+                }
+            }
+            if (modifying) {
+                session.beginTransaction();
+                try {
+                    query.executeUpdate();
+                } finally {
+                    session.getTransaction().rollback();
+                }
+            } else {
+                query.list();
+            }
+        }
+        return statements.get(0);
+    }
+
+    /**
+     * EXPLAIN the SQL with the given values, or with sample values by the JDBC parameter
+     * types when there are none.
+     */
+    private Set<String> explain(Connection connection, boolean h2, String sql, List<Object> values)
+            throws SQLException {
+        Set<String> scans = new TreeSet<>();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = values != null ? values.size() : statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                if (values != null) {
+                    statement.setObject(i, values.get(i - 1));
+                } else if (statement.getParameterMetaData().getParameterType(i) == Types.TIMESTAMP) {
+                    statement.setTimestamp(i, Timestamp.valueOf(SAMPLE_TIME));
+                } else if (statement.getParameterMetaData().getParameterType(i) == Types.DATE) {
+                    statement.setDate(i, Date.valueOf(SAMPLE_TIME.toLocalDate()));
+                } else {
+                    statement.setLong(i, SAMPLE_ID);
+                }
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    if (h2) {
+                        // H2 returns the plan as text with a /* table.tableScan */ marker per scanned table,
+                        // and a bare /* index */ one per table read through a whole index
+                        for (Pattern pattern : List.of(H2_TABLE_SCAN, H2_INDEX_SCAN)) {
+                            Matcher matcher = pattern.matcher(rs.getString(1));
+                            while (matcher.find()) {
+                                scans.add(matcher.group(1));
+                            }
+                        }
+                    } else if ("ALL".equals(rs.getString("type")) || "index".equals(rs.getString("type"))) {
+                        // MySQL: one row per table, access type ALL is a table scan and index a full index scan
+                        scans.add(rs.getString("table"));
+                    }
+                }
+            }
+        }
+        return scans;
+    }
+}
@@ -0,0 +1,43 @@
+package com.expenseshare.metrics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every repository query, native and modifying ones included, must be answered from
+ * indexes on the seeded dataset; only the sweeps in {@link QueryPlanCheck#UNCHECKED} may scan.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class QueryPlanCheckTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void repositoryQueriesDoNotScanTables() throws Exception {
+        Map<String, Set<String>> scans = new QueryPlanCheck(entityManagerFactory, dataSource).fullScans();
+
+        assertThat(scans).containsKeys("GroupRepository.bumpLedgerVersion", "GroupArchiveRepository.copySplitsBefore",
+                "GroupRepository.findIdsWithStalledPurge", "ExpenseRepository.deleteByIdIn");
+        assertThat(scans).doesNotContainKeys(QueryPlanCheck.UNCHECKED.keySet().toArray(String[]::new));
+        assertThat(scans.entrySet().stream()
+                .filter(query -> !query.getValue().isEmpty())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
+                .as("queries with full table scans")
+                .isEmpty();
+    }
+}
@@ -0,0 +1,294 @@
+package com.expenseshare.metrics;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Walk every budgeted controller route once as a seeded user, so each
+ * route's @SqlBudget is checked even when the load mix never reaches it.
+ * Write routes run against a throwaway group that is deleted at the end.
+ * Run by the SQL budget test in the build and by the load test after its run.
+ */
+public class RouteSweep {
+
+    private static final Pattern GROUP_LINK = Pattern.compile("href=\"/groups/(\\d+)\"");
+    private static final Pattern GROUP_REDIRECT = Pattern.compile("/groups/(\\d+)$");
+    private static final Pattern EXPENSE_ID = Pattern.compile("data-expense-id=\"(\\d+)\"");
+    private static final Pattern SETTLEMENT_ID = Pattern.compile("data-settlement-id=\"(\\d+)\"");
+    private static final Pattern RECURRING_ID = Pattern.compile("data-recurring-id=\"(\\d+)\"");
+    private static final Pattern SETTLE_ALL_VERSION = Pattern.compile(
+            "id=\"settleAllVersion\"[^>]*value=\"(\\d+)\"");
+    private static final Pattern EURO_TOTAL = Pattern.compile("class=\"balance-amount[^\"]*\">[+-]?\u20ac");
+    private static final Pattern JSON_ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern SESSION_COOKIE = Pattern.compile("JSESSIONID=([^;]+)");
+    private static final int EVENT_STREAM_WAIT_SECONDS = 3;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final PrintStream out;
+    private String sessionCookie;
+    private int failures;
+
+    public RouteSweep(HttpClient client, String baseUrl, PrintStream out) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.out = out;
+    }
+
+    /**
+     * Every route with an @SqlBudget, as "METHOD pattern", with its budget. The sweep should
+     * reach each of them.
+     */
+    public static Map<String, Integer> budgetedRoutes(RequestMappingHandlerMapping handlerMapping) {
+        Map<String, Integer> budgets = new TreeMap<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            SqlBudget budget = entry.getValue().getMethodAnnotation(SqlBudget.class);
+            if (budget == null) {
+                continue;
+            }
+            Set<RequestMethod> methods = entry.getKey().getMethodsCondition().getMethods();
+            for (String pattern : entry.getKey().getPatternValues()) {
+                for (RequestMethod method : methods) {
+                    budgets.put(method.name() + " " + pattern, budget.value());
+                }
+            }
+        }
+        return budgets;
+    }
+
+    /**
+     * Run the sweep as owner, adding the other two accounts as members.
+     * Returns the number of routes that answered with an unexpected status.
+     */
+    public int run(String ownerEmail, String memberEmail, String otherEmail, String password)
+            throws IOException, InterruptedException {
+        HttpResponse<String> login = send(post("/login", form("email", ownerEmail, "password", password)));
+        Matcher cookie = SESSION_COOKIE.matcher(String.join(";", login.headers().allValues("Set-Cookie")));
+        if (!cookie.find()) {
+            out.println("Route sweep: cannot log in as " + ownerEmail);
+            return 1;
+        }
+        sessionCookie = "JSESSIONID=" + cookie.group(1);
+
+        long ownerId = userId(ownerEmail);
+        long memberId = userId(memberEmail);
+        long otherId = userId(otherEmail);
+
+        // Read routes on an existing seeded group
+        String groups = expect(200, get("/groups")).body();
+        Matcher link = GROUP_LINK.matcher(groups);
+        if (link.find()) {
+            long seeded = Long.parseLong(link.group(1));
+            expect(200, get("/groups/" + seeded));
+            expect(200, get("/groups/" + seeded + "/expenses/new"));
+            expect(200, get("/api/groups/" + seeded + "/balances"));
+            expect(200, get("/api/groups/" + seeded + "/balances?asOf=2025-06-30T23:59:59"));
+            expect(200, get("/api/groups/" + seeded + "/balances/user"));
+            expect(200, get("/api/groups/" + seeded + "/archive"));
+            expect(200, get("/api/groups/" + seeded + "/activity"));
+            expect(200, get("/api/expenses/search?q=seed&groupId=" + seeded));
+            expect(200, get("/expenses/search?groupId=" + seeded + "&minAmount=10&maxAmount=300"));
+            expect(200, get("/api/groups/" + seeded + "/spending"));
+            expect(200, get("/api/groups/" + seeded + "/spending?granularity=DAY&from=2025-01-01&to=2025-12-31"));
+            expect(400, get("/api/groups/" + seeded + "/spending?granularity=DAY&from=2020-01-01&to=2025-12-31"));
+            openEventStream(seeded);
+        }
+        expect(200, get("/dashboard"));
+        expect(200, get("/groups/new"));
+        expect(200, get("/api/users/balance"));
+        expect(200, get("/api/users/search?query=seed"));
+        expect(200, get("/api/expenses/search?q=seed%20expe&from=2020-01-01&to=2030-12-31"));
+        expect(200, get("/expenses/search?q=load"));
+        expect(200, get("/api/users/spending"));
+        expect(200, get("/api/users/spending?granularity=DAY&from=2025-01-01&to=2025-12-31"));
+
+        // Write routes on a throwaway group
+        HttpResponse<String> created = expect(302, post("/groups",
+                form("name", "Route sweep", "description", "SQL budget sweep", "baseCurrency", "EUR",
+                        "memberEmails", memberEmail)));
+        Matcher redirect = GROUP_REDIRECT.matcher(created.headers().firstValue("Location").orElse(""));
+        if (!redirect.find()) {
+            out.println("Route sweep: group creation did not redirect to the new group");
+            return failures + 1;
+        }
+        long groupId = Long.parseLong(redirect.group(1));
+        String group = "/groups/" + groupId;
+
+        expect(302, post(group + "/members", form("email", otherEmail)));
+        addExpense(group, ownerId, memberId);
+        addRecurringExpense(group, ownerId, memberId);
+        expect(302, post(group + "/settle",
+                form("payerId", String.valueOf(memberId), "payeeId", String.valueOf(ownerId), "amount", "1.00")));
+        expect(302, post(group + "/remind", form("toUserId", String.valueOf(memberId), "amount", "1.00")));
+
+        String detail = expect(200, get(group)).body();
+        String groupParam = form("groupId", String.valueOf(groupId));
+        firstId(EXPENSE_ID, detail, id -> {
+            expect(200, get("/expenses/" + id + "/edit"));
+            // Edited into another currency than the group's, so it is converted
+            expect(302, post("/expenses/" + id + "/edit", form("description", "Route sweep edit", "amount", "35.00",
+                    "currency", "USD", "paidById", String.valueOf(ownerId), "splitType", "EXACT",
+                    "exactAmount_" + ownerId, "10.00", "exactAmount_" + memberId, "25.00")));
+            if (!expect(200, get(group)).body().contains("$35.00")) {
+                out.println("Route sweep: the expense edited in USD does not show its original amount");
+                failures++;
+            }
+            expect(302, post("/expenses/" + id + "/delete", groupParam));
+        });
+        firstId(SETTLEMENT_ID, detail, id -> expect(302, post("/settlements/" + id + "/delete", groupParam)));
+        firstId(RECURRING_ID, detail, id -> expect(302, post("/recurring-expenses/" + id + "/delete", groupParam)));
+        // Left for the group deletion to remove
+        addRecurringExpense(group, ownerId, memberId);
+
+        addExpense(group, ownerId, memberId);
+        // The seeded groups are in rupees, so the euro balance gets totals of its own
+        if (!EURO_TOTAL.matcher(expect(200, get("/dashboard")).body()).find()) {
+            out.println("Route sweep: the dashboard shows no euro totals next to the rupee ones");
+            failures++;
+        }
+        expect(200, get("/api/groups/" + groupId + "/spending"));
+        HttpResponse<String> balances = expect(200, get("/api/groups/" + groupId + "/balances"));
+        String etag = balances.headers().firstValue("ETag").orElse("");
+        expect(200, HttpRequest.newBuilder(URI.create(baseUrl + "/api/groups/" + groupId + "/settlements/batch"))
+                .header("Cookie", sessionCookie)
+                .header("If-Match", etag)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("[]"))
+                .build());
+
+        addExpense(group, ownerId, memberId);
+        Matcher version = SETTLE_ALL_VERSION.matcher(expect(200, get(group)).body());
+        if (version.find()) {
+            expect(302, post(group + "/settle-all", form("version", version.group(1))));
+        } else {
+            out.println("Route sweep: no settle-all version on " + group);
+            failures++;
+        }
+
+        expect(302, post(group + "/members/" + otherId + "/remove", ""));
+        expect(302, post(group + "/delete", ""));
+        return failures;
+    }
+
+    private void addExpense(String group, long payerId, long otherId) throws IOException, InterruptedException {
+        expect(302, post(group + "/expenses", form("description", "Route sweep", "amount", "30.00",
+                "paidById", String.valueOf(payerId), "splitType", "EQUAL",
+                "splitAmongUserIds", String.valueOf(payerId), "splitAmongUserIds", String.valueOf(otherId))));
+    }
+
+    private void addRecurringExpense(String group, long payerId, long otherId)
+            throws IOException, InterruptedException {
+        expect(302, post(group + "/expenses", form("description", "Route sweep rent", "amount", "30.00",
+                "paidById", String.valueOf(payerId), "splitType", "EXACT", "repeat", "MONTHLY",
+                "exactAmount_" + payerId, "10.00", "exactAmount_" + otherId, "20.00")));
+    }
+
+    /**
+     * Open the SSE stream and hang up. The server only flushes headers with the
+     * first event, so a stream still open after a short wait counts as subscribed.
+     */
+    private void openEventStream(long groupId) throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<InputStream>> future = client.sendAsync(
+                get("/api/groups/" + groupId + "/events"), HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            HttpResponse<InputStream> response = future.get(EVENT_STREAM_WAIT_SECONDS, TimeUnit.SECONDS);
+            response.body().close();
+            check(200, response.statusCode(), "GET /api/groups/" + groupId + "/events");
+        } catch (TimeoutException e) {
+            future.cancel(true);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private long userId(String email) throws IOException, InterruptedException {
+        String body = expect(200, get("/api/users/check?email=" + URLEncoder.encode(email, StandardCharsets.UTF_8)))
+                .body();
+        Matcher id = JSON_ID.matcher(body);
+        if (!id.find()) {
+            throw new IllegalStateException("Unknown seeded user: " + email);
+        }
+        return Long.parseLong(id.group(1));
+    }
+
+    private void firstId(Pattern pattern, String html, IdAction action) throws IOException, InterruptedException {
+        Matcher id = pattern.matcher(html);
+        if (id.find()) {
+            action.accept(Long.parseLong(id.group(1)));
+        } else {
+            out.println("Route sweep: no " + pattern.pattern() + " on the group page");
+            failures++;
+        }
+    }
+
+    private HttpResponse<String> expect(int status, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request);
+        check(status, response.statusCode(), request.method() + " " + request.uri().getPath());
+        return response;
+    }
+
+    private void check(int expected, int actual, String route) {
+        if (expected != actual) {
+            out.printf("Route sweep: %s returned %d, expected %d%n", route, actual, expected);
+            failures++;
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest get(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (sessionCookie != null) {
+            builder.header("Cookie", sessionCookie);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (sessionCookie != null) {
+            builder.header("Cookie", sessionCookie);
+        }
+        return builder.build();
+    }
+
+    private static String form(String... pairs) {
+        StringJoiner joiner = new StringJoiner("&");
+        for (int i = 0; i < pairs.length; i += 2) {
+            joiner.add(URLEncoder.encode(pairs[i], StandardCharsets.UTF_8) + "="
+                    + URLEncoder.encode(pairs[i + 1], StandardCharsets.UTF_8));
+        }
+        return joiner.toString();
+    }
+
+    @FunctionalInterface
+    private interface IdAction {
+        void accept(long id) throws IOException, InterruptedException;
+    }
+}
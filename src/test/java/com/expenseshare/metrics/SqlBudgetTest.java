@@ -0,0 +1,77 @@
+package com.expenseshare.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every route with an @SqlBudget must stay within it when swept once as a seeded user,
+ * and the sweep must reach every such route.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class SqlBudgetTest {
+
+    private static final String PASSWORD = "password";
+
+    // Seeded accounts in a group, in id order: the first owns the sweep, the next two join its group
+    private static final String MEMBER_EMAILS = "SELECT u.email FROM users u WHERE EXISTS "
+            + "(SELECT 1 FROM group_members m WHERE m.user_id = u.id) ORDER BY u.id LIMIT 3";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+    @Test
+    void budgetedRoutesStayWithinTheirBudgets() throws Exception {
+        List<String> emails = jdbcTemplate.queryForList(MEMBER_EMAILS, String.class);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        int failures = new RouteSweep(client, "http://localhost:" + port, System.out)
+                .run(emails.get(0), emails.get(1), emails.get(2), PASSWORD);
+
+        assertThat(failures).as("routes answering unexpectedly").isZero();
+        Map<String, Double> overBudget = meterRegistry.find("expenseshare.http.sql.budget.violations").counters()
+                .stream()
+                .collect(Collectors.toMap(
+                        counter -> counter.getId().getTag("method") + " " + counter.getId().getTag("uri"),
+                        Counter::count));
+        assertThat(overBudget).as("routes over their SQL budget").isEmpty();
+
+        List<String> notSwept = RouteSweep.budgetedRoutes(requestMappingHandlerMapping).keySet().stream()
+                .filter(route -> {
+                    String[] methodAndUri = route.split(" ", 2);
+                    DistributionSummary statements = meterRegistry.find("expenseshare.http.sql.statements")
+                            .tag("method", methodAndUri[0]).tag("uri", methodAndUri[1]).summary();
+                    return statements == null || statements.count() == 0;
+                })
+                .toList();
+        assertThat(notSwept).as("budgeted routes the sweep never requested").isEmpty();
+    }
+}
@@ -0,0 +1,50 @@
+package com.expenseshare.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Amounts go to minor units by the currency's own number of decimals, and amounts
+ * finer than its minor unit are rejected rather than rounded.
+ */
+class MoneyTest {
+
+    @Test
+    void convertsByTheDecimalsOfTheCurrency() {
+        assertThat(Money.toMinorUnits(new BigDecimal("12.34"), "USD")).isEqualTo(1234);
+        assertThat(Money.toMinorUnits(new BigDecimal("12.340000"), "USD")).isEqualTo(1234);
+        assertThat(Money.toMinorUnits(new BigDecimal("-0.5"), "EUR")).isEqualTo(-50);
+        assertThat(Money.toMinorUnits(new BigDecimal("1500"), "JPY")).isEqualTo(1500);
+        assertThat(Money.toMinorUnits(new BigDecimal("1.234"), "KWD")).isEqualTo(1234);
+        assertThat(Money.fromMinorUnits(1234, "KWD")).isEqualByComparingTo("1.234");
+        assertThat(Money.fromMinorUnits(1500, "JPY")).isEqualByComparingTo("1500");
+    }
+
+    @Test
+    void rejectsMoreDecimalsThanTheMinorUnit() {
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.toMinorUnits(new BigDecimal("12.345"), "USD"))
+                .withMessageContaining("more decimals than USD");
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.toMinorUnits(new BigDecimal("100.5"), "JPY"));
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.toMinorUnits(new BigDecimal("1.2345"), "KWD"));
+    }
+
+    @Test
+    void rejectsAmountsBeyondALong() {
+        assertThat(Money.toMinorUnits(new BigDecimal("92233720368547758.07"), "USD")).isEqualTo(Long.MAX_VALUE);
+        assertThatThrownBy(() -> Money.toMinorUnits(new BigDecimal("92233720368547758.08"), "USD"))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void rejectsCodesThatAreNotCurrenciesOfMoney() {
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.fractionDigits("XYZ"))
+                .withMessage("Unknown currency: XYZ");
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.fractionDigits("XAU"));
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.fractionDigits(null));
+    }
+}
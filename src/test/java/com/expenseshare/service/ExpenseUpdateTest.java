@@ -0,0 +1,170 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.ExpenseSplit;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.ExpenseRepository;
+import com.expenseshare.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Editing an expense keeps the split rows of members whose share is unchanged, updates
+ * the changed ones in place, adds and removes the rest, and moves the balances by the
+ * difference.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class ExpenseUpdateTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long groupId;
+    private Long a;
+    private Long b;
+    private Long c;
+    private Long d;
+
+    @BeforeEach
+    void createGroup() {
+        List<Long> memberIds = new ArrayList<>();
+        ExpenseGroup group = new TransactionTemplate(transactionManager).execute(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(0, 4)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            ExpenseGroup created = groupService.createGroup("Expense edits", null, "INR", users.get(0));
+            users.subList(1, users.size()).forEach(user -> groupService.addMember(created.getId(), user));
+            return created;
+        });
+        groupId = group.getId();
+        a = memberIds.get(0);
+        b = memberIds.get(1);
+        c = memberIds.get(2);
+        d = memberIds.get(3);
+    }
+
+    @Test
+    void keepsUnchangedSplitRowsAndReplacesOnlyTheRest() {
+        Expense expense = expenseService.addExpense(exact(a, "100.00", Map.of(a, "30.00", b, "30.00", c, "40.00")));
+        Map<Long, ExpenseSplit> before = splits(expense.getId());
+
+        expenseService.updateExpense(expense.getId(), exact(a, "100.00", Map.of(a, "30.00", b, "50.00", d, "20.00")),
+                a);
+
+        Map<Long, ExpenseSplit> after = splits(expense.getId());
+        assertThat(after).containsOnlyKeys(a, b, d);
+        assertThat(after.get(a).getId()).isEqualTo(before.get(a).getId());
+        assertThat(after.get(a).getAmount()).isEqualByComparingTo("30.00");
+        assertThat(after.get(b).getId()).isEqualTo(before.get(b).getId());
+        assertThat(after.get(b).getAmount()).isEqualByComparingTo("50.00");
+        assertThat(after.get(d).getId()).isNotIn(before.values().stream().map(ExpenseSplit::getId).toList());
+        assertThat(after.get(d).getAmount()).isEqualByComparingTo("20.00");
+
+        assertThat(netBalances()).containsExactlyEntriesOf(nets("70.00", "-50.00", "0.00", "-20.00"));
+    }
+
+    @Test
+    void switchesBetweenPackedAndStoredSplits() {
+        Expense expense = expenseService.addExpense(exact(a, "90.00", Map.of(b, "45.00", c, "45.00")));
+
+        // Equal splits are stored inline, so the split rows go
+        expenseService.updateExpense(expense.getId(), ExpenseDTO.builder()
+                .groupId(groupId)
+                .description("Edited expense")
+                .amount(new BigDecimal("90.00"))
+                .paidById(a)
+                .splitType(SplitType.EQUAL)
+                .splitAmongUserIds(List.of(a, b, c))
+                .build(), a);
+        assertThat(splits(expense.getId())).isEmpty();
+        assertThat(expenseRepository.findById(expense.getId()).orElseThrow().getParticipantCount()).isEqualTo(3);
+        assertThat(netBalances()).containsExactlyEntriesOf(nets("60.00", "-30.00", "-30.00", "0.00"));
+
+        expenseService.updateExpense(expense.getId(), ExpenseDTO.builder()
+                .groupId(groupId)
+                .description("Edited expense")
+                .amount(new BigDecimal("90.00"))
+                .paidById(b)
+                .splitType(SplitType.PERCENTAGE)
+                .percentages(Map.of(c, new BigDecimal("50"), d, new BigDecimal("50")))
+                .build(), a);
+        Map<Long, ExpenseSplit> after = splits(expense.getId());
+        assertThat(after).containsOnlyKeys(c, d);
+        assertThat(after.get(c).getPercentage()).isEqualByComparingTo("50");
+        assertThat(expenseRepository.findById(expense.getId()).orElseThrow().isPacked()).isFalse();
+        assertThat(netBalances()).containsExactlyEntriesOf(nets("0.00", "90.00", "-45.00", "-45.00"));
+    }
+
+    private ExpenseDTO exact(Long payerId, String amount, Map<Long, String> shares) {
+        Map<Long, BigDecimal> exactAmounts = new LinkedHashMap<>();
+        new TreeMap<>(shares).forEach((userId, share) -> exactAmounts.put(userId, new BigDecimal(share)));
+        return ExpenseDTO.builder()
+                .groupId(groupId)
+                .description("Edited expense")
+                .amount(new BigDecimal(amount))
+                .paidById(payerId)
+                .splitType(SplitType.EXACT)
+                .exactAmounts(exactAmounts)
+                .build();
+    }
+
+    private Map<Long, ExpenseSplit> splits(Long expenseId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Map<Long, ExpenseSplit> byUser = new TreeMap<>();
+            for (ExpenseSplit split : expenseRepository.findByIdWithSplits(expenseId).getSplits()) {
+                byUser.put(split.getUser().getId(), split);
+            }
+            return byUser;
+        });
+    }
+
+    private Map<Long, BigDecimal> netBalances() {
+        Map<Long, BigDecimal> nets = new LinkedHashMap<>();
+        for (Long userId : List.of(a, b, c, d)) {
+            nets.put(userId, balanceService.getUserBalanceInGroup(userId, groupId).getNetBalance().setScale(2));
+        }
+        return nets;
+    }
+
+    private Map<Long, BigDecimal> nets(String netA, String netB, String netC, String netD) {
+        Map<Long, BigDecimal> nets = new LinkedHashMap<>();
+        nets.put(a, new BigDecimal(netA));
+        nets.put(b, new BigDecimal(netB));
+        nets.put(c, new BigDecimal(netC));
+        nets.put(d, new BigDecimal(netD));
+        return nets;
+    }
+}
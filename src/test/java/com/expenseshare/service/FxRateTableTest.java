@@ -0,0 +1,92 @@
+package com.expenseshare.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Conversions round each amount half away from zero, scale between minor units of
+ * different sizes, use the latest rate on or before the day, and give the same result
+ * on the slow path for amounts whose product would overflow a long.
+ */
+class FxRateTableTest {
+
+    private static final String RATES = """
+            date,currency,rate
+            # units per euro
+            2024-01-01,USD,1.10
+            2024-02-01,USD,1.20
+            2024-01-01,JPY,160.5
+            2024-01-01,GBP,0.85
+            """;
+
+    private static final LocalDate JANUARY = LocalDate.of(2024, 1, 15);
+
+    private final FxRateTable table = table("USD");
+
+    @Test
+    void roundsEachAmountHalfAwayFromZero() {
+        // 1.10 cents per euro cent: 5 -> 5.5, 15 -> 16.5, 4 -> 4.4
+        assertThat(table.convert(new long[]{5, -5, 15, 4, -4, 0}, "EUR", "USD", JANUARY))
+                .containsExactly(6, -6, 17, 4, -4, 0);
+    }
+
+    @Test
+    void scalesBetweenMinorUnitsOfDifferentSizes() {
+        // 1 euro is 160.5 yen, which has no minor unit
+        assertThat(table.convert(new long[]{100, 1}, "EUR", "JPY", JANUARY)).containsExactly(161, 2);
+        assertThat(table.convert(new long[]{161}, "JPY", "EUR", JANUARY)).containsExactly(100);
+    }
+
+    @Test
+    void usesTheLatestRateOnOrBeforeTheDay() {
+        long[] euro = {100};
+        assertThat(table.convert(euro, "EUR", "USD", LocalDate.of(2023, 6, 1))).containsExactly(110);
+        assertThat(table.convert(euro, "EUR", "USD", LocalDate.of(2024, 1, 31))).containsExactly(110);
+        assertThat(table.convert(euro, "EUR", "USD", LocalDate.of(2024, 2, 1))).containsExactly(120);
+        assertThat(table.convert(euro, "EUR", "USD", LocalDate.of(2025, 1, 1))).containsExactly(120);
+    }
+
+    @Test
+    void convertsAmountsPastTheFixedPointRangeOnTheSlowPath() {
+        long[] amounts = {Long.MAX_VALUE / 1000, -Long.MAX_VALUE / 1000, 8_384_883_669L, 8_384_883_670L, 1L << 40};
+        long[] converted = table.convert(amounts, "EUR", "USD", JANUARY);
+        for (int i = 0; i < amounts.length; i++) {
+            assertThat(converted[i]).as("amount %d", amounts[i]).isEqualTo(
+                    BigDecimal.valueOf(amounts[i]).multiply(new BigDecimal("1.10"))
+                            .setScale(0, RoundingMode.HALF_UP).longValueExact());
+        }
+    }
+
+    @Test
+    void rejectsAResultThatDoesNotFitALong() {
+        assertThatThrownBy(() -> table.convert(new long[]{Long.MAX_VALUE}, "EUR", "USD", JANUARY))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void copiesAmountsOfTheSameCurrency() {
+        long[] amounts = {1, 2, 3};
+        long[] converted = table.convert(amounts, "GBP", "GBP", JANUARY);
+        assertThat(converted).containsExactly(1, 2, 3).isNotSameAs(amounts);
+    }
+
+    @Test
+    void onlyCurrenciesWithCentsCanBeBaseCurrencies() {
+        assertThat(table.supportedCurrencies()).containsExactly("EUR", "GBP", "JPY", "USD");
+        assertThat(table.baseCurrencies()).containsExactly("EUR", "GBP", "USD");
+        assertThatIllegalStateException().isThrownBy(() -> table("JPY"));
+    }
+
+    private static FxRateTable table(String defaultCurrency) {
+        return new FxRateTable(new ByteArrayResource(RATES.getBytes(StandardCharsets.UTF_8)), defaultCurrency);
+    }
+}
@@ -0,0 +1,231 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.dto.SettlementDTO;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.GroupRepository;
+import com.expenseshare.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Thousands of expenses and settlements written to several groups from many threads at
+ * once must all land: each group's ledger version counts every write to it, its members'
+ * balances add up to all of them and to zero. A group's writes wait for each other, while
+ * a write to another group goes ahead.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class GroupWriteGuardConcurrencyTest {
+
+    private static final int GROUPS = 6;
+    private static final int MEMBERS = 4;
+    private static final int WRITES_PER_GROUP = 400;
+    private static final int THREADS = 16;
+
+    private static final BigDecimal EXPENSE_AMOUNT = new BigDecimal("40.00");
+    private static final BigDecimal SETTLEMENT_AMOUNT = new BigDecimal("3.00");
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private GroupWriteGuard groupWriteGuard;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentWritesToSeveralGroupsAreAllApplied() throws Exception {
+        // Members join the way a request adds them, with their groups loaded in one session. Neighbouring
+        // groups share members, so writes to different groups also meet on the members' totals
+        Map<Long, List<Long>> membersByGroup = new TreeMap<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(0, GROUPS + MEMBERS)).getContent();
+            for (int g = 0; g < GROUPS; g++) {
+                List<User> members = users.subList(g, g + MEMBERS);
+                ExpenseGroup created = groupService.createGroup("Concurrent writes " + g, null, "INR",
+                        members.get(0));
+                members.subList(1, MEMBERS).forEach(user -> groupService.addMember(created.getId(), user));
+                membersByGroup.put(created.getId(), members.stream().map(User::getId).toList());
+            }
+        });
+        Map<Long, Long> versionsBefore = new HashMap<>();
+        membersByGroup.keySet().forEach(groupId ->
+                versionsBefore.put(groupId, groupRepository.findLedgerVersion(groupId).orElseThrow()));
+
+        // Per group, even writes: an expense split equally among everyone; odd ones: a settlement to the
+        // next member. The groups' writes are interleaved
+        Map<Long, Map<Long, BigDecimal>> expected = new HashMap<>();
+        BigDecimal share = EXPENSE_AMOUNT.divide(BigDecimal.valueOf(MEMBERS));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Object>> writes = new ArrayList<>();
+        for (int i = 0; i < WRITES_PER_GROUP; i++) {
+            for (Map.Entry<Long, List<Long>> group : membersByGroup.entrySet()) {
+                Long groupId = group.getKey();
+                List<Long> memberIds = group.getValue();
+                Map<Long, BigDecimal> nets = expected.computeIfAbsent(groupId, id -> new HashMap<>());
+                Long payerId = memberIds.get(i % MEMBERS);
+                if (i % 2 == 0) {
+                    memberIds.forEach(id -> nets.merge(id, share.negate(), BigDecimal::add));
+                    nets.merge(payerId, EXPENSE_AMOUNT, BigDecimal::add);
+                    ExpenseDTO expense = ExpenseDTO.builder()
+                            .groupId(groupId)
+                            .description("Concurrent expense " + i)
+                            .amount(EXPENSE_AMOUNT)
+                            .paidById(payerId)
+                            .splitType(SplitType.EQUAL)
+                            .splitAmongUserIds(memberIds)
+                            .build();
+                    writes.add(() -> {
+                        start.await();
+                        return expenseService.addExpense(expense);
+                    });
+                } else {
+                    Long payeeId = memberIds.get((i + 1) % MEMBERS);
+                    nets.merge(payerId, SETTLEMENT_AMOUNT, BigDecimal::add);
+                    nets.merge(payeeId, SETTLEMENT_AMOUNT.negate(), BigDecimal::add);
+                    SettlementDTO settlement = SettlementDTO.builder()
+                            .groupId(groupId)
+                            .payerId(payerId)
+                            .payeeId(payeeId)
+                            .amount(SETTLEMENT_AMOUNT)
+                            .build();
+                    writes.add(() -> {
+                        start.await();
+                        return settlementService.recordSettlement(settlement);
+                    });
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            writes.forEach(write -> results.add(executor.submit(write)));
+            start.countDown();
+            for (Future<Object> result : results) {
+                result.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Map.Entry<Long, List<Long>> group : membersByGroup.entrySet()) {
+            Long groupId = group.getKey();
+            assertThat(groupRepository.findLedgerVersion(groupId).orElseThrow())
+                    .as("ledger version of group %d", groupId)
+                    .isEqualTo(versionsBefore.get(groupId) + WRITES_PER_GROUP);
+            BigDecimal sum = BigDecimal.ZERO;
+            for (Long memberId : group.getValue()) {
+                BigDecimal net = balanceService.getUserBalanceInGroup(memberId, groupId).getNetBalance();
+                assertThat(net)
+                        .as("net balance of user %d in group %d", memberId, groupId)
+                        .isEqualByComparingTo(expected.get(groupId).get(memberId));
+                sum = sum.add(net);
+            }
+            assertThat(sum).as("net balances of group %d", groupId).isEqualByComparingTo(BigDecimal.ZERO);
+        }
+    }
+
+    @Test
+    void aWriteToAnotherGroupDoesNotWaitForALockedGroup() throws Exception {
+        List<Long> memberIds = new ArrayList<>();
+        List<Long> groupIds = new TransactionTemplate(transactionManager).execute(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(0, 2)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            List<Long> ids = new ArrayList<>();
+            for (String name : List.of("Locked group", "Other group")) {
+                ExpenseGroup created = groupService.createGroup(name, null, "INR", users.get(0));
+                groupService.addMember(created.getId(), users.get(1));
+                ids.add(created.getId());
+            }
+            return ids;
+        });
+        Long lockedGroupId = groupIds.get(0);
+        Long otherGroupId = groupIds.get(1);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // A write to the first group that holds its lock until released
+            Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> {
+                        groupWriteGuard.lock(lockedGroupId);
+                        locked.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Future<Object> sameGroup = executor.submit(() -> expenseService.addExpense(expense(lockedGroupId,
+                    memberIds)));
+            Future<Object> otherGroup = executor.submit(() -> expenseService.addExpense(expense(otherGroupId,
+                    memberIds)));
+
+            assertThat(otherGroup.get(10, TimeUnit.SECONDS)).isNotNull();
+            assertThatThrownBy(() -> sameGroup.get(500, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+            assertThat(sameGroup.get(10, TimeUnit.SECONDS)).isNotNull();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExpenseDTO expense(Long groupId, List<Long> memberIds) {
+        return ExpenseDTO.builder()
+                .groupId(groupId)
+                .description("Lunch")
+                .amount(EXPENSE_AMOUNT)
+                .paidById(memberIds.get(0))
+                .splitType(SplitType.EQUAL)
+                .splitAmongUserIds(memberIds)
+                .build();
+    }
+}
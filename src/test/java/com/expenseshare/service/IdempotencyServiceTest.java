@@ -0,0 +1,92 @@
+package com.expenseshare.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Duplicates of a submission get the first result back without running the action again;
+ * a failed submission, whether it failed with an exception or an Error, is forgotten so
+ * that a retry runs it, and duplicates waiting on it fail with it instead of hanging.
+ */
+@Timeout(value = 30, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+class IdempotencyServiceTest {
+
+    private IdempotencyService service;
+
+    @BeforeEach
+    void createService() {
+        service = new IdempotencyService();
+        ReflectionTestUtils.setField(service, "ttlMinutes", 10L);
+    }
+
+    @Test
+    void replaysTheFirstResult() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThat(service.execute("expense", "key", runs::incrementAndGet)).isEqualTo(1);
+        assertThat(service.execute("expense", "key", runs::incrementAndGet)).isEqualTo(1);
+        assertThat(service.execute("settlement", "key", runs::incrementAndGet)).isEqualTo(2);
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void forgetsActionsThatFailed() {
+        assertThatThrownBy(() -> service.execute("expense", "key", () -> {
+            throw new IllegalStateException("rejected");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(service.execute("expense", "key", () -> "retried")).isEqualTo("retried");
+
+        assertThatThrownBy(() -> service.execute("expense", "other", () -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+        assertThat(service.execute("expense", "other", () -> "retried")).isEqualTo("retried");
+    }
+
+    @Test
+    void aDuplicateWaitingOnAnActionThatFailsWithAnErrorGetsTheError() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(() -> service.execute("expense", "key", () -> {
+                running.countDown();
+                await(fail);
+                throw new OutOfMemoryError("simulated");
+            }));
+            assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<Object> duplicate = executor.submit(() -> service.execute("expense", "key", () -> "ran twice"));
+            fail.countDown();
+
+            assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(OutOfMemoryError.class);
+            // Either it waited on the failed action, or it arrived after it was forgotten and ran
+            try {
+                assertThat(duplicate.get(10, TimeUnit.SECONDS)).isEqualTo("ran twice");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(OutOfMemoryError.class);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
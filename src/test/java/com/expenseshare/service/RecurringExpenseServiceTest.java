@@ -0,0 +1,177 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.Recurrence;
+import com.expenseshare.model.RecurringExpense;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.RecurringExpenseRepository;
+import com.expenseshare.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The scheduler posts each due occurrence of a recurring expense exactly once, dated at
+ * its run, even when several runs claim templates at the same time; after an outage it
+ * posts only the latest missed occurrences, and it stops templates shared with a member
+ * who has left.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class RecurringExpenseServiceTest {
+
+    private static final int MAX_CATCH_UP = 12;
+    private static final int RUNNERS = 4;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long groupId;
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void createGroup() {
+        ExpenseGroup group = new TransactionTemplate(transactionManager).execute(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(0, 3)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            ExpenseGroup created = groupService.createGroup("Recurring expenses", null, "INR", users.get(0));
+            users.subList(1, users.size()).forEach(user -> groupService.addMember(created.getId(), user));
+            return created;
+        });
+        groupId = group.getId();
+    }
+
+    @Test
+    void postsOnlyTheLatestMissedOccurrencesAndMovesTheNextRunPastNow() {
+        RecurringExpense template = addRecurring("Rent", memberIds);
+        LocalDateTime nextRun = template.getNextRunAt();
+        // Missed twenty weekly runs
+        rewind(template.getId(), nextRun.minusWeeks(20));
+
+        recurringExpenseService.postDueOccurrences();
+
+        List<LocalDateTime> expected = IntStream.rangeClosed(1, MAX_CATCH_UP)
+                .mapToObj(weeks -> nextRun.minusWeeks(MAX_CATCH_UP + 1 - weeks))
+                .toList();
+        assertThat(occurrences("Rent")).containsExactlyElementsOf(expected);
+        assertThat(recurringExpenseRepository.findById(template.getId()).orElseThrow().getNextRunAt())
+                .isEqualTo(nextRun);
+
+        recurringExpenseService.postDueOccurrences();
+        assertThat(occurrences("Rent")).hasSize(MAX_CATCH_UP);
+    }
+
+    @Test
+    void concurrentRunsPostEachOccurrenceOnce() throws Exception {
+        Map<String, LocalDateTime> nextRuns = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            RecurringExpense template = addRecurring("Gym " + i, memberIds);
+            nextRuns.put(template.getDescription(), template.getNextRunAt());
+            rewind(template.getId(), template.getNextRunAt().minusWeeks(2));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(RUNNERS);
+        try {
+            List<Future<Integer>> runs = new ArrayList<>();
+            for (int i = 0; i < RUNNERS; i++) {
+                Callable<Integer> run = () -> {
+                    start.await();
+                    return recurringExpenseService.postDueOccurrences();
+                };
+                runs.add(executor.submit(run));
+            }
+            start.countDown();
+            for (Future<Integer> run : runs) {
+                run.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        nextRuns.forEach((description, nextRun) -> assertThat(occurrences(description))
+                .as(description)
+                .containsExactly(nextRun.minusWeeks(2), nextRun.minusWeeks(1)));
+    }
+
+    @Test
+    void stopsATemplateSharedWithAMemberWhoLeft() {
+        RecurringExpense template = addRecurring("Streaming", memberIds);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> groupService.removeMember(groupId, memberIds.get(2)));
+        rewind(template.getId(), template.getNextRunAt().minusWeeks(1));
+
+        recurringExpenseService.postDueOccurrences();
+
+        assertThat(recurringExpenseRepository.findById(template.getId())).isEmpty();
+        assertThat(occurrences("Streaming")).isEmpty();
+    }
+
+    private RecurringExpense addRecurring(String description, List<Long> among) {
+        ExpenseDTO dto = ExpenseDTO.builder()
+                .groupId(groupId)
+                .description(description)
+                .amount(new BigDecimal("30.00"))
+                .paidById(memberIds.get(0))
+                .splitType(SplitType.EQUAL)
+                .splitAmongUserIds(among)
+                .build();
+        return recurringExpenseService.addRecurringExpense(dto, Recurrence.WEEKLY, memberIds.get(0));
+    }
+
+    private void rewind(Long templateId, LocalDateTime nextRunAt) {
+        jdbcTemplate.update("UPDATE recurring_expenses SET next_run_at = ? WHERE id = ?",
+                Timestamp.valueOf(nextRunAt), templateId);
+    }
+
+    /**
+     * Creation times of the posted occurrences, oldest first, leaving out the first
+     * expense that started the template.
+     */
+    private List<LocalDateTime> occurrences(String description) {
+        List<LocalDateTime> createdAt = jdbcTemplate.queryForList(
+                "SELECT created_at FROM expenses WHERE group_id = ? AND description = ? ORDER BY created_at",
+                Timestamp.class, groupId, description).stream().map(Timestamp::toLocalDateTime).toList();
+        return createdAt.subList(0, createdAt.size() - 1);
+    }
+}
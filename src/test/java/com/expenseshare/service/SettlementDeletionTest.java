@@ -0,0 +1,149 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.dto.SettlementDTO;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.Settlement;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A settlement is deleted under the lock of the group named by the request, from its
+ * state as read under that lock: deletes racing on one settlement reverse it once, and a
+ * settlement of another group is left alone.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class SettlementDeletionTest {
+
+    private static final int DELETERS = 4;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> groupIds = new ArrayList<>();
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void createGroups() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(2, 2)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            for (String name : List.of("Settlement deletes", "Other group")) {
+                ExpenseGroup group = groupService.createGroup(name, null, "INR", users.get(0));
+                groupService.addMember(group.getId(), users.get(1));
+                groupIds.add(group.getId());
+            }
+        });
+        expenseService.addExpense(ExpenseDTO.builder()
+                .groupId(groupIds.get(0))
+                .description("Concert")
+                .amount(new BigDecimal("100.00"))
+                .paidById(memberIds.get(0))
+                .splitType(SplitType.EQUAL)
+                .splitAmongUserIds(memberIds)
+                .build());
+    }
+
+    @Test
+    void racingDeletesReverseTheSettlementOnce() throws Exception {
+        Map<Long, BigDecimal> before = nets();
+        Settlement settlement = settle(groupIds.get(0));
+
+        // Each deleter reads the settlement first, like the request does before the service locks
+        CyclicBarrier allRead = new CyclicBarrier(DELETERS);
+        ExecutorService executor = Executors.newFixedThreadPool(DELETERS);
+        try {
+            List<Future<?>> deletes = new ArrayList<>();
+            for (int i = 0; i < DELETERS; i++) {
+                deletes.add(executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                        status -> {
+                            assertThat(settlementService.findById(settlement.getId())).isPresent();
+                            await(allRead);
+                            settlementService.deleteSettlement(settlement.getId(), groupIds.get(0));
+                        })));
+            }
+            for (Future<?> delete : deletes) {
+                delete.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(settlementService.findById(settlement.getId())).isEmpty();
+        assertThat(nets()).containsExactlyEntriesOf(before);
+    }
+
+    @Test
+    void leavesASettlementOfAnotherGroupAlone() {
+        Settlement settlement = settle(groupIds.get(0));
+        Map<Long, BigDecimal> settled = nets();
+
+        settlementService.deleteSettlement(settlement.getId(), groupIds.get(1));
+
+        assertThat(settlementService.findById(settlement.getId())).isPresent();
+        assertThat(nets()).containsExactlyEntriesOf(settled);
+    }
+
+    private Settlement settle(Long groupId) {
+        return settlementService.recordSettlement(SettlementDTO.builder()
+                .groupId(groupId)
+                .payerId(memberIds.get(1))
+                .payeeId(memberIds.get(0))
+                .amount(new BigDecimal("50.00"))
+                .build());
+    }
+
+    private Map<Long, BigDecimal> nets() {
+        Map<Long, BigDecimal> nets = new LinkedHashMap<>();
+        for (Long userId : memberIds) {
+            nets.put(userId, balanceService.getUserBalanceInGroup(userId, groupIds.get(0)).getNetBalance().setScale(2));
+        }
+        return nets;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
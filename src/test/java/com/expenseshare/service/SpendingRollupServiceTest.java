@@ -0,0 +1,152 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.Recurrence;
+import com.expenseshare.model.RecurringExpense;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The rollups kept up to date by expense writes, edits and deletions are the rollups the
+ * startup backfill builds from the expenses, row for row; rows back at zero are removed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class SpendingRollupServiceTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+
+    @Autowired
+    private SpendingRollupService rollupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long groupId;
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void createGroup() {
+        ExpenseGroup group = new TransactionTemplate(transactionManager).execute(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(0, 3)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            ExpenseGroup created = groupService.createGroup("Spending rollups", null, "INR", users.get(0));
+            users.subList(1, users.size()).forEach(user -> groupService.addMember(created.getId(), user));
+            return created;
+        });
+        groupId = group.getId();
+    }
+
+    @Test
+    void incrementalRollupsMatchTheBackfill() {
+        Long a = memberIds.get(0);
+        Long b = memberIds.get(1);
+        Long c = memberIds.get(2);
+        expenseService.addExpense(dto(a, "90.00", SplitType.EQUAL).splitAmongUserIds(memberIds).build());
+        Expense exact = expenseService.addExpense(dto(b, "50.00", SplitType.EXACT)
+                .exactAmounts(Map.of(a, new BigDecimal("20.00"), c, new BigDecimal("30.00"))).build());
+        Expense percentage = expenseService.addExpense(dto(c, "40.00", SplitType.PERCENTAGE)
+                .percentages(Map.of(a, new BigDecimal("25"), b, new BigDecimal("75"))).build());
+        // Back-dated occurrences, across day and month buckets
+        RecurringExpense rent = recurringExpenseService.addRecurringExpense(
+                dto(a, "10.00", SplitType.EQUAL).splitAmongUserIds(List.of(a, b)).build(), Recurrence.WEEKLY, a);
+        jdbcTemplate.update("UPDATE recurring_expenses SET next_run_at = ? WHERE id = ?",
+                Timestamp.valueOf(rent.getNextRunAt().minusWeeks(10)), rent.getId());
+        recurringExpenseService.postDueOccurrences();
+
+        expenseService.updateExpense(exact.getId(), dto(a, "66.00", SplitType.EQUAL)
+                .splitAmongUserIds(List.of(b, c)).build(), a);
+        expenseService.deleteExpense(percentage.getId(), groupId);
+
+        Map<String, List<BigDecimal>> incremental = rollups();
+        LocalDate today = LocalDate.now();
+        // Today: the equal split, the edited one now paid by a, the first rent expense and its last occurrence
+        assertThat(incremental.get(key("DAY", today, a, "EQUAL")))
+                .containsExactly(new BigDecimal("176.00"), new BigDecimal("40.00"), BigDecimal.valueOf(4));
+        assertThat(incremental).doesNotContainKeys(key("DAY", today, b, "EXACT"), key("DAY", today, c, "PERCENTAGE"));
+        String firstRentMonth = "MONTH " + today.minusWeeks(9).withDayOfMonth(1);
+        assertThat(incremental.keySet()).anyMatch(key -> key.startsWith(firstRentMonth));
+
+        jdbcTemplate.update("DELETE FROM spending_rollups WHERE group_id = ?", groupId);
+        jdbcTemplate.update("DELETE FROM spending_rollup_groups WHERE group_id = ?", groupId);
+        rollupService.buildMissing();
+
+        assertThat(rollups()).containsExactlyEntriesOf(incremental);
+    }
+
+    @Test
+    void removesRowsBackAtZero() {
+        Expense expense = expenseService.addExpense(dto(memberIds.get(0), "12.00", SplitType.EQUAL)
+                .splitAmongUserIds(memberIds).build());
+        assertThat(rollups()).hasSize(2 * memberIds.size());
+
+        expenseService.deleteExpense(expense.getId(), groupId);
+
+        assertThat(rollups()).isEmpty();
+    }
+
+    private ExpenseDTO.ExpenseDTOBuilder dto(Long payerId, String amount, SplitType splitType) {
+        return ExpenseDTO.builder()
+                .groupId(groupId)
+                .description("Rollup expense")
+                .amount(new BigDecimal(amount))
+                .paidById(payerId)
+                .splitType(splitType);
+    }
+
+    /**
+     * The group's rollup rows as paid amount, share amount and expense count, by
+     * granularity, bucket, user and split type.
+     */
+    private Map<String, List<BigDecimal>> rollups() {
+        Map<String, List<BigDecimal>> rows = new TreeMap<>();
+        jdbcTemplate.query("SELECT granularity, bucket_start, user_id, split_type, paid_amount, share_amount, "
+                + "expense_count FROM spending_rollups WHERE group_id = ?", rs -> {
+                    rows.put(key(rs.getString("granularity"), rs.getDate("bucket_start").toLocalDate(),
+                            rs.getLong("user_id"), rs.getString("split_type")),
+                            List.of(rs.getBigDecimal("paid_amount").setScale(2),
+                                    rs.getBigDecimal("share_amount").setScale(2),
+                                    BigDecimal.valueOf(rs.getInt("expense_count"))));
+                }, groupId);
+        return rows;
+    }
+
+    private static String key(String granularity, LocalDate bucketStart, Long userId, String splitType) {
+        return granularity + " " + bucketStart + " " + userId + " " + splitType;
+    }
+}
@@ -0,0 +1,160 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.dto.SettlementDTO;
+import com.expenseshare.dto.UserBalanceSummary;
+import com.expenseshare.model.Expense;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The per-user totals kept by the ledger writes match a recomputation over the user's
+ * groups in every currency, through expenses, edits, deletions, settlements and members
+ * leaving; totals that drifted are repaired by a rebuild.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class UserBalanceServiceTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private UserBalanceService userBalanceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> memberIds = new ArrayList<>();
+    private Long rupeeGroupId;
+    private Long dollarGroupId;
+
+    @BeforeEach
+    void createGroups() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(1, 3)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            for (String currency : List.of("INR", "USD")) {
+                ExpenseGroup group = groupService.createGroup("Totals in " + currency, null, currency, users.get(0));
+                users.subList(1, users.size()).forEach(user -> groupService.addMember(group.getId(), user));
+                if (currency.equals("INR")) {
+                    rupeeGroupId = group.getId();
+                } else {
+                    dollarGroupId = group.getId();
+                }
+            }
+        });
+    }
+
+    @Test
+    void totalsMatchARecomputationInEveryCurrency() {
+        Long a = memberIds.get(0);
+        Long b = memberIds.get(1);
+        Long c = memberIds.get(2);
+        addExpense(rupeeGroupId, a, "300.00");
+        Expense dinner = addExpense(dollarGroupId, b, "60.00");
+        Expense taxi = addExpense(dollarGroupId, c, "15.00");
+        assertTotalsMatch();
+
+        expenseService.updateExpense(dinner.getId(), ExpenseDTO.builder()
+                .groupId(dollarGroupId)
+                .description("Edited")
+                .amount(new BigDecimal("45.00"))
+                .paidById(a)
+                .splitType(SplitType.EXACT)
+                .exactAmounts(Map.of(b, new BigDecimal("20.00"), c, new BigDecimal("25.00")))
+                .build(), a);
+        expenseService.deleteExpense(taxi.getId(), dollarGroupId);
+        settlementService.recordSettlement(SettlementDTO.builder()
+                .groupId(rupeeGroupId)
+                .payerId(c)
+                .payeeId(a)
+                .amount(new BigDecimal("100.00"))
+                .build());
+        assertTotalsMatch();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> groupService.removeMember(rupeeGroupId, b));
+        assertTotalsMatch();
+    }
+
+    @Test
+    void rebuildRepairsTotalsThatDrifted() {
+        Long a = memberIds.get(0);
+        addExpense(rupeeGroupId, a, "90.00");
+        jdbcTemplate.update("UPDATE user_balances SET total_owed = total_owed + 5 WHERE user_id = ? "
+                + "AND currency = 'INR'", a);
+
+        assertThat(userBalanceService.rebuild(a)).isTrue();
+        assertTotalsMatch();
+        assertThat(userBalanceService.rebuild(a)).isFalse();
+    }
+
+    private Expense addExpense(Long groupId, Long payerId, String amount) {
+        return expenseService.addExpense(ExpenseDTO.builder()
+                .groupId(groupId)
+                .description("Totals expense")
+                .amount(new BigDecimal(amount))
+                .paidById(payerId)
+                .splitType(SplitType.EQUAL)
+                .splitAmongUserIds(memberIds)
+                .build());
+    }
+
+    private void assertTotalsMatch() {
+        for (Long userId : memberIds) {
+            Map<String, List<BigDecimal>> expected = new TreeMap<>();
+            for (UserBalanceSummary.CurrencyTotals total : balanceService.getUserOverallBalance(userId).getTotals()) {
+                if (total.getTotalOwed().signum() != 0 || total.getTotalOwing().signum() != 0) {
+                    expected.put(total.getCurrency(), totals(total.getTotalOwed(), total.getTotalOwing()));
+                }
+            }
+            Map<String, List<BigDecimal>> stored = new TreeMap<>();
+            jdbcTemplate.query("SELECT currency, total_owed, total_owing FROM user_balances WHERE user_id = ?", rs -> {
+                List<BigDecimal> totals = totals(rs.getBigDecimal("total_owed"), rs.getBigDecimal("total_owing"));
+                if (totals.get(0).signum() != 0 || totals.get(1).signum() != 0) {
+                    stored.put(rs.getString("currency"), totals);
+                }
+            }, userId);
+            assertThat(stored).as("totals of user %d", userId).containsExactlyEntriesOf(expected);
+        }
+    }
+
+    private static List<BigDecimal> totals(BigDecimal owed, BigDecimal owing) {
+        return List.of(owed.setScale(2), owing.setScale(2));
+    }
+}
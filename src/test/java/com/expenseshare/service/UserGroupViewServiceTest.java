@@ -0,0 +1,155 @@
+package com.expenseshare.service;
+
+import com.expenseshare.dto.ExpenseDTO;
+import com.expenseshare.dto.SettlementDTO;
+import com.expenseshare.model.ExpenseGroup;
+import com.expenseshare.model.SplitType;
+import com.expenseshare.model.User;
+import com.expenseshare.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * The per-user group rows follow every ledger and group change once the background
+ * rebuild has run, and rows left behind by changes the application did not see are
+ * rebuilt by the startup reconcile.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"seed", "embedded", "test"})
+class UserGroupViewServiceTest {
+
+    private static final Duration SETTLE = Duration.ofSeconds(10);
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private UserGroupViewService viewService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long groupId;
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void createGroup() {
+        ExpenseGroup group = new TransactionTemplate(transactionManager).execute(status -> {
+            List<User> users = userRepository.findAll(PageRequest.of(0, 4)).getContent();
+            users.forEach(user -> memberIds.add(user.getId()));
+            ExpenseGroup created = groupService.createGroup("Group views", null, "INR", users.get(0));
+            users.subList(1, 3).forEach(user -> groupService.addMember(created.getId(), user));
+            return created;
+        });
+        groupId = group.getId();
+    }
+
+    @Test
+    void rowsFollowLedgerAndGroupChanges() {
+        Long a = memberIds.get(0);
+        Long b = memberIds.get(1);
+        Long c = memberIds.get(2);
+        expenseService.addExpense(ExpenseDTO.builder()
+                .groupId(groupId)
+                .description("Cabin")
+                .amount(new BigDecimal("90.00"))
+                .paidById(a)
+                .splitType(SplitType.EQUAL)
+                .splitAmongUserIds(List.of(a, b, c))
+                .build());
+        awaitRows(Map.of(a, row("Group views", 3, "60.00"), b, row("Group views", 3, "-30.00"),
+                c, row("Group views", 3, "-30.00")));
+
+        settlementService.recordSettlement(SettlementDTO.builder()
+                .groupId(groupId)
+                .payerId(b)
+                .payeeId(a)
+                .amount(new BigDecimal("30.00"))
+                .build());
+        groupService.updateGroup(groupId, "Cabin trip", null);
+        awaitRows(Map.of(a, row("Cabin trip", 3, "30.00"), b, row("Cabin trip", 3, "0.00"),
+                c, row("Cabin trip", 3, "-30.00")));
+
+        Long d = memberIds.get(3);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> groupService.addMember(groupId, userRepository.findById(d).orElseThrow()));
+        awaitRows(Map.of(a, row("Cabin trip", 4, "30.00"), b, row("Cabin trip", 4, "0.00"),
+                c, row("Cabin trip", 4, "-30.00"), d, row("Cabin trip", 4, "0.00")));
+    }
+
+    @Test
+    void reconcileRebuildsRowsOfChangesMadeWhileDown() {
+        Long a = memberIds.get(0);
+        Long b = memberIds.get(1);
+        Long c = memberIds.get(2);
+        awaitRows(Map.of(a, row("Group views", 3, "0.00"), b, row("Group views", 3, "0.00"),
+                c, row("Group views", 3, "0.00")));
+
+        // Written by another node, or before a restart: no change event here, and nothing cached yet
+        jdbcTemplate.update("UPDATE expense_groups SET name = 'Renamed elsewhere', version = version + 1 "
+                + "WHERE id = ?", groupId);
+        jdbcTemplate.update("DELETE FROM group_members WHERE group_id = ? AND user_id = ?", groupId, c);
+        entityManagerFactory.getCache().evictAll();
+
+        viewService.reconcile();
+
+        assertThat(rows()).containsExactlyEntriesOf(new TreeMap<>(Map.of(
+                a, row("Renamed elsewhere", 2, "0.00"),
+                b, row("Renamed elsewhere", 2, "0.00"))));
+    }
+
+    private void awaitRows(Map<Long, List<Object>> expected) {
+        await().atMost(SETTLE)
+                .untilAsserted(() -> assertThat(rows()).containsExactlyEntriesOf(new TreeMap<>(expected)));
+    }
+
+    /**
+     * The group's rows by user: group name, member count and net balance.
+     */
+    private Map<Long, List<Object>> rows() {
+        Map<Long, List<Object>> rows = new TreeMap<>();
+        jdbcTemplate.query("SELECT user_id, group_name, member_count, net_balance FROM user_group_views "
+                + "WHERE group_id = ?", rs -> {
+                    rows.put(rs.getLong("user_id"), List.of(rs.getString("group_name"), rs.getInt("member_count"),
+                            rs.getBigDecimal("net_balance").setScale(2)));
+                }, groupId);
+        return rows;
+    }
+
+    private static List<Object> row(String groupName, int memberCount, String netBalance) {
+        return List.of(groupName, memberCount, new BigDecimal(netBalance));
+    }
+}